@@ -1,12 +1,15 @@
 package com.onnoto.onnoto_backend.analytics.scheduler;
 
 import com.onnoto.onnoto_backend.analytics.service.ReliabilityCalculator;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Slf4j
 @Component
 @EnableScheduling
@@ -14,14 +17,17 @@ import org.springframework.stereotype.Component;
 public class AnalyticsScheduler {
 
     private final ReliabilityCalculator reliabilityCalculator;
+    private final JobLeaseService jobLeaseService;
 
     /**
      * Calculate reliability scores daily at 3 AM
      */
     @Scheduled(cron = "0 0 3 * * ?")
     public void calculateReliability() {
-        log.info("Starting scheduled reliability score calculation");
-        reliabilityCalculator.calculateAllStationReliability();
+        jobLeaseService.runExclusively("analytics.reliability", Duration.ofHours(1), () -> {
+            log.info("Starting scheduled reliability score calculation");
+            reliabilityCalculator.calculateAllStationReliability();
+        });
     }
 
     /**
@@ -29,7 +35,9 @@ public class AnalyticsScheduler {
      */
     @Scheduled(initialDelay = 60000, fixedDelay = Long.MAX_VALUE)
     public void initialReliabilityCalculation() {
-        log.info("Starting initial reliability score calculation");
-        reliabilityCalculator.calculateAllStationReliability();
+        jobLeaseService.runExclusively("analytics.initial-reliability", Duration.ofMinutes(10), () -> {
+            log.info("Starting initial reliability score calculation");
+            reliabilityCalculator.calculateAllStationReliability();
+        });
     }
 }
\ No newline at end of file
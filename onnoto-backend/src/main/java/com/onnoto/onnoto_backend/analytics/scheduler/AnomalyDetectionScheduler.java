@@ -1,25 +1,31 @@
 package com.onnoto.onnoto_backend.analytics.scheduler;
 
 import com.onnoto.onnoto_backend.analytics.service.AnomalyDetector;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class AnomalyDetectionScheduler {
 
     private final AnomalyDetector anomalyDetector;
+    private final JobLeaseService jobLeaseService;
 
     /**
      * Run anomaly detection every 2 hours
      */
     @Scheduled(cron = "0 0 */2 * * ?")
     public void detectAnomalies() {
-        log.info("Running scheduled anomaly detection");
-        anomalyDetector.detectAnomalies();
+        jobLeaseService.runExclusively("analytics.anomaly-detection", Duration.ofMinutes(30), () -> {
+            log.info("Running scheduled anomaly detection");
+            anomalyDetector.detectAnomalies();
+        });
     }
 
     /**
@@ -27,8 +33,10 @@ public class AnomalyDetectionScheduler {
      */
     @Scheduled(cron = "0 30 * * * ?")
     public void checkForResolvedAnomalies() {
-        log.info("Checking for resolved anomalies");
-        anomalyDetector.checkForResolvedAnomalies();
+        jobLeaseService.runExclusively("analytics.resolved-anomalies", Duration.ofMinutes(15), () -> {
+            log.info("Checking for resolved anomalies");
+            anomalyDetector.checkForResolvedAnomalies();
+        });
     }
 
     /**
@@ -36,7 +44,9 @@ public class AnomalyDetectionScheduler {
      */
     @Scheduled(cron = "0 0 4 * * ?")  // 4 AM daily
     public void updateReliabilityFromAnomalies() {
-        log.info("Updating reliability scores from anomalies");
-        anomalyDetector.updateReliabilityScoresFromAnomalies();
+        jobLeaseService.runExclusively("analytics.anomaly-reliability", Duration.ofHours(1), () -> {
+            log.info("Updating reliability scores from anomalies");
+            anomalyDetector.updateReliabilityScoresFromAnomalies();
+        });
     }
 }
\ No newline at end of file
@@ -28,7 +28,7 @@ public class AnomalyDetector {
      */
     public void detectAnomalies() {
         log.info("Starting anomaly detection for all stations");
-        List<Station> stations = stationRepository.findAll();
+        List<Station> stations = stationRepository.findAllCanonical();
 
         int detectedAnomalies = 0;
 
@@ -3,7 +3,6 @@ package com.onnoto.onnoto_backend.analytics.service;
 import com.onnoto.onnoto_backend.model.Anomaly;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Station;
-import com.onnoto.onnoto_backend.model.StatusHistory;
 import com.onnoto.onnoto_backend.repository.AnomalyRepository;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
 import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
@@ -15,9 +14,7 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 
 @Slf4j
 @Service
@@ -27,6 +24,7 @@ public class ExtendedDowntimeDetector {
     private final ConnectorRepository connectorRepository;
     private final StatusHistoryRepository statusHistoryRepository;
     private final AnomalyRepository anomalyRepository;
+    private final RecentStatusStore recentStatusStore;
 
     // Constants for configuration
     private static final int ANALYSIS_WINDOW_HOURS = 72;  // Look at last 72 hours
@@ -49,19 +47,16 @@ public class ExtendedDowntimeDetector {
         for (Connector connector : connectors) {
             if ("OFFLINE".equals(connector.getStatus())) {
                 // Get the most recent status changes
-                List<StatusHistory> history = statusHistoryRepository.findByConnectorAndRecordedAtBetween(
-                        connector, startTime, now);
-
-                // Sort by time, newest first
-                history.sort(Comparator.comparing(StatusHistory::getRecordedAt).reversed());
+                StatusSeries history = recentStatusStore.covers(connector.getId(), startTime)
+                        ? recentStatusStore.series(connector.getId(), startTime, now)
+                        : StatusSeries.of(statusHistoryRepository.findByConnectorAndRecordedAtBetween(
+                                connector, startTime, now));
 
                 // Find when it went offline
-                Optional<StatusHistory> offlineEvent = history.stream()
-                        .filter(h -> "OFFLINE".equals(h.getStatus()))
-                        .findFirst();
+                int offlineEvent = history.lastIndexOf("OFFLINE");
 
-                if (offlineEvent.isPresent()) {
-                    LocalDateTime offlineTime = offlineEvent.get().getRecordedAt();
+                if (offlineEvent >= 0) {
+                    LocalDateTime offlineTime = history.recordedAt(offlineEvent);
                     Duration downtime = Duration.between(offlineTime, now);
 
                     if (downtime.toHours() >= DOWNTIME_THRESHOLD_HOURS) {
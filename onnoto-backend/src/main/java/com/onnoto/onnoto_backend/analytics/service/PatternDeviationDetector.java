@@ -3,10 +3,10 @@ package com.onnoto.onnoto_backend.analytics.service;
 import com.onnoto.onnoto_backend.model.Anomaly;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Station;
-import com.onnoto.onnoto_backend.model.StatusHistory;
 import com.onnoto.onnoto_backend.repository.AnomalyRepository;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
-import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import com.onnoto.onnoto_backend.repository.StatusRollupHourlyRepository;
+import com.onnoto.onnoto_backend.repository.StatusRollupHourlyRepository.DayOfWeekCountDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -25,8 +25,9 @@ import java.util.Map;
 public class PatternDeviationDetector {
 
     private final ConnectorRepository connectorRepository;
-    private final StatusHistoryRepository statusHistoryRepository;
+    private final StatusRollupHourlyRepository statusRollupHourlyRepository;
     private final AnomalyRepository anomalyRepository;
+    private final RecentStatusStore recentStatusStore;
 
     // Constants for configuration
     private static final int ANALYSIS_WINDOW_DAYS = 14;  // Look at last 14 days
@@ -51,21 +52,22 @@ public class PatternDeviationDetector {
         // Step 1: Build historical day-of-week patterns
         Map<DayOfWeek, Map<String, Integer>> dayOfWeekPatterns = new HashMap<>();
 
-        // Step 2: Get recent status history
+        // Step 2: Get recent status changes per day of week, from memory or the hourly rollups
         for (Connector connector : connectors) {
-            List<StatusHistory> history = statusHistoryRepository.findByConnectorAndRecordedAtBetween(
-                    connector, startTime, now);
+            // Step 3: Build historical patterns
+            Map<DayOfWeek, Map<String, Integer>> expectedPattern = recentStatusStore.covers(connector.getId(), startTime)
+                    ? buildExpectedPattern(recentStatusStore.series(connector.getId(), startTime, now))
+                    : buildExpectedPattern(statusRollupHourlyRepository.countChangesByDayOfWeek(
+                            connector.getId(), startTime, now));
 
             // Skip if not enough data
-            if (history.size() < 10) {
+            int changes = expectedPattern.values().stream().mapToInt(this::sumStatusCounts).sum();
+            if (changes < 10) {
                 continue;
             }
 
-            // Step 3: Build historical patterns
-            Map<DayOfWeek, Map<String, Integer>> expectedPattern = buildExpectedPattern(history);
-
             // Step 4: Check recent days against pattern
-            boolean patternDeviation = checkPatternDeviation(connector, history, expectedPattern);
+            boolean patternDeviation = checkPatternDeviation(connector, expectedPattern);
 
             if (patternDeviation) {
                 createPatternDeviationAnomaly(station, connector);
@@ -76,7 +78,34 @@ public class PatternDeviationDetector {
         return anomaliesDetected;
     }
 
-    private Map<DayOfWeek, Map<String, Integer>> buildExpectedPattern(List<StatusHistory> history) {
+    private Map<DayOfWeek, Map<String, Integer>> buildExpectedPattern(StatusSeries history) {
+        Map<DayOfWeek, Map<String, Integer>> dayPatterns = emptyPattern();
+
+        // Count statuses by day of week
+        for (int i = 0; i < history.size(); i++) {
+            Map<String, Integer> dayCounts = dayPatterns.get(history.recordedAt(i).getDayOfWeek());
+            dayCounts.merge(history.status(i), 1, Integer::sum);
+        }
+
+        return dayPatterns;
+    }
+
+    private Map<DayOfWeek, Map<String, Integer>> buildExpectedPattern(List<DayOfWeekCountDto> counts) {
+        Map<DayOfWeek, Map<String, Integer>> dayPatterns = emptyPattern();
+
+        // Count statuses by day of week
+        for (DayOfWeekCountDto count : counts) {
+            DayOfWeek day = DayOfWeek.of(count.getDayOfWeek());
+            String status = count.getStatus();
+
+            Map<String, Integer> dayCounts = dayPatterns.get(day);
+            dayCounts.put(status, dayCounts.getOrDefault(status, 0) + (int) count.getChanges());
+        }
+
+        return dayPatterns;
+    }
+
+    private Map<DayOfWeek, Map<String, Integer>> emptyPattern() {
         Map<DayOfWeek, Map<String, Integer>> dayPatterns = new HashMap<>();
 
         // Initialize all days and statuses
@@ -88,21 +117,11 @@ public class PatternDeviationDetector {
             dayPatterns.put(day, statusCounts);
         }
 
-        // Count statuses by day of week
-        for (StatusHistory record : history) {
-            DayOfWeek day = record.getRecordedAt().getDayOfWeek();
-            String status = record.getStatus();
-
-            Map<String, Integer> dayCounts = dayPatterns.get(day);
-            dayCounts.put(status, dayCounts.getOrDefault(status, 0) + 1);
-        }
-
         return dayPatterns;
     }
 
     private boolean checkPatternDeviation(
-            Connector connector, List<StatusHistory> history,
-            Map<DayOfWeek, Map<String, Integer>> expectedPattern) {
+            Connector connector, Map<DayOfWeek, Map<String, Integer>> expectedPattern) {
 
         // For simplicity, we'll check if the recent pattern differs
         // significantly from the expected pattern
@@ -0,0 +1,269 @@
+package com.onnoto.onnoto_backend.analytics.service;
+
+import com.onnoto.onnoto_backend.events.StatusChangeEvent;
+import com.onnoto.onnoto_backend.events.StatusEventSubscriber;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The status changes of every connector over the last days, held in memory so the anomaly
+ * detectors need not read status_history for each station.
+ *
+ * Each connector has a ring buffer of epoch-second timestamps ({@code int[]}) and status codes
+ * ({@code byte[]}), five bytes per change. Rings start small and double up to a cap; a full ring
+ * drops its oldest change, and changes older than the retention are dropped as new ones arrive.
+ * 100k connectors with a few hundred changes each stay around 100 MB. A ring that dropped
+ * changes to its cap only covers the time after them, see {@link #covers}.
+ *
+ * The store is fed from the status event bus and filled from status_history once the
+ * application is ready. Until then {@link #isWarm()} is false and readers use the database.
+ * With sharded ingestion the bus only carries this node's shards, so the store never warms up.
+ */
+@Slf4j
+@Component
+public class RecentStatusStore implements StatusEventSubscriber {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Ring of one connector's changes, oldest first. The capacity is a power of two.
+     */
+    static final class ConnectorRing {
+        private int[] times = new int[INITIAL_CAPACITY];
+        private byte[] codes = new byte[INITIAL_CAPACITY];
+        private int head;
+        private int size;
+        // Every change from this time on is held; later than the retention once the cap was hit
+        private int completeFrom = Integer.MIN_VALUE;
+
+        private int slot(int index) {
+            return (head + index) & (times.length - 1);
+        }
+
+        synchronized void add(int time, byte code, int cutoff, int maxCapacity) {
+            // Drop what fell out of the retention
+            while (size > 0 && times[head] < cutoff) {
+                head = slot(1);
+                size--;
+            }
+            if (time < cutoff) {
+                return;
+            }
+
+            // Changes arrive in time order, except those replayed or loaded during warm-up
+            int position = size;
+            while (position > 0 && times[slot(position - 1)] > time) {
+                position--;
+            }
+            for (int i = position - 1; i >= 0 && times[slot(i)] == time; i--) {
+                if (codes[slot(i)] == code) {
+                    return; // Seen already
+                }
+            }
+
+            if (size == times.length) {
+                if (times.length < maxCapacity) {
+                    grow();
+                } else if (position == 0) {
+                    // Older than everything kept in a full ring
+                    completeFrom = Math.max(completeFrom, time + 1);
+                    return;
+                } else {
+                    completeFrom = Math.max(completeFrom, times[head] + 1);
+                    head = slot(1);
+                    size--;
+                    position--;
+                }
+            }
+            for (int i = size; i > position; i--) {
+                times[slot(i)] = times[slot(i - 1)];
+                codes[slot(i)] = codes[slot(i - 1)];
+            }
+            times[slot(position)] = time;
+            codes[slot(position)] = code;
+            size++;
+        }
+
+        private void grow() {
+            int[] newTimes = new int[times.length * 2];
+            byte[] newCodes = new byte[codes.length * 2];
+            for (int i = 0; i < size; i++) {
+                newTimes[i] = times[slot(i)];
+                newCodes[i] = codes[slot(i)];
+            }
+            times = newTimes;
+            codes = newCodes;
+            head = 0;
+        }
+
+        synchronized StatusSeries range(int from, int to) {
+            int first = 0;
+            while (first < size && times[slot(first)] < from) {
+                first++;
+            }
+            int end = first;
+            while (end < size && times[slot(end)] <= to) {
+                end++;
+            }
+            int[] rangeTimes = new int[end - first];
+            byte[] rangeCodes = new byte[end - first];
+            for (int i = first; i < end; i++) {
+                rangeTimes[i - first] = times[slot(i)];
+                rangeCodes[i - first] = codes[slot(i)];
+            }
+            return new StatusSeries(rangeTimes, rangeCodes);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int completeFrom() {
+            return completeFrom;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardMembership shardMembership;
+    private final Map<Long, ConnectorRing> rings = new ConcurrentHashMap<>();
+    private Clock clock = Clock.systemDefaultZone();
+    private volatile boolean warm;
+
+    @Value("${onnoto.analytics.recent-history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${onnoto.analytics.recent-history.retention-days:14}")
+    private int retentionDays;
+
+    // Rounded up to a power of two
+    @Value("${onnoto.analytics.recent-history.max-changes-per-connector:2048}")
+    private int maxChangesPerConnector;
+
+    public RecentStatusStore(JdbcTemplate jdbcTemplate, ShardMembership shardMembership) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardMembership = shardMembership;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Load the retained days of status_history. Changes published meanwhile are merged, not
+     * counted twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        if (shardMembership.isEnabled()) {
+            log.info("Sharded ingestion: other nodes' status changes never reach this node's event bus, " +
+                    "detectors keep reading the database");
+            return;
+        }
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now(clock);
+        int[] loaded = {0};
+        try {
+            // A day at a time, so a result set never holds more than a day of history
+            for (LocalDateTime from = now.minusDays(retentionDays); from.isBefore(now); from = from.plusDays(1)) {
+                jdbcTemplate.query("SELECT connector_id, status, recorded_at FROM status_history " +
+                                "WHERE recorded_at >= ? AND recorded_at < ? AND connector_id IS NOT NULL " +
+                                "ORDER BY recorded_at, id",
+                        resultSet -> {
+                            record(resultSet.getLong(1),
+                                    StatusSeries.toEpochSecond(resultSet.getTimestamp(3).toLocalDateTime()),
+                                    resultSet.getString(2));
+                            loaded[0]++;
+                        },
+                        Timestamp.valueOf(from), Timestamp.valueOf(from.plusDays(1)));
+            }
+        } catch (Exception e) {
+            log.warn("Could not load recent status history, detectors keep reading the database: {}", e.getMessage());
+            return;
+        }
+        warm = true;
+        log.info("Loaded {} status changes of {} connectors into the recent status store in {} ms",
+                loaded[0], rings.size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    @Override
+    public String getSubscriberName() {
+        return "recent-history";
+    }
+
+    @Override
+    public void onEvent(StatusChangeEvent event, boolean endOfBatch) {
+        if (!enabled || event.getConnectorId() == null) {
+            return;
+        }
+        record(event.getConnectorId(), (int) (event.getChangedAt() / 1000), event.getStatus());
+    }
+
+    void record(long connectorId, int epochSecond, String status) {
+        rings.computeIfAbsent(connectorId, id -> new ConnectorRing())
+                .add(epochSecond, StatusSeries.code(status), cutoff(), maxChangesPerConnector);
+    }
+
+    private int cutoff() {
+        return (int) (clock.instant().getEpochSecond() - Duration.ofDays(retentionDays).toSeconds());
+    }
+
+    /**
+     * Whether the store holds the full retention and can answer instead of the database.
+     */
+    public boolean isWarm() {
+        return enabled && warm && !shardMembership.isEnabled();
+    }
+
+    /**
+     * Whether the store holds every change of a connector since a point in time: the time is
+     * within the retention and the connector's ring has not dropped changes after it.
+     */
+    public boolean covers(Long connectorId, LocalDateTime from) {
+        if (!isWarm()) {
+            return false;
+        }
+        int fromSecond = StatusSeries.toEpochSecond(from);
+        if (fromSecond < cutoff()) {
+            return false;
+        }
+        ConnectorRing ring = rings.get(connectorId);
+        return ring == null || fromSecond >= ring.completeFrom();
+    }
+
+    /**
+     * The changes of a connector between two points in time, both inclusive.
+     */
+    public StatusSeries series(Long connectorId, LocalDateTime from, LocalDateTime to) {
+        ConnectorRing ring = rings.get(connectorId);
+        if (ring == null) {
+            return StatusSeries.EMPTY;
+        }
+        return ring.range(StatusSeries.toEpochSecond(from), StatusSeries.toEpochSecond(to));
+    }
+
+    /**
+     * Number of changes held, over all connectors.
+     */
+    public long size() {
+        return rings.values().stream().mapToLong(ConnectorRing::size).sum();
+    }
+
+    void markWarm() {
+        warm = true;
+    }
+}
@@ -5,8 +5,9 @@ import com.onnoto.onnoto_backend.model.Station;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
 import com.onnoto.onnoto_backend.repository.ReliabilityMetricRepository;
 import com.onnoto.onnoto_backend.repository.ReportRepository;
-import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusRollupDailyRepository;
+import com.onnoto.onnoto_backend.repository.StatusRollupDailyRepository.StatusTotalsDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -14,9 +15,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -25,15 +28,18 @@ public class ReliabilityCalculator {
 
     private final StationRepository stationRepository;
     private final ConnectorRepository connectorRepository;
-    private final StatusHistoryRepository statusHistoryRepository;
     private final ReportRepository reportRepository;
     private final ReliabilityMetricRepository reliabilityMetricRepository;
+    private final StatusRollupDailyRepository statusRollupDailyRepository;
 
     private static final int ANALYSIS_PERIOD_DAYS = 30;
     private static final int MIN_DATA_POINTS = 10;
     private static final double WEIGHT_UPTIME = 0.8;
     private static final double WEIGHT_STABILITY = 0.1;
     private static final double WEIGHT_REPORTS = 0.1;
+    // A connector is up while it can be used, whether free or charging
+    private static final Set<String> UP_STATUSES = Set.of("AVAILABLE", "OCCUPIED");
+    private static final String DOWN_STATUS = "OFFLINE";
 
     /**
      * Calculate reliability scores for all stations
@@ -41,7 +47,7 @@ public class ReliabilityCalculator {
     @Transactional
     public void calculateAllStationReliability() {
         log.info("Starting reliability calculation for all stations");
-        List<Station> stations = stationRepository.findAll();
+        List<Station> stations = stationRepository.findAllCanonical();
 
         for (Station station : stations) {
             try {
@@ -63,23 +69,24 @@ public class ReliabilityCalculator {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime startDate = now.minus(ANALYSIS_PERIOD_DAYS, ChronoUnit.DAYS);
 
-        // Get the station's history data
-        List<StatusHistoryRepository.StatusCountDto> statusCounts =
-                statusHistoryRepository.countStatusesByStation(station.getId(), startDate, now);
+        // Time the station's connectors spent in each status and their status changes, from the
+        // daily rollups of the whole days in the period up to today
+        LocalDate today = now.toLocalDate();
+        List<StatusTotalsDto> totals = statusRollupDailyRepository.sumByStation(
+                station.getId(), today.minusDays(ANALYSIS_PERIOD_DAYS), today);
+        long changes = totals.stream().mapToLong(StatusTotalsDto::getChanges).sum();
 
         // Calculate uptime percentage
-        BigDecimal uptimePercentage = calculateUptimePercentage(statusCounts);
+        BigDecimal uptimePercentage = calculateUptimePercentage(totals);
 
         // Calculate status stability (fewer changes is better)
-        BigDecimal statusStability = calculateStatusStability(station.getId(), startDate, now);
+        BigDecimal statusStability = calculateStatusStability(changes);
 
         // Calculate report score (fewer reports is better)
         BigDecimal reportScore = calculateReportScore(station.getId(), startDate, now);
 
         // Calculate data confidence
-        int sampleSize = statusCounts.stream()
-                .mapToInt(StatusHistoryRepository.StatusCountDto::getCount)
-                .sum();
+        int sampleSize = (int) changes;
 
         // Calculate overall score with weighting
         BigDecimal reliabilityScore = calculateWeightedScore(
@@ -96,32 +103,29 @@ public class ReliabilityCalculator {
                 reliabilityScore, station.getId());
     }
 
-    private BigDecimal calculateUptimePercentage(List<StatusHistoryRepository.StatusCountDto> statusCounts) {
-        // Implementation will depend on your status types and classification
-        // This is a simplified example
-        int totalCount = statusCounts.stream()
-                .mapToInt(StatusHistoryRepository.StatusCountDto::getCount)
+    /**
+     * Share of the time with a known status that the connectors were up. Current statuses
+     * count up to the last rollup run.
+     */
+    private BigDecimal calculateUptimePercentage(List<StatusTotalsDto> totals) {
+        double upSeconds = totals.stream()
+                .filter(dto -> UP_STATUSES.contains(dto.getStatus()))
+                .mapToDouble(StatusTotalsDto::getSeconds)
+                .sum();
+        double downSeconds = totals.stream()
+                .filter(dto -> DOWN_STATUS.equals(dto.getStatus()))
+                .mapToDouble(StatusTotalsDto::getSeconds)
                 .sum();
 
-        if (totalCount == 0) {
+        if (upSeconds + downSeconds <= 0) {
             return BigDecimal.valueOf(90.0); // Default for no data
         }
 
-        int availableCount = statusCounts.stream()
-                .filter(dto -> "AVAILABLE".equals(dto.getStatus()))
-                .mapToInt(StatusHistoryRepository.StatusCountDto::getCount)
-                .sum();
-
-        return BigDecimal.valueOf(availableCount)
-                .multiply(BigDecimal.valueOf(100))
-                .divide(BigDecimal.valueOf(totalCount), 2, RoundingMode.HALF_UP);
+        return BigDecimal.valueOf(upSeconds * 100 / (upSeconds + downSeconds))
+                .setScale(2, RoundingMode.HALF_UP);
     }
 
-    private BigDecimal calculateStatusStability(String stationId,
-                                                LocalDateTime startDate, LocalDateTime endDate) {
-        // Count status transitions
-        long transitionCount = statusHistoryRepository.countStatusTransitions(stationId, startDate, endDate);
-
+    private BigDecimal calculateStatusStability(long transitionCount) {
         // Convert to a score (0-100)
         // More transitions = lower score
         // Example: 0 transitions = 100, 20+ transitions = 0
@@ -0,0 +1,155 @@
+package com.onnoto.onnoto_backend.analytics.service;
+
+import com.onnoto.onnoto_backend.events.StatusChangeEvent;
+import com.onnoto.onnoto_backend.events.StatusEventLog;
+import com.onnoto.onnoto_backend.events.StatusEventSubscriber;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Status changes per connector over the last 24 hours, kept up to date from the status event
+ * bus instead of counted from status_history.
+ *
+ * Each connector has hourly buckets; a bucket is reset when its hour comes round again. The
+ * counts cover the current hour and the 24 before it, but only changes since startup, so they
+ * are complete once the application has been running for a full window ({@link #isWarm()}).
+ * With the status log enabled, the window is filled from the log at startup instead. With
+ * sharded ingestion the bus only carries this node's shards, so the tracker never warms up.
+ */
+@Slf4j
+@Component
+public class StationActivityTracker implements StatusEventSubscriber {
+
+    static final int WINDOW_HOURS = 24;
+    // One extra bucket so a count covers at least the full window, never less
+    private static final int BUCKETS = WINDOW_HOURS + 1;
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+
+    /**
+     * Hourly change counts of one connector.
+     */
+    private static final class ConnectorActivity {
+        private final int[] counts = new int[BUCKETS];
+        private final long[] hours = new long[BUCKETS];
+
+        synchronized void record(long hour) {
+            int bucket = (int) (hour % BUCKETS);
+            if (hours[bucket] != hour) {
+                hours[bucket] = hour;
+                counts[bucket] = 0;
+            }
+            counts[bucket]++;
+        }
+
+        synchronized int count(long currentHour) {
+            int total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (hours[i] > currentHour - BUCKETS) {
+                    total += counts[i];
+                }
+            }
+            return total;
+        }
+    }
+
+    private final StatusEventLog statusEventLog;
+    private final ShardMembership shardMembership;
+    private final Map<String, Map<Long, ConnectorActivity>> byStation = new ConcurrentHashMap<>();
+    private Clock clock = Clock.systemUTC();
+    private Instant startedAt = clock.instant();
+
+    public StationActivityTracker(StatusEventLog statusEventLog, ShardMembership shardMembership) {
+        this.statusEventLog = statusEventLog;
+        this.shardMembership = shardMembership;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+        this.startedAt = clock.instant();
+    }
+
+    /**
+     * Count the changes of the last window from the status log. Runs before the event bus starts
+     * delivering, so no change is counted twice.
+     */
+    @PostConstruct
+    void warmUp() {
+        if (!statusEventLog.isEnabled()) {
+            return;
+        }
+        long first = statusEventLog.firstTimestamp();
+        if (first < 0) {
+            return;
+        }
+        int[] replayed = {0};
+        statusEventLog.replaySince((currentHour() - BUCKETS + 1) * HOUR_MILLIS, record -> {
+            if (record.connectorId() != null) {
+                record(record.stationId(), record.connectorId(), record.timestamp());
+                replayed[0]++;
+            }
+        });
+        if (first < startedAt.toEpochMilli()) {
+            startedAt = Instant.ofEpochMilli(first);
+        }
+        log.info("Counted {} status changes since {} from the status log", replayed[0], startedAt);
+    }
+
+    @Override
+    public String getSubscriberName() {
+        return "activity";
+    }
+
+    @Override
+    public void onEvent(StatusChangeEvent event, boolean endOfBatch) {
+        if (event.getConnectorId() == null) {
+            return;
+        }
+        record(event.getStationId(), event.getConnectorId(), event.getChangedAt());
+    }
+
+    private void record(String stationId, Long connectorId, long changedAt) {
+        byStation.computeIfAbsent(stationId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(connectorId, id -> new ConnectorActivity())
+                .record(changedAt / HOUR_MILLIS);
+    }
+
+    /**
+     * Whether the tracker has seen a full window of changes.
+     */
+    public boolean isWarm() {
+        return !shardMembership.isEnabled() && Duration.between(startedAt, clock.instant()).toHours() >= WINDOW_HOURS;
+    }
+
+    /**
+     * Changes of one connector in (at least) the last 24 hours.
+     */
+    public int connectorChanges(String stationId, Long connectorId) {
+        Map<Long, ConnectorActivity> connectors = byStation.get(stationId);
+        ConnectorActivity activity = connectors != null ? connectors.get(connectorId) : null;
+        return activity != null ? activity.count(currentHour()) : 0;
+    }
+
+    /**
+     * The highest change count of any connector of a station in (at least) the last 24 hours.
+     */
+    public int maxConnectorChanges(String stationId) {
+        Map<Long, ConnectorActivity> connectors = byStation.get(stationId);
+        if (connectors == null) {
+            return 0;
+        }
+        long hour = currentHour();
+        return connectors.values().stream().mapToInt(activity -> activity.count(hour)).max().orElse(0);
+    }
+
+    private long currentHour() {
+        return clock.millis() / HOUR_MILLIS;
+    }
+}
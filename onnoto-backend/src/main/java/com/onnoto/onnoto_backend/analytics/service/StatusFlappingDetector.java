@@ -3,7 +3,6 @@ package com.onnoto.onnoto_backend.analytics.service;
 import com.onnoto.onnoto_backend.model.Anomaly;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Station;
-import com.onnoto.onnoto_backend.model.StatusHistory;
 import com.onnoto.onnoto_backend.repository.AnomalyRepository;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
 import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
@@ -26,6 +25,8 @@ public class StatusFlappingDetector {
     private final ConnectorRepository connectorRepository;
     private final StatusHistoryRepository statusHistoryRepository;
     private final AnomalyRepository anomalyRepository;
+    private final StationActivityTracker stationActivityTracker;
+    private final RecentStatusStore recentStatusStore;
 
     // Constants for configuration
     private static final int ANALYSIS_WINDOW_HOURS = 24;  // Look at last 24 hours
@@ -38,6 +39,12 @@ public class StatusFlappingDetector {
     public int detect(Station station) {
         log.debug("Checking for status flapping at station: {}", station.getId());
 
+        // Once the tracker covers a full window it knows which stations can't be flapping
+        if (stationActivityTracker.isWarm()
+                && stationActivityTracker.maxConnectorChanges(station.getId()) < FLAPPING_THRESHOLD) {
+            return 0;
+        }
+
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime startTime = now.minus(ANALYSIS_WINDOW_HOURS, ChronoUnit.HOURS);
 
@@ -47,14 +54,16 @@ public class StatusFlappingDetector {
 
         // Count status changes for each connector
         for (Connector connector : connectors) {
-            List<StatusHistory> history = statusHistoryRepository.findByConnectorAndRecordedAtBetween(
-                    connector, startTime, now);
+            StatusSeries history = recentStatusStore.covers(connector.getId(), startTime)
+                    ? recentStatusStore.series(connector.getId(), startTime, now)
+                    : StatusSeries.of(statusHistoryRepository.findByConnectorAndRecordedAtBetween(
+                            connector, startTime, now));
 
             if (history.size() < 2) {
                 continue; // Not enough data
             }
 
-            int statusChanges = countStatusChanges(history);
+            int statusChanges = history.statusChanges();
             statusChangesByConnector.put(connector.getId(), statusChanges);
 
             // Check if changes exceed threshold
@@ -67,20 +76,6 @@ public class StatusFlappingDetector {
         return anomaliesDetected;
     }
 
-    private int countStatusChanges(List<StatusHistory> history) {
-        int changes = 0;
-        String previousStatus = null;
-
-        for (StatusHistory record : history) {
-            if (previousStatus != null && !previousStatus.equals(record.getStatus())) {
-                changes++;
-            }
-            previousStatus = record.getStatus();
-        }
-
-        return changes;
-    }
-
     private void createFlappingAnomaly(Station station, Connector connector, int statusChanges) {
         // Check if there's already an unresolved flapping anomaly
         List<Anomaly> existingAnomalies = anomalyRepository.findByStationAndIsResolvedFalse(station);
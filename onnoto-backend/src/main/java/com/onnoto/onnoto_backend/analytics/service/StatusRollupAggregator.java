@@ -0,0 +1,171 @@
+package com.onnoto.onnoto_backend.analytics.service;
+
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Maintains the status rollups: status_rollup_hourly per connector and hour, and
+ * status_rollup_daily per station and day, each with the number of status changes and the
+ * seconds spent in every status.
+ *
+ * Every run only looks at what is new since the watermark in rollup_watermarks. History ids are
+ * handed out before the writing transaction commits, so a row below the highest id seen may
+ * still become visible later. The scan therefore starts at the highest id seen one run earlier
+ * (last_history_id) rather than at the one just read (seen_history_id), and the change counts of
+ * every hour holding a scanned row are recounted, which makes scanning a row twice harmless.
+ * Seconds are recomputed from status_intervals for the hours from the last incomplete hour, or
+ * from the hour of the oldest scanned row if a replayed change reached further back, up to now.
+ * The days touched by either are then rebuilt from their hourly rows.
+ */
+@Slf4j
+@Service
+public class StatusRollupAggregator {
+
+    static final String WATERMARK = "status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseService jobLeaseService;
+
+    @Value("${onnoto.analytics.rollups.enabled:true}")
+    private boolean enabled;
+
+    public StatusRollupAggregator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  JobLeaseService jobLeaseService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    @Scheduled(fixedDelayString = "${onnoto.analytics.rollups.interval-ms:300000}",
+            initialDelayString = "${onnoto.analytics.rollups.interval-ms:300000}")
+    public void scheduledAggregation() {
+        if (!enabled) {
+            return;
+        }
+        jobLeaseService.runExclusively("analytics.status-rollups", Duration.ofMinutes(1),
+                () -> aggregate(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)));
+    }
+
+    /**
+     * Bring the rollups up to a point in time.
+     */
+    public void aggregate(LocalDateTime now) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Object> watermark = jdbcTemplate.queryForMap(
+                    "SELECT last_history_id, seen_history_id, seconds_from FROM rollup_watermarks " +
+                            "WHERE name = ? FOR UPDATE", WATERMARK);
+            long lastHistoryId = ((Number) watermark.get("last_history_id")).longValue();
+            long seenHistoryId = ((Number) watermark.get("seen_history_id")).longValue();
+            Timestamp secondsFromValue = (Timestamp) watermark.get("seconds_from");
+
+            LocalDateTime currentHour = now.truncatedTo(ChronoUnit.HOURS);
+            LocalDateTime secondsFrom = secondsFromValue != null ? secondsFromValue.toLocalDateTime() : firstInterval(currentHour);
+
+            Long maxHistoryId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM status_history", Long.class);
+            if (maxHistoryId == null || maxHistoryId < seenHistoryId) {
+                maxHistoryId = seenHistoryId;
+            }
+            int counted = 0;
+            if (maxHistoryId > lastHistoryId) {
+                Timestamp oldest = jdbcTemplate.queryForObject(
+                        "SELECT MIN(recorded_at) FROM status_history WHERE id > ?", Timestamp.class, lastHistoryId);
+                if (oldest != null) {
+                    LocalDateTime oldestHour = oldest.toLocalDateTime().truncatedTo(ChronoUnit.HOURS);
+                    if (oldestHour.isBefore(secondsFrom)) {
+                        secondsFrom = oldestHour;
+                    }
+                }
+                counted = recountChanges(lastHistoryId);
+            }
+
+            int hours = recomputeSeconds(secondsFrom, now);
+            int days = rebuildDays(secondsFrom.toLocalDate());
+
+            // The next run scans again from what this run had already seen, picking up late commits below it
+            jdbcTemplate.update("UPDATE rollup_watermarks SET last_history_id = ?, seen_history_id = ?, " +
+                            "seconds_from = ?, updated_at = ? WHERE name = ?",
+                    seenHistoryId, maxHistoryId, Timestamp.valueOf(currentHour), Timestamp.valueOf(now), WATERMARK);
+            log.debug("Status rollups: {} hourly change counts, {} hourly and {} daily rows recomputed since {}",
+                    counted, hours, days, secondsFrom);
+        });
+    }
+
+    private LocalDateTime firstInterval(LocalDateTime currentHour) {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(started_at) FROM status_intervals", Timestamp.class);
+        return first != null ? first.toLocalDateTime().truncatedTo(ChronoUnit.HOURS) : currentHour;
+    }
+
+    /**
+     * Recount the changes of every hour that holds a history row above afterId. Counting whole
+     * hours instead of adding the new rows keeps rescans of the same rows exact.
+     */
+    private int recountChanges(long afterId) {
+        String touchedHours = "SELECT DISTINCT date_trunc('hour', recorded_at) AS bucket FROM status_history WHERE id > ?";
+        jdbcTemplate.update("UPDATE status_rollup_hourly SET changes = 0 WHERE bucket IN (" + touchedHours + ")", afterId);
+        return jdbcTemplate.update(
+                "INSERT INTO status_rollup_hourly (connector_id, station_id, bucket, status, changes, seconds) " +
+                        "SELECT h.connector_id, h.station_id, t.bucket, h.status, COUNT(*), 0 " +
+                        "FROM (" + touchedHours + ") t " +
+                        "JOIN status_history h ON h.recorded_at >= t.bucket AND h.recorded_at < t.bucket + interval '1 hour' " +
+                        "WHERE h.connector_id IS NOT NULL AND h.station_id IS NOT NULL " +
+                        "GROUP BY h.connector_id, h.station_id, t.bucket, h.status " +
+                        "ON CONFLICT (connector_id, bucket, status) DO UPDATE SET changes = EXCLUDED.changes",
+                afterId);
+    }
+
+    /**
+     * Recompute the seconds in each status for the hours from from (an hour start) up to now.
+     * Recomputing instead of adding keeps reruns of the same hours exact.
+     */
+    private int recomputeSeconds(LocalDateTime from, LocalDateTime now) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("now", Timestamp.valueOf(now));
+        namedJdbcTemplate.update("UPDATE status_rollup_hourly SET seconds = 0 WHERE bucket >= :from", params);
+        return namedJdbcTemplate.update(
+                "INSERT INTO status_rollup_hourly (connector_id, station_id, bucket, status, changes, seconds) " +
+                        "SELECT i.connector_id, i.station_id, h.bucket, i.status, 0, " +
+                        "SUM(EXTRACT(EPOCH FROM LEAST(COALESCE(i.ended_at, :now), :now, h.bucket + interval '1 hour') " +
+                        "- GREATEST(i.started_at, h.bucket))) " +
+                        "FROM status_intervals i " +
+                        "CROSS JOIN LATERAL generate_series(date_trunc('hour', GREATEST(i.started_at, :from)), " +
+                        "LEAST(COALESCE(i.ended_at, :now), :now) - interval '1 microsecond', interval '1 hour') AS h(bucket) " +
+                        "WHERE i.started_at < :now AND (i.ended_at IS NULL OR i.ended_at > :from) " +
+                        "GROUP BY i.connector_id, i.station_id, h.bucket, i.status " +
+                        "ON CONFLICT (connector_id, bucket, status) DO UPDATE SET seconds = EXCLUDED.seconds",
+                params);
+    }
+
+    /**
+     * Rebuild the daily rows from a day on out of the hourly rows.
+     */
+    private int rebuildDays(LocalDate from) {
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        jdbcTemplate.update("DELETE FROM status_rollup_daily WHERE day >= ?", Date.valueOf(from));
+        return jdbcTemplate.update(
+                "INSERT INTO status_rollup_daily (station_id, day, status, changes, seconds) " +
+                        "SELECT station_id, CAST(bucket AS DATE), status, SUM(changes), SUM(seconds) " +
+                        "FROM status_rollup_hourly WHERE bucket >= ? " +
+                        "GROUP BY station_id, CAST(bucket AS DATE), status",
+                start);
+    }
+}
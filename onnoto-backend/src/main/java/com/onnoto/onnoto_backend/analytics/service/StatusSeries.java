@@ -0,0 +1,132 @@
+package com.onnoto.onnoto_backend.analytics.service;
+
+import com.onnoto.onnoto_backend.model.StatusHistory;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The status changes of one connector over a time range, oldest first, as two columns:
+ * epoch-second timestamps and one-byte status codes.
+ *
+ * Status names map to codes through a registry shared by the whole process; the handful of
+ * normalized statuses fit easily in a byte.
+ */
+public final class StatusSeries {
+
+    private static final int MAX_CODES = 128;
+    private static final String OVERFLOW_STATUS = "UNKNOWN";
+
+    private static final Map<String, Byte> CODES = new ConcurrentHashMap<>();
+    private static final String[] NAMES = new String[MAX_CODES];
+    private static int nextCode;
+
+    static {
+        for (String status : List.of("AVAILABLE", "OCCUPIED", "OFFLINE", OVERFLOW_STATUS)) {
+            code(status);
+        }
+    }
+
+    static final StatusSeries EMPTY = new StatusSeries(new int[0], new byte[0]);
+
+    private final int[] times;
+    private final byte[] codes;
+
+    StatusSeries(int[] times, byte[] codes) {
+        this.times = times;
+        this.codes = codes;
+    }
+
+    /**
+     * The code of a status, registering it on first use.
+     */
+    static byte code(String status) {
+        Byte code = CODES.get(status);
+        if (code != null) {
+            return code;
+        }
+        synchronized (CODES) {
+            code = CODES.get(status);
+            if (code == null) {
+                if (nextCode == MAX_CODES) {
+                    return CODES.get(OVERFLOW_STATUS);
+                }
+                code = (byte) nextCode;
+                NAMES[nextCode++] = status;
+                CODES.put(status, code);
+            }
+            return code;
+        }
+    }
+
+    static String name(byte code) {
+        return NAMES[code];
+    }
+
+    static int toEpochSecond(LocalDateTime time) {
+        return (int) time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    static LocalDateTime toLocalDateTime(int epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+
+    /**
+     * The series of status_history rows, for when the history is read from the database.
+     */
+    public static StatusSeries of(List<StatusHistory> history) {
+        List<StatusHistory> sorted = history.stream()
+                .sorted(Comparator.comparing(StatusHistory::getRecordedAt))
+                .toList();
+        int[] times = new int[sorted.size()];
+        byte[] codes = new byte[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            times[i] = toEpochSecond(sorted.get(i).getRecordedAt());
+            codes[i] = code(sorted.get(i).getStatus());
+        }
+        return new StatusSeries(times, codes);
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    public LocalDateTime recordedAt(int index) {
+        return toLocalDateTime(times[index]);
+    }
+
+    public String status(int index) {
+        return name(codes[index]);
+    }
+
+    /**
+     * Number of consecutive records whose status differs.
+     */
+    public int statusChanges() {
+        int changes = 0;
+        for (int i = 1; i < codes.length; i++) {
+            if (codes[i] != codes[i - 1]) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Index of the newest record with a status, or -1.
+     */
+    public int lastIndexOf(String status) {
+        byte code = code(status);
+        for (int i = codes.length - 1; i >= 0; i--) {
+            if (codes[i] == code) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,95 @@
+package com.onnoto.onnoto_backend.config;
+
+import com.onnoto.onnoto_backend.db.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Data sources: the primary pool from spring.datasource, a pool per read replica listed in
+ * onnoto.datasource.replicas.urls, and the routing data source in front of them that the rest
+ * of the application uses. Without replicas every connection comes from the primary.
+ */
+@Slf4j
+@Configuration
+public class DataSourceConfig {
+
+    // Comma-separated JDBC URLs
+    @Value("${onnoto.datasource.replicas.urls:}")
+    private String replicaUrls;
+
+    // Empty for the primary's credentials
+    @Value("${onnoto.datasource.replicas.username:}")
+    private String replicaUsername;
+
+    @Value("${onnoto.datasource.replicas.password:}")
+    private String replicaPassword;
+
+    @Value("${onnoto.datasource.replicas.pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${onnoto.datasource.replicas.max-lag:10s}")
+    private Duration maxReplicaLag;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        int index = 0;
+        for (String url : StringUtils.commaDelimitedListToStringArray(replicaUrls)) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + index++;
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.trim());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(StringUtils.hasText(replicaUsername) ? replicaUsername : properties.determineUsername());
+            replica.setPassword(StringUtils.hasText(replicaUsername) ? replicaPassword : properties.determinePassword());
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            // A replica that is down at startup or later must not hold up the application
+            replica.setInitializationFailTimeout(-1);
+            replica.setConnectionTimeout(Duration.ofSeconds(2).toMillis());
+            replicas.put(name, replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxReplicaLag);
+        if (!replicas.isEmpty()) {
+            routing.checkReplicas();
+            log.info("Routing read-only transactions to {} replicas: {}", replicas.size(), routing.replicaLag());
+        }
+        return routing;
+    }
+
+    /**
+     * The data source for everything else. The lazy proxy takes the connection only at the first
+     * statement, when the transaction, and whether it is read-only, is known.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
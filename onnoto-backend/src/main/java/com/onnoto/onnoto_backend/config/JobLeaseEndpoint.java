@@ -0,0 +1,53 @@
+package com.onnoto.onnoto_backend.config;
+
+import com.onnoto.onnoto_backend.model.JobLease;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which node holds the lease of each scheduled job: /actuator/jobleases.
+ */
+@Component
+@Endpoint(id = "jobleases")
+public class JobLeaseEndpoint {
+
+    private final JobLeaseService jobLeaseService;
+
+    public JobLeaseEndpoint(JobLeaseService jobLeaseService) {
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> leases() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Map<String, Object>> leases = jobLeaseService.leases().stream()
+                .map(lease -> describe(lease, now))
+                .toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("node", jobLeaseService.getNodeId());
+        result.put("enabled", jobLeaseService.isEnabled());
+        result.put("leases", leases);
+        return result;
+    }
+
+    private static Map<String, Object> describe(JobLease lease, LocalDateTime now) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("job", lease.getJobName());
+        entry.put("holder", lease.getHolder());
+        entry.put("active", lease.getExpiresAt().isAfter(now));
+        entry.put("acquiredAt", lease.getAcquiredAt());
+        entry.put("heartbeatAt", lease.getHeartbeatAt());
+        entry.put("expiresAt", lease.getExpiresAt());
+        entry.put("lastCompletedAt", lease.getLastCompletedAt());
+        entry.put("lastResult", lease.getLastResult());
+        return entry;
+    }
+}
@@ -0,0 +1,53 @@
+package com.onnoto.onnoto_backend.config;
+
+import com.onnoto.onnoto_backend.ingestion.http.CircuitBreaker;
+import com.onnoto.onnoto_backend.ingestion.http.ProviderCircuitBreakers;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Circuit breaker state of each provider HTTP pool. A failing provider only means stale data
+ * from that provider, so the application stays UP; open breakers are listed in the details,
+ * which /actuator/health shows to admins.
+ */
+@Component
+public class ProviderHealthIndicator implements HealthIndicator {
+
+    private final ProviderCircuitBreakers circuitBreakers;
+
+    public ProviderHealthIndicator(ProviderCircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public Health health() {
+        if (!circuitBreakers.isEnabled()) {
+            return Health.up().withDetail("breakers", "disabled").build();
+        }
+        List<CircuitBreaker> breakers = circuitBreakers.all().stream()
+                .sorted(Comparator.comparing(CircuitBreaker::getName))
+                .toList();
+
+        Map<String, Object> pools = new LinkedHashMap<>();
+        for (CircuitBreaker breaker : breakers) {
+            pools.put(breaker.getName(), Map.of(
+                    "state", breaker.getState().name(),
+                    "failureRate", Math.round(breaker.failureRate() * 100) / 100.0,
+                    "timesOpened", breaker.timesOpened()));
+        }
+        List<String> open = breakers.stream()
+                .filter(breaker -> breaker.getState() != CircuitBreaker.State.CLOSED)
+                .map(CircuitBreaker::getName)
+                .toList();
+        return Health.up()
+                .withDetail("pools", pools)
+                .withDetail("notClosed", open)
+                .build();
+    }
+}
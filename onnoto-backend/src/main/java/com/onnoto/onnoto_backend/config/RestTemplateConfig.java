@@ -1,24 +1,231 @@
 package com.onnoto.onnoto_backend.config;
 
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.onnoto.onnoto_backend.ingestion.http.CachingInterceptor;
+import com.onnoto.onnoto_backend.ingestion.http.CircuitBreakerInterceptor;
+import com.onnoto.onnoto_backend.ingestion.http.HttpRecording;
+import com.onnoto.onnoto_backend.ingestion.http.HttpResponseCache;
+import com.onnoto.onnoto_backend.ingestion.http.ProviderCircuitBreakers;
+import com.onnoto.onnoto_backend.ingestion.http.RecordingInterceptor;
+import com.onnoto.onnoto_backend.ingestion.http.ReplayInterceptor;
+import com.onnoto.onnoto_backend.ingestion.provider.GooglePlacesProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * HTTP clients for the data providers.
+ *
+ * Every provider gets its own pooled Apache HttpClient so a slow provider can't exhaust the
+ * connections another one needs. Connections are kept alive and reused between requests, which
+ * saves a TCP and TLS handshake per call, and responses are requested with gzip/deflate.
+ * Pool sizes and timeouts can be overridden per pool with onnoto.http.&lt;pool&gt;.* properties.
+ *
+ * With onnoto.http.cache.enabled, GET responses are cached on disk per endpoint TTL and
+ * revalidated with conditional requests (see {@link CachingInterceptor}). Google Places bodies
+ * are only stored when their status is OK or ZERO_RESULTS.
+ *
+ * onnoto.http.replay.mode=record captures every response into onnoto.http.replay.dir, one
+ * directory per pool, and onnoto.http.replay.mode=replay answers requests from there instead of
+ * the network (see {@link HttpRecording}). Both bypass the response cache so that recordings
+ * carry real network timings.
+ *
+ * Requests that reach the network go through the pool's circuit breaker (see
+ * {@link ProviderCircuitBreakers}), so a failing provider is skipped instead of costing a
+ * timeout per call.
+ */
+@Slf4j
 @Configuration
-public class RestTemplateConfig {
+public class RestTemplateConfig implements DisposableBean {
+
+    private final Environment environment;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final List<CloseableHttpClient> clients = new CopyOnWriteArrayList<>();
+    private final HttpResponseCache responseCache;
+    private final ReplayMode replayMode;
+    private final ProviderCircuitBreakers circuitBreakers;
+
+    /**
+     * Whether provider HTTP traffic goes to the network, is recorded or is replayed.
+     */
+    enum ReplayMode { OFF, RECORD, REPLAY }
+
+    public RestTemplateConfig(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.replayMode = ReplayMode.valueOf(
+                environment.getProperty("onnoto.http.replay.mode", "off").toUpperCase(Locale.ROOT));
+        this.responseCache = responseCache();
+        this.circuitBreakers = new ProviderCircuitBreakers(environment, meterRegistry.getIfAvailable(),
+                Clock.systemUTC());
+    }
+
+    @Bean
+    public ProviderCircuitBreakers providerCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    private HttpResponseCache responseCache() {
+        if (replayMode != ReplayMode.OFF
+                || !environment.getProperty("onnoto.http.cache.enabled", Boolean.class, false)) {
+            return null;
+        }
+        Path directory = Path.of(environment.getProperty("onnoto.http.cache.dir",
+                Path.of(System.getProperty("java.io.tmpdir"), "onnoto-http-cache").toString()));
+        HttpResponseCache cache = new HttpResponseCache(directory, HttpResponseCache.parseRules(
+                environment.getProperty("onnoto.http.cache.ttl",
+                        "maps/api/place/details=7d,maps/api/place/nearbysearch=12h")));
+
+        int pruned = cache.prune(environment.getProperty("onnoto.http.cache.max-age", Duration.class,
+                Duration.ofDays(30)));
+        log.info("HTTP response cache in {} ({} old entries removed)", directory, pruned);
+        return cache;
+    }
+
+    /**
+     * Pool settings. Defaults are tuned per provider and can be overridden in properties.
+     */
+    record PoolSettings(int maxTotal, int maxPerRoute, Duration connectTimeout, Duration readTimeout) {
+    }
 
     @Bean
+    @Primary
     public RestTemplate restTemplate() {
-        // Create a ClientHttpRequestFactory with the desired timeouts
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout((int) Duration.ofSeconds(5).toMillis());
-        factory.setReadTimeout((int) Duration.ofSeconds(30).toMillis());
+        return pooledRestTemplate("default",
+                new PoolSettings(20, 10, Duration.ofSeconds(5), Duration.ofSeconds(30)));
+    }
+
+    @Bean
+    public RestTemplate elmoRestTemplate() {
+        return pooledRestTemplate("elmo",
+                new PoolSettings(5, 5, Duration.ofSeconds(5), Duration.ofSeconds(30)));
+    }
+
+    @Bean
+    public RestTemplate eleportRestTemplate() {
+        return pooledRestTemplate("eleport",
+                new PoolSettings(5, 5, Duration.ofSeconds(5), Duration.ofSeconds(30)));
+    }
+
+    @Bean
+    public RestTemplate googleRestTemplate() {
+        // Search and detail calls all go to maps.googleapis.com - one route, many concurrent requests
+        return pooledRestTemplate("google",
+                new PoolSettings(20, 20, Duration.ofSeconds(5), Duration.ofSeconds(15)));
+    }
+
+    @Bean
+    public RestTemplate openChargeMapRestTemplate() {
+        // Few requests, but a full country export takes a while to stream
+        return pooledRestTemplate("opencharge",
+                new PoolSettings(4, 4, Duration.ofSeconds(10), Duration.ofSeconds(120)));
+    }
+
+    private RestTemplate pooledRestTemplate(String pool, PoolSettings defaults) {
+        PoolSettings settings = resolve(pool, defaults);
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxTotal())
+                .setMaxConnPerRoute(settings.maxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(settings.readTimeout()))
+                        // Re-check connections that sat idle before handing them out again
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+
+        // Content compression (gzip/deflate) is enabled by default in the client builder
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(settings.connectTimeout()))
+                        .setResponseTimeout(Timeout.of(settings.readTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+        clients.add(httpClient);
+
+        meterRegistry.ifAvailable(registry ->
+                new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, pool).bindTo(registry));
+
+        log.info("HTTP pool '{}': {} connections ({} per host), connect timeout {}s, read timeout {}s",
+                pool, settings.maxTotal(), settings.maxPerRoute(),
+                settings.connectTimeout().toSeconds(), settings.readTimeout().toSeconds());
+
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        Path recordingDir = Path.of(environment.getProperty("onnoto.http.replay.dir", "./data/recordings"))
+                .resolve(pool);
+        if (replayMode == ReplayMode.RECORD) {
+            restTemplate.getInterceptors().add(new RecordingInterceptor(HttpRecording.create(recordingDir)));
+            log.info("HTTP pool '{}' records responses to {}", pool, recordingDir);
+        } else if (replayMode == ReplayMode.REPLAY) {
+            double speedup = environment.getProperty("onnoto.http.replay.speedup", Double.class, 1.0);
+            restTemplate.getInterceptors().add(new ReplayInterceptor(HttpRecording.open(recordingDir), speedup));
+            log.info("HTTP pool '{}' replays responses from {} at {}x", pool, recordingDir, speedup);
+        }
+        if (responseCache != null) {
+            restTemplate.getInterceptors().add(new CachingInterceptor(responseCache,
+                    environment.getProperty("onnoto.http.cache.offline", Boolean.class, false),
+                    storePredicate(pool), pool, meterRegistry.getIfAvailable()));
+        }
+        // Last, so that only requests that go to the network count
+        CircuitBreakerInterceptor breaker = circuitBreakers.interceptor(pool);
+        if (breaker != null) {
+            restTemplate.getInterceptors().add(breaker);
+        }
+        return restTemplate;
+    }
+
+    /**
+     * Which response bodies a pool may cache. Google Places reports quota and key errors with a 200.
+     */
+    private static CachingInterceptor.StorePredicate storePredicate(String pool) {
+        return "google".equals(pool) ? GooglePlacesProvider::isCacheableResponse : CachingInterceptor.StorePredicate.ANY;
+    }
+
+    private PoolSettings resolve(String pool, PoolSettings defaults) {
+        String prefix = "onnoto.http." + pool + ".";
+        return new PoolSettings(
+                environment.getProperty(prefix + "max-total", Integer.class, defaults.maxTotal()),
+                environment.getProperty(prefix + "max-per-route", Integer.class, defaults.maxPerRoute()),
+                environment.getProperty(prefix + "connect-timeout", Duration.class, defaults.connectTimeout()),
+                environment.getProperty(prefix + "read-timeout", Duration.class, defaults.readTimeout()));
+    }
 
-        // Create RestTemplate with the factory
-        return new RestTemplate(factory);
+    @Override
+    public void destroy() {
+        for (CloseableHttpClient client : clients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("Error closing HTTP client: {}", e.getMessage());
+            }
+        }
     }
-}
\ No newline at end of file
+}
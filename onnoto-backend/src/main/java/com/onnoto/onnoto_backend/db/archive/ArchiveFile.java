@@ -0,0 +1,366 @@
+package com.onnoto.onnoto_backend.db.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One month of status history in the archive, rows sorted by recorded_at.
+ *
+ * Rows are stored in blocks of up to block-rows rows, each deflate-compressed on its own. Inside
+ * a block the values are stored column by column, as unsigned varints unless noted:
+ * recorded_at (epoch milliseconds of the wall-clock time; the first in full, then the
+ * difference to the previous row), id (zigzag difference to the previous row), connector id
+ * (plus one, 0 for none), then station, status and source as indexes into the file's
+ * dictionaries.
+ *
+ * The dictionaries and the block index (rows, first and last recorded_at, position and length
+ * of each block) follow the blocks; the file ends with the position of the dictionaries (long)
+ * and the magic number (int). Readers map the file into memory and only inflate the blocks
+ * that overlap the requested range.
+ */
+class ArchiveFile {
+
+    static final String SUFFIX = ".sha";
+    private static final int MAGIC = 0x4F534831; // "OSH1"
+    private static final int FOOTER = 12;
+    // Three varlongs and three varints
+    private static final int MAX_ROW_BYTES = 3 * 10 + 3 * 5;
+
+    private ArchiveFile() {
+    }
+
+    private record Block(int rows, long firstTime, long lastTime, long position, int length) {
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Writes an archive file; rows must be appended in recorded_at order.
+     */
+    static class Writer implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final int blockRows;
+        private final Map<String, Integer> stationCodes = new HashMap<>();
+        private final Map<String, Integer> statusCodes = new HashMap<>();
+        private final Map<String, Integer> sourceCodes = new HashMap<>();
+        private final List<Block> blocks = new ArrayList<>();
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        private final long[] times;
+        private final long[] ids;
+        private final long[] connectorIds;
+        private final int[] stations;
+        private final int[] statuses;
+        private final int[] sources;
+        private int rows;
+        private long position;
+        private long totalRows;
+
+        Writer(Path path, int blockRows) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.blockRows = blockRows;
+            this.times = new long[blockRows];
+            this.ids = new long[blockRows];
+            this.connectorIds = new long[blockRows];
+            this.stations = new int[blockRows];
+            this.statuses = new int[blockRows];
+            this.sources = new int[blockRows];
+        }
+
+        void append(long id, LocalDateTime recordedAt, String stationId, Long connectorId, String status,
+                    String source) throws IOException {
+            long time = toMillis(recordedAt);
+            if ((rows > 0 && time < times[rows - 1])
+                    || (rows == 0 && !blocks.isEmpty() && time < blocks.get(blocks.size() - 1).lastTime())) {
+                throw new IllegalArgumentException("Rows must be appended in recorded_at order");
+            }
+            times[rows] = time;
+            ids[rows] = id;
+            connectorIds[rows] = connectorId != null ? connectorId + 1 : 0;
+            stations[rows] = code(stationCodes, stationId);
+            statuses[rows] = code(statusCodes, status);
+            sources[rows] = code(sourceCodes, source);
+            rows++;
+            totalRows++;
+            if (rows == blockRows) {
+                flushBlock();
+            }
+        }
+
+        long rows() {
+            return totalRows;
+        }
+
+        private static int code(Map<String, Integer> dictionary, String value) {
+            return dictionary.computeIfAbsent(value != null ? value : "", key -> dictionary.size());
+        }
+
+        private void flushBlock() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            ByteBuffer raw = ByteBuffer.allocate(rows * MAX_ROW_BYTES);
+            putVarLong(raw, times[0]);
+            for (int i = 1; i < rows; i++) {
+                putVarLong(raw, times[i] - times[i - 1]);
+            }
+            putVarLong(raw, zigzag(ids[0]));
+            for (int i = 1; i < rows; i++) {
+                putVarLong(raw, zigzag(ids[i] - ids[i - 1]));
+            }
+            for (int i = 0; i < rows; i++) {
+                putVarLong(raw, connectorIds[i]);
+            }
+            for (int[] column : new int[][]{stations, statuses, sources}) {
+                for (int i = 0; i < rows; i++) {
+                    putVarLong(raw, column[i]);
+                }
+            }
+            raw.flip();
+
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteBuffer compressed = ByteBuffer.allocate(raw.remaining() + 64);
+            while (!deflater.finished()) {
+                if (!compressed.hasRemaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(compressed.capacity() * 2);
+                    compressed.flip();
+                    larger.put(compressed);
+                    compressed = larger;
+                }
+                deflater.deflate(compressed);
+            }
+            compressed.flip();
+            int length = compressed.remaining();
+            write(compressed);
+
+            blocks.add(new Block(rows, times[0], times[rows - 1], position, length));
+            position += length;
+            rows = 0;
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBlock();
+                ByteBuffer index = ByteBuffer.allocate(indexSize() + FOOTER);
+                for (Map<String, Integer> dictionary : List.of(stationCodes, statusCodes, sourceCodes)) {
+                    String[] values = new String[dictionary.size()];
+                    dictionary.forEach((value, code) -> values[code] = value);
+                    index.putInt(values.length);
+                    for (String value : values) {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        index.putShort((short) bytes.length);
+                        index.put(bytes);
+                    }
+                }
+                index.putInt(blocks.size());
+                for (Block block : blocks) {
+                    index.putInt(block.rows());
+                    index.putLong(block.firstTime());
+                    index.putLong(block.lastTime());
+                    index.putLong(block.position());
+                    index.putInt(block.length());
+                }
+                index.putLong(position);
+                index.putInt(MAGIC);
+                index.flip();
+                write(index);
+                channel.force(true);
+            } finally {
+                deflater.end();
+                channel.close();
+            }
+        }
+
+        private int indexSize() {
+            int size = 4 + blocks.size() * 32;
+            for (Map<String, Integer> dictionary : List.of(stationCodes, statusCodes, sourceCodes)) {
+                size += 4;
+                for (String value : dictionary.keySet()) {
+                    size += 2 + value.getBytes(StandardCharsets.UTF_8).length;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Read the rows recorded within [from, to), optionally of one station only, in recorded_at
+     * order.
+     */
+    static void read(Path path, LocalDateTime from, LocalDateTime to, String stationId,
+                     Consumer<ArchivedStatus> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < FOOTER || mapped.getInt((int) size - 4) != MAGIC) {
+                throw new IOException("Not a complete archive file: " + path);
+            }
+            ByteBuffer index = mapped.slice((int) mapped.getLong((int) size - FOOTER),
+                    (int) (size - FOOTER - mapped.getLong((int) size - FOOTER)));
+            String[] stations = dictionary(index);
+            String[] statuses = dictionary(index);
+            String[] sources = dictionary(index);
+
+            // Only the station's own rows pass, so resolve its code once
+            int stationCode = -1;
+            if (stationId != null) {
+                for (int i = 0; i < stations.length; i++) {
+                    if (stations[i].equals(stationId)) {
+                        stationCode = i;
+                    }
+                }
+                if (stationCode < 0) {
+                    return;
+                }
+            }
+
+            long fromMillis = toMillis(from);
+            long toMillis = toMillis(to);
+            int blockCount = index.getInt();
+            Inflater inflater = new Inflater();
+            try {
+                for (int b = 0; b < blockCount; b++) {
+                    Block block = new Block(index.getInt(), index.getLong(), index.getLong(), index.getLong(),
+                            index.getInt());
+                    if (block.lastTime() < fromMillis || block.firstTime() >= toMillis) {
+                        continue;
+                    }
+                    ByteBuffer raw = inflate(inflater, mapped.slice((int) block.position(), block.length()),
+                            block.rows());
+                    decode(raw, block.rows(), fromMillis, toMillis, stationCode, stations, statuses, sources, consumer);
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static ByteBuffer inflate(Inflater inflater, ByteBuffer compressed, int rows) throws IOException {
+        inflater.reset();
+        inflater.setInput(compressed);
+        ByteBuffer raw = ByteBuffer.allocate(rows * MAX_ROW_BYTES);
+        try {
+            while (!inflater.finished()) {
+                if (inflater.inflate(raw) == 0 && (inflater.needsInput() || !raw.hasRemaining())) {
+                    throw new IOException("Corrupt archive block");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block", e);
+        }
+        raw.flip();
+        return raw;
+    }
+
+    private static void decode(ByteBuffer raw, int rows, long fromMillis, long toMillis, int stationCode,
+                               String[] stations, String[] statuses, String[] sources,
+                               Consumer<ArchivedStatus> consumer) {
+        long[] times = new long[rows];
+        long[] ids = new long[rows];
+        long[] connectorIds = new long[rows];
+        int[] stationColumn = new int[rows];
+        int[] statusColumn = new int[rows];
+        int[] sourceColumn = new int[rows];
+        times[0] = getVarLong(raw);
+        for (int i = 1; i < rows; i++) {
+            times[i] = times[i - 1] + getVarLong(raw);
+        }
+        ids[0] = unzigzag(getVarLong(raw));
+        for (int i = 1; i < rows; i++) {
+            ids[i] = ids[i - 1] + unzigzag(getVarLong(raw));
+        }
+        for (int i = 0; i < rows; i++) {
+            connectorIds[i] = getVarLong(raw);
+        }
+        for (int[] column : new int[][]{stationColumn, statusColumn, sourceColumn}) {
+            for (int i = 0; i < rows; i++) {
+                column[i] = (int) getVarLong(raw);
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            if (times[i] < fromMillis || times[i] >= toMillis
+                    || (stationCode >= 0 && stationColumn[i] != stationCode)) {
+                continue;
+            }
+            consumer.accept(new ArchivedStatus(ids[i], fromMillis(times[i]), emptyToNull(stations[stationColumn[i]]),
+                    connectorIds[i] > 0 ? connectorIds[i] - 1 : null, statuses[statusColumn[i]],
+                    emptyToNull(sources[sourceColumn[i]])));
+        }
+    }
+
+    private static String[] dictionary(ByteBuffer buffer) {
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[buffer.getShort()];
+            buffer.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
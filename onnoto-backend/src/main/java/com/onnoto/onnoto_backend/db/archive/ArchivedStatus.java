@@ -0,0 +1,10 @@
+package com.onnoto.onnoto_backend.db.archive;
+
+import java.time.LocalDateTime;
+
+/**
+ * A status_history row read back from the archive.
+ */
+public record ArchivedStatus(long id, LocalDateTime recordedAt, String stationId, Long connectorId,
+                             String status, String source) {
+}
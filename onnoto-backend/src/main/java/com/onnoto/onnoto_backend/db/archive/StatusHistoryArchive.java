@@ -0,0 +1,144 @@
+package com.onnoto.onnoto_backend.db.archive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The cold archive of status history: one {@link ArchiveFile} per month in the archive
+ * directory, written by the {@link StatusHistoryArchiver} once the month has left status_history.
+ */
+@Component
+public class StatusHistoryArchive {
+
+    private static final Pattern FILE_NAME = Pattern.compile("status_history_(\\d{4})_(\\d{2})\\" + ArchiveFile.SUFFIX);
+
+    @Value("${onnoto.history.archive.dir:./data/history-archive}")
+    private String dir;
+
+    @Value("${onnoto.history.archive.block-rows:65536}")
+    private int blockRows;
+
+    public StatusHistoryArchive() {
+    }
+
+    StatusHistoryArchive(String dir, int blockRows) {
+        this.dir = dir;
+        this.blockRows = blockRows;
+    }
+
+    static String fileName(YearMonth month) {
+        return String.format("status_history_%04d_%02d%s", month.getYear(), month.getMonthValue(), ArchiveFile.SUFFIX);
+    }
+
+    /**
+     * Writes a month's file. The month becomes readable on commit; closing without a commit
+     * discards what was written.
+     */
+    public interface MonthWriter extends AutoCloseable {
+
+        void append(long id, LocalDateTime recordedAt, String stationId, Long connectorId, String status,
+                    String source) throws IOException;
+
+        long rows();
+
+        void commit() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Start writing a month, replacing what the archive holds for it once committed. Until then
+     * the rows go to a temporary file.
+     */
+    public MonthWriter write(YearMonth month) throws IOException {
+        Path directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        Path target = directory.resolve(fileName(month));
+        Path temporary = directory.resolve(fileName(month) + ".tmp");
+        ArchiveFile.Writer writer = new ArchiveFile.Writer(temporary, blockRows);
+        return new MonthWriter() {
+            @Override
+            public void append(long id, LocalDateTime recordedAt, String stationId, Long connectorId, String status,
+                               String source) throws IOException {
+                writer.append(id, recordedAt, stationId, connectorId, status, source);
+            }
+
+            @Override
+            public long rows() {
+                return writer.rows();
+            }
+
+            private boolean committed;
+
+            @Override
+            public void commit() throws IOException {
+                writer.close();
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                committed = true;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!committed) {
+                    writer.close();
+                    Files.deleteIfExists(temporary);
+                }
+            }
+        };
+    }
+
+    /**
+     * The archived months, oldest first.
+     */
+    public NavigableSet<YearMonth> months() {
+        NavigableSet<YearMonth> months = new TreeSet<>();
+        Path directory = Paths.get(dir);
+        if (!Files.isDirectory(directory)) {
+            return months;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return months;
+    }
+
+    /**
+     * The archived status history of a station within [from, to), in recorded_at order.
+     */
+    public List<ArchivedStatus> findByStationAndRecordedAtBetween(String stationId, LocalDateTime from,
+                                                                  LocalDateTime to) {
+        List<ArchivedStatus> rows = new ArrayList<>();
+        for (YearMonth month : months().subSet(YearMonth.from(from), true, YearMonth.from(to), true)) {
+            try {
+                ArchiveFile.read(Paths.get(dir).resolve(fileName(month)), from, to, stationId, rows::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading archived status history of " + month, e);
+            }
+        }
+        return rows;
+    }
+}
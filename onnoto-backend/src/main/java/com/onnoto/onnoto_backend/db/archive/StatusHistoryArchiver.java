@@ -0,0 +1,127 @@
+package com.onnoto.onnoto_backend.db.archive;
+
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Moves months of status_history older than after-months into the {@link StatusHistoryArchive}.
+ *
+ * Candidates are the month tables status_history_YYYY_MM, whether still attached as partitions
+ * or already detached by the partition retention. An attached month is detached first, then its
+ * rows are streamed into the month's archive file in recorded_at order and the table is dropped
+ * once the file is complete. A run that fails half-way leaves the table in place, and the next
+ * run writes the month's file again.
+ */
+@Slf4j
+@Component
+public class StatusHistoryArchiver {
+
+    private static final Pattern MONTH_TABLE = Pattern.compile("status_history_(\\d{4})_(\\d{2})");
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseService jobLeaseService;
+    private final StatusHistoryArchive archive;
+
+    @Value("${onnoto.history.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${onnoto.history.archive.after-months:12}")
+    private int afterMonths;
+
+    public StatusHistoryArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 JobLeaseService jobLeaseService, StatusHistoryArchive archive) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Postgres only streams a result set inside a transaction and with a fetch size
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.jobLeaseService = jobLeaseService;
+        this.archive = archive;
+    }
+
+    @Scheduled(cron = "${onnoto.history.archive.cron:0 0 3 * * ?}")
+    public void scheduledArchiving() {
+        if (!enabled) {
+            return;
+        }
+        jobLeaseService.runExclusively("maintenance.history-archive", Duration.ofHours(1),
+                () -> archiveBefore(YearMonth.now().minusMonths(afterMonths)));
+    }
+
+    /**
+     * Archive every month table before a month.
+     *
+     * @return the number of months archived
+     */
+    public int archiveBefore(YearMonth cutoff) {
+        List<Map<String, Object>> tables = jdbcTemplate.queryForList(
+                "SELECT relname::text AS name, relispartition AS attached FROM pg_class c " +
+                        "WHERE relkind = 'r' AND relname ~ '^status_history_[0-9]{4}_[0-9]{2}$' " +
+                        // Not the partitions of a legacy status_history still being converted
+                        "AND (NOT relispartition OR EXISTS (SELECT 1 FROM pg_inherits i " +
+                        "WHERE i.inhrelid = c.oid AND i.inhparent = to_regclass('status_history'))) ORDER BY relname");
+        int archived = 0;
+        for (Map<String, Object> table : tables) {
+            String name = (String) table.get("name");
+            Matcher matcher = MONTH_TABLE.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                if (Boolean.TRUE.equals(table.get("attached"))) {
+                    jdbcTemplate.execute("ALTER TABLE status_history DETACH PARTITION " + name);
+                }
+                long rows = archiveTable(name, month);
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Archived {} status history rows of {} and dropped {}", rows, month, name);
+                archived++;
+            } catch (Exception e) {
+                log.error("Error archiving status history table {}: {}", name, e.getMessage(), e);
+            }
+        }
+        return archived;
+    }
+
+    private long archiveTable(String name, YearMonth month) throws IOException {
+        try (StatusHistoryArchive.MonthWriter writer = archive.write(month)) {
+            transactionTemplate.executeWithoutResult(status -> streamingJdbcTemplate.query(
+                    "SELECT id, recorded_at, station_id, connector_id, status, source FROM " + name +
+                            " ORDER BY recorded_at, id",
+                    resultSet -> {
+                        long connectorId = resultSet.getLong(4);
+                        Long connector = resultSet.wasNull() ? null : connectorId;
+                        try {
+                            writer.append(resultSet.getLong(1), resultSet.getTimestamp(2).toLocalDateTime(),
+                                    resultSet.getString(3), connector, resultSet.getString(5), resultSet.getString(6));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+            writer.commit();
+            return writer.rows();
+        }
+    }
+}
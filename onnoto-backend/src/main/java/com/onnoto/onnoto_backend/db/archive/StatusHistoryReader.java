@@ -0,0 +1,78 @@
+package com.onnoto.onnoto_backend.db.archive;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+
+/**
+ * Range queries over the whole status history: months the {@link StatusHistoryArchiver} has
+ * moved out are read from the {@link StatusHistoryArchive}, all others from status_history.
+ *
+ * A month counts as archived once its file exists, since the archiver only drops the month's
+ * table after committing the file. Keying on the files rather than on after-months keeps a month
+ * readable between its cutoff and the archiver's next run.
+ */
+@Component
+public class StatusHistoryReader {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StatusHistoryArchive archive;
+
+    public StatusHistoryReader(JdbcTemplate jdbcTemplate, StatusHistoryArchive archive) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archive = archive;
+    }
+
+    /**
+     * The months read from the archive, oldest first.
+     */
+    public NavigableSet<YearMonth> archivedMonths() {
+        return archive.months();
+    }
+
+    /**
+     * The status history of a station within [from, to), in recorded_at order.
+     */
+    public List<ArchivedStatus> findByStationAndRecordedAtBetween(String stationId, LocalDateTime from,
+                                                                  LocalDateTime to) {
+        List<ArchivedStatus> rows = new ArrayList<>();
+        Set<YearMonth> archived = archive.months();
+        // Consecutive months from the same source are read with one query
+        LocalDateTime start = from;
+        while (start.isBefore(to)) {
+            boolean fromArchive = archived.contains(YearMonth.from(start));
+            LocalDateTime end = YearMonth.from(start).plusMonths(1).atDay(1).atStartOfDay();
+            while (end.isBefore(to) && archived.contains(YearMonth.from(end)) == fromArchive) {
+                end = end.plusMonths(1);
+            }
+            if (end.isAfter(to)) {
+                end = to;
+            }
+            rows.addAll(fromArchive
+                    ? archive.findByStationAndRecordedAtBetween(stationId, start, end)
+                    : findInDatabase(stationId, start, end));
+            start = end;
+        }
+        return rows;
+    }
+
+    private List<ArchivedStatus> findInDatabase(String stationId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(
+                "SELECT id, recorded_at, station_id, connector_id, status, source FROM status_history " +
+                        "WHERE station_id = ? AND recorded_at >= ? AND recorded_at < ? ORDER BY recorded_at, id",
+                (resultSet, rowNum) -> {
+                    long connectorId = resultSet.getLong(4);
+                    Long connector = resultSet.wasNull() ? null : connectorId;
+                    return new ArchivedStatus(resultSet.getLong(1), resultSet.getTimestamp(2).toLocalDateTime(),
+                            resultSet.getString(3), connector, resultSet.getString(5), resultSet.getString(6));
+                },
+                stationId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+}
@@ -1,5 +1,6 @@
 package com.onnoto.onnoto_backend.db.migration;
 
+import com.onnoto.onnoto_backend.db.partition.StatusHistoryPartitionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -12,6 +13,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.Statement;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -22,7 +24,7 @@ public class DatabaseMigration {
 
     @Bean
     @Order(Ordered.HIGHEST_PRECEDENCE)  // Make sure this runs first
-    public CommandLineRunner initDatabase(DataSource dataSource) {
+    public CommandLineRunner initDatabase(DataSource dataSource, StatusHistoryPartitionManager partitionManager) {
         return args -> {
             try (Connection connection = dataSource.getConnection()) {
                 // Enable PostGIS extension
@@ -84,15 +86,16 @@ public class DatabaseMigration {
                                 "    updated_at TIMESTAMP NOT NULL DEFAULT NOW()" +
                                 ")",
 
-                        // Status History table
+                        // Status History table, partitioned by month (see StatusHistoryPartitionManager)
                         "CREATE TABLE IF NOT EXISTS status_history (" +
-                                "    id SERIAL PRIMARY KEY," +
+                                "    id BIGSERIAL," +
                                 "    station_id VARCHAR(100) REFERENCES stations(id)," +
                                 "    connector_id INTEGER REFERENCES connectors(id)," +
                                 "    status VARCHAR(50) NOT NULL," +
                                 "    source VARCHAR(50) NOT NULL," +
-                                "    recorded_at TIMESTAMP NOT NULL DEFAULT NOW()" +
-                                ")",
+                                "    recorded_at TIMESTAMP NOT NULL DEFAULT NOW()," +
+                                "    PRIMARY KEY (id, recorded_at)" +
+                                ") PARTITION BY RANGE (recorded_at)",
 
                         // Anonymous Users table
                         "CREATE TABLE IF NOT EXISTS anonymous_users (" +
@@ -162,7 +165,126 @@ public class DatabaseMigration {
                                 "    metadata TEXT" +
                                 ")",
                         "ALTER TABLE anonymous_users " +
-                                "ADD COLUMN IF NOT EXISTS is_blocked BOOLEAN NOT NULL DEFAULT FALSE"
+                                "ADD COLUMN IF NOT EXISTS is_blocked BOOLEAN NOT NULL DEFAULT FALSE",
+
+                        // Crawl Cells table - remembered quadtree search results per provider
+                        "CREATE TABLE IF NOT EXISTS crawl_cells (" +
+                                "    id VARCHAR(200) PRIMARY KEY," +
+                                "    provider VARCHAR(50) NOT NULL," +
+                                "    cell_key VARCHAR(150) NOT NULL," +
+                                "    depth INTEGER NOT NULL," +
+                                "    saturated BOOLEAN NOT NULL DEFAULT FALSE," +
+                                "    result_count INTEGER," +
+                                "    result_hash VARCHAR(64)," +
+                                "    unchanged_runs INTEGER DEFAULT 0," +
+                                "    last_crawled_at TIMESTAMP," +
+                                "    next_crawl_at TIMESTAMP" +
+                                ")",
+
+                        // Provider sync state - incremental sync watermarks per provider
+                        "CREATE TABLE IF NOT EXISTS provider_sync_state (" +
+                                "    provider VARCHAR(50) PRIMARY KEY," +
+                                "    last_sync_at TIMESTAMP," +
+                                "    last_full_sync_at TIMESTAMP," +
+                                "    last_sync_count INTEGER," +
+                                "    updated_at TIMESTAMP" +
+                                ")",
+
+                        // Fingerprints of the provider payload, used to skip no-op upserts
+                        "ALTER TABLE stations " +
+                                "ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64)",
+                        "ALTER TABLE stations " +
+                                "ADD COLUMN IF NOT EXISTS connector_hash VARCHAR(64)",
+
+                        // Provider station ids that describe the same site as a canonical station
+                        "CREATE TABLE IF NOT EXISTS station_aliases (" +
+                                "    alias_id VARCHAR(255) PRIMARY KEY," +
+                                "    canonical_id VARCHAR(255) NOT NULL," +
+                                "    provider VARCHAR(50) NOT NULL," +
+                                "    distance_meters DOUBLE PRECISION," +
+                                "    similarity DOUBLE PRECISION," +
+                                "    created_at TIMESTAMP NOT NULL" +
+                                ")",
+
+                        // Leases that let one node of a cluster run each scheduled job
+                        "CREATE TABLE IF NOT EXISTS job_leases (" +
+                                "    job_name VARCHAR(100) PRIMARY KEY," +
+                                "    holder VARCHAR(255) NOT NULL," +
+                                "    acquired_at TIMESTAMP NOT NULL," +
+                                "    heartbeat_at TIMESTAMP NOT NULL," +
+                                "    expires_at TIMESTAMP NOT NULL," +
+                                "    last_completed_at TIMESTAMP," +
+                                "    last_result VARCHAR(255)" +
+                                ")",
+
+                        // Run-length form of status_history: how long each connector spent in each status.
+                        // The interval without an end is the connector's current status
+                        "CREATE TABLE IF NOT EXISTS status_intervals (" +
+                                "    id BIGSERIAL PRIMARY KEY," +
+                                "    connector_id INTEGER NOT NULL REFERENCES connectors(id)," +
+                                "    station_id VARCHAR(100) NOT NULL," +
+                                "    status VARCHAR(50) NOT NULL," +
+                                "    started_at TIMESTAMP NOT NULL," +
+                                "    ended_at TIMESTAMP" +
+                                ")",
+
+                        // Status rollups per connector and hour and per station and day, kept up to
+                        // date by the rollup job from the watermark in rollup_watermarks
+                        "CREATE TABLE IF NOT EXISTS status_rollup_hourly (" +
+                                "    id BIGSERIAL PRIMARY KEY," +
+                                "    connector_id BIGINT NOT NULL," +
+                                "    station_id VARCHAR(100) NOT NULL," +
+                                "    bucket TIMESTAMP NOT NULL," +
+                                "    status VARCHAR(50) NOT NULL," +
+                                "    changes INTEGER NOT NULL DEFAULT 0," +
+                                "    seconds DOUBLE PRECISION NOT NULL DEFAULT 0," +
+                                "    UNIQUE (connector_id, bucket, status)" +
+                                ")",
+
+                        "CREATE TABLE IF NOT EXISTS status_rollup_daily (" +
+                                "    id BIGSERIAL PRIMARY KEY," +
+                                "    station_id VARCHAR(100) NOT NULL," +
+                                "    day DATE NOT NULL," +
+                                "    status VARCHAR(50) NOT NULL," +
+                                "    changes INTEGER NOT NULL DEFAULT 0," +
+                                "    seconds DOUBLE PRECISION NOT NULL DEFAULT 0," +
+                                "    UNIQUE (station_id, day, status)" +
+                                ")",
+
+                        "CREATE TABLE IF NOT EXISTS rollup_watermarks (" +
+                                "    name VARCHAR(100) PRIMARY KEY," +
+                                "    last_history_id BIGINT NOT NULL DEFAULT 0," +
+                                "    seconds_from TIMESTAMP," +
+                                "    updated_at TIMESTAMP" +
+                                ")",
+
+                        // Highest history id the rollup job has read; the next run scans from the one before it
+                        "ALTER TABLE rollup_watermarks ADD COLUMN IF NOT EXISTS seen_history_id BIGINT NOT NULL DEFAULT 0",
+
+                        // Start the status rollups from the beginning of the history
+                        "INSERT INTO rollup_watermarks (name, last_history_id, seconds_from, updated_at) " +
+                                "VALUES ('status', 0, NULL, now()) ON CONFLICT (name) DO NOTHING",
+
+                        // Build the intervals of the history recorded before the table existed, once: the
+                        // marker row is claimed in the same statement, so later startups skip the scan
+                        // of status_history even while status_intervals is still empty
+                        "WITH marker AS (" +
+                                "INSERT INTO rollup_watermarks (name, last_history_id, seconds_from, updated_at) " +
+                                "VALUES ('status_intervals_backfill', 0, NULL, now()) " +
+                                "ON CONFLICT (name) DO NOTHING RETURNING name) " +
+                                "INSERT INTO status_intervals (connector_id, station_id, status, started_at, ended_at) " +
+                                "SELECT connector_id, station_id, status, recorded_at, " +
+                                "LEAD(recorded_at) OVER (PARTITION BY connector_id ORDER BY recorded_at, id) " +
+                                "FROM status_history " +
+                                "WHERE connector_id IS NOT NULL AND station_id IS NOT NULL " +
+                                "AND EXISTS (SELECT 1 FROM marker) AND NOT EXISTS (SELECT 1 FROM status_intervals)",
+
+                        // Nodes taking part in sharded status ingestion
+                        "CREATE TABLE IF NOT EXISTS ingestion_nodes (" +
+                                "    node_id VARCHAR(255) PRIMARY KEY," +
+                                "    joined_at TIMESTAMP NOT NULL," +
+                                "    heartbeat_at TIMESTAMP NOT NULL" +
+                                ")"
 
                 );
 
@@ -177,6 +299,9 @@ public class DatabaseMigration {
                     }
                 }
 
+                // Create this month's partitions; an unpartitioned status_history is converted in the background
+                partitionManager.maintain(YearMonth.now());
+
                 // Create indexes after tables are created
                 createIndexes(jdbcTemplate);
 
@@ -209,10 +334,35 @@ public class DatabaseMigration {
                 "CREATE INDEX IF NOT EXISTS idx_connectors_type ON connectors(connector_type)",
                 "CREATE INDEX IF NOT EXISTS idx_connectors_status ON connectors(status)",
 
-                // Indexes for status history
-                "CREATE INDEX IF NOT EXISTS idx_status_history_station ON status_history(station_id)",
-                "CREATE INDEX IF NOT EXISTS idx_status_history_connector ON status_history(connector_id)",
-                "CREATE INDEX IF NOT EXISTS idx_status_history_date ON status_history(recorded_at)",
+                // Indexes for status history: history is read per connector or station over a time
+                // range, so the composite indexes serve both the filter and the ORDER BY recorded_at,
+                // and carry the status so counting needs no heap access. Whole-table time ranges use
+                // the BRIN index, which stays tiny because rows arrive in recorded_at order.
+                "DROP INDEX IF EXISTS idx_status_history_station",
+                "DROP INDEX IF EXISTS idx_status_history_connector",
+                "DROP INDEX IF EXISTS idx_status_history_date",
+                "CREATE INDEX IF NOT EXISTS idx_status_history_connector_time " +
+                        "ON status_history(connector_id, recorded_at) INCLUDE (status)",
+                "CREATE INDEX IF NOT EXISTS idx_status_history_station_time " +
+                        "ON status_history(station_id, recorded_at) INCLUDE (status)",
+                "CREATE INDEX IF NOT EXISTS idx_status_history_time_brin " +
+                        "ON status_history USING BRIN (recorded_at)",
+
+                // Indexes for status intervals: overlap sums per station, the covering interval per
+                // connector, and at most one open interval per connector
+                "CREATE INDEX IF NOT EXISTS idx_status_intervals_station_time " +
+                        "ON status_intervals(station_id, started_at) INCLUDE (status, ended_at)",
+                "CREATE INDEX IF NOT EXISTS idx_status_intervals_connector_time " +
+                        "ON status_intervals(connector_id, started_at)",
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_status_intervals_open " +
+                        "ON status_intervals(connector_id) WHERE ended_at IS NULL",
+                "CREATE INDEX IF NOT EXISTS idx_status_intervals_ended " +
+                        "ON status_intervals(ended_at)",
+
+                // Indexes for status rollups: hourly rows by bucket for the rollup job and by
+                // connector for weekly patterns, daily rows come with their unique index
+                "CREATE INDEX IF NOT EXISTS idx_status_rollup_hourly_bucket ON status_rollup_hourly(bucket)",
+                "CREATE INDEX IF NOT EXISTS idx_status_rollup_daily_day ON status_rollup_daily(day)",
 
                 // Indexes for reports
                 "CREATE INDEX IF NOT EXISTS idx_reports_station ON reports(station_id)",
@@ -228,7 +378,13 @@ public class DatabaseMigration {
 
                 // Indexes for user preferences
                 "CREATE INDEX IF NOT EXISTS idx_preferences_device ON user_preferences(device_id)",
-                "CREATE INDEX IF NOT EXISTS idx_preferences_key ON user_preferences(preference_key)"
+                "CREATE INDEX IF NOT EXISTS idx_preferences_key ON user_preferences(preference_key)",
+
+                // Indexes for crawl cells
+                "CREATE INDEX IF NOT EXISTS idx_crawl_cells_provider ON crawl_cells(provider)",
+
+                // Indexes for station aliases
+                "CREATE INDEX IF NOT EXISTS idx_station_aliases_canonical ON station_aliases(canonical_id)"
         ));
 
         // Add spatial index if PostGIS is enabled
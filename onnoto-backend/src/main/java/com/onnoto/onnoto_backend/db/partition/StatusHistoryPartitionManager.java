@@ -0,0 +1,300 @@
+package com.onnoto.onnoto_backend.db.partition;
+
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps status_history range-partitioned by month of recorded_at.
+ *
+ * A partition exists for the current month and premake-months ahead; rows outside every month
+ * partition (late replays of old changes) land in status_history_default and are moved when
+ * their month's partition is created. Months older than retention-months are detached, leaving
+ * a plain table with the partition's name, or dropped. Retiring a month is a catalog change,
+ * not a DELETE over the history.
+ */
+@Slf4j
+@Component
+public class StatusHistoryPartitionManager {
+
+    static final String TABLE = "status_history";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+    static final String CONVERSION_TABLE = TABLE + "_new";
+    private static final String CONVERSION_SUFFIX = "_new";
+    static final String CONVERSION_WATERMARK = "status_history_partitioning";
+    private static final Pattern MONTH_PARTITION = Pattern.compile(TABLE + "_(\\d{4})_(\\d{2})");
+
+    public enum RetentionAction { DETACH, DROP }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseService jobLeaseService;
+
+    @Value("${onnoto.history.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    // 0 keeps every month
+    @Value("${onnoto.history.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${onnoto.history.partitions.retention-action:DETACH}")
+    private RetentionAction retentionAction;
+
+    @Value("${onnoto.history.partitions.conversion-batch-rows:10000}")
+    private int conversionBatchRows;
+
+    @Value("${onnoto.history.partitions.conversion-batches-per-run:100}")
+    private int conversionBatchesPerRun;
+
+    public StatusHistoryPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                         JobLeaseService jobLeaseService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    @Scheduled(cron = "${onnoto.history.partitions.cron:0 30 2 * * ?}")
+    public void scheduledMaintenance() {
+        jobLeaseService.runExclusively("maintenance.history-partitions", Duration.ofHours(1),
+                () -> maintain(YearMonth.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${onnoto.history.partitions.conversion-interval-ms:60000}",
+            initialDelayString = "${onnoto.history.partitions.conversion-interval-ms:60000}")
+    public void scheduledConversion() {
+        jobLeaseService.runExclusively("maintenance.history-conversion", Duration.ofSeconds(30),
+                this::convertLegacyTable);
+    }
+
+    /**
+     * Convert a status_history created before partitioning, a batch at a time, while it stays in
+     * use. Does nothing if the table is partitioned already.
+     *
+     * The partitioned table is built next to it as status_history_new, with month partitions and
+     * copies of its indexes, and rows are copied in id order, at most batches-per-run batches a
+     * run. History ids are handed out before their transaction commits, so a row just below the
+     * highest id may still appear: a run never starts above the highest id that existed when the
+     * run before it started, and rows copied twice are skipped. Once a run catches up, the
+     * remaining rows are copied and the tables swapped in one short transaction that locks
+     * status_history. The legacy table's INTEGER ids rule out attaching it as a partition as is.
+     */
+    public void convertLegacyTable() {
+        if (!"r".equals(relkind(TABLE))) {
+            return;
+        }
+        if (relkind(CONVERSION_TABLE) == null) {
+            createConversionTable();
+        }
+
+        Map<String, Object> watermark = jdbcTemplate.queryForMap(
+                "SELECT last_history_id, seen_history_id FROM rollup_watermarks WHERE name = ?", CONVERSION_WATERMARK);
+        long lastHistoryId = ((Number) watermark.get("last_history_id")).longValue();
+        long seenHistoryId = ((Number) watermark.get("seen_history_id")).longValue();
+        Long head = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + TABLE, Long.class);
+
+        long from = lastHistoryId;
+        long copied = 0;
+        boolean caughtUp = false;
+        for (int batch = 0; batch < conversionBatchesPerRun && !caughtUp; batch++) {
+            Map<String, Object> result = jdbcTemplate.queryForMap("WITH batch AS (" +
+                    "SELECT id, station_id, connector_id, status, source, recorded_at FROM " + TABLE +
+                    " WHERE id > ? ORDER BY id LIMIT ?), " +
+                    "copied AS (INSERT INTO " + CONVERSION_TABLE + " SELECT * FROM batch ON CONFLICT DO NOTHING) " +
+                    "SELECT COUNT(*) AS batch_rows, MAX(id) AS last_id FROM batch", from, conversionBatchRows);
+            long rows = ((Number) result.get("batch_rows")).longValue();
+            if (rows > 0) {
+                from = ((Number) result.get("last_id")).longValue();
+                copied += rows;
+            }
+            caughtUp = rows < conversionBatchRows;
+        }
+
+        if (!caughtUp) {
+            jdbcTemplate.update("UPDATE rollup_watermarks SET last_history_id = ?, seen_history_id = ?, updated_at = now() " +
+                    "WHERE name = ?", Math.min(from, seenHistoryId), head != null ? head : 0, CONVERSION_WATERMARK);
+            log.info("Copied {} status history rows into {}, up to id {}", copied, CONVERSION_TABLE, from);
+            return;
+        }
+        swapConversionTable(lastHistoryId);
+        maintain(YearMonth.now());
+    }
+
+    private String relkind(String table) {
+        return jdbcTemplate.queryForObject(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass(?)", String.class, table);
+    }
+
+    private void createConversionTable() {
+        log.info("Converting {} to a table partitioned by month, copying its rows in the background", TABLE);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + CONVERSION_TABLE + " (" +
+                    "    id BIGINT NOT NULL DEFAULT nextval('" + TABLE + "_id_seq')," +
+                    "    station_id VARCHAR(100) REFERENCES stations(id)," +
+                    "    connector_id INTEGER REFERENCES connectors(id)," +
+                    "    status VARCHAR(50) NOT NULL," +
+                    "    source VARCHAR(50) NOT NULL," +
+                    "    recorded_at TIMESTAMP NOT NULL DEFAULT NOW()," +
+                    "    PRIMARY KEY (id, recorded_at)" +
+                    ") PARTITION BY RANGE (recorded_at)");
+
+            // The first row by id rather than MIN(recorded_at), which would scan the table; older replays go to the default partition
+            List<Timestamp> first = jdbcTemplate.queryForList(
+                    "SELECT recorded_at FROM " + TABLE + " ORDER BY id LIMIT 1", Timestamp.class);
+            YearMonth month = first.isEmpty() ? YearMonth.now() : YearMonth.from(first.get(0).toLocalDateTime());
+            for (; !month.isAfter(YearMonth.now().plusMonths(premakeMonths)); month = month.plusMonths(1)) {
+                jdbcTemplate.execute("CREATE TABLE " + partitionName(month) + " PARTITION OF " + CONVERSION_TABLE +
+                        " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            }
+            jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + CONVERSION_TABLE + " DEFAULT");
+
+            // The same indexes as the legacy table, renamed to their final names on the swap
+            List<Map<String, Object>> indexes = jdbcTemplate.queryForList(
+                    "SELECT indexname::text AS name, indexdef AS definition FROM pg_indexes " +
+                            "WHERE schemaname = current_schema() AND tablename = ? AND indexname <> ?",
+                    TABLE, TABLE + "_pkey");
+            for (Map<String, Object> index : indexes) {
+                jdbcTemplate.execute(((String) index.get("definition")).replaceFirst(
+                        "^CREATE (UNIQUE )?INDEX \\S+ ON \\S+ ",
+                        "CREATE $1INDEX " + index.get("name") + CONVERSION_SUFFIX + " ON " + CONVERSION_TABLE + " "));
+            }
+
+            jdbcTemplate.update("INSERT INTO rollup_watermarks (name, last_history_id, seen_history_id, updated_at) " +
+                    "SELECT ?, 0, COALESCE(MAX(id), 0), now() FROM " + TABLE + " ON CONFLICT (name) DO UPDATE " +
+                    "SET last_history_id = 0, seen_history_id = EXCLUDED.seen_history_id, updated_at = now()",
+                    CONVERSION_WATERMARK);
+        });
+    }
+
+    /**
+     * Copy what is left and put the partitioned table in the legacy table's place. Writers wait
+     * for the lock, so every row below the highest id is committed by the time it is held.
+     */
+    private void swapConversionTable(long from) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+            int rows = jdbcTemplate.update("INSERT INTO " + CONVERSION_TABLE +
+                    " SELECT id, station_id, connector_id, status, source, recorded_at FROM " + TABLE +
+                    " WHERE id > ? ON CONFLICT DO NOTHING", from);
+
+            List<String> indexes = jdbcTemplate.queryForList(
+                    "SELECT indexname::text FROM pg_indexes WHERE schemaname = current_schema() AND tablename = ? " +
+                            "AND indexname <> ?", String.class, CONVERSION_TABLE, CONVERSION_TABLE + "_pkey");
+            jdbcTemplate.execute("ALTER SEQUENCE " + TABLE + "_id_seq OWNED BY NONE");
+            jdbcTemplate.execute("ALTER SEQUENCE " + TABLE + "_id_seq AS BIGINT");
+            jdbcTemplate.execute("DROP TABLE " + TABLE);
+            jdbcTemplate.execute("ALTER TABLE " + CONVERSION_TABLE + " RENAME TO " + TABLE);
+            jdbcTemplate.execute("ALTER INDEX " + CONVERSION_TABLE + "_pkey RENAME TO " + TABLE + "_pkey");
+            for (String index : indexes) {
+                if (index.endsWith(CONVERSION_SUFFIX)) {
+                    jdbcTemplate.execute("ALTER INDEX " + index + " RENAME TO " +
+                            index.substring(0, index.length() - CONVERSION_SUFFIX.length()));
+                }
+            }
+            jdbcTemplate.execute("ALTER SEQUENCE " + TABLE + "_id_seq OWNED BY " + TABLE + ".id");
+            jdbcTemplate.update("DELETE FROM rollup_watermarks WHERE name = ?", CONVERSION_WATERMARK);
+            log.info("Copied the last {} status history rows and replaced {} with the partitioned table", rows, TABLE);
+        });
+    }
+
+    /**
+     * Create the partitions from the current month to premake-months ahead and retire the months
+     * past retention.
+     */
+    public void maintain(YearMonth current) {
+        if (!"p".equals(relkind(TABLE))) {
+            log.info("{} is not partitioned yet, partitions are created once it is converted", TABLE);
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+
+        List<YearMonth> existing = partitions();
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.contains(month)) {
+                try {
+                    createPartition(month);
+                } catch (Exception e) {
+                    // Most likely another node created it at the same time
+                    log.warn("Could not create partition {}: {}", partitionName(month), e.getMessage());
+                }
+            }
+        }
+
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+            for (YearMonth month : existing) {
+                if (month.isBefore(oldestKept)) {
+                    retire(month);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a month's partition, moving any rows of that month out of the default partition.
+     */
+    void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE recorded_at >= " + from + " AND recorded_at < " + to + " RETURNING *) " +
+                    "INSERT INTO " + name + " SELECT * FROM moved");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name +
+                    " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+            log.info("Created partition {}{}", name, moved > 0 ? " with " + moved + " rows from the default partition" : "");
+        });
+    }
+
+    private void retire(YearMonth month) {
+        String name = partitionName(month);
+        try {
+            if (retentionAction == RetentionAction.DROP) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Dropped status history partition {}", name);
+            } else {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+                log.info("Detached status history partition {}", name);
+            }
+        } catch (Exception e) {
+            log.error("Error retiring status history partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * The months that currently have a partition attached.
+     */
+    List<YearMonth> partitions() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass(?)", String.class, TABLE);
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : names) {
+            Matcher matcher = MONTH_PARTITION.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        return months;
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_%04d_%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,146 @@
+package com.onnoto.onnoto_backend.db.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the read replicas and everything else to the primary.
+ *
+ * Replicas take turns. A replica is only used while its last check found it reachable and at
+ * most max-lag behind the primary; with no replica available, reads go to the primary too.
+ * The routing key is taken when the connection is obtained, so this data source must sit
+ * behind a LazyConnectionDataSourceProxy: the read-only flag of a transaction is only known
+ * once the transaction has begun.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    // Seconds since the last replayed transaction, unless the replica has replayed all it received
+    private static final String LAG_SQL = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    /**
+     * One replica pool and what its last check found.
+     */
+    static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available;
+        private volatile Double lagSeconds;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.maxLag = maxLag;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            this.replicas.add(new Replica(name, dataSource));
+            targets.put(name, dataSource);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (replica.available) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Measure how far each replica is behind and take the ones too far behind, or unreachable,
+     * out of rotation until they catch up.
+     */
+    @Scheduled(fixedDelayString = "${onnoto.datasource.replicas.check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            Double lag;
+            try {
+                lag = new JdbcTemplate(replica.dataSource).queryForObject(LAG_SQL, Double.class);
+            } catch (Exception e) {
+                log.debug("Replica {} check failed: {}", replica.name, e.getMessage());
+                lag = null;
+            }
+            updateLag(replica.name, lag);
+        }
+    }
+
+    /**
+     * Record a replica's lag in seconds, null if it could not be reached.
+     */
+    void updateLag(String name, Double lagSeconds) {
+        for (Replica replica : replicas) {
+            if (!replica.name.equals(name)) {
+                continue;
+            }
+            boolean available = lagSeconds != null && lagSeconds * 1000 <= maxLag.toMillis();
+            if (available != replica.available) {
+                if (available) {
+                    log.info("Replica {} is in rotation ({}s behind)", name, lagSeconds);
+                } else if (lagSeconds == null) {
+                    log.warn("Replica {} is unreachable, its reads go to the primary", name);
+                } else {
+                    log.warn("Replica {} is {}s behind, more than {}; its reads go to the primary",
+                            name, lagSeconds, maxLag);
+                }
+            }
+            replica.lagSeconds = lagSeconds;
+            replica.available = available;
+        }
+    }
+
+    /**
+     * Lag in seconds of each replica as last measured, null for unreachable ones.
+     */
+    public Map<String, Double> replicaLag() {
+        Map<String, Double> lag = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            lag.put(replica.name, replica.lagSeconds);
+        }
+        return lag;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
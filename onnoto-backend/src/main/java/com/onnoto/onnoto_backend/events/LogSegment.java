@@ -0,0 +1,143 @@
+package com.onnoto.onnoto_backend.events;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * One file of the {@link StatusEventLog}, named after the offset of its first record.
+ *
+ * Record layout: length (int, of everything after the checksum), CRC32C (int), offset (long),
+ * timestamp (long), connector id (long, -1 for none), then station id, previous status, status
+ * and source as length-prefixed UTF-8 (short length, -1 for null). A record whose length runs
+ * past the end of the file or whose checksum does not match ends the readable part of the
+ * segment: it is the torn tail of an interrupted write.
+ */
+class LogSegment {
+
+    static final String SUFFIX = ".log";
+    private static final int HEADER = 8;
+
+    private final Path path;
+    private final long baseOffset;
+
+    LogSegment(Path path, long baseOffset) {
+        this.path = path;
+        this.baseOffset = baseOffset;
+    }
+
+    static LogSegment of(Path path) {
+        String name = path.getFileName().toString();
+        return new LogSegment(path, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+    }
+
+    static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, SUFFIX);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    /**
+     * Encode a record into the buffer, which is cleared first and flipped for writing.
+     */
+    static void encode(ByteBuffer buffer, StatusLogRecord record) {
+        buffer.clear();
+        buffer.position(HEADER);
+        buffer.putLong(record.offset());
+        buffer.putLong(record.timestamp());
+        buffer.putLong(record.connectorId() != null ? record.connectorId() : -1);
+        putString(buffer, record.stationId());
+        putString(buffer, record.previousStatus());
+        putString(buffer, record.status());
+        putString(buffer, record.source());
+        int end = buffer.position();
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER, end - HEADER);
+        buffer.putInt(0, end - HEADER);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.limit(end);
+        buffer.position(0);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read the valid records of this segment through a memory mapping.
+     *
+     * @param fromOffset records before this offset are skipped
+     * @return the byte position after the last valid record
+     */
+    long read(long fromOffset, Consumer<StatusLogRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return 0;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C crc = new CRC32C();
+            int position = 0;
+            while (position + HEADER <= size) {
+                int length = mapped.getInt(position);
+                int checksum = mapped.getInt(position + 4);
+                if (length <= 0 || position + HEADER + (long) length > size) {
+                    break;
+                }
+                ByteBuffer body = mapped.slice(position + HEADER, length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                try {
+                    long offset = body.getLong();
+                    long timestamp = body.getLong();
+                    long connectorId = body.getLong();
+                    String stationId = getString(body);
+                    String previousStatus = getString(body);
+                    String status = getString(body);
+                    String source = getString(body);
+                    if (offset >= fromOffset) {
+                        consumer.accept(new StatusLogRecord(offset, timestamp, stationId,
+                                connectorId >= 0 ? connectorId : null, previousStatus, status, source));
+                    }
+                } catch (BufferUnderflowException e) {
+                    break;
+                }
+                position += HEADER + length;
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.onnoto.onnoto_backend.events;
+
+/**
+ * A connector status transition, as seen by {@link StatusEventSubscriber}s.
+ *
+ * Instances are slots of the {@link StatusEventBus} ring and are reused once every subscriber has
+ * moved past them: read what you need in {@code onEvent} and do not keep the event itself.
+ */
+public final class StatusChangeEvent {
+
+    private long sequence;
+    private String stationId;
+    private Long connectorId;
+    private String previousStatus;
+    private String status;
+    private String source;
+    private long changedAt;
+
+    void set(long sequence, String stationId, Long connectorId, String previousStatus, String status,
+             String source, long changedAt) {
+        this.sequence = sequence;
+        this.stationId = stationId;
+        this.connectorId = connectorId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.source = source;
+        this.changedAt = changedAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getStationId() {
+        return stationId;
+    }
+
+    public Long getConnectorId() {
+        return connectorId;
+    }
+
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Epoch milliseconds.
+     */
+    public long getChangedAt() {
+        return changedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusChangeEvent[" + sequence + " " + stationId + "/" + connectorId + " "
+                + previousStatus + " -> " + status + " (" + source + ")]";
+    }
+}
@@ -0,0 +1,258 @@
+package com.onnoto.onnoto_backend.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process fan-out of connector status transitions.
+ *
+ * Events live in a ring of pre-allocated {@link StatusChangeEvent} slots, so publishing allocates
+ * nothing. A publisher claims the next sequence, fills the slot and marks it available; any number
+ * of threads may publish. Every {@link StatusEventSubscriber} has its own thread and its own
+ * sequence, the last event it has handled, and reads the ring independently of the others.
+ * A slot is reused only once the slowest subscriber has moved past it; until then publishers wait,
+ * for at most onnoto.events.publish-timeout-ms, after which the event is dropped and counted in
+ * onnoto.events.dropped. A subscriber whose thread dies stops holding the ring back.
+ *
+ * Metrics per subscriber: onnoto.events.consumed, onnoto.events.errors and the
+ * onnoto.events.lag gauge (events published but not yet handled).
+ */
+@Slf4j
+@Component
+public class StatusEventBus {
+
+    private final List<StatusEventSubscriber> subscribers;
+    private final MeterRegistry meterRegistry;
+
+    // Rounded up to a power of two
+    @Value("${onnoto.events.ring-size:8192}")
+    private int ringSize;
+
+    @Value("${onnoto.events.publish-timeout-ms:1000}")
+    private long publishTimeoutMs;
+
+    private StatusChangeEvent[] ring;
+    private AtomicLongArray published;
+    private int mask;
+
+    // Next sequence to claim
+    private final AtomicLong claimed = new AtomicLong();
+    private final List<Consumer> consumers = new ArrayList<>();
+    private Counter publishedEvents;
+    private Counter blockedPublishes;
+    private Counter droppedEvents;
+    private volatile boolean running;
+
+    public StatusEventBus(List<StatusEventSubscriber> subscribers, MeterRegistry meterRegistry) {
+        this.subscribers = subscribers;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        int size = Integer.highestOneBit(Math.max(ringSize, 2) - 1) << 1;
+        ring = new StatusChangeEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new StatusChangeEvent();
+        }
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        mask = size - 1;
+
+        publishedEvents = Counter.builder("onnoto.events.published").register(meterRegistry);
+        blockedPublishes = Counter.builder("onnoto.events.publish.blocked").register(meterRegistry);
+        droppedEvents = Counter.builder("onnoto.events.dropped").register(meterRegistry);
+        Gauge.builder("onnoto.events.ring.size", () -> ring.length).register(meterRegistry);
+
+        running = true;
+        for (StatusEventSubscriber subscriber : subscribers) {
+            Consumer consumer = new Consumer(subscriber);
+            consumers.add(consumer);
+            consumer.thread.start();
+        }
+        log.info("Status event bus started: ring of {} events, subscribers {}", size,
+                subscribers.stream().map(StatusEventSubscriber::getSubscriberName).toList());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Consumer consumer : consumers) {
+            consumer.thread.interrupt();
+        }
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publish a status transition to every subscriber. Blocks only while the slowest subscriber
+     * is a full ring behind, and drops the event if that lasts longer than the publish timeout.
+     */
+    public void publish(String stationId, Long connectorId, String previousStatus, String status,
+                        String source, long changedAt) {
+        if (consumers.isEmpty() || !running) {
+            return;
+        }
+        long sequence = claim();
+        if (sequence < 0) {
+            droppedEvents.increment();
+            log.warn("Status event bus full for {} ms, dropped {} {} -> {}", publishTimeoutMs, stationId,
+                    previousStatus, status);
+            return;
+        }
+
+        ring[(int) (sequence & mask)].set(sequence, stationId, connectorId, previousStatus, status, source, changedAt);
+        published.set((int) (sequence & mask), sequence);
+        publishedEvents.increment();
+    }
+
+    /**
+     * Claim the next sequence once its slot is free. A sequence is only claimed when it can be
+     * filled, so a publisher that gives up leaves no gap for subscribers to wait on.
+     *
+     * @return the claimed sequence, or -1 when no slot freed up within the publish timeout
+     */
+    private long claim() {
+        long deadline = 0;
+        while (true) {
+            long current = claimed.get();
+            if (current - ring.length < slowestSequence()) {
+                if (claimed.compareAndSet(current, current + 1)) {
+                    return current;
+                }
+                continue;
+            }
+            if (deadline == 0) {
+                blockedPublishes.increment();
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(publishTimeoutMs);
+            } else if (!running || System.nanoTime() - deadline > 0) {
+                return -1;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    private long slowestSequence() {
+        long slowest = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            slowest = Math.min(slowest, consumer.sequence.get());
+        }
+        return slowest;
+    }
+
+    /**
+     * Highest sequence claimed by a publisher, -1 before the first event.
+     */
+    public long cursor() {
+        return claimed.get() - 1;
+    }
+
+    /**
+     * Events published but not yet handled by a subscriber.
+     */
+    public long lag(String subscriberName) {
+        return consumers.stream()
+                .filter(consumer -> consumer.subscriber.getSubscriberName().equals(subscriberName))
+                .mapToLong(Consumer::lag)
+                .findFirst()
+                .orElse(0);
+    }
+
+    /**
+     * One subscriber's position in the ring and the thread that advances it.
+     */
+    private class Consumer implements Runnable {
+
+        private final StatusEventSubscriber subscriber;
+        // Last handled sequence
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final Counter consumed;
+        private final Counter errors;
+        private final Thread thread;
+
+        Consumer(StatusEventSubscriber subscriber) {
+            this.subscriber = subscriber;
+            String name = subscriber.getSubscriberName();
+            this.consumed = Counter.builder("onnoto.events.consumed").tag("subscriber", name).register(meterRegistry);
+            this.errors = Counter.builder("onnoto.events.errors").tag("subscriber", name).register(meterRegistry);
+            Gauge.builder("onnoto.events.lag", this, Consumer::lag)
+                    .tag("subscriber", name)
+                    .register(meterRegistry);
+            this.thread = Thread.ofPlatform().name("events-" + name).daemon().unstarted(this);
+        }
+
+        // Zero once the subscriber has stopped
+        private long lag() {
+            return Math.max(0, cursor() - sequence.get());
+        }
+
+        private boolean available(long next) {
+            return published.get((int) (next & mask)) == next;
+        }
+
+        @Override
+        public void run() {
+            try {
+                consume();
+            } finally {
+                if (running) {
+                    log.error("Subscriber {} stopped at sequence {}, no longer receiving status events",
+                            subscriber.getSubscriberName(), sequence.get());
+                }
+                // A dead subscriber must not hold publishers back
+                sequence.set(Long.MAX_VALUE);
+            }
+        }
+
+        private void consume() {
+            long idleNanos = 0;
+            while (running) {
+                long next = sequence.get() + 1;
+                if (!available(next)) {
+                    // Back off while idle, up to a millisecond between checks
+                    idleNanos = Math.min(Math.max(idleNanos * 2, 10_000), 1_000_000);
+                    LockSupport.parkNanos(idleNanos);
+                    continue;
+                }
+                idleNanos = 0;
+                while (available(next)) {
+                    StatusChangeEvent event = ring[(int) (next & mask)];
+                    try {
+                        subscriber.onEvent(event, !available(next + 1));
+                        consumed.increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        errors.increment();
+                        log.error("Subscriber {} failed on {}: {}", subscriber.getSubscriberName(), event,
+                                e.getMessage(), e);
+                    }
+                    sequence.set(next);
+                    next++;
+                }
+            }
+        }
+    }
+}
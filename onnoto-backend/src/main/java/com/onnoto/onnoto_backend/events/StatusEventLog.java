@@ -0,0 +1,352 @@
+package com.onnoto.onnoto_backend.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of connector status changes on local disk, next to status_history.
+ *
+ * Records are appended to the newest segment file and flushed to disk every
+ * fsync-interval-ms. A new segment starts once the current one is roll-interval old or would
+ * grow past segment-max-bytes; segments older than retention are deleted. Reads map the
+ * segment files into memory, so derived state can be rebuilt from an offset or a point in time
+ * without querying Postgres.
+ *
+ * The log also buffers changes the database did not accept: their offset is kept as pending
+ * (in the pending.offset file, so it survives a restart) until the changes from there on have
+ * been written again.
+ */
+@Slf4j
+@Component
+public class StatusEventLog {
+
+    private static final String PENDING_FILE = "pending.offset";
+    // Room for a record with four strings of the maximum encodable length
+    private static final int MAX_RECORD_BYTES = 32 + 4 * (2 + Short.MAX_VALUE);
+
+    @Value("${onnoto.events.log.enabled:false}")
+    private boolean enabled;
+
+    @Value("${onnoto.events.log.dir:./data/status-log}")
+    private String dir;
+
+    @Value("${onnoto.events.log.roll-interval:1h}")
+    private Duration rollInterval;
+
+    @Value("${onnoto.events.log.segment-max-bytes:268435456}")
+    private long segmentMaxBytes;
+
+    @Value("${onnoto.events.log.retention:14d}")
+    private Duration retention;
+
+    private final Counter appended;
+    private final Counter errors;
+    private final ByteBuffer buffer = ByteBuffer.allocate(MAX_RECORD_BYTES);
+
+    // Guarded by this
+    private final NavigableMap<Long, LogSegment> segments = new TreeMap<>();
+    private Path directory;
+    private FileChannel active;
+    private long activeSize;
+    private long activeStartedAt;
+    private long nextOffset;
+    private boolean dirty;
+    private long pendingOffset = -1;
+    private long lastMarked = -1;
+
+    public StatusEventLog(MeterRegistry meterRegistry) {
+        this.appended = Counter.builder("onnoto.events.log.appended").register(meterRegistry);
+        this.errors = Counter.builder("onnoto.events.log.errors").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(LogSegment.SUFFIX))
+                    .map(LogSegment::of)
+                    .forEach(segment -> segments.put(segment.baseOffset(), segment));
+        }
+
+        if (segments.isEmpty()) {
+            openSegment(0, System.currentTimeMillis());
+        } else {
+            // Continue the last segment after its last intact record
+            LogSegment last = segments.lastEntry().getValue();
+            long[] next = {last.baseOffset()};
+            long[] startedAt = {-1};
+            long valid = last.read(0, record -> {
+                next[0] = record.offset() + 1;
+                if (startedAt[0] < 0) {
+                    startedAt[0] = record.timestamp();
+                }
+            });
+            active = FileChannel.open(last.path(), StandardOpenOption.WRITE);
+            if (active.size() > valid) {
+                log.warn("Truncating status log segment {} from {} to {} bytes", last.path(), active.size(), valid);
+                active.truncate(valid);
+            }
+            active.position(valid);
+            activeSize = valid;
+            activeStartedAt = startedAt[0] >= 0 ? startedAt[0] : System.currentTimeMillis();
+            nextOffset = next[0];
+        }
+
+        Path pending = directory.resolve(PENDING_FILE);
+        if (Files.exists(pending)) {
+            pendingOffset = Long.parseLong(Files.readString(pending).trim());
+            lastMarked = nextOffset - 1;
+            log.info("Status log has changes from offset {} that are not in the database yet", pendingOffset);
+        }
+        log.info("Opened status log in {}: {} segments, next offset {}", directory, segments.size(), nextOffset);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.force(false);
+            active.close();
+            active = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append a status change.
+     *
+     * @return the offset of the record, or -1 if the log is disabled or the write failed
+     */
+    public synchronized long append(String stationId, Long connectorId, String previousStatus, String status,
+                                    String source, long timestamp) {
+        if (active == null) {
+            return -1;
+        }
+        try {
+            StatusLogRecord record = new StatusLogRecord(nextOffset, timestamp, stationId, connectorId,
+                    previousStatus, status, source);
+            LogSegment.encode(buffer, record);
+            if (activeSize > 0 && (timestamp - activeStartedAt >= rollInterval.toMillis()
+                    || activeSize + buffer.remaining() > segmentMaxBytes)) {
+                roll(timestamp);
+            }
+            if (activeSize == 0) {
+                activeStartedAt = timestamp;
+            }
+            while (buffer.hasRemaining()) {
+                activeSize += active.write(buffer);
+            }
+            dirty = true;
+            appended.increment();
+            return nextOffset++;
+        } catch (IOException e) {
+            errors.increment();
+            log.error("Failed to append status change of station {} to the status log: {}", stationId, e.getMessage());
+            return -1;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${onnoto.events.log.fsync-interval-ms:1000}")
+    public synchronized void flush() {
+        if (active == null || !dirty) {
+            return;
+        }
+        try {
+            active.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            errors.increment();
+            log.error("Failed to flush the status log: {}", e.getMessage());
+        }
+    }
+
+    private void roll(long timestamp) throws IOException {
+        active.force(false);
+        active.close();
+        openSegment(nextOffset, timestamp);
+        deleteExpired(System.currentTimeMillis());
+    }
+
+    private void openSegment(long baseOffset, long startedAt) throws IOException {
+        LogSegment segment = new LogSegment(directory.resolve(LogSegment.fileName(baseOffset)), baseOffset);
+        active = FileChannel.open(segment.path(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segments.put(baseOffset, segment);
+        activeSize = 0;
+        activeStartedAt = startedAt;
+        log.debug("Started status log segment {}", segment.path());
+    }
+
+    /**
+     * Delete closed segments last written before the retention period, unless they still hold
+     * pending changes.
+     */
+    synchronized void deleteExpired(long now) throws IOException {
+        List<Map.Entry<Long, LogSegment>> closed = new ArrayList<>(segments.headMap(segments.lastKey()).entrySet());
+        for (Map.Entry<Long, LogSegment> entry : closed) {
+            long end = segments.higherKey(entry.getKey());
+            if (pendingOffset >= 0 && end > pendingOffset) {
+                break;
+            }
+            Path path = entry.getValue().path();
+            if (Files.getLastModifiedTime(path).toMillis() >= now - retention.toMillis()) {
+                break;
+            }
+            Files.deleteIfExists(path);
+            segments.remove(entry.getKey());
+            log.info("Deleted expired status log segment {}", path);
+        }
+    }
+
+    /**
+     * Read the records from an offset on, in order. Records appended while reading may or may
+     * not be included.
+     */
+    public void replay(long fromOffset, Consumer<StatusLogRecord> consumer) {
+        for (LogSegment segment : segmentsFrom(fromOffset)) {
+            try {
+                segment.read(fromOffset, consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read status log segment " + segment.path(), e);
+            }
+        }
+    }
+
+    /**
+     * Read the records recorded at or after a point in time, in order.
+     */
+    public void replaySince(long timestamp, Consumer<StatusLogRecord> consumer) {
+        for (LogSegment segment : segmentsFrom(0)) {
+            try {
+                // A segment is last written when its last record was appended
+                if (Files.getLastModifiedTime(segment.path()).toMillis() < timestamp) {
+                    continue;
+                }
+                segment.read(0, record -> {
+                    if (record.timestamp() >= timestamp) {
+                        consumer.accept(record);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read status log segment " + segment.path(), e);
+            }
+        }
+    }
+
+    private synchronized List<LogSegment> segmentsFrom(long offset) {
+        if (active == null) {
+            return List.of();
+        }
+        Long first = segments.floorKey(offset);
+        return new ArrayList<>((first != null ? segments.tailMap(first, true) : segments).values());
+    }
+
+    /**
+     * Time of the oldest record still in the log, or -1 if there is none.
+     */
+    public long firstTimestamp() {
+        long[] first = {-1};
+        for (LogSegment segment : segmentsFrom(0)) {
+            try {
+                segment.read(0, record -> {
+                    if (first[0] < 0) {
+                        first[0] = record.timestamp();
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read status log segment " + segment.path(), e);
+            }
+            if (first[0] >= 0) {
+                break;
+            }
+        }
+        return first[0];
+    }
+
+    public synchronized long nextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * The first offset whose change may not be in the database, or -1 if all are.
+     */
+    public synchronized long pendingOffset() {
+        return pendingOffset;
+    }
+
+    /**
+     * Note that the change at an offset did not reach the database.
+     */
+    public synchronized void markPending(long offset) {
+        lastMarked = Math.max(lastMarked, offset);
+        if (pendingOffset < 0 || offset < pendingOffset) {
+            pendingOffset = offset;
+            savePending();
+        }
+    }
+
+    /**
+     * Record the outcome of writing pending changes again.
+     *
+     * @param from     the pending offset the retry started from
+     * @param next     the offset after the last change written
+     * @param complete whether the retry reached the end of the log
+     */
+    public synchronized void resolvePending(long from, long next, boolean complete) {
+        if (pendingOffset != from) {
+            // An earlier change failed meanwhile and is still pending
+            return;
+        }
+        pendingOffset = complete && lastMarked < next ? -1 : next;
+        savePending();
+    }
+
+    private void savePending() {
+        if (directory == null) {
+            return;
+        }
+        Path pending = directory.resolve(PENDING_FILE);
+        try {
+            if (pendingOffset < 0) {
+                Files.deleteIfExists(pending);
+            } else {
+                Path temp = directory.resolve(PENDING_FILE + ".tmp");
+                Files.writeString(temp, Long.toString(pendingOffset));
+                Files.move(temp, pending, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            errors.increment();
+            log.error("Failed to save the pending status log offset {}: {}", pendingOffset, e.getMessage());
+        }
+    }
+}
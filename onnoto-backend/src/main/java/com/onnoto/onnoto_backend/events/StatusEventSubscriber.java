@@ -0,0 +1,22 @@
+package com.onnoto.onnoto_backend.events;
+
+/**
+ * Consumer of status transitions. Every subscriber bean gets each event once, in publication
+ * order, on its own thread of the {@link StatusEventBus}. A slow subscriber only delays itself
+ * until it falls a full ring behind; from then on it holds back publishers.
+ */
+public interface StatusEventSubscriber {
+
+    /**
+     * Name used for the consumer thread and the per-subscriber metrics.
+     */
+    String getSubscriberName();
+
+    /**
+     * Handle one event.
+     *
+     * @param endOfBatch true if no further event is available right now; subscribers that
+     *                   coalesce work (cache evictions, flushes) do it here
+     */
+    void onEvent(StatusChangeEvent event, boolean endOfBatch) throws Exception;
+}
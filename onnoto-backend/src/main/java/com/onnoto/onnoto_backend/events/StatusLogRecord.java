@@ -0,0 +1,12 @@
+package com.onnoto.onnoto_backend.events;
+
+/**
+ * A status transition as stored in the {@link StatusEventLog}.
+ *
+ * @param offset    position in the log, one per record, increasing
+ * @param timestamp when the change was recorded, epoch milliseconds; also the recorded_at of
+ *                  its status_history row
+ */
+public record StatusLogRecord(long offset, long timestamp, String stationId, Long connectorId,
+                              String previousStatus, String status, String source) {
+}
@@ -0,0 +1,41 @@
+package com.onnoto.onnoto_backend.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts status transitions by previous and new status and by source, as
+ * onnoto.status.transitions{from,to,source}.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatusTransitionMetrics implements StatusEventSubscriber {
+
+    private final MeterRegistry meterRegistry;
+
+    // Only the bus thread of this subscriber touches the map
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    @Override
+    public String getSubscriberName() {
+        return "metrics";
+    }
+
+    @Override
+    public void onEvent(StatusChangeEvent event, boolean endOfBatch) {
+        String from = event.getPreviousStatus() != null ? event.getPreviousStatus() : "NONE";
+        String source = event.getSource() != null ? event.getSource() : "unknown";
+        counters.computeIfAbsent(from + '|' + event.getStatus() + '|' + source,
+                key -> Counter.builder("onnoto.status.transitions")
+                        .tag("from", from)
+                        .tag("to", event.getStatus())
+                        .tag("source", source)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
@@ -0,0 +1,170 @@
+package com.onnoto.onnoto_backend.ingestion.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.onnoto.onnoto_backend.ingestion.service.DataIngestionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end ingestion throughput, meant to run against a replayed recording
+ * (onnoto.http.replay.mode=replay) so that results are comparable between builds.
+ *
+ * With onnoto.benchmark.enabled the application runs one full station sync followed by one
+ * status update cycle once it has started, then logs and writes a report: stations written per
+ * second, status changes per second and database write latencies. Scheduled ingestion should be
+ * switched off for the run (onnoto.ingestion.initial-load=false).
+ */
+@Slf4j
+@Component
+public class IngestionBenchmark {
+
+    /**
+     * Result of one benchmark run. Latencies are in milliseconds.
+     */
+    public record Report(String startedAt, double speedup,
+                         double stationSeconds, long stationsWritten, double stationsPerSecond,
+                         double writeBatchMeanMs, double stationWriteMeanMs,
+                         double statusSeconds, long statusChanges, double statusChangesPerSecond,
+                         double statusWriteMeanMs) {
+    }
+
+    /**
+     * Meter readings at one point in time.
+     */
+    record Readings(double stationsWritten, long writeBatches, double writeBatchNanos,
+                    double statusChanges, long statusWrites, double statusWriteNanos) {
+    }
+
+    private final DataIngestionService dataIngestionService;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationContext applicationContext;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Value("${onnoto.benchmark.enabled:false}")
+    private boolean enabled;
+
+    @Value("${onnoto.benchmark.report-dir:./data/benchmarks}")
+    private String reportDir;
+
+    // Shut the application down after the run, for scripted comparisons
+    @Value("${onnoto.benchmark.exit:false}")
+    private boolean exitAfterRun;
+
+    @Value("${onnoto.http.replay.speedup:1}")
+    private double speedup;
+
+    public IngestionBenchmark(DataIngestionService dataIngestionService, MeterRegistry meterRegistry,
+                              ApplicationContext applicationContext) {
+        this.dataIngestionService = dataIngestionService;
+        this.meterRegistry = meterRegistry;
+        this.applicationContext = applicationContext;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofVirtual().name("ingestion-benchmark").start(() -> {
+            try {
+                Report report = run();
+                save(report);
+            } catch (Exception e) {
+                log.error("Ingestion benchmark failed: {}", e.getMessage(), e);
+            }
+            if (exitAfterRun) {
+                System.exit(SpringApplication.exit(applicationContext));
+            }
+        });
+    }
+
+    /**
+     * Run one station sync and one status cycle and measure them.
+     */
+    public Report run() {
+        String startedAt = LocalDateTime.now().toString();
+        log.info("Ingestion benchmark started (replay speed-up {}x)", speedup);
+
+        Readings before = read();
+        long started = System.nanoTime();
+        dataIngestionService.fetchAllStations().join();
+        long stationsDone = System.nanoTime();
+        Readings afterStations = read();
+        dataIngestionService.fetchStatusUpdates().join();
+        long statusDone = System.nanoTime();
+        Readings after = read();
+
+        double stationSeconds = (stationsDone - started) / 1e9;
+        double statusSeconds = (statusDone - stationsDone) / 1e9;
+        long stationsWritten = Math.round(afterStations.stationsWritten() - before.stationsWritten());
+        long statusChanges = Math.round(after.statusChanges() - afterStations.statusChanges());
+
+        Report report = new Report(startedAt, speedup,
+                stationSeconds, stationsWritten, perSecond(stationsWritten, stationSeconds),
+                meanMillis(afterStations.writeBatchNanos() - before.writeBatchNanos(),
+                        afterStations.writeBatches() - before.writeBatches()),
+                meanMillis(afterStations.writeBatchNanos() - before.writeBatchNanos(), stationsWritten),
+                statusSeconds, statusChanges, perSecond(statusChanges, statusSeconds),
+                meanMillis(after.statusWriteNanos() - afterStations.statusWriteNanos(),
+                        after.statusWrites() - afterStations.statusWrites()));
+
+        log.info("Ingestion benchmark: {} stations in {}s ({} stations/s, write batch {} ms, {} ms per station); "
+                        + "{} status changes in {}s ({} changes/s, {} ms per change)",
+                report.stationsWritten(), format(report.stationSeconds()), format(report.stationsPerSecond()),
+                format(report.writeBatchMeanMs()), format(report.stationWriteMeanMs()),
+                report.statusChanges(), format(report.statusSeconds()), format(report.statusChangesPerSecond()),
+                format(report.statusWriteMeanMs()));
+        return report;
+    }
+
+    Readings read() {
+        double stations = meterRegistry.find("onnoto.ingestion.stage.items").tag("stage", "write").counters()
+                .stream().mapToDouble(Counter::count).sum();
+        Timer batches = meterRegistry.find("onnoto.ingestion.stage.process").tag("stage", "write").timer();
+        Counter changes = meterRegistry.find("onnoto.ingestion.status.changes").counter();
+        Timer statusWrites = meterRegistry.find("onnoto.ingestion.status.write").timer();
+        return new Readings(stations,
+                batches != null ? batches.count() : 0,
+                batches != null ? batches.totalTime(TimeUnit.NANOSECONDS) : 0,
+                changes != null ? changes.count() : 0,
+                statusWrites != null ? statusWrites.count() : 0,
+                statusWrites != null ? statusWrites.totalTime(TimeUnit.NANOSECONDS) : 0);
+    }
+
+    private void save(Report report) throws IOException {
+        Path directory = Path.of(reportDir);
+        Files.createDirectories(directory);
+        Path file = directory.resolve("benchmark-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        objectMapper.writeValue(file.toFile(), report);
+        log.info("Ingestion benchmark report written to {}", file);
+    }
+
+    private static double perSecond(long count, double seconds) {
+        return seconds > 0 ? count / seconds : 0;
+    }
+
+    private static double meanMillis(double nanos, long count) {
+        return count > 0 ? nanos / count / 1e6 : 0;
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,84 @@
+package com.onnoto.onnoto_backend.ingestion.crawl;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A rectangular cell of a latitude/longitude quadtree.
+ * Bounds are half-open (min inclusive, max exclusive) so that every point belongs to exactly one leaf.
+ */
+public record GeoCell(double minLat, double minLng, double maxLat, double maxLng, int depth) {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    /**
+     * Parse a bounding box in the form "minLat,minLng,maxLat,maxLng".
+     */
+    public static GeoCell fromBoundingBox(String boundingBox) {
+        String[] parts = boundingBox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Bounding box must be minLat,minLng,maxLat,maxLng: " + boundingBox);
+        }
+        return new GeoCell(
+                Double.parseDouble(parts[0].trim()),
+                Double.parseDouble(parts[1].trim()),
+                Double.parseDouble(parts[2].trim()),
+                Double.parseDouble(parts[3].trim()),
+                0);
+    }
+
+    /**
+     * Stable key used to remember crawl results for this cell between runs.
+     */
+    public String key() {
+        return String.format(Locale.ROOT, "%d:%.5f,%.5f,%.5f,%.5f", depth, minLat, minLng, maxLat, maxLng);
+    }
+
+    public double centerLat() {
+        return (minLat + maxLat) / 2;
+    }
+
+    public double centerLng() {
+        return (minLng + maxLng) / 2;
+    }
+
+    /**
+     * Radius of the circle around the cell center that covers the whole cell: the distance to its
+     * farthest corner. A degree of longitude is wider nearer the equator, so that is one of the
+     * two corners on the equator's side, not the corner at (maxLat, maxLng).
+     */
+    public double radiusMeters() {
+        double lat = centerLat();
+        double lng = centerLng();
+        return Math.max(
+                Math.max(distanceMeters(lat, lng, minLat, minLng), distanceMeters(lat, lng, minLat, maxLng)),
+                Math.max(distanceMeters(lat, lng, maxLat, minLng), distanceMeters(lat, lng, maxLat, maxLng)));
+    }
+
+    public boolean contains(double lat, double lng) {
+        return lat >= minLat && lat < maxLat && lng >= minLng && lng < maxLng;
+    }
+
+    /**
+     * Split into four equally sized children (SW, SE, NW, NE).
+     */
+    public List<GeoCell> children() {
+        double midLat = centerLat();
+        double midLng = centerLng();
+        int childDepth = depth + 1;
+        return List.of(
+                new GeoCell(minLat, minLng, midLat, midLng, childDepth),
+                new GeoCell(minLat, midLng, midLat, maxLng, childDepth),
+                new GeoCell(midLat, minLng, maxLat, midLng, childDepth),
+                new GeoCell(midLat, midLng, maxLat, maxLng, childDepth));
+    }
+
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
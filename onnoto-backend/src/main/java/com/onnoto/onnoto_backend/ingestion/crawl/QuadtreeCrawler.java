@@ -0,0 +1,175 @@
+package com.onnoto.onnoto_backend.ingestion.crawl;
+
+import com.onnoto.onnoto_backend.model.CrawlCell;
+import com.onnoto.onnoto_backend.repository.CrawlCellRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Adaptive quadtree crawler for radius-based place searches.
+ *
+ * Starting from a bounding box, each cell is searched with the circle that covers it.
+ * Cells whose search saturates a result page are split into four children, so dense
+ * areas get small cells and empty areas are covered by a single call. Results are
+ * remembered per cell between runs: cells whose results did not change are revisited
+ * less and less often, and cells known to be saturated are descended into directly.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuadtreeCrawler {
+
+    private final CrawlCellRepository crawlCellRepository;
+
+    /**
+     * Search callback implemented by a provider. The provider processes the results itself and
+     * reports back which ids it saw inside the cell and whether the page was full.
+     */
+    @FunctionalInterface
+    public interface CellSearch {
+        /**
+         * @param cell the cell to search
+         * @param followPages true when the cell can no longer be split and all result pages should be read
+         */
+        CellResult search(GeoCell cell, boolean followPages) throws Exception;
+    }
+
+    public record CellResult(List<String> resultIds, boolean saturated) {
+    }
+
+    public record CrawlSettings(int maxDepth, double maxRadiusMeters, Duration cellTtl, Duration maxCellTtl) {
+    }
+
+    public record CrawlSummary(int searched, int skipped, int subdivided, int failed, int results) {
+    }
+
+    public CrawlSummary crawl(String provider, GeoCell root, CrawlSettings settings, CellSearch search) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, CrawlCell> remembered = crawlCellRepository.findByProvider(provider).stream()
+                .collect(Collectors.toMap(CrawlCell::getCellKey, Function.identity(), (a, b) -> a));
+        List<CrawlCell> changed = new ArrayList<>();
+
+        int searched = 0, skipped = 0, subdivided = 0, failed = 0, results = 0;
+
+        Deque<GeoCell> pending = new ArrayDeque<>();
+        pending.push(root);
+
+        while (!pending.isEmpty()) {
+            GeoCell cell = pending.pop();
+            boolean canSplit = cell.depth() < settings.maxDepth();
+
+            // Too large for a single radius search - split without spending a call
+            if (canSplit && cell.radiusMeters() > settings.maxRadiusMeters()) {
+                cell.children().forEach(pending::push);
+                subdivided++;
+                continue;
+            }
+
+            CrawlCell state = remembered.get(cell.key());
+            if (state != null && state.getNextCrawlAt() != null && state.getNextCrawlAt().isAfter(now)) {
+                if (Boolean.TRUE.equals(state.getSaturated()) && canSplit) {
+                    cell.children().forEach(pending::push);
+                    subdivided++;
+                } else {
+                    skipped++;
+                }
+                continue;
+            }
+
+            CellResult result;
+            try {
+                result = search.search(cell, !canSplit);
+                searched++;
+            } catch (CancellationException e) {
+                // Keep what was learned before the crawl was cancelled
+                crawlCellRepository.saveAll(changed);
+                throw e;
+            } catch (Exception e) {
+                log.error("Error searching cell {} for {}: {}", cell.key(), provider, e.getMessage());
+                failed++;
+                continue;
+            }
+
+            if (state == null) {
+                state = newCellState(provider, cell);
+                remembered.put(cell.key(), state);
+            }
+            state.setLastCrawledAt(now);
+            state.setResultCount(result.resultIds().size());
+
+            if (result.saturated() && canSplit) {
+                // Re-check saturation only occasionally; children carry the real results
+                state.setSaturated(true);
+                state.setResultHash(null);
+                state.setUnchangedRuns(0);
+                state.setNextCrawlAt(now.plus(settings.maxCellTtl()));
+                cell.children().forEach(pending::push);
+                subdivided++;
+            } else {
+                String hash = hashResults(result.resultIds());
+                int unchangedRuns = hash.equals(state.getResultHash()) ? state.getUnchangedRuns() + 1 : 0;
+                state.setSaturated(false);
+                state.setResultHash(hash);
+                state.setUnchangedRuns(unchangedRuns);
+                state.setNextCrawlAt(now.plus(backoff(settings, unchangedRuns)));
+                results += result.resultIds().size();
+            }
+            changed.add(state);
+        }
+
+        if (!changed.isEmpty()) {
+            crawlCellRepository.saveAll(changed);
+        }
+
+        CrawlSummary summary = new CrawlSummary(searched, skipped, subdivided, failed, results);
+        log.info("Quadtree crawl for {} finished: {}", provider, summary);
+        return summary;
+    }
+
+    /**
+     * Cells that keep returning the same results are revisited exponentially less often.
+     */
+    static Duration backoff(CrawlSettings settings, int unchangedRuns) {
+        Duration ttl = settings.cellTtl().multipliedBy(1L << Math.min(unchangedRuns, 16));
+        return ttl.compareTo(settings.maxCellTtl()) > 0 ? settings.maxCellTtl() : ttl;
+    }
+
+    private CrawlCell newCellState(String provider, GeoCell cell) {
+        CrawlCell state = new CrawlCell();
+        state.setId(provider + ":" + cell.key());
+        state.setProvider(provider);
+        state.setCellKey(cell.key());
+        state.setDepth(cell.depth());
+        state.setUnchangedRuns(0);
+        return state;
+    }
+
+    static String hashResults(List<String> ids) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ids.stream().sorted().forEach(id -> {
+                digest.update(id.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            });
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
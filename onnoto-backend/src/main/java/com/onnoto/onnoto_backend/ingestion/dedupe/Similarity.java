@@ -0,0 +1,77 @@
+package com.onnoto.onnoto_backend.ingestion.dedupe;
+
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Fuzzy text similarity for station names and addresses.
+ */
+final class Similarity {
+
+    // Words every provider sprinkles into station names that say nothing about the site
+    private static final Set<String> NOISE = Set.of(
+            "ev", "charging", "charger", "station", "laadija", "laadimisjaam", "laadimispunkt",
+            "elmo", "eleport", "as", "ou", "the");
+
+    private Similarity() {
+    }
+
+    /**
+     * Lowercase, strip diacritics and punctuation, and drop noise words.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+", " ")
+                .trim();
+        StringBuilder result = new StringBuilder();
+        for (String word : plain.split(" ")) {
+            if (!word.isEmpty() && !NOISE.contains(word)) {
+                if (!result.isEmpty()) {
+                    result.append(' ');
+                }
+                result.append(word);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Dice coefficient over character trigrams of the normalized texts, from 0 to 1.
+     * Returns 0 when either side is empty.
+     */
+    static double of(String a, String b) {
+        String left = normalize(a);
+        String right = normalize(b);
+        if (left.isEmpty() || right.isEmpty()) {
+            return 0;
+        }
+        if (left.equals(right)) {
+            return 1;
+        }
+        Set<String> leftGrams = trigrams(left);
+        Set<String> rightGrams = trigrams(right);
+        int common = 0;
+        for (String gram : leftGrams) {
+            if (rightGrams.contains(gram)) {
+                common++;
+            }
+        }
+        return 2.0 * common / (leftGrams.size() + rightGrams.size());
+    }
+
+    private static Set<String> trigrams(String text) {
+        String padded = "  " + text + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
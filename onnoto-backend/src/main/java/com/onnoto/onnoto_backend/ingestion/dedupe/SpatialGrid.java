@@ -0,0 +1,89 @@
+package com.onnoto.onnoto_backend.ingestion.dedupe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buckets points into grid cells at least {@code cellMeters} wide, so everything within that
+ * distance of a point is found in the 3x3 block of cells around it. Lookups cost the size of a
+ * few cells instead of the whole set.
+ *
+ * Cells are laid out in latitude rows. Each row uses a longitude step wide enough at the row's
+ * poleward edge, where a degree of longitude is shortest.
+ */
+class SpatialGrid<T> {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    record Entry<T>(double latitude, double longitude, T value) {
+    }
+
+    private final double cellMeters;
+    private final double latitudeStep;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private int size;
+
+    SpatialGrid(double cellMeters) {
+        this.cellMeters = cellMeters;
+        this.latitudeStep = cellMeters / METERS_PER_DEGREE;
+    }
+
+    void add(double latitude, double longitude, T value) {
+        cells.computeIfAbsent(key(latitude, longitude), k -> new ArrayList<>())
+                .add(new Entry<>(latitude, longitude, value));
+        size++;
+    }
+
+    boolean remove(double latitude, double longitude, T value) {
+        List<Entry<T>> cell = cells.get(key(latitude, longitude));
+        if (cell == null || !cell.removeIf(entry -> entry.value().equals(value))) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Entries in the cells around a point. This is a superset of the entries within
+     * {@code cellMeters}; callers check the exact distance.
+     */
+    List<Entry<T>> near(double latitude, double longitude) {
+        List<Entry<T>> result = new ArrayList<>();
+        long row = row(latitude);
+        for (long r = row - 1; r <= row + 1; r++) {
+            long column = column(r, longitude);
+            for (long c = column - 1; c <= column + 1; c++) {
+                List<Entry<T>> cell = cells.get(pack(r, c));
+                if (cell != null) {
+                    result.addAll(cell);
+                }
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private long key(double latitude, double longitude) {
+        long row = row(latitude);
+        return pack(row, column(row, longitude));
+    }
+
+    private long row(double latitude) {
+        return (long) Math.floor(latitude / latitudeStep);
+    }
+
+    private long column(long row, double longitude) {
+        double polewardEdge = Math.min(89.9, Math.max(Math.abs(row * latitudeStep), Math.abs((row + 1) * latitudeStep)));
+        double longitudeStep = cellMeters / (METERS_PER_DEGREE * Math.cos(Math.toRadians(polewardEdge)));
+        return (long) Math.floor(longitude / longitudeStep);
+    }
+
+    private static long pack(long row, long column) {
+        return (row << 32) ^ (column & 0xffffffffL);
+    }
+}
@@ -0,0 +1,272 @@
+package com.onnoto.onnoto_backend.ingestion.dedupe;
+
+import com.onnoto.onnoto_backend.ingestion.crawl.GeoCell;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.model.StationAlias;
+import com.onnoto.onnoto_backend.repository.StationAliasRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches stations that different providers list under their own ids to one canonical station.
+ *
+ * Every canonical station sits in a {@link SpatialGrid} with cells of the match radius, so a new
+ * station is only compared with the few stations in the cells around it. A candidate within the
+ * radius matches when it is very close or its name or address is similar. The duplicate keeps
+ * its own row and connectors and is recorded in station_aliases; reads and analytics use the
+ * canonical station and status updates for the duplicate are routed to its connectors.
+ *
+ * Operator networks own their stations and are preferred as canonical over aggregators. Two
+ * operator networks are never merged with each other - their chargers can share a car park.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StationDeduplicator {
+
+    /**
+     * Id prefixes by preference for the canonical station. Aggregators list other networks' sites.
+     */
+    enum Source {
+        ELMO("elmo_", false),
+        ELEPORT("eleport_", false),
+        OPENCHARGEMAP("ocm_", true),
+        GOOGLE("google_", true),
+        OTHER("", true);
+
+        private final String prefix;
+        private final boolean aggregator;
+
+        Source(String prefix, boolean aggregator) {
+            this.prefix = prefix;
+            this.aggregator = aggregator;
+        }
+
+        static Source of(String stationId) {
+            for (Source source : values()) {
+                if (source != OTHER && stationId.startsWith(source.prefix)) {
+                    return source;
+                }
+            }
+            return OTHER;
+        }
+
+        boolean canMerge(Source other) {
+            return this != other && (aggregator || other.aggregator);
+        }
+    }
+
+    record Candidate(String id, Source source, String name, String address, double latitude, double longitude) {
+
+        static Candidate of(StationRecord record) {
+            return new Candidate(record.id(), Source.of(record.id()), record.name(), record.address(),
+                    record.latitude().doubleValue(), record.longitude().doubleValue());
+        }
+
+        static Candidate of(Station station) {
+            return new Candidate(station.getId(), Source.of(station.getId()), station.getName(), station.getAddress(),
+                    station.getLatitude().doubleValue(), station.getLongitude().doubleValue());
+        }
+    }
+
+    record Match(Candidate canonical, double distanceMeters, double similarity) {
+    }
+
+    private final StationRepository stationRepository;
+    private final StationAliasRepository stationAliasRepository;
+
+    @Value("${onnoto.ingestion.dedupe.radius-meters:75}")
+    private double radiusMeters;
+
+    // Stations this close are the same site whatever they are called
+    @Value("${onnoto.ingestion.dedupe.same-site-meters:15}")
+    private double sameSiteMeters;
+
+    @Value("${onnoto.ingestion.dedupe.name-similarity:0.5}")
+    private double nameSimilarity;
+
+    @Value("${onnoto.ingestion.dedupe.address-similarity:0.7}")
+    private double addressSimilarity;
+
+    private SpatialGrid<Candidate> grid;
+    private final Map<String, Candidate> canonicalById = new HashMap<>();
+    private final Map<String, String> canonicalByAlias = new HashMap<>();
+
+    /**
+     * Resolve a station emitted by a provider.
+     *
+     * @return the canonical station id if the station duplicates another provider's station,
+     * otherwise null
+     */
+    public synchronized String resolve(StationRecord record) {
+        ensureLoaded();
+        String canonicalId = canonicalByAlias.get(record.id());
+        if (canonicalId != null) {
+            return canonicalId;
+        }
+        if (record.latitude() == null || record.longitude() == null) {
+            return null;
+        }
+
+        Candidate candidate = Candidate.of(record);
+        Candidate known = canonicalById.get(record.id());
+        if (known != null) {
+            // Already canonical; follow the station if the provider moved it
+            if (known.latitude() != candidate.latitude() || known.longitude() != candidate.longitude()) {
+                grid.remove(known.latitude(), known.longitude(), known);
+                grid.add(candidate.latitude(), candidate.longitude(), candidate);
+                canonicalById.put(candidate.id(), candidate);
+            }
+            return null;
+        }
+
+        Match match = findMatch(candidate);
+        if (match == null) {
+            addCanonical(candidate);
+            return null;
+        }
+        if (candidate.source().ordinal() < match.canonical().source().ordinal()) {
+            promote(candidate, match);
+            return null;
+        }
+        alias(candidate, match);
+        return match.canonical().id();
+    }
+
+    /**
+     * The canonical station for a duplicate, or null if the station is canonical itself.
+     */
+    public synchronized String canonicalIdFor(String stationId) {
+        ensureLoaded();
+        return canonicalByAlias.get(stationId);
+    }
+
+    /**
+     * Rebuild the index from the database. Stations are indexed in order of preference, so
+     * duplicates that were stored before matching existed are aliased to the best station.
+     *
+     * @return the number of new aliases
+     */
+    public synchronized int rebuild() {
+        grid = new SpatialGrid<>(radiusMeters);
+        canonicalById.clear();
+        canonicalByAlias.clear();
+        stationAliasRepository.findAll().forEach(alias ->
+                canonicalByAlias.put(alias.getAliasId(), alias.getCanonicalId()));
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Station station : stationRepository.findAll()) {
+            if (!canonicalByAlias.containsKey(station.getId())
+                    && station.getLatitude() != null && station.getLongitude() != null) {
+                candidates.add(Candidate.of(station));
+            }
+        }
+        candidates.sort(Comparator.comparing(Candidate::source).thenComparing(Candidate::id));
+
+        int aliased = 0;
+        for (Candidate candidate : candidates) {
+            Match match = findMatch(candidate);
+            if (match == null) {
+                addCanonical(candidate);
+            } else {
+                alias(candidate, match);
+                aliased++;
+            }
+        }
+
+        log.info("Station dedupe index: {} canonical stations, {} aliases ({} new)",
+                grid.size(), canonicalByAlias.size(), aliased);
+        return aliased;
+    }
+
+    private void ensureLoaded() {
+        if (grid == null) {
+            rebuild();
+        }
+    }
+
+    Match findMatch(Candidate candidate) {
+        Match best = null;
+        double bestScore = 0;
+        for (SpatialGrid.Entry<Candidate> entry : grid.near(candidate.latitude(), candidate.longitude())) {
+            Candidate other = entry.value();
+            if (!candidate.source().canMerge(other.source())) {
+                continue;
+            }
+            double distance = GeoCell.distanceMeters(candidate.latitude(), candidate.longitude(),
+                    other.latitude(), other.longitude());
+            if (distance > radiusMeters) {
+                continue;
+            }
+            double names = Similarity.of(candidate.name(), other.name());
+            double addresses = Similarity.of(candidate.address(), other.address());
+            if (distance > sameSiteMeters && names < nameSimilarity && addresses < addressSimilarity) {
+                continue;
+            }
+            double similarity = Math.max(names, addresses);
+            // Similar text counts most; proximity breaks ties
+            double score = similarity + (1 - distance / radiusMeters) * 0.5;
+            if (best == null || score > bestScore) {
+                best = new Match(other, distance, similarity);
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private void addCanonical(Candidate candidate) {
+        grid.add(candidate.latitude(), candidate.longitude(), candidate);
+        canonicalById.put(candidate.id(), candidate);
+    }
+
+    private void alias(Candidate candidate, Match match) {
+        saveAlias(candidate.id(), candidate.source(), match.canonical().id(), match);
+        log.info("Station {} ({}) is a duplicate of {} ({}), {} m apart, similarity {}",
+                candidate.id(), candidate.name(), match.canonical().id(), match.canonical().name(),
+                Math.round(match.distanceMeters()), String.format("%.2f", match.similarity()));
+    }
+
+    /**
+     * A preferred source reported a site an aggregator already had: the new station becomes
+     * canonical and the old one, with its aliases, points to it.
+     */
+    private void promote(Candidate candidate, Match match) {
+        Candidate previous = match.canonical();
+        grid.remove(previous.latitude(), previous.longitude(), previous);
+        canonicalById.remove(previous.id());
+        addCanonical(candidate);
+
+        List<StationAlias> moved = stationAliasRepository.findByCanonicalId(previous.id());
+        moved.forEach(alias -> {
+            alias.setCanonicalId(candidate.id());
+            canonicalByAlias.put(alias.getAliasId(), candidate.id());
+        });
+        stationAliasRepository.saveAll(moved);
+        saveAlias(previous.id(), previous.source(), candidate.id(), match);
+
+        log.info("Station {} ({}) replaces {} as canonical station", candidate.id(), candidate.name(), previous.id());
+    }
+
+    private void saveAlias(String aliasId, Source source, String canonicalId, Match match) {
+        StationAlias alias = new StationAlias();
+        alias.setAliasId(aliasId);
+        alias.setCanonicalId(canonicalId);
+        alias.setProvider(source.name());
+        alias.setDistanceMeters(match.distanceMeters());
+        alias.setSimilarity(match.similarity());
+        alias.setCreatedAt(LocalDateTime.now());
+        stationAliasRepository.save(alias);
+        canonicalByAlias.put(aliasId, canonicalId);
+    }
+}
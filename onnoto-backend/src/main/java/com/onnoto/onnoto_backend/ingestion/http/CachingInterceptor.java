@@ -0,0 +1,219 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Serves provider GET requests from the {@link HttpResponseCache}.
+ *
+ * A fresh entry is returned without a request. A stale entry with an ETag or Last-Modified is
+ * revalidated with a conditional request, and a 304 restarts its TTL. Successful responses for
+ * endpoints with a TTL are stored unless the pool's {@link StorePredicate} rejects the body, as
+ * for APIs that report errors with a 200; anything else passes through untouched, including
+ * streamed responses. A request with Cache-Control: no-cache, such as an availability probe,
+ * always goes to the network. In offline mode every response comes from the cache, whatever its age.
+ */
+@Slf4j
+public class CachingInterceptor implements ClientHttpRequestInterceptor {
+
+    public static final String CACHE_HEADER = "X-Onnoto-Cache";
+
+    /**
+     * Whether a successful response body may be stored.
+     */
+    @FunctionalInterface
+    public interface StorePredicate {
+
+        StorePredicate ANY = (uri, body) -> true;
+
+        boolean storable(URI uri, byte[] body);
+    }
+
+    private final HttpResponseCache cache;
+    private final boolean offline;
+    private final StorePredicate storePredicate;
+    private final Counter hits;
+    private final Counter revalidated;
+    private final Counter misses;
+
+    public CachingInterceptor(HttpResponseCache cache, boolean offline, String pool, MeterRegistry registry) {
+        this(cache, offline, StorePredicate.ANY, pool, registry);
+    }
+
+    public CachingInterceptor(HttpResponseCache cache, boolean offline, StorePredicate storePredicate, String pool,
+                              MeterRegistry registry) {
+        this.cache = cache;
+        this.offline = offline;
+        this.storePredicate = storePredicate;
+        this.hits = counter(registry, pool, "hit");
+        this.revalidated = counter(registry, pool, "revalidated");
+        this.misses = counter(registry, pool, "miss");
+    }
+
+    private static Counter counter(MeterRegistry registry, String pool, String result) {
+        return registry == null ? null : Counter.builder("onnoto.http.cache.requests")
+                .tag("pool", pool)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (request.getMethod() != HttpMethod.GET) {
+            return execution.execute(request, body);
+        }
+
+        HttpResponseCache.Entry cached = cache.get(request.getURI()).orElse(null);
+
+        if (offline) {
+            if (cached == null) {
+                throw new IOException("Offline and not cached: " + HttpResponseCache.redact(request.getURI()));
+            }
+            increment(hits);
+            return response(cached, "OFFLINE");
+        }
+
+        if (noCache(request.getHeaders())) {
+            return execution.execute(request, body);
+        }
+
+        if (cached != null && cached.fresh()) {
+            increment(hits);
+            return response(cached, "HIT");
+        }
+
+        Duration ttl = cache.ttlFor(request.getURI());
+        if (ttl.isZero() || ttl.isNegative()) {
+            return execution.execute(request, body);
+        }
+
+        if (cached != null) {
+            if (cached.metadata().etag() != null) {
+                request.getHeaders().setIfNoneMatch(cached.metadata().etag());
+            }
+            if (cached.metadata().lastModified() != null) {
+                request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, cached.metadata().lastModified());
+            }
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (cached != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            response.close();
+            cache.touch(cached);
+            increment(revalidated);
+            return response(cached, "REVALIDATED");
+        }
+
+        increment(misses);
+        if (!response.getStatusCode().is2xxSuccessful() || noStore(response.getHeaders())) {
+            return response;
+        }
+
+        // Buffer the body so it can be both stored and handed to the caller
+        byte[] content;
+        try (InputStream in = response.getBody()) {
+            content = in.readAllBytes();
+        }
+        HttpHeaders headers = response.getHeaders();
+        MediaType contentType = headers.getContentType();
+        if (storePredicate.storable(request.getURI(), content)) {
+            cache.put(request.getURI(), response.getStatusCode().value(),
+                    contentType != null ? contentType.toString() : null,
+                    headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED), content);
+        } else {
+            log.debug("Response for {} not cached: rejected by the provider", HttpResponseCache.redact(request.getURI()));
+        }
+        HttpStatusCode status = response.getStatusCode();
+        response.close();
+        return new BufferedResponse(status, headers, content, "MISS");
+    }
+
+    private static boolean noCache(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl != null && cacheControl.contains("no-cache");
+    }
+
+    private static boolean noStore(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl != null && cacheControl.contains("no-store");
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private static ClientHttpResponse response(HttpResponseCache.Entry entry, String result) {
+        HttpHeaders headers = new HttpHeaders();
+        if (entry.metadata().contentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, entry.metadata().contentType());
+        }
+        if (entry.metadata().etag() != null) {
+            headers.setETag(entry.metadata().etag());
+        }
+        return new BufferedResponse(HttpStatusCode.valueOf(entry.metadata().status()), headers, entry.body(), result);
+    }
+
+    /**
+     * A response whose body is already in memory.
+     */
+    private static class BufferedResponse implements ClientHttpResponse {
+
+        private final HttpStatusCode status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        BufferedResponse(HttpStatusCode status, HttpHeaders original, byte[] body, String result) {
+            this.status = status;
+            this.headers = new HttpHeaders();
+            this.headers.putAll(original);
+            this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+            this.headers.set(CACHE_HEADER, result);
+            this.body = body;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus resolved = HttpStatus.resolve(status.value());
+            return resolved != null ? resolved.getReasonPhrase() : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
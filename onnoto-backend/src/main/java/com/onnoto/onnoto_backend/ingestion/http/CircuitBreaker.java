@@ -0,0 +1,158 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Circuit breaker for the calls to one provider.
+ *
+ * The outcomes of the last window-size calls are kept; a call counts as failed if it threw, got
+ * a 5xx or 429, or took longer than slow-call-threshold. Once at least minimum-calls are in the
+ * window and the failed share reaches failure-rate-threshold, the breaker opens and rejects
+ * calls for open-duration. After that it lets one probe call through (half-open): success
+ * closes it with an empty window, failure opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    public record Settings(int windowSize, int minimumCalls, double failureRateThreshold,
+                           Duration slowCallThreshold, Duration openDuration) {
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final Clock clock;
+
+    // Guarded by this
+    private final boolean[] failures;
+    private int calls;
+    private int next;
+    private int failed;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+    private long opened;
+
+    public CircuitBreaker(String name, Settings settings, Clock clock) {
+        this.name = name;
+        this.settings = settings;
+        this.clock = clock;
+        this.failures = new boolean[settings.windowSize()];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Ask to make a call. In half-open state only one probe is let through at a time.
+     *
+     * @return false if the call must not be made
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (!openDurationElapsed()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probing = false;
+            log.info("Circuit breaker '{}' half-open, probing", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                return false;
+            }
+            probing = true;
+        }
+        return true;
+    }
+
+    /**
+     * Whether a call would be let through now, without taking the half-open probe.
+     */
+    public synchronized boolean allowsCalls() {
+        return state == State.CLOSED || state == State.HALF_OPEN && !probing
+                || state == State.OPEN && openDurationElapsed();
+    }
+
+    /**
+     * Record the outcome of a call made after {@link #tryAcquire()}.
+     */
+    public synchronized void record(boolean error, Duration duration) {
+        boolean failure = error || duration.compareTo(settings.slowCallThreshold()) >= 0;
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failure) {
+                    open();
+                } else {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (calls == failures.length && failures[next]) {
+                    failed--;
+                }
+                failures[next] = failure;
+                next = (next + 1) % failures.length;
+                calls = Math.min(calls + 1, failures.length);
+                if (failure) {
+                    failed++;
+                }
+                if (calls >= settings.minimumCalls() && failureRate() >= settings.failureRateThreshold()) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // A call that started before the breaker opened
+            }
+        }
+    }
+
+    private void open() {
+        log.warn("Circuit breaker '{}' open: {} of the last {} calls failed, rejecting calls for {}s",
+                name, failed, calls, settings.openDuration().toSeconds());
+        state = State.OPEN;
+        openedAt = clock.millis();
+        probing = false;
+        opened++;
+    }
+
+    private void close() {
+        log.info("Circuit breaker '{}' closed after a successful probe", name);
+        state = State.CLOSED;
+        probing = false;
+        calls = 0;
+        next = 0;
+        failed = 0;
+    }
+
+    private boolean openDurationElapsed() {
+        return clock.millis() - openedAt >= settings.openDuration().toMillis();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Share of failed calls in the window, 0 without calls.
+     */
+    public synchronized double failureRate() {
+        return calls == 0 ? 0 : (double) failed / calls;
+    }
+
+    /**
+     * How often the breaker has opened.
+     */
+    public synchronized long timesOpened() {
+        return opened;
+    }
+}
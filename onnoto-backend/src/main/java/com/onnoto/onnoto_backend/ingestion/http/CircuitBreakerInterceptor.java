@@ -0,0 +1,51 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Sends provider requests through a {@link CircuitBreaker}. Latency is measured up to the
+ * response headers; 5xx and 429 responses and I/O errors count as failures. A rejected
+ * request fails at once with an {@link IOException}, which RestTemplate reports as a
+ * ResourceAccessException like any other connection problem.
+ */
+public class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    private final CircuitBreaker breaker;
+    private final Counter rejected;
+
+    public CircuitBreakerInterceptor(CircuitBreaker breaker, Counter rejected) {
+        this.breaker = breaker;
+        this.rejected = rejected;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!breaker.tryAcquire()) {
+            if (rejected != null) {
+                rejected.increment();
+            }
+            throw new IOException("Circuit breaker '" + breaker.getName() + "' is open, not calling "
+                    + request.getURI().getHost());
+        }
+
+        long started = System.nanoTime();
+        boolean error = true;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            error = status >= 500 || status == HttpStatus.TOO_MANY_REQUESTS.value();
+            return response;
+        } finally {
+            breaker.record(error, Duration.ofNanos(System.nanoTime() - started));
+        }
+    }
+}
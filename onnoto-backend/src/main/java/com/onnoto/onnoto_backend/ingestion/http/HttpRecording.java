@@ -0,0 +1,156 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Provider HTTP exchanges recorded to disk, one directory per HTTP pool.
+ *
+ * Each response body is stored gzip-compressed in its own file; index.jsonl lists the exchanges
+ * in the order they completed with URL (credentials removed, see
+ * {@link HttpResponseCache#redact}), status, content type and how long the provider waited for
+ * the response to start and to finish. Replay serves the exchanges for a URL in recorded order
+ * and keeps serving the last one once they run out, so repeated status polls keep working.
+ */
+@Slf4j
+public class HttpRecording {
+
+    /**
+     * One recorded request and response.
+     *
+     * @param firstByteMillis time until the response headers arrived
+     * @param totalMillis     time until the body was read completely
+     */
+    public record Exchange(long sequence, String method, String url, int status, String contentType,
+                           long firstByteMillis, long totalMillis, String file) {
+    }
+
+    private static final String INDEX = "index.jsonl";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Deque<Exchange>> byRequest = new HashMap<>();
+
+    private HttpRecording(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * A new recording. Exchanges already in the directory are kept and new ones appended.
+     */
+    public static HttpRecording create(Path directory) {
+        HttpRecording recording = new HttpRecording(directory);
+        try {
+            Files.createDirectories(directory);
+            recording.sequence.set(recording.readIndex().size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create HTTP recording directory " + directory, e);
+        }
+        return recording;
+    }
+
+    /**
+     * An existing recording, for replay.
+     */
+    public static HttpRecording open(Path directory) {
+        HttpRecording recording = new HttpRecording(directory);
+        try {
+            for (Exchange exchange : recording.readIndex()) {
+                recording.byRequest.computeIfAbsent(requestKey(exchange.method(), exchange.url()),
+                        key -> new ArrayDeque<>()).add(exchange);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read HTTP recording " + directory, e);
+        }
+        log.info("Loaded HTTP recording {} with {} distinct requests", directory, recording.byRequest.size());
+        return recording;
+    }
+
+    private List<Exchange> readIndex() throws IOException {
+        try {
+            return Files.readAllLines(directory.resolve(INDEX), StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(line -> {
+                        try {
+                            return objectMapper.readValue(line, Exchange.class);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList();
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+    }
+
+    private static String requestKey(String method, String url) {
+        return method + " " + url;
+    }
+
+    /**
+     * Number the next exchange; its body goes to {@link #bodyOutput} and its index line to {@link #append}.
+     */
+    public long nextSequence() {
+        return sequence.getAndIncrement();
+    }
+
+    public OutputStream bodyOutput(long sequence) throws IOException {
+        return new GZIPOutputStream(Files.newOutputStream(directory.resolve(bodyFile(sequence))), 8192);
+    }
+
+    /**
+     * Add a completed exchange to the index. Call after its body has been written.
+     */
+    public synchronized void append(long sequence, String method, URI uri, int status, String contentType,
+                                    long firstByteMillis, long totalMillis) {
+        Exchange exchange = new Exchange(sequence, method, HttpResponseCache.redact(uri), status, contentType,
+                firstByteMillis, totalMillis, bodyFile(sequence));
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(INDEX), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(objectMapper.writeValueAsString(exchange));
+            writer.newLine();
+        } catch (IOException e) {
+            log.warn("Could not record exchange for {}: {}", exchange.url(), e.getMessage());
+        }
+    }
+
+    /**
+     * The next recorded exchange for a request, or null if the request was never recorded.
+     */
+    public synchronized Exchange next(String method, URI uri) {
+        Deque<Exchange> exchanges = byRequest.get(requestKey(method, HttpResponseCache.redact(uri)));
+        if (exchanges == null || exchanges.isEmpty()) {
+            return null;
+        }
+        return exchanges.size() > 1 ? exchanges.poll() : exchanges.peek();
+    }
+
+    public InputStream body(Exchange exchange) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(directory.resolve(exchange.file())), 8192);
+    }
+
+    private static String bodyFile(long sequence) {
+        return String.format("%06d.body.gz", sequence);
+    }
+}
@@ -0,0 +1,224 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * On-disk store of provider HTTP responses.
+ *
+ * Entries are keyed by the request URL with credentials removed, so rotating an API key does not
+ * invalidate the cache and no key ends up on disk. Each entry is a small JSON metadata file
+ * (status, content type, validators, when it was stored) next to the raw body.
+ *
+ * How long a response is fresh depends on the endpoint: the first TTL rule whose URL fragment
+ * occurs in the URL wins. URLs without a rule are not cached.
+ */
+@Slf4j
+public class HttpResponseCache {
+
+    // Query parameters that carry credentials
+    private static final Set<String> SECRET_PARAMS = Set.of(
+            "key", "apikey", "api_key", "access_token", "token", "signature", "sig", "client_secret");
+
+    /**
+     * Cache responses whose URL contains {@code fragment} for {@code ttl}.
+     */
+    public record TtlRule(String fragment, Duration ttl) {
+    }
+
+    public record Metadata(String url, int status, String contentType, String etag, String lastModified,
+                    long storedAt) {
+    }
+
+    /**
+     * A stored response and whether it is still within its TTL.
+     */
+    public record Entry(String key, Metadata metadata, byte[] body, boolean fresh) {
+    }
+
+    private final Path directory;
+    private final List<TtlRule> rules;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public HttpResponseCache(Path directory, List<TtlRule> rules) {
+        this.directory = directory;
+        this.rules = List.copyOf(rules);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create HTTP cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * Parse rules of the form "fragment=ttl,fragment=ttl", e.g. "place/details=7d".
+     */
+    public static List<TtlRule> parseRules(String rules) {
+        List<TtlRule> result = new ArrayList<>();
+        if (rules == null || rules.isBlank()) {
+            return result;
+        }
+        for (String rule : rules.split(",")) {
+            int separator = rule.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("HTTP cache rule must be fragment=ttl: " + rule);
+            }
+            result.add(new TtlRule(rule.substring(0, separator).trim(),
+                    DurationStyle.detectAndParse(rule.substring(separator + 1).trim())));
+        }
+        return result;
+    }
+
+    /**
+     * TTL for a URL, zero when responses for it are not cached.
+     */
+    public Duration ttlFor(URI uri) {
+        String url = uri.toString();
+        return rules.stream()
+                .filter(rule -> url.contains(rule.fragment()))
+                .map(TtlRule::ttl)
+                .findFirst()
+                .orElse(Duration.ZERO);
+    }
+
+    /**
+     * The URL with credential parameters removed.
+     */
+    public static String redact(URI uri) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUri(uri);
+        var params = UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+        params.keySet().stream()
+                .filter(name -> SECRET_PARAMS.contains(name.toLowerCase(Locale.ROOT)))
+                .forEach(name -> builder.replaceQueryParam(name));
+        return builder.build().toUriString();
+    }
+
+    static String keyOf(URI uri) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(redact(uri).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The stored response for a URL, fresh or not.
+     */
+    public Optional<Entry> get(URI uri) {
+        String key = keyOf(uri);
+        try {
+            Metadata metadata = objectMapper.readValue(metadataPath(key).toFile(), Metadata.class);
+            byte[] body = Files.readAllBytes(bodyPath(key));
+            Duration age = Duration.between(Instant.ofEpochMilli(metadata.storedAt()), Instant.now());
+            return Optional.of(new Entry(key, metadata, body, age.compareTo(ttlFor(uri)) < 0));
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Unreadable HTTP cache entry for {}: {}", redact(uri), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void put(URI uri, int status, String contentType, String etag, String lastModified, byte[] body) {
+        String key = keyOf(uri);
+        Metadata metadata = new Metadata(redact(uri), status, contentType, etag, lastModified,
+                System.currentTimeMillis());
+        try {
+            // Body first: a metadata file always points at a complete body
+            write(bodyPath(key), body);
+            write(metadataPath(key), objectMapper.writeValueAsBytes(metadata));
+        } catch (IOException e) {
+            log.warn("Could not cache response for {}: {}", metadata.url(), e.getMessage());
+        }
+    }
+
+    /**
+     * Restart the TTL of an entry the server confirmed is still current.
+     */
+    public void touch(Entry entry) {
+        Metadata metadata = entry.metadata();
+        Metadata refreshed = new Metadata(metadata.url(), metadata.status(), metadata.contentType(),
+                metadata.etag(), metadata.lastModified(), System.currentTimeMillis());
+        try {
+            write(metadataPath(entry.key()), objectMapper.writeValueAsBytes(refreshed));
+        } catch (IOException e) {
+            log.warn("Could not refresh cached response for {}: {}", metadata.url(), e.getMessage());
+        }
+    }
+
+    /**
+     * Delete entries stored longer ago than {@code maxAge}.
+     *
+     * @return the number of entries removed
+     */
+    public int prune(Duration maxAge) {
+        long cutoff = System.currentTimeMillis() - maxAge.toMillis();
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                try {
+                    Metadata metadata = objectMapper.readValue(file.toFile(), Metadata.class);
+                    if (metadata.storedAt() >= cutoff) {
+                        continue;
+                    }
+                } catch (IOException e) {
+                    // Unreadable metadata is as good as expired
+                }
+                String key = file.getFileName().toString().replace(".json", "");
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(bodyPath(key));
+                removed++;
+            }
+        } catch (IOException e) {
+            log.warn("Error pruning HTTP cache {}: {}", directory, e.getMessage());
+        }
+        return removed;
+    }
+
+    private Path metadataPath(String key) {
+        return directory.resolve(key + ".json");
+    }
+
+    private Path bodyPath(String key) {
+        return directory.resolve(key + ".body");
+    }
+
+    private void write(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import com.onnoto.onnoto_backend.ingestion.provider.DataProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The circuit breakers of the provider HTTP pools, one per pool.
+ *
+ * Settings come from onnoto.http.breaker.* and can be overridden per pool with
+ * onnoto.http.&lt;pool&gt;.breaker.*. Meters: onnoto.http.breaker.state{pool} (0 closed,
+ * 1 half-open, 2 open), onnoto.http.breaker.failure.rate{pool},
+ * onnoto.http.breaker.opened{pool} and onnoto.http.breaker.rejected{pool}.
+ */
+public class ProviderCircuitBreakers {
+
+    private final Environment environment;
+    private final MeterRegistry registry;
+    private final Clock clock;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public ProviderCircuitBreakers(Environment environment, MeterRegistry registry, Clock clock) {
+        this.environment = environment;
+        this.registry = registry;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return environment.getProperty("onnoto.http.breaker.enabled", Boolean.class, true);
+    }
+
+    /**
+     * The interceptor guarding a pool, or null with breakers disabled.
+     */
+    public CircuitBreakerInterceptor interceptor(String pool) {
+        if (!isEnabled()) {
+            return null;
+        }
+        CircuitBreaker breaker = breakers.computeIfAbsent(pool, this::create);
+        Counter rejected = registry == null ? null : Counter.builder("onnoto.http.breaker.rejected")
+                .tag("pool", pool)
+                .register(registry);
+        return new CircuitBreakerInterceptor(breaker, rejected);
+    }
+
+    private CircuitBreaker create(String pool) {
+        CircuitBreaker breaker = new CircuitBreaker(pool, settings(pool), clock);
+        if (registry != null) {
+            Gauge.builder("onnoto.http.breaker.state", breaker, b -> b.getState().ordinal())
+                    .tag("pool", pool)
+                    .register(registry);
+            Gauge.builder("onnoto.http.breaker.failure.rate", breaker, CircuitBreaker::failureRate)
+                    .tag("pool", pool)
+                    .register(registry);
+            FunctionCounter.builder("onnoto.http.breaker.opened", breaker, CircuitBreaker::timesOpened)
+                    .tag("pool", pool)
+                    .register(registry);
+        }
+        return breaker;
+    }
+
+    CircuitBreaker.Settings settings(String pool) {
+        return new CircuitBreaker.Settings(
+                property(pool, "window-size", Integer.class, 20),
+                property(pool, "minimum-calls", Integer.class, 10),
+                property(pool, "failure-rate-threshold", Double.class, 0.5),
+                property(pool, "slow-call-threshold", Duration.class, Duration.ofSeconds(20)),
+                property(pool, "open-duration", Duration.class, Duration.ofMinutes(2)));
+    }
+
+    private <T> T property(String pool, String name, Class<T> type, T defaultValue) {
+        T shared = environment.getProperty("onnoto.http.breaker." + name, type, defaultValue);
+        return environment.getProperty("onnoto.http." + pool + ".breaker." + name, type, shared);
+    }
+
+    public CircuitBreaker get(String pool) {
+        return breakers.get(pool);
+    }
+
+    public Collection<CircuitBreaker> all() {
+        return breakers.values();
+    }
+
+    /**
+     * Whether a provider's calls would be let through. Providers without an HTTP pool, or with
+     * breakers disabled, always are.
+     */
+    public boolean allows(DataProvider provider) {
+        String pool = provider.getHttpPool();
+        CircuitBreaker breaker = pool != null ? breakers.get(pool) : null;
+        return breaker == null || breaker.allowsCalls();
+    }
+}
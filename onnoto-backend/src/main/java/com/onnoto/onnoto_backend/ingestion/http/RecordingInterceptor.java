@@ -0,0 +1,152 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * Records every response a provider receives into an {@link HttpRecording}.
+ *
+ * The body is copied to the recording as the provider reads it, so streamed responses are
+ * recorded without being buffered and the provider sees the same timing as without recording.
+ * The exchange is added to the index once the response is closed.
+ */
+@Slf4j
+public class RecordingInterceptor implements ClientHttpRequestInterceptor {
+
+    private final HttpRecording recording;
+
+    public RecordingInterceptor(HttpRecording recording) {
+        this.recording = recording;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long started = System.nanoTime();
+        ClientHttpResponse response = execution.execute(request, body);
+        long firstByteMillis = (System.nanoTime() - started) / 1_000_000;
+        return new RecordedResponse(response, request.getMethod().name(), request.getURI(), started, firstByteMillis);
+    }
+
+    private class RecordedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final String method;
+        private final URI uri;
+        private final long started;
+        private final long firstByteMillis;
+        private final long sequence = recording.nextSequence();
+        private OutputStream copy;
+        private InputStream body;
+        private boolean closed;
+
+        RecordedResponse(ClientHttpResponse delegate, String method, URI uri, long started, long firstByteMillis) {
+            this.delegate = delegate;
+            this.method = method;
+            this.uri = uri;
+            this.started = started;
+            this.firstByteMillis = firstByteMillis;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public synchronized InputStream getBody() throws IOException {
+            if (body == null) {
+                copy = recording.bodyOutput(sequence);
+                body = new TeeInputStream(delegate.getBody(), copy);
+            }
+            return body;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // Record the whole body even if the provider stopped reading early
+                getBody().transferTo(OutputStream.nullOutputStream());
+                copy.close();
+                MediaType contentType = delegate.getHeaders().getContentType();
+                recording.append(sequence, method, uri, delegate.getStatusCode().value(),
+                        contentType != null ? contentType.toString() : null,
+                        firstByteMillis, (System.nanoTime() - started) / 1_000_000);
+            } catch (IOException e) {
+                log.warn("Could not record response for {}: {}", HttpResponseCache.redact(uri), e.getMessage());
+            } finally {
+                delegate.close();
+            }
+        }
+    }
+
+    /**
+     * Copies everything read from the response into the recording.
+     */
+    private static class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream copy;
+
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                copy.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Read instead of skipping so the recording stays complete
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public void close() {
+            // The response closes the underlying stream once the rest of the body is recorded
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+/**
+ * Answers provider requests from an {@link HttpRecording} instead of the network.
+ *
+ * Recorded latencies are reproduced divided by the speed-up factor: the response starts after
+ * the recorded time to first byte and the body ends after the recorded total time. A speed-up of
+ * 0 replays without delays. Requests that were not recorded fail like an unreachable host.
+ */
+public class ReplayInterceptor implements ClientHttpRequestInterceptor {
+
+    public static final String REPLAY_HEADER = "X-Onnoto-Replay";
+
+    private final HttpRecording recording;
+    private final double speedup;
+
+    public ReplayInterceptor(HttpRecording recording, double speedup) {
+        this.recording = recording;
+        this.speedup = speedup;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        HttpRecording.Exchange exchange = recording.next(request.getMethod().name(), request.getURI());
+        if (exchange == null) {
+            throw new IOException("Not in recording: " + request.getMethod() + " "
+                    + HttpResponseCache.redact(request.getURI()));
+        }
+        pause(exchange.firstByteMillis());
+        return new ReplayedResponse(exchange);
+    }
+
+    Duration scaled(long millis) {
+        return speedup <= 0 ? Duration.ZERO : Duration.ofNanos((long) (millis * 1_000_000 / speedup));
+    }
+
+    private void pause(long millis) throws IOException {
+        Duration delay = scaled(millis);
+        if (delay.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying");
+        }
+    }
+
+    private class ReplayedResponse implements ClientHttpResponse {
+
+        private final HttpRecording.Exchange exchange;
+        private final HttpHeaders headers = new HttpHeaders();
+        private InputStream body;
+
+        ReplayedResponse(HttpRecording.Exchange exchange) {
+            this.exchange = exchange;
+            if (exchange.contentType() != null) {
+                headers.set(HttpHeaders.CONTENT_TYPE, exchange.contentType());
+            }
+            headers.set(REPLAY_HEADER, String.valueOf(exchange.sequence()));
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(exchange.status());
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus resolved = HttpStatus.resolve(exchange.status());
+            return resolved != null ? resolved.getReasonPhrase() : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public synchronized InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new PacedInputStream(recording.body(exchange),
+                        exchange.totalMillis() - exchange.firstByteMillis());
+            }
+            return body;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (body != null) {
+                try {
+                    body.close();
+                } catch (IOException e) {
+                    // Nothing to release beyond the file handle
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds back the end of the body until the recorded transfer time has passed.
+     */
+    private class PacedInputStream extends FilterInputStream {
+
+        private final long transferMillis;
+        private boolean paced;
+
+        PacedInputStream(InputStream in, long transferMillis) {
+            super(in);
+            this.transferMillis = transferMillis;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                finish();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read < 0) {
+                finish();
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Streaming parsers may stop at the end of the document without reading to EOF
+            try {
+                finish();
+            } finally {
+                super.close();
+            }
+        }
+
+        private void finish() throws IOException {
+            if (!paced) {
+                paced = true;
+                pause(transferMillis);
+            }
+        }
+    }
+}
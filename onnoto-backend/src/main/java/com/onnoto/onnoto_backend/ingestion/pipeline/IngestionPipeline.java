@@ -0,0 +1,350 @@
+package com.onnoto.onnoto_backend.ingestion.pipeline;
+
+import com.onnoto.onnoto_backend.ingestion.dedupe.StationDeduplicator;
+import com.onnoto.onnoto_backend.ingestion.provider.StreamingDataProvider;
+import com.onnoto.onnoto_backend.ingestion.record.ConnectorRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService.UpsertResult;
+import com.onnoto.onnoto_backend.ingestion.service.SyncReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staged station ingestion: fetch → parse → dedupe → write → after-write.
+ *
+ * <ul>
+ *   <li>fetch - the provider's own publisher thread: HTTP and streamed JSON decoding</li>
+ *   <li>parse - normalization into the stored form and fingerprinting (CPU only)</li>
+ *   <li>dedupe - drops a station that is already queued for writing in this cycle and matches
+ *   new stations against other providers' stations ({@link StationDeduplicator})</li>
+ *   <li>write - drains stations from all providers and writes them a batch per transaction</li>
+ *   <li>after-write - the providers' after-write hooks of inserted and updated stations, which may
+ *   call out to the provider (Google's place details), so a slow provider does not hold up the
+ *   database writes of the others</li>
+ * </ul>
+ *
+ * Stages are connected by bounded queues and each has its own worker count, so the per-stage
+ * metrics show where a slow cycle spends its time: a long fetch with idle queues points at the
+ * network, a growing parse queue at CPU and a growing write queue at Postgres.
+ */
+@Slf4j
+@Component
+public class IngestionPipeline {
+
+    /**
+     * A station with its fingerprints computed, ready to be compared with the stored row.
+     */
+    record PreparedStation(StationSnapshot snapshot, String contentHash, String connectorHash) {
+    }
+
+    /**
+     * A committed station whose after-write hook is still to run.
+     */
+    record WrittenStation(StationSnapshot snapshot, UpsertResult result) {
+    }
+
+    private final StationUpsertService stationUpsertService;
+    private final StationDeduplicator stationDeduplicator;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${onnoto.ingestion.pipeline.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${onnoto.ingestion.pipeline.parse-workers:2}")
+    private int parseWorkers;
+
+    @Value("${onnoto.ingestion.pipeline.dedupe-workers:1}")
+    private int dedupeWorkers;
+
+    @Value("${onnoto.ingestion.pipeline.write-workers:2}")
+    private int writeWorkers;
+
+    @Value("${onnoto.ingestion.pipeline.write-batch-size:100}")
+    private int writeBatchSize;
+
+    @Value("${onnoto.ingestion.pipeline.write-linger-ms:200}")
+    private long writeLingerMs;
+
+    @Value("${onnoto.ingestion.pipeline.after-write-workers:4}")
+    private int afterWriteWorkers;
+
+    // Station ids between the dedupe stage and the end of their write
+    private final Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+
+    // Publishers deliver on virtual threads, so a fetch blocked on a full parse queue costs nothing
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private PipelineStage<StationSnapshot> parseStage;
+    private PipelineStage<PreparedStation> dedupeStage;
+    private PipelineStage<PreparedStation> writeStage;
+    private PipelineStage<WrittenStation> afterWriteStage;
+    private Counter duplicates;
+    private Counter merged;
+
+    public IngestionPipeline(StationUpsertService stationUpsertService,
+                             StationDeduplicator stationDeduplicator,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.stationUpsertService = stationUpsertService;
+        this.stationDeduplicator = stationDeduplicator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        parseStage = new PipelineStage<>("parse", parseWorkers, queueCapacity, 1, Duration.ZERO,
+                this::parse, meterRegistry);
+        dedupeStage = new PipelineStage<>("dedupe", dedupeWorkers, queueCapacity, 1, Duration.ZERO,
+                this::dedupe, meterRegistry);
+        writeStage = new PipelineStage<>("write", writeWorkers, queueCapacity, writeBatchSize,
+                Duration.ofMillis(writeLingerMs), this::write, meterRegistry);
+        afterWriteStage = new PipelineStage<>("after-write", afterWriteWorkers, queueCapacity, 1, Duration.ZERO,
+                this::afterWrite, meterRegistry);
+        duplicates = Counter.builder("onnoto.ingestion.pipeline.duplicates").register(meterRegistry);
+        merged = Counter.builder("onnoto.ingestion.pipeline.merged").register(meterRegistry);
+
+        afterWriteStage.start();
+        writeStage.start();
+        dedupeStage.start();
+        parseStage.start();
+
+        log.info("Ingestion pipeline started: {} parse, {} dedupe, {} write, {} after-write workers, queues of {}, " +
+                        "write batches of {}",
+                parseWorkers, dedupeWorkers, writeWorkers, afterWriteWorkers, queueCapacity, writeBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        deliveryExecutor.shutdownNow();
+        parseStage.stop();
+        dedupeStage.stop();
+        writeStage.stop();
+        afterWriteStage.stop();
+    }
+
+    /**
+     * Run one provider's station sync through the pipeline.
+     *
+     * @return completes with the provider's report once all of its stations have been written
+     * and the provider has been told so
+     */
+    public CompletableFuture<SyncReport> submit(StreamingDataProvider provider) {
+        PipelineRun run = new PipelineRun(provider.getProviderName());
+        provider.publishStations(deliveryExecutor).subscribe(new SourceSubscriber(provider.getProviderName(), run));
+        return run.completion().thenApply(report -> {
+            try {
+                provider.onStationsWritten(report);
+            } catch (RuntimeException e) {
+                log.error("Error completing {} sync: {}", provider.getProviderName(), e.getMessage(), e);
+            }
+            return report;
+        });
+    }
+
+    /**
+     * Fetch stage. Runs on the publisher's delivery thread and blocks while the parse queue is
+     * full, which in turn blocks the provider once its publisher buffer is full.
+     */
+    private class SourceSubscriber implements Flow.Subscriber<StationSnapshot> {
+
+        private final PipelineRun run;
+        private final Counter items;
+        private final Timer blocked;
+        private final Timer duration;
+        private final long startedAt = System.nanoTime();
+        private Flow.Subscription subscription;
+
+        SourceSubscriber(String provider, PipelineRun run) {
+            this.run = run;
+            this.items = Counter.builder("onnoto.ingestion.fetch.items")
+                    .tag("provider", provider).register(meterRegistry);
+            this.blocked = Timer.builder("onnoto.ingestion.fetch.blocked")
+                    .tag("provider", provider).register(meterRegistry);
+            this.duration = Timer.builder("onnoto.ingestion.fetch.duration")
+                    .tag("provider", provider).register(meterRegistry);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(StationSnapshot snapshot) {
+            run.emitted();
+            items.increment();
+            long started = System.nanoTime();
+            try {
+                parseStage.put(new PipelineItem<>(snapshot, run));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                run.finished(1);
+                subscription.cancel();
+                finish(e);
+                return;
+            }
+            blocked.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            finish(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            finish(null);
+        }
+
+        private void finish(Throwable error) {
+            duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.debug("{} emitted {} stations", run.report().getProvider(), run.emittedCount());
+            run.sourceCompleted(error);
+        }
+    }
+
+    private void parse(List<PipelineItem<StationSnapshot>> items) throws InterruptedException {
+        for (PipelineItem<StationSnapshot> item : items) {
+            StationSnapshot snapshot = item.value();
+            PreparedStation prepared;
+            try {
+                prepared = new PreparedStation(snapshot, snapshot.station().fingerprint(),
+                        snapshot.connectors() != null ? ConnectorRecord.fingerprint(snapshot.connectors()) : null);
+            } catch (RuntimeException e) {
+                log.error("Error preparing station {}: {}", snapshot.station().id(), e.getMessage());
+                item.fail();
+                continue;
+            }
+            dedupeStage.put(item.with(prepared));
+        }
+    }
+
+    private void dedupe(List<PipelineItem<PreparedStation>> items) throws InterruptedException {
+        for (PipelineItem<PreparedStation> item : items) {
+            if (!pendingIds.add(item.value().snapshot().station().id())) {
+                // The same station is already on its way to the database in this cycle
+                duplicates.increment();
+                item.run().report().record(SyncReport.Outcome.UNCHANGED);
+                item.done();
+                continue;
+            }
+            try {
+                // Duplicates are still written under their own id; the alias makes reads use the canonical station
+                if (stationDeduplicator.resolve(item.value().snapshot().station()) != null) {
+                    merged.increment();
+                }
+            } catch (RuntimeException e) {
+                log.error("Error matching station {}: {}", item.value().snapshot().station().id(), e.getMessage());
+            }
+            writeStage.put(item.forward());
+        }
+    }
+
+    /**
+     * Write a batch of stations, possibly from several providers, in one transaction. Hooks are
+     * handed to the after-write stage once committed. If any row fails, the batch is rolled back
+     * and retried row by row so the failure stays with that row.
+     */
+    private void write(List<PipelineItem<PreparedStation>> items) throws InterruptedException {
+        try {
+            List<UpsertResult> results;
+            try {
+                results = transactionTemplate.execute(status -> {
+                    List<UpsertResult> written = new ArrayList<>(items.size());
+                    for (PipelineItem<PreparedStation> item : items) {
+                        written.add(upsert(item.value(), null));
+                    }
+                    return written;
+                });
+            } catch (RuntimeException e) {
+                log.warn("Batch write of {} stations failed, retrying one by one: {}", items.size(), e.getMessage());
+                writeIndividually(items);
+                return;
+            }
+
+            for (int i = 0; i < items.size(); i++) {
+                PipelineItem<PreparedStation> item = items.get(i);
+                UpsertResult result = results.get(i);
+                finish(item, result, true);
+            }
+        } finally {
+            items.forEach(item -> pendingIds.remove(item.value().snapshot().station().id()));
+        }
+    }
+
+    private void writeIndividually(List<PipelineItem<PreparedStation>> items) throws InterruptedException {
+        for (PipelineItem<PreparedStation> item : items) {
+            UpsertResult result;
+            try {
+                result = transactionTemplate.execute(status -> upsert(item.value(), item.run().report()));
+            } catch (RuntimeException e) {
+                log.error("Error writing station {}: {}", item.value().snapshot().station().id(), e.getMessage());
+                item.fail();
+                continue;
+            }
+            // upsert recorded the outcome already
+            finish(item, result, false);
+        }
+    }
+
+    private UpsertResult upsert(PreparedStation prepared, SyncReport report) {
+        StationSnapshot snapshot = prepared.snapshot();
+        return stationUpsertService.upsert(snapshot.station(), snapshot.connectors(),
+                prepared.contentHash(), prepared.connectorHash(), report);
+    }
+
+    /**
+     * The station is written; it stays in flight until its after-write hook, if any, has run. The
+     * outcome is recorded right before the item is released, so an error up to then leaves only
+     * the FAILED the stage records for it.
+     */
+    private void finish(PipelineItem<PreparedStation> item, UpsertResult result, boolean recordOutcome)
+            throws InterruptedException {
+        StationSnapshot snapshot = item.value().snapshot();
+        boolean hasAfterWrite = stationUpsertService.hasAfterWrite(snapshot, result);
+        if (recordOutcome) {
+            item.run().report().record(result.outcome());
+        }
+        if (!hasAfterWrite) {
+            item.done();
+            return;
+        }
+        afterWriteStage.put(item.with(new WrittenStation(snapshot, result)));
+    }
+
+    private void afterWrite(List<PipelineItem<WrittenStation>> items) {
+        for (PipelineItem<WrittenStation> item : items) {
+            WrittenStation written = item.value();
+            try {
+                stationUpsertService.afterWrite(written.snapshot(), written.result());
+            } catch (RuntimeException e) {
+                log.error("Error after writing station {}: {}", written.snapshot().station().id(), e.getMessage());
+            }
+            item.done();
+        }
+    }
+}
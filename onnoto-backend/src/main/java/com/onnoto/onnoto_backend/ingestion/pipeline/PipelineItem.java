@@ -0,0 +1,50 @@
+package com.onnoto.onnoto_backend.ingestion.pipeline;
+
+import com.onnoto.onnoto_backend.ingestion.service.SyncReport;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A value travelling through the pipeline together with the provider run it belongs to.
+ *
+ * A stage's item is released once: handed to the next stage as a new item, or finished with
+ * {@link #done()} or {@link #fail()}. Releasing it again does nothing, so a stage that fails its
+ * whole batch after a handler error leaves the items already released to their new owner.
+ */
+record PipelineItem<T>(T value, PipelineRun run, AtomicBoolean released) {
+
+    PipelineItem(T value, PipelineRun run) {
+        this(value, run, new AtomicBoolean());
+    }
+
+    /**
+     * Hand the item on to the next stage carrying that stage's value.
+     */
+    <U> PipelineItem<U> with(U next) {
+        released.set(true);
+        return new PipelineItem<>(next, run);
+    }
+
+    /**
+     * Hand the item on to the next stage unchanged.
+     */
+    PipelineItem<T> forward() {
+        return with(value);
+    }
+
+    /**
+     * The item left the pipeline - written, skipped or dropped as a duplicate.
+     */
+    void done() {
+        if (released.compareAndSet(false, true)) {
+            run.finished(1);
+        }
+    }
+
+    void fail() {
+        if (released.compareAndSet(false, true)) {
+            run.report().record(SyncReport.Outcome.FAILED);
+            run.finished(1);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.onnoto.onnoto_backend.ingestion.pipeline;
+
+import com.onnoto.onnoto_backend.ingestion.service.SyncReport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks one provider's sync through the pipeline. The run completes once the provider has
+ * stopped emitting and every item it emitted has left the last stage.
+ */
+class PipelineRun {
+
+    private final SyncReport report;
+    private final CompletableFuture<SyncReport> completion = new CompletableFuture<>();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+    private volatile boolean sourceDone;
+    private volatile Throwable sourceError;
+
+    PipelineRun(String provider) {
+        this.report = new SyncReport(provider);
+    }
+
+    SyncReport report() {
+        return report;
+    }
+
+    CompletableFuture<SyncReport> completion() {
+        return completion;
+    }
+
+    long emittedCount() {
+        return emitted.get();
+    }
+
+    void emitted() {
+        emitted.incrementAndGet();
+        inFlight.incrementAndGet();
+    }
+
+    void finished(int count) {
+        if (inFlight.addAndGet(-count) == 0 && sourceDone) {
+            complete();
+        }
+    }
+
+    /**
+     * The provider stopped emitting, normally or with an error.
+     */
+    void sourceCompleted(Throwable error) {
+        sourceError = error;
+        sourceDone = true;
+        if (inFlight.get() == 0) {
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (sourceError != null) {
+            completion.completeExceptionally(sourceError);
+        } else {
+            completion.complete(report);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.onnoto.onnoto_backend.ingestion.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One stage of the ingestion pipeline: a bounded input queue drained by a fixed number of worker
+ * threads. A full queue blocks the previous stage, so a slow stage throttles everything upstream
+ * instead of buffering without limit.
+ *
+ * Every stage reports the same meters, tagged with the stage name:
+ * onnoto.ingestion.stage.items (throughput), onnoto.ingestion.stage.wait (time items spent queued,
+ * i.e. lag), onnoto.ingestion.stage.process (time spent handling a batch) and
+ * onnoto.ingestion.stage.queue (current queue depth).
+ */
+@Slf4j
+class PipelineStage<T> {
+
+    /**
+     * Handles a batch of items taken from the queue. The handler forwards each item to the next
+     * stage or marks it finished on its run.
+     */
+    @FunctionalInterface
+    interface Handler<T> {
+        void handle(List<PipelineItem<T>> items) throws InterruptedException;
+    }
+
+    private record Queued<T>(PipelineItem<T> item, long enqueuedAt) {
+    }
+
+    private final String name;
+    private final int workers;
+    private final int batchSize;
+    private final Duration linger;
+    private final Handler<T> handler;
+    private final BlockingQueue<Queued<T>> queue;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Counter items;
+    private final Counter errors;
+    private final Timer wait;
+    private final Timer process;
+
+    PipelineStage(String name, int workers, int capacity, int batchSize, Duration linger,
+                  Handler<T> handler, MeterRegistry registry) {
+        this.name = name;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.handler = handler;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.items = Counter.builder("onnoto.ingestion.stage.items").tag("stage", name).register(registry);
+        this.errors = Counter.builder("onnoto.ingestion.stage.errors").tag("stage", name).register(registry);
+        this.wait = Timer.builder("onnoto.ingestion.stage.wait").tag("stage", name).register(registry);
+        this.process = Timer.builder("onnoto.ingestion.stage.process").tag("stage", name).register(registry);
+        Gauge.builder("onnoto.ingestion.stage.queue", queue, BlockingQueue::size)
+                .tag("stage", name)
+                .register(registry);
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = Thread.ofPlatform()
+                    .name("ingest-" + name + "-" + i)
+                    .daemon(true)
+                    .start(this::work);
+            threads.add(thread);
+        }
+    }
+
+    synchronized void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    /**
+     * Queue an item, blocking while the stage is full.
+     */
+    void put(PipelineItem<T> item) throws InterruptedException {
+        queue.put(new Queued<>(item, System.nanoTime()));
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    private void work() {
+        List<Queued<T>> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Queued<T> first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                handle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Top up a batch with whatever is queued, waiting up to the linger time for stragglers.
+     */
+    private void fill(List<Queued<T>> batch) throws InterruptedException {
+        if (batchSize <= 1) {
+            return;
+        }
+        queue.drainTo(batch, batchSize - batch.size());
+        long deadline = System.nanoTime() + linger.toNanos();
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Queued<T> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+    }
+
+    private void handle(List<Queued<T>> batch) throws InterruptedException {
+        long now = System.nanoTime();
+        List<PipelineItem<T>> pipelineItems = new ArrayList<>(batch.size());
+        for (Queued<T> queued : batch) {
+            wait.record(now - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+            pipelineItems.add(queued.item());
+        }
+
+        long started = System.nanoTime();
+        try {
+            handler.handle(pipelineItems);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Error in ingestion stage {}: {}", name, e.getMessage(), e);
+            // Items the handler already passed on or finished belong to their new owner
+            List<PipelineItem<T>> unreleased = pipelineItems.stream().filter(item -> !item.released().get()).toList();
+            errors.increment(unreleased.size());
+            unreleased.forEach(PipelineItem::fail);
+        } finally {
+            process.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            items.increment(pipelineItems.size());
+        }
+    }
+}
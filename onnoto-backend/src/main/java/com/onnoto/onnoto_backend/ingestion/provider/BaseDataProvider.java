@@ -1,8 +1,12 @@
 package com.onnoto.onnoto_backend.ingestion.provider;
 
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StatusUpdateWriter;
+import com.onnoto.onnoto_backend.ingestion.service.SyncReport;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Station;
-import com.onnoto.onnoto_backend.model.StatusHistory;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
 import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
@@ -11,41 +15,124 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+/**
+ * Base class for providers. Subclasses only emit records; the blocking {@link DataProvider}
+ * methods and the streaming {@link StreamingDataProvider} publishers are both built on top of
+ * {@link #emitStations} and {@link #emitStatusUpdates}.
+ */
 @Slf4j
 @RequiredArgsConstructor
-public abstract class BaseDataProvider implements DataProvider {
+public abstract class BaseDataProvider implements StreamingDataProvider {
 
     protected final RestTemplate restTemplate;
     protected final StationRepository stationRepository;
     protected final ConnectorRepository connectorRepository;
     protected final StatusHistoryRepository statusHistoryRepository;
+    protected final StationUpsertService stationUpsertService;
+    protected final StatusUpdateWriter statusUpdateWriter;
+
+    /**
+     * Fetch the provider's stations and hand each one to the sink.
+     */
+    protected abstract void emitStations(Consumer<StationSnapshot> sink) throws Exception;
+
+    /**
+     * Fetch connector statuses and hand each one to the sink.
+     */
+    protected abstract void emitStatusUpdates(Consumer<StatusRecord> sink) throws Exception;
+
+    /**
+     * Fetch connector statuses for the given stations only. The default fetches everything and
+     * filters; providers that support station polling override it.
+     */
+    protected void emitStatusUpdates(Collection<Station> stations, Consumer<StatusRecord> sink) throws Exception {
+        Set<String> stationIds = stations.stream().map(Station::getId).collect(Collectors.toSet());
+        emitStatusUpdates(record -> {
+            if (stationIds.contains(record.station().getId())) {
+                sink.accept(record);
+            }
+        });
+    }
+
+    @Override
+    public Flow.Publisher<StationSnapshot> publishStations(Executor executor) {
+        return new RecordPublisher<>(getProviderName() + "-stations", this::emitStations,
+                executor, Flow.defaultBufferSize());
+    }
+
+    @Override
+    public Flow.Publisher<StatusRecord> publishStatusUpdates(Executor executor) {
+        return new RecordPublisher<>(getProviderName() + "-status", this::emitStatusUpdates,
+                executor, Flow.defaultBufferSize());
+    }
+
+    @Override
+    public Flow.Publisher<StatusRecord> publishStatusUpdates(Collection<Station> stations, Executor executor) {
+        return new RecordPublisher<>(getProviderName() + "-poll", sink -> emitStatusUpdates(stations, sink),
+                executor, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Blocking sync on the calling thread.
+     */
+    @Override
+    public List<Station> fetchAllStations() {
+        SyncReport report = new SyncReport(getProviderName());
+        List<Station> stations = new ArrayList<>();
+        try {
+            emitStations(snapshot -> {
+                Station station = writeStation(snapshot, report);
+                if (station != null) {
+                    stations.add(station);
+                }
+            });
+            onStationsWritten(report);
+        } catch (Exception e) {
+            log.error("Error fetching stations from {}: {}", getProviderName(), e.getMessage(), e);
+        }
+        log.info("{}", report);
+        return stations;
+    }
+
+    /**
+     * Blocking status update on the calling thread.
+     */
+    @Override
+    public void fetchStatusUpdates() {
+        Set<String> stationIds = new HashSet<>();
+        try {
+            emitStatusUpdates(record -> {
+                statusUpdateWriter.write(record);
+                stationIds.add(record.station().getId());
+            });
+        } catch (Exception e) {
+            log.error("Error fetching status updates from {}: {}", getProviderName(), e.getMessage(), e);
+        }
+        statusUpdateWriter.touchStations(stationIds);
+    }
+
+    /**
+     * Insert or update a station, skipping the write when its fingerprint is unchanged.
+     */
+    protected Station writeStation(StationSnapshot snapshot, SyncReport report) {
+        return stationUpsertService.write(snapshot, report).station();
+    }
 
     /**
      * Record a status update for a connector.
      */
     protected void recordStatusUpdate(Connector connector, String status, String source) {
-        String oldStatus = connector.getStatus();
-
-        // Only record if status changed
-        if (!status.equals(oldStatus)) {
-            // Update connector status
-            connector.setStatus(status);
-            connector.setLastStatusUpdate(LocalDateTime.now());
-            connectorRepository.save(connector);
-
-            // Record in history
-            StatusHistory history = new StatusHistory();
-            history.setConnector(connector);
-            history.setStation(connector.getStation());
-            history.setStatus(status);
-            history.setSource(source);
-            history.setRecordedAt(LocalDateTime.now());
-            statusHistoryRepository.save(history);
-
-            log.info("Status update for connector {} at station {}: {} -> {} (source: {})",
-                    connector.getId(), connector.getStation().getId(), oldStatus, status, source);
-        }
+        statusUpdateWriter.write(connector, status, source);
     }
 
     /**
@@ -55,4 +142,4 @@ public abstract class BaseDataProvider implements DataProvider {
         station.setLastStatusUpdate(LocalDateTime.now());
         stationRepository.save(station);
     }
-}
\ No newline at end of file
+}
@@ -28,4 +28,12 @@ public interface DataProvider {
      * Check if this provider is currently available.
      */
     boolean isAvailable();
+
+    /**
+     * The HTTP pool this provider calls through, whose circuit breaker decides whether the
+     * provider is skipped. Null for providers without HTTP calls.
+     */
+    default String getHttpPool() {
+        return null;
+    }
 }
\ No newline at end of file
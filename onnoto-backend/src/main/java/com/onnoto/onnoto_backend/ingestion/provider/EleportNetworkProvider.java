@@ -1,15 +1,21 @@
 package com.onnoto.onnoto_backend.ingestion.provider;
 
+import com.onnoto.onnoto_backend.ingestion.record.ConnectorRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StatusUpdateWriter;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Network;
 import com.onnoto.onnoto_backend.model.Operator;
 import com.onnoto.onnoto_backend.model.Station;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
-import com.onnoto.onnoto_backend.repository.NetworkRepository;
-import com.onnoto.onnoto_backend.repository.OperatorRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
 import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import com.onnoto.onnoto_backend.service.ReferenceDataRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
@@ -17,24 +23,25 @@ import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
 public class EleportNetworkProvider extends BaseDataProvider {
 
-    private final NetworkRepository networkRepository;
-    private final OperatorRepository operatorRepository;
+    private final ReferenceDataRegistry referenceData;
 
     public EleportNetworkProvider(
-            RestTemplate restTemplate,
+            @Qualifier("eleportRestTemplate") RestTemplate restTemplate,
             StationRepository stationRepository,
             ConnectorRepository connectorRepository,
             StatusHistoryRepository statusHistoryRepository,
-            NetworkRepository networkRepository,
-            OperatorRepository operatorRepository) {
-        super(restTemplate, stationRepository, connectorRepository, statusHistoryRepository);
-        this.networkRepository = networkRepository;
-        this.operatorRepository = operatorRepository;
+            ReferenceDataRegistry referenceData,
+            StationUpsertService stationUpsertService,
+            StatusUpdateWriter statusUpdateWriter) {
+        super(restTemplate, stationRepository, connectorRepository, statusHistoryRepository,
+                stationUpsertService, statusUpdateWriter);
+        this.referenceData = referenceData;
     }
 
     @Override
@@ -43,14 +50,19 @@ public class EleportNetworkProvider extends BaseDataProvider {
     }
 
     @Override
-    public List<Station> fetchAllStations() {
+    public String getHttpPool() {
+        return "eleport";
+    }
+
+    @Override
+    protected void emitStations(Consumer<StationSnapshot> sink) {
         try {
             log.info("Fetching stations from Eleport network");
 
             Network network = ensureNetwork();
             Operator operator = ensureOperator();
 
-            List<Station> stations = new ArrayList<>();
+            List<StationSnapshot> stations = new ArrayList<>();
 
             // TALLINN STATIONS - Eleport focuses on fast charging locations
             stations.add(createStation("eleport_001", "Circle K Peterburi", network, operator,
@@ -113,48 +125,28 @@ public class EleportNetworkProvider extends BaseDataProvider {
             stations.add(createStation("eleport_018", "Jõhvi Alexela", network, operator,
                     "59.3517", "27.4070", "Narva mnt 8", "Jõhvi", "41532"));
 
-            log.info("Created {} stations from Eleport network", stations.size());
-            return stations;
+            stations.forEach(sink);
+            log.info("Emitted {} stations from Eleport network", stations.size());
 
         } catch (RestClientException e) {
             log.error("Error fetching stations from Eleport network: {}", e.getMessage(), e);
-            return Collections.emptyList();
         }
     }
 
-    private Station createStation(String id, String name, Network network, Operator operator,
-                                  String lat, String lon, String address, String city, String postalCode) {
-        Optional<Station> existing = stationRepository.findById(id);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
+    private StationSnapshot createStation(String id, String name, Network network, Operator operator,
+                                          String lat, String lon, String address, String city, String postalCode) {
+        StationRecord record = new StationRecord(id, name, network, operator,
+                new BigDecimal(lat), new BigDecimal(lon), address, city, postalCode, "EE");
 
-        Station station = new Station();
-        station.setId(id);
-        station.setName(name);
-        station.setNetwork(network);
-        station.setOperator(operator);
-        station.setLatitude(new BigDecimal(lat));
-        station.setLongitude(new BigDecimal(lon));
-        station.setAddress(address);
-        station.setCity(city);
-        station.setPostalCode(postalCode);
-        station.setCountry("EE");
-        station.setCreatedAt(LocalDateTime.now());
-        station.setUpdatedAt(LocalDateTime.now());
-
-        station = stationRepository.save(station);
-        createHighPowerConnectors(station);
-
-        return station;
+        return StationSnapshot.of(record, highPowerConnectors(id));
     }
 
     @Override
-    public void fetchStatusUpdates() {
+    protected void emitStatusUpdates(Consumer<StatusRecord> sink) {
         try {
             log.info("Fetching status updates from Eleport network");
 
-            Optional<Network> networkOptional = networkRepository.findById("eleport");
+            Optional<Network> networkOptional = referenceData.findNetwork("eleport");
             if (!networkOptional.isPresent()) {
                 log.warn("Network 'eleport' not found in database.");
                 return;
@@ -163,25 +155,44 @@ public class EleportNetworkProvider extends BaseDataProvider {
             Network network = networkOptional.get();
             List<Station> stations = stationRepository.findByNetwork(network);
 
-            Random random = new Random();
-            for (Station station : stations) {
-                List<Connector> connectors = connectorRepository.findByStation(station);
-
-                for (Connector connector : connectors) {
-                    String status = generateHighwayLocationStatus(random);
-                    recordStatusUpdate(connector, status, getProviderName());
-                }
-
-                updateStationTimestamp(station);
-            }
+            emitStatuses(stations, sink);
 
-            log.info("Updated statuses for {} Eleport stations", stations.size());
+            log.info("Emitted statuses for {} Eleport stations", stations.size());
 
         } catch (Exception e) {
             log.error("Error fetching status updates from Eleport network: {}", e.getMessage(), e);
         }
     }
 
+    @Override
+    public boolean supportsStationPolling() {
+        return true;
+    }
+
+    @Override
+    public List<Station> findPollableStations() {
+        return referenceData.findNetwork("eleport")
+                .map(stationRepository::findByNetwork)
+                .orElse(List.of());
+    }
+
+    @Override
+    protected void emitStatusUpdates(Collection<Station> stations, Consumer<StatusRecord> sink) {
+        emitStatuses(stations, sink);
+    }
+
+    private void emitStatuses(Collection<Station> stations, Consumer<StatusRecord> sink) {
+        Random random = new Random();
+        for (Station station : stations) {
+            List<Connector> connectors = connectorRepository.findByStation(station);
+
+            for (Connector connector : connectors) {
+                String status = generateHighwayLocationStatus(random);
+                sink.accept(new StatusRecord(station, connector, status, getProviderName()));
+            }
+        }
+    }
+
     private String generateHighwayLocationStatus(Random random) {
         // Highway locations tend to be busier
         int rand = random.nextInt(100);
@@ -197,70 +208,47 @@ public class EleportNetworkProvider extends BaseDataProvider {
     }
 
     private Network ensureNetwork() {
-        return networkRepository.findById("eleport")
-                .orElseGet(() -> {
-                    Network network = new Network();
-                    network.setId("eleport");
-                    network.setName("Eleport");
-                    network.setWebsite("https://eleport.ee");
-                    network.setCreatedAt(LocalDateTime.now());
-                    network.setUpdatedAt(LocalDateTime.now());
-                    return networkRepository.save(network);
-                });
+        return referenceData.getOrCreateNetwork("eleport", () -> {
+            Network network = new Network();
+            network.setId("eleport");
+            network.setName("Eleport");
+            network.setWebsite("https://eleport.ee");
+            network.setCreatedAt(LocalDateTime.now());
+            network.setUpdatedAt(LocalDateTime.now());
+            return network;
+        });
     }
 
     private Operator ensureOperator() {
-        return operatorRepository.findById("eleport")
-                .orElseGet(() -> {
-                    Operator operator = new Operator();
-                    operator.setId("eleport");
-                    operator.setName("Eleport");
-                    operator.setContactInfo("info@eleport.ee");
-                    operator.setCreatedAt(LocalDateTime.now());
-                    operator.setUpdatedAt(LocalDateTime.now());
-                    return operatorRepository.save(operator);
-                });
+        return referenceData.getOrCreateOperator("eleport", () -> {
+            Operator operator = new Operator();
+            operator.setId("eleport");
+            operator.setName("Eleport");
+            operator.setContactInfo("info@eleport.ee");
+            operator.setCreatedAt(LocalDateTime.now());
+            operator.setUpdatedAt(LocalDateTime.now());
+            return operator;
+        });
     }
 
-    private void createHighPowerConnectors(Station station) {
+    /**
+     * Seeded by the station id so every sync reports the same connector set.
+     */
+    private List<ConnectorRecord> highPowerConnectors(String stationId) {
         // Eleport focuses on high-power charging
+        List<ConnectorRecord> connectors = new ArrayList<>();
 
-        // CCS - High power
-        Connector ccs = new Connector();
-        ccs.setStation(station);
-        ccs.setConnectorType("CCS");
-        ccs.setPowerKw(new BigDecimal("150.0")); // 150 kW fast charging
-        ccs.setCurrentType("DC");
-        ccs.setStatus("AVAILABLE");
-        ccs.setLastStatusUpdate(LocalDateTime.now());
-        ccs.setCreatedAt(LocalDateTime.now());
-        ccs.setUpdatedAt(LocalDateTime.now());
-        connectorRepository.save(ccs);
+        // CCS - High power, 150 kW fast charging
+        connectors.add(new ConnectorRecord("CCS", new BigDecimal("150.0"), "DC", "AVAILABLE"));
 
         // Some locations have dual CCS
-        if (new Random().nextBoolean()) {
-            Connector ccs2 = new Connector();
-            ccs2.setStation(station);
-            ccs2.setConnectorType("CCS");
-            ccs2.setPowerKw(new BigDecimal("150.0"));
-            ccs2.setCurrentType("DC");
-            ccs2.setStatus("AVAILABLE");
-            ccs2.setLastStatusUpdate(LocalDateTime.now());
-            ccs2.setCreatedAt(LocalDateTime.now());
-            ccs2.setUpdatedAt(LocalDateTime.now());
-            connectorRepository.save(ccs2);
+        if (new Random(stationId.hashCode()).nextBoolean()) {
+            connectors.add(new ConnectorRecord("CCS", new BigDecimal("150.0"), "DC", "AVAILABLE"));
         }
 
         // CHAdeMO - still common
-        Connector chademo = new Connector();
-        chademo.setStation(station);
-        chademo.setConnectorType("CHAdeMO");
-        chademo.setPowerKw(new BigDecimal("50.0"));
-        chademo.setCurrentType("DC");
-        chademo.setStatus("AVAILABLE");
-        chademo.setLastStatusUpdate(LocalDateTime.now());
-        chademo.setCreatedAt(LocalDateTime.now());
-        chademo.setUpdatedAt(LocalDateTime.now());
-        connectorRepository.save(chademo);
+        connectors.add(new ConnectorRecord("CHAdeMO", new BigDecimal("50.0"), "DC", "AVAILABLE"));
+
+        return connectors;
     }
 }
\ No newline at end of file
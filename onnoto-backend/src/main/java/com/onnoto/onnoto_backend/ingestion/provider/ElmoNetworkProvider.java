@@ -1,15 +1,21 @@
 package com.onnoto.onnoto_backend.ingestion.provider;
 
+import com.onnoto.onnoto_backend.ingestion.record.ConnectorRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StatusUpdateWriter;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Network;
 import com.onnoto.onnoto_backend.model.Operator;
 import com.onnoto.onnoto_backend.model.Station;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
-import com.onnoto.onnoto_backend.repository.NetworkRepository;
-import com.onnoto.onnoto_backend.repository.OperatorRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
 import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import com.onnoto.onnoto_backend.service.ReferenceDataRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
@@ -18,6 +24,7 @@ import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
@@ -42,8 +49,7 @@ public class ElmoNetworkProvider extends BaseDataProvider {
      * - How to connect to external APIs
      */
 
-    private final NetworkRepository networkRepository;
-    private final OperatorRepository operatorRepository;
+    private final ReferenceDataRegistry referenceData;
 
     @Value("${onnoto.provider.elmo.base-url:https://elmo.ee/api}")
     private String baseUrl;
@@ -55,15 +61,16 @@ public class ElmoNetworkProvider extends BaseDataProvider {
     private String statusEndpoint;
 
     public ElmoNetworkProvider(
-            RestTemplate restTemplate,
+            @Qualifier("elmoRestTemplate") RestTemplate restTemplate,
             StationRepository stationRepository,
             ConnectorRepository connectorRepository,
             StatusHistoryRepository statusHistoryRepository,
-            NetworkRepository networkRepository,
-            OperatorRepository operatorRepository) {
-        super(restTemplate, stationRepository, connectorRepository, statusHistoryRepository);
-        this.networkRepository = networkRepository;
-        this.operatorRepository = operatorRepository;
+            ReferenceDataRegistry referenceData,
+            StationUpsertService stationUpsertService,
+            StatusUpdateWriter statusUpdateWriter) {
+        super(restTemplate, stationRepository, connectorRepository, statusHistoryRepository,
+                stationUpsertService, statusUpdateWriter);
+        this.referenceData = referenceData;
     }
 
     @Override
@@ -72,7 +79,12 @@ public class ElmoNetworkProvider extends BaseDataProvider {
     }
 
     @Override
-    public List<Station> fetchAllStations() {
+    public String getHttpPool() {
+        return "elmo";
+    }
+
+    @Override
+    protected void emitStations(Consumer<StationSnapshot> sink) {
         try {
             log.info("Fetching stations from ELMO network");
 
@@ -86,7 +98,7 @@ public class ElmoNetworkProvider extends BaseDataProvider {
             Operator operator = ensureOperator();
 
             // Create realistic sample stations across Estonia
-            List<Station> stations = new ArrayList<>();
+            List<StationSnapshot> stations = new ArrayList<>();
 
             // TALLINN STATIONS - Major shopping centers and key locations
             stations.add(createStation("elmo_001", "Viru Keskus", network, operator,
@@ -312,48 +324,25 @@ public class ElmoNetworkProvider extends BaseDataProvider {
             stations.add(createStation("elmo_070", "Otepää Tehvandi", network, operator,
                     "58.0586", "26.4938", "Tehvandi 1", "Otepää", "67403"));
 
-            log.info("Created {} stations from ELMO network", stations.size());
-            return stations;
+            stations.forEach(sink);
+            log.info("Emitted {} stations from ELMO network", stations.size());
 
         } catch (RestClientException e) {
             log.error("Error fetching stations from ELMO network: {}", e.getMessage(), e);
-            return Collections.emptyList();
         }
     }
 
-    private Station createStation(String id, String name, Network network, Operator operator,
-                                  String lat, String lon, String address, String city, String postalCode) {
-        // Check if station already exists
-        Optional<Station> existing = stationRepository.findById(id);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
+    private StationSnapshot createStation(String id, String name, Network network, Operator operator,
+                                          String lat, String lon, String address, String city, String postalCode) {
+        StationRecord record = new StationRecord(id, name, network, operator,
+                new BigDecimal(lat), new BigDecimal(lon), address, city, postalCode, "EE");
 
-        Station station = new Station();
-        station.setId(id);
-        station.setName(name);
-        station.setNetwork(network);
-        station.setOperator(operator);
-        station.setLatitude(new BigDecimal(lat));
-        station.setLongitude(new BigDecimal(lon));
-        station.setAddress(address);
-        station.setCity(city);
-        station.setPostalCode(postalCode);
-        station.setCountry("EE");
-        station.setCreatedAt(LocalDateTime.now());
-        station.setUpdatedAt(LocalDateTime.now());
-
-        // Save station
-        station = stationRepository.save(station);
-
-        // Create connectors with varying configurations
-        createConnectorsWithVariation(station);
-
-        return station;
+        // Connectors with varying configurations
+        return StationSnapshot.of(record, connectorsWithVariation(id, name));
     }
 
     @Override
-    public void fetchStatusUpdates() {
+    protected void emitStatusUpdates(Consumer<StatusRecord> sink) {
         try {
             log.info("Fetching status updates from ELMO network");
 
@@ -361,13 +350,13 @@ public class ElmoNetworkProvider extends BaseDataProvider {
             // For now, we'll update with random statuses
 
             // Get all connectors for ELMO stations
-            Optional<Network> networkOptional = networkRepository.findById("elmo");
+            Optional<Network> networkOptional = referenceData.findNetwork("elmo");
 
             // FIX: Handle the case where the network doesn't exist
             if (!networkOptional.isPresent()) {
                 log.warn("Network 'elmo' not found in database. Creating it first.");
                 ensureNetwork();
-                networkOptional = networkRepository.findById("elmo");
+                networkOptional = referenceData.findNetwork("elmo");
 
                 // If still not present, log and return
                 if (!networkOptional.isPresent()) {
@@ -384,31 +373,48 @@ public class ElmoNetworkProvider extends BaseDataProvider {
                 return;
             }
 
-            Random random = new Random();
-            for (Station station : stations) {
-                List<Connector> connectors = connectorRepository.findByStation(station);
+            emitStatuses(stations, sink);
 
-                if (connectors.isEmpty()) {
-                    log.debug("No connectors found for station: {}. Skipping.", station.getId());
-                    continue;
-                }
+            log.info("Emitted statuses for {} ELMO stations", stations.size());
+
+        } catch (Exception e) {
+            log.error("Error fetching status updates from ELMO network: {}", e.getMessage(), e);
+        }
+    }
 
-                for (Connector connector : connectors) {
-                    // More realistic status distribution based on time of day and location
-                    String status = generateRealisticStatus(random, station);
+    @Override
+    public boolean supportsStationPolling() {
+        return true;
+    }
 
-                    // Record status update
-                    recordStatusUpdate(connector, status, getProviderName());
-                }
+    @Override
+    public List<Station> findPollableStations() {
+        return referenceData.findNetwork("elmo")
+                .map(stationRepository::findByNetwork)
+                .orElse(List.of());
+    }
 
-                // Update station timestamp
-                updateStationTimestamp(station);
+    @Override
+    protected void emitStatusUpdates(Collection<Station> stations, Consumer<StatusRecord> sink) {
+        emitStatuses(stations, sink);
+    }
+
+    private void emitStatuses(Collection<Station> stations, Consumer<StatusRecord> sink) {
+        Random random = new Random();
+        for (Station station : stations) {
+            List<Connector> connectors = connectorRepository.findByStation(station);
+
+            if (connectors.isEmpty()) {
+                log.debug("No connectors found for station: {}. Skipping.", station.getId());
+                continue;
             }
 
-            log.info("Updated statuses for {} ELMO stations", stations.size());
+            for (Connector connector : connectors) {
+                // More realistic status distribution based on time of day and location
+                String status = generateRealisticStatus(random, station);
 
-        } catch (Exception e) {
-            log.error("Error fetching status updates from ELMO network: {}", e.getMessage(), e);
+                sink.accept(new StatusRecord(station, connector, status, getProviderName()));
+            }
         }
     }
 
@@ -467,29 +473,27 @@ public class ElmoNetworkProvider extends BaseDataProvider {
     }
 
     private Network ensureNetwork() {
-        return networkRepository.findById("elmo")
-                .orElseGet(() -> {
-                    Network network = new Network();
-                    network.setId("elmo");
-                    network.setName("ELMO Charging Network");
-                    network.setWebsite("https://elmo.ee");
-                    network.setCreatedAt(LocalDateTime.now());
-                    network.setUpdatedAt(LocalDateTime.now());
-                    return networkRepository.save(network);
-                });
+        return referenceData.getOrCreateNetwork("elmo", () -> {
+            Network network = new Network();
+            network.setId("elmo");
+            network.setName("ELMO Charging Network");
+            network.setWebsite("https://elmo.ee");
+            network.setCreatedAt(LocalDateTime.now());
+            network.setUpdatedAt(LocalDateTime.now());
+            return network;
+        });
     }
 
     private Operator ensureOperator() {
-        return operatorRepository.findById("enefit")
-                .orElseGet(() -> {
-                    Operator operator = new Operator();
-                    operator.setId("enefit");
-                    operator.setName("Enefit");
-                    operator.setContactInfo("info@enefit.ee");
-                    operator.setCreatedAt(LocalDateTime.now());
-                    operator.setUpdatedAt(LocalDateTime.now());
-                    return operatorRepository.save(operator);
-                });
+        return referenceData.getOrCreateOperator("enefit", () -> {
+            Operator operator = new Operator();
+            operator.setId("enefit");
+            operator.setName("Enefit");
+            operator.setContactInfo("info@enefit.ee");
+            operator.setCreatedAt(LocalDateTime.now());
+            operator.setUpdatedAt(LocalDateTime.now());
+            return operator;
+        });
     }
 
     private void createConnectors(Station station) {
@@ -518,88 +522,50 @@ public class ElmoNetworkProvider extends BaseDataProvider {
         connectorRepository.save(chademo);
     }
 
-    private void createConnectorsWithVariation(Station station) {
-        Random random = new Random();
+    /**
+     * The connector layout is seeded by the station id so every sync reports the same set.
+     */
+    private List<ConnectorRecord> connectorsWithVariation(String stationId, String stationName) {
+        Random random = new Random(stationId.hashCode());
+        List<ConnectorRecord> connectors = new ArrayList<>();
 
         // Major locations get more connectors
-        boolean isMajorLocation = station.getName().contains("Keskus") ||
-                station.getName().contains("Ülemiste") ||
-                station.getName().contains("Viru") ||
-                station.getName().contains("Mall");
+        boolean isMajorLocation = stationName.contains("Keskus") ||
+                stationName.contains("Ülemiste") ||
+                stationName.contains("Viru") ||
+                stationName.contains("Mall");
 
         // Most stations have CCS
         if (random.nextInt(100) < 95) { // 95% have CCS
-            Connector ccs = new Connector();
-            ccs.setStation(station);
-            ccs.setConnectorType("CCS");
             // Major locations more likely to have high power
-            if (isMajorLocation && random.nextBoolean()) {
-                ccs.setPowerKw(new BigDecimal("150.0")); // 150 kW
-            } else {
-                ccs.setPowerKw(new BigDecimal("50.0"));  // 50 kW
-            }
-            ccs.setCurrentType("DC");
-            ccs.setStatus("AVAILABLE");
-            ccs.setLastStatusUpdate(LocalDateTime.now());
-            ccs.setCreatedAt(LocalDateTime.now());
-            ccs.setUpdatedAt(LocalDateTime.now());
-            connectorRepository.save(ccs);
+            BigDecimal ccsPower = isMajorLocation && random.nextBoolean()
+                    ? new BigDecimal("150.0")  // 150 kW
+                    : new BigDecimal("50.0");  // 50 kW
+            connectors.add(new ConnectorRecord("CCS", ccsPower, "DC", "AVAILABLE"));
 
             // Major locations might have dual CCS
             if (isMajorLocation && random.nextInt(100) < 40) { // 40% chance for second CCS
-                Connector ccs2 = new Connector();
-                ccs2.setStation(station);
-                ccs2.setConnectorType("CCS");
-                ccs2.setPowerKw(ccs.getPowerKw());
-                ccs2.setCurrentType("DC");
-                ccs2.setStatus("AVAILABLE");
-                ccs2.setLastStatusUpdate(LocalDateTime.now());
-                ccs2.setCreatedAt(LocalDateTime.now());
-                ccs2.setUpdatedAt(LocalDateTime.now());
-                connectorRepository.save(ccs2);
+                connectors.add(new ConnectorRecord("CCS", ccsPower, "DC", "AVAILABLE"));
             }
         }
 
         // Many stations have CHAdeMO
         if (random.nextInt(100) < 80) { // 80% have CHAdeMO
-            Connector chademo = new Connector();
-            chademo.setStation(station);
-            chademo.setConnectorType("CHAdeMO");
-            chademo.setPowerKw(new BigDecimal("50.0"));
-            chademo.setCurrentType("DC");
-            chademo.setStatus("AVAILABLE");
-            chademo.setLastStatusUpdate(LocalDateTime.now());
-            chademo.setCreatedAt(LocalDateTime.now());
-            chademo.setUpdatedAt(LocalDateTime.now());
-            connectorRepository.save(chademo);
+            connectors.add(new ConnectorRecord("CHAdeMO", new BigDecimal("50.0"), "DC", "AVAILABLE"));
         }
 
         // Most stations have Type 2
         if (random.nextInt(100) < 90) { // 90% have Type 2
-            Connector type2 = new Connector();
-            type2.setStation(station);
-            type2.setConnectorType("Type 2");
-            type2.setPowerKw(new BigDecimal(random.nextBoolean() ? "22.0" : "43.0")); // Mix of 22kW and 43kW
-            type2.setCurrentType("AC");
-            type2.setStatus("AVAILABLE");
-            type2.setLastStatusUpdate(LocalDateTime.now());
-            type2.setCreatedAt(LocalDateTime.now());
-            type2.setUpdatedAt(LocalDateTime.now());
-            connectorRepository.save(type2);
+            // Mix of 22kW and 43kW
+            connectors.add(new ConnectorRecord("Type 2",
+                    new BigDecimal(random.nextBoolean() ? "22.0" : "43.0"), "AC", "AVAILABLE"));
 
             // Some locations have multiple Type 2
             if (random.nextInt(100) < 30) { // 30% chance for second Type 2
-                Connector type2_2 = new Connector();
-                type2_2.setStation(station);
-                type2_2.setConnectorType("Type 2");
-                type2_2.setPowerKw(new BigDecimal("22.0"));
-                type2_2.setCurrentType("AC");
-                type2_2.setStatus("AVAILABLE");
-                type2_2.setLastStatusUpdate(LocalDateTime.now());
-                type2_2.setCreatedAt(LocalDateTime.now());
-                type2_2.setUpdatedAt(LocalDateTime.now());
-                connectorRepository.save(type2_2);
+                connectors.add(new ConnectorRecord("Type 2", new BigDecimal("22.0"), "AC", "AVAILABLE"));
             }
         }
+
+        return connectors;
     }
 }
\ No newline at end of file
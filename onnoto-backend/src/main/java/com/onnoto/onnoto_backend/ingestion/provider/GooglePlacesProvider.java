@@ -1,33 +1,54 @@
 package com.onnoto.onnoto_backend.ingestion.provider;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onnoto.onnoto_backend.ingestion.crawl.GeoCell;
+import com.onnoto.onnoto_backend.ingestion.crawl.QuadtreeCrawler;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StatusUpdateWriter;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Network;
 import com.onnoto.onnoto_backend.model.Operator;
 import com.onnoto.onnoto_backend.model.Station;
 import com.onnoto.onnoto_backend.repository.*;
+import com.onnoto.onnoto_backend.service.ReferenceDataRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class GooglePlacesProvider extends BaseDataProvider {
 
-    private final NetworkRepository networkRepository;
-    private final OperatorRepository operatorRepository;
+    private final ReferenceDataRegistry referenceData;
     private final ObjectMapper objectMapper;
+    private final QuadtreeCrawler quadtreeCrawler;
 
     @Value("${onnoto.provider.google.api-key}")
     private String apiKey;
@@ -45,37 +66,44 @@ public class GooglePlacesProvider extends BaseDataProvider {
     @Value("${onnoto.provider.google.place-details-url:https://maps.googleapis.com/maps/api/place/details/json}")
     private String placeDetailsUrl;
 
-    @Value("${onnoto.provider.google.radius:50000}") // 50km radius
+    @Value("${onnoto.provider.google.radius:50000}") // Largest radius a single Nearby Search accepts
     private int searchRadius;
 
-    // Estonian cities with their coordinates
-    private static final Map<String, double[]> ESTONIAN_CITIES = new HashMap<>() {{
-        put("Tallinn", new double[]{59.4370, 24.7536});
-        put("Tartu", new double[]{58.3780, 26.7290});
-        put("Pärnu", new double[]{58.3859, 24.4971});
-        put("Narva", new double[]{59.3797, 28.1791});
-        put("Viljandi", new double[]{58.3639, 25.5969});
-        put("Rakvere", new double[]{59.3469, 26.3550});
-        put("Kuressaare", new double[]{58.2481, 22.5038});
-        put("Haapsalu", new double[]{58.9432, 23.5411});
-        put("Võru", new double[]{57.8339, 26.9936});
-        put("Valga", new double[]{57.7775, 26.0473});
-        put("Jõhvi", new double[]{59.3541, 27.4196});
-        put("Paide", new double[]{58.8854, 25.5573});
-    }};
+    @Value("${onnoto.provider.google.crawl.bounding-box:57.50,21.70,59.85,28.25}") // Estonia
+    private String crawlBoundingBox;
+
+    @Value("${onnoto.provider.google.crawl.max-depth:8}")
+    private int crawlMaxDepth;
+
+    @Value("${onnoto.provider.google.crawl.cell-ttl-hours:24}")
+    private long cellTtlHours;
+
+    @Value("${onnoto.provider.google.crawl.max-cell-ttl-hours:336}")
+    private long maxCellTtlHours;
+
+    @Value("${onnoto.provider.google.crawl.country-code:EE}")
+    private String countryCode;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Nearby Search returns at most 20 results per page
+    private static final int PAGE_SIZE = 20;
 
     public GooglePlacesProvider(
-            RestTemplate restTemplate,
+            @Qualifier("googleRestTemplate") RestTemplate restTemplate,
             StationRepository stationRepository,
             ConnectorRepository connectorRepository,
             StatusHistoryRepository statusHistoryRepository,
-            NetworkRepository networkRepository,
-            OperatorRepository operatorRepository,
-            ObjectMapper objectMapper) {
-        super(restTemplate, stationRepository, connectorRepository, statusHistoryRepository);
-        this.networkRepository = networkRepository;
-        this.operatorRepository = operatorRepository;
+            ReferenceDataRegistry referenceData,
+            ObjectMapper objectMapper,
+            QuadtreeCrawler quadtreeCrawler,
+            StationUpsertService stationUpsertService,
+            StatusUpdateWriter statusUpdateWriter) {
+        super(restTemplate, stationRepository, connectorRepository, statusHistoryRepository,
+                stationUpsertService, statusUpdateWriter);
+        this.referenceData = referenceData;
         this.objectMapper = objectMapper;
+        this.quadtreeCrawler = quadtreeCrawler;
     }
 
     @Override
@@ -84,164 +112,141 @@ public class GooglePlacesProvider extends BaseDataProvider {
     }
 
     @Override
-    public List<Station> fetchAllStations() {
+    public String getHttpPool() {
+        return "google";
+    }
+
+    /**
+     * Crawl the configured bounding box with an adaptive quadtree.
+     * Cells skipped because their remembered results are still fresh emit no stations;
+     * their stations are already stored from an earlier run.
+     */
+    @Override
+    protected void emitStations(Consumer<StationSnapshot> sink) {
         if (apiKey == null || apiKey.isEmpty()) {
             log.error("Google Places API key is not configured");
-            return Collections.emptyList();
+            return;
         }
 
         try {
             log.info("Fetching EV charging stations from Google Places API");
 
             Network network = ensureNetwork();
-            Map<String, Station> allStations = new HashMap<>();
+            Set<String> emitted = new HashSet<>();
 
-            // Search for EV charging stations in each Estonian city
-            for (Map.Entry<String, double[]> city : ESTONIAN_CITIES.entrySet()) {
-                String cityName = city.getKey();
-                double[] coords = city.getValue();
+            GeoCell root = GeoCell.fromBoundingBox(crawlBoundingBox);
+            QuadtreeCrawler.CrawlSettings settings = new QuadtreeCrawler.CrawlSettings(
+                    crawlMaxDepth,
+                    searchRadius,
+                    Duration.ofHours(cellTtlHours),
+                    Duration.ofHours(maxCellTtlHours));
 
-                log.info("Searching for EV charging stations in {}", cityName);
+            quadtreeCrawler.crawl(getProviderName(), root, settings,
+                    (cell, followPages) -> searchCell(cell, followPages, network, emitted, sink));
 
-                try {
-                    List<Station> cityStations = searchStationsInLocation(
-                            coords[0], coords[1], cityName, network
-                    );
-
-                    // Add to map to avoid duplicates
-                    for (Station station : cityStations) {
-                        allStations.put(station.getId(), station);
-                    }
-
-                    // Rate limiting - Google Places API has quotas
-                    TimeUnit.MILLISECONDS.sleep(200);
-
-                } catch (Exception e) {
-                    log.error("Error fetching stations for city {}: {}", cityName, e.getMessage());
-                }
-            }
-
-            log.info("Fetched {} unique charging stations from Google Places", allStations.size());
-            return new ArrayList<>(allStations.values());
+            log.info("Emitted {} unique charging stations from Google Places", emitted.size());
 
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error fetching stations from Google Places: {}", e.getMessage(), e);
-            return Collections.emptyList();
         }
     }
 
-    private List<Station> searchStationsInLocation(double lat, double lng, String cityName, Network network) {
-        List<Station> stations = new ArrayList<>();
+    private QuadtreeCrawler.CellResult searchCell(GeoCell cell, boolean followPages,
+                                                  Network network, Set<String> emitted,
+                                                  Consumer<StationSnapshot> sink) throws Exception {
+        // Build URL for nearby search covering the whole cell
+        String url = UriComponentsBuilder.fromHttpUrl(nearbySearchUrl)
+                .queryParam("location", cell.centerLat() + "," + cell.centerLng())
+                .queryParam("radius", (int) Math.ceil(Math.min(cell.radiusMeters(), searchRadius)))
+                .queryParam("type", "electric_vehicle_charging_station")
+                .queryParam("key", apiKey)
+                .build()
+                .toString();
+
+        JsonNode page = fetchSearchPage(url);
+        JsonNode results = page.get("results");
+        boolean saturated = results != null && results.size() >= PAGE_SIZE;
+
+        // A full page means there may be more places than Google will return - let the crawler split
+        if (saturated && !followPages) {
+            return new QuadtreeCrawler.CellResult(Collections.emptyList(), true);
+        }
 
-        try {
-            // Build URL for nearby search
-            String url = UriComponentsBuilder.fromHttpUrl(nearbySearchUrl)
-                    .queryParam("location", lat + "," + lng)
-                    .queryParam("radius", searchRadius)
-                    .queryParam("type", "electric_vehicle_charging_station")
+        List<String> placeIds = new ArrayList<>();
+        collectPlaces(page, cell, network, placeIds, emitted, sink);
+
+        // At the smallest cell size read all remaining pages instead
+        while (followPages && page.has("next_page_token") && !page.get("next_page_token").isNull()) {
+            // Google requires a short delay before using the next page token
+            TimeUnit.SECONDS.sleep(2);
+            String nextPageUrl = UriComponentsBuilder.fromHttpUrl(nearbySearchUrl)
+                    .queryParam("pagetoken", page.get("next_page_token").asText())
                     .queryParam("key", apiKey)
                     .build()
                     .toString();
+            page = fetchSearchPage(nextPageUrl);
+            collectPlaces(page, cell, network, placeIds, emitted, sink);
+        }
 
-            // Make API call
-            String response = restTemplate.getForObject(url, String.class);
-            if (response == null) {
-                return stations;
-            }
-
-            JsonNode root = objectMapper.readTree(response);
+        // Rate limiting - Google Places API has quotas
+        TimeUnit.MILLISECONDS.sleep(200);
 
-            // Check API status
-            String status = root.get("status").asText();
-            if (!"OK".equals(status) && !"ZERO_RESULTS".equals(status)) {
-                log.warn("Google Places API returned status: {} for city: {}", status, cityName);
-                return stations;
-            }
+        return new QuadtreeCrawler.CellResult(placeIds, saturated);
+    }
 
-            JsonNode results = root.get("results");
-            if (results != null && results.isArray()) {
-                for (JsonNode place : results) {
-                    try {
-                        Station station = parseStation(place, network, cityName);
-                        if (station != null) {
-                            // Check if station already exists
-                            Optional<Station> existing = stationRepository.findById(station.getId());
-                            if (!existing.isPresent()) {
-                                station = stationRepository.save(station);
-
-                                // Fetch additional details and create connectors
-                                fetchStationDetails(station, place.get("place_id").asText());
-                            } else {
-                                station = existing.get();
-                            }
-                            stations.add(station);
-                        }
-                    } catch (Exception e) {
-                        log.error("Error parsing station from Google Places: {}", e.getMessage());
-                    }
-                }
-            }
+    private JsonNode fetchSearchPage(String url) throws Exception {
+        String response = restTemplate.getForObject(url, String.class);
+        if (response == null) {
+            throw new IllegalStateException("Empty response from Google Places API");
+        }
 
-            // Handle pagination if there's a next page token
-            if (root.has("next_page_token") && !root.get("next_page_token").isNull()) {
-                String nextPageToken = root.get("next_page_token").asText();
-                // Google requires a short delay before using the next page token
-                TimeUnit.SECONDS.sleep(2);
-                stations.addAll(fetchNextPage(nextPageToken, network, cityName));
-            }
+        JsonNode root = objectMapper.readTree(response);
 
-        } catch (Exception e) {
-            log.error("Error searching stations in {}: {}", cityName, e.getMessage());
+        // Check API status
+        String status = root.get("status").asText();
+        if (!"OK".equals(status) && !"ZERO_RESULTS".equals(status)) {
+            throw new IllegalStateException("Google Places API returned status: " + status);
         }
-
-        return stations;
+        return root;
     }
 
-    private List<Station> fetchNextPage(String pageToken, Network network, String cityName) {
-        List<Station> stations = new ArrayList<>();
+    private void collectPlaces(JsonNode page, GeoCell cell, Network network, List<String> placeIds,
+                               Set<String> emitted, Consumer<StationSnapshot> sink) {
+        JsonNode results = page.get("results");
+        if (results == null || !results.isArray()) {
+            return;
+        }
 
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(nearbySearchUrl)
-                    .queryParam("pagetoken", pageToken)
-                    .queryParam("key", apiKey)
-                    .build()
-                    .toString();
+        for (JsonNode place : results) {
+            try {
+                // The search circle overlaps neighbouring cells - only keep places this cell owns
+                JsonNode location = place.get("geometry").get("location");
+                if (!cell.contains(location.get("lat").asDouble(), location.get("lng").asDouble())) {
+                    continue;
+                }
 
-            String response = restTemplate.getForObject(url, String.class);
-            if (response == null) {
-                return stations;
-            }
+                String placeId = place.get("place_id").asText();
+                placeIds.add(placeId);
 
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode results = root.get("results");
-
-            if (results != null && results.isArray()) {
-                for (JsonNode place : results) {
-                    try {
-                        Station station = parseStation(place, network, cityName);
-                        if (station != null) {
-                            Optional<Station> existing = stationRepository.findById(station.getId());
-                            if (!existing.isPresent()) {
-                                station = stationRepository.save(station);
-                                fetchStationDetails(station, place.get("place_id").asText());
-                            } else {
-                                station = existing.get();
-                            }
-                            stations.add(station);
-                        }
-                    } catch (Exception e) {
-                        log.error("Error parsing station: {}", e.getMessage());
-                    }
+                StationRecord record = parseStation(place, network);
+                if (record != null && emitted.add(record.id())) {
+                    // Connectors come from the details call, so only the station row is fingerprinted.
+                    // New stations get details and connectors; an update reset the address to the
+                    // vicinity, so it is enriched again.
+                    sink.accept(new StationSnapshot(record, null,
+                            (station, inserted) -> fetchStationDetails(station, placeId, inserted)));
                 }
+            } catch (CancellationException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Error parsing station from Google Places: {}", e.getMessage());
             }
-        } catch (Exception e) {
-            log.error("Error fetching next page: {}", e.getMessage());
         }
-
-        return stations;
     }
 
-    private Station parseStation(JsonNode placeNode, Network network, String cityName) {
+    private StationRecord parseStation(JsonNode placeNode, Network network) {
         try {
             String placeId = placeNode.get("place_id").asText();
             String name = placeNode.get("name").asText();
@@ -257,30 +262,8 @@ public class GooglePlacesProvider extends BaseDataProvider {
             // Determine operator from name or use generic
             Operator operator = determineOperator(name);
 
-            // Create station
-            Station station = new Station();
-            station.setId("google_" + placeId);
-            station.setName(name);
-            station.setNetwork(network);
-            station.setOperator(operator);
-            station.setLatitude(latitude);
-            station.setLongitude(longitude);
-            station.setAddress(address);
-            station.setCity(cityName);
-            station.setCountry("EE");
-            station.setCreatedAt(LocalDateTime.now());
-            station.setUpdatedAt(LocalDateTime.now());
-
-            // Check if it's currently open
-            if (placeNode.has("opening_hours")) {
-                JsonNode openingHours = placeNode.get("opening_hours");
-                if (openingHours.has("open_now")) {
-                    boolean isOpen = openingHours.get("open_now").asBoolean();
-                    station.setLastStatusUpdate(LocalDateTime.now());
-                }
-            }
-
-            return station;
+            return new StationRecord("google_" + placeId, name, network, operator,
+                    latitude, longitude, address, extractCity(address), null, countryCode);
 
         } catch (Exception e) {
             log.error("Error parsing station data: {}", e.getMessage());
@@ -288,7 +271,7 @@ public class GooglePlacesProvider extends BaseDataProvider {
         }
     }
 
-    private void fetchStationDetails(Station station, String placeId) {
+    private void fetchStationDetails(Station station, String placeId, boolean createConnectors) {
         try {
             // Build URL for place details
             String url = UriComponentsBuilder.fromHttpUrl(placeDetailsUrl)
@@ -300,7 +283,9 @@ public class GooglePlacesProvider extends BaseDataProvider {
 
             String response = restTemplate.getForObject(url, String.class);
             if (response == null) {
-                createDefaultConnectors(station);
+                if (createConnectors) {
+                    createDefaultConnectors(station);
+                }
                 return;
             }
 
@@ -325,14 +310,18 @@ public class GooglePlacesProvider extends BaseDataProvider {
                 stationRepository.save(station);
 
                 // Create connectors based on available information
-                createConnectorsFromDetails(station, result);
-            } else {
+                if (createConnectors) {
+                    createConnectorsFromDetails(station, result);
+                }
+            } else if (createConnectors) {
                 createDefaultConnectors(station);
             }
 
         } catch (Exception e) {
             log.error("Error fetching station details for {}: {}", station.getId(), e.getMessage());
-            createDefaultConnectors(station);
+            if (createConnectors) {
+                createDefaultConnectors(station);
+            }
         }
     }
 
@@ -415,6 +404,16 @@ public class GooglePlacesProvider extends BaseDataProvider {
         }
     }
 
+    private String extractCity(String vicinity) {
+        // Nearby Search vicinity is "street, locality" - the locality is the last part
+        if (vicinity == null || vicinity.isBlank()) {
+            return null;
+        }
+        String[] parts = vicinity.split(",");
+        String city = parts[parts.length - 1].trim();
+        return parts.length > 1 && !city.isEmpty() ? city : null;
+    }
+
     private String extractPostalCode(String address) {
         // Estonian postal codes are 5 digits
         String[] parts = address.split(",");
@@ -428,19 +427,17 @@ public class GooglePlacesProvider extends BaseDataProvider {
     }
 
     @Override
-    public void fetchStatusUpdates() {
+    protected void emitStatusUpdates(Consumer<StatusRecord> sink) {
         // Google Places API doesn't provide real-time status updates
         // We could potentially use the opening_hours field to determine if a station is likely available
         log.info("Google Places doesn't provide real-time connector status, skipping status updates");
 
-        // Update all connectors to have a recent timestamp
-        List<Station> stations = stationRepository.findByNetwork(ensureNetwork());
-        for (Station station : stations) {
-            if (station.getId().startsWith("google_")) {
-                station.setLastStatusUpdate(LocalDateTime.now());
-                stationRepository.save(station);
-            }
-        }
+        // Update all stations to have a recent timestamp
+        List<String> stationIds = stationRepository.findByNetwork(ensureNetwork()).stream()
+                .map(Station::getId)
+                .filter(id -> id.startsWith("google_"))
+                .toList();
+        statusUpdateWriter.touchStations(stationIds);
     }
 
     @Override
@@ -455,7 +452,11 @@ public class GooglePlacesProvider extends BaseDataProvider {
                     .build()
                     .toString();
 
-            String response = restTemplate.getForObject(url, String.class);
+            // Bypass the response cache, the probe has to reach the API
+            HttpHeaders headers = new HttpHeaders();
+            headers.setCacheControl(CacheControl.noCache());
+            String response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class)
+                    .getBody();
             if (response != null) {
                 JsonNode root = objectMapper.readTree(response);
                 String status = root.get("status").asText();
@@ -468,29 +469,51 @@ public class GooglePlacesProvider extends BaseDataProvider {
         }
     }
 
+    /**
+     * Whether a Places response may be cached. Quota, key and request errors come back as HTTP
+     * 200 with an error status and must not be replayed from the cache.
+     */
+    public static boolean isCacheableResponse(URI uri, byte[] body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("status".equals(field)) {
+                    String status = parser.getValueAsString();
+                    return "OK".equals(status) || "ZERO_RESULTS".equals(status);
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     private Network ensureNetwork() {
-        return networkRepository.findById("google")
-                .orElseGet(() -> {
-                    Network network = new Network();
-                    network.setId("google");
-                    network.setName("Google Places");
-                    network.setWebsite("https://maps.google.com");
-                    network.setCreatedAt(LocalDateTime.now());
-                    network.setUpdatedAt(LocalDateTime.now());
-                    return networkRepository.save(network);
-                });
+        return referenceData.getOrCreateNetwork("google", () -> {
+            Network network = new Network();
+            network.setId("google");
+            network.setName("Google Places");
+            network.setWebsite("https://maps.google.com");
+            network.setCreatedAt(LocalDateTime.now());
+            network.setUpdatedAt(LocalDateTime.now());
+            return network;
+        });
     }
 
     private Operator ensureOperator(String id, String name) {
         final String operatorId = "google_" + id;
-        return operatorRepository.findById(operatorId)
-                .orElseGet(() -> {
-                    Operator operator = new Operator();
-                    operator.setId(operatorId);
-                    operator.setName(name);
-                    operator.setCreatedAt(LocalDateTime.now());
-                    operator.setUpdatedAt(LocalDateTime.now());
-                    return operatorRepository.save(operator);
-                });
+        return referenceData.getOrCreateOperator(operatorId, () -> {
+            Operator operator = new Operator();
+            operator.setId(operatorId);
+            operator.setName(name);
+            operator.setCreatedAt(LocalDateTime.now());
+            operator.setUpdatedAt(LocalDateTime.now());
+            return operator;
+        });
     }
 }
\ No newline at end of file
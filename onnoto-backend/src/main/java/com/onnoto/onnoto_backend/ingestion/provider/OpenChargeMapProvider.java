@@ -1,35 +1,61 @@
 package com.onnoto.onnoto_backend.ingestion.provider;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onnoto.onnoto_backend.ingestion.record.ConnectorRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StatusUpdateWriter;
+import com.onnoto.onnoto_backend.ingestion.service.SyncReport;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Network;
 import com.onnoto.onnoto_backend.model.Operator;
+import com.onnoto.onnoto_backend.model.ProviderSyncState;
 import com.onnoto.onnoto_backend.model.Station;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
-import com.onnoto.onnoto_backend.repository.NetworkRepository;
-import com.onnoto.onnoto_backend.repository.OperatorRepository;
+import com.onnoto.onnoto_backend.repository.ProviderSyncStateRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
 import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import com.onnoto.onnoto_backend.service.ReferenceDataRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
 public class OpenChargeMapProvider extends BaseDataProvider {
 
-    private final NetworkRepository networkRepository;
-    private final OperatorRepository operatorRepository;
+    private final ReferenceDataRegistry referenceData;
     private final ObjectMapper objectMapper;
+    private final ProviderSyncStateRepository providerSyncStateRepository;
 
     @Value("${onnoto.provider.opencharge.base-url:https://api.openchargemap.io/v3/poi}")
     private String baseUrl;
@@ -40,24 +66,56 @@ public class OpenChargeMapProvider extends BaseDataProvider {
     @Value("${onnoto.provider.opencharge.max-results:200}")
     private int maxResults;
 
+    // A full sync must return every POI of the country, or reconciliation cannot run
+    @Value("${onnoto.provider.opencharge.full-sync-max-results:10000}")
+    private int fullSyncMaxResults;
+
     @Value("${onnoto.provider.opencharge.api-key:}")
     private String apiKey;
 
+    @Value("${onnoto.provider.opencharge.streaming:true}")
+    private boolean streaming;
+
+    @Value("${onnoto.provider.opencharge.incremental-interval-minutes:60}")
+    private long incrementalIntervalMinutes;
+
+    @Value("${onnoto.provider.opencharge.full-sync-interval-days:7}")
+    private long fullSyncIntervalDays;
+
     private static final int MAX_RETRY_ATTEMPTS = 3;
     private static final long RETRY_DELAY_MS = 2000; // 2 seconds
 
+    // Re-request a little before the last sync to tolerate clock skew with the API
+    private static final Duration WATERMARK_OVERLAP = Duration.ofMinutes(5);
+
+    private enum FetchOutcome { COMPLETE, PARTIAL, FAILED, CANCELLED }
+
+    /**
+     * Where the sync state moves to once the stations of a complete fetch have been written.
+     */
+    private record Watermark(LocalDateTime syncedAt, boolean full) {
+    }
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Watermark of the last emitted station sync, applied once its stations have been written
+    private final AtomicReference<Watermark> pendingWatermark = new AtomicReference<>();
+
     public OpenChargeMapProvider(
-            RestTemplate restTemplate,
+            @Qualifier("openChargeMapRestTemplate") RestTemplate restTemplate,
             StationRepository stationRepository,
             ConnectorRepository connectorRepository,
             StatusHistoryRepository statusHistoryRepository,
-            NetworkRepository networkRepository,
-            OperatorRepository operatorRepository,
-            ObjectMapper objectMapper) {
-        super(restTemplate, stationRepository, connectorRepository, statusHistoryRepository);
-        this.networkRepository = networkRepository;
-        this.operatorRepository = operatorRepository;
+            ReferenceDataRegistry referenceData,
+            ObjectMapper objectMapper,
+            ProviderSyncStateRepository providerSyncStateRepository,
+            StationUpsertService stationUpsertService,
+            StatusUpdateWriter statusUpdateWriter) {
+        super(restTemplate, stationRepository, connectorRepository, statusHistoryRepository,
+                stationUpsertService, statusUpdateWriter);
+        this.referenceData = referenceData;
         this.objectMapper = objectMapper;
+        this.providerSyncStateRepository = providerSyncStateRepository;
     }
 
     @Override
@@ -66,76 +124,289 @@ public class OpenChargeMapProvider extends BaseDataProvider {
     }
 
     @Override
-    public List<Station> fetchAllStations() {
-        try {
-            log.info("Fetching stations from OpenChargeMap API");
+    public String getHttpPool() {
+        return "opencharge";
+    }
 
-            // Build URL with API key
-            StringBuilder urlBuilder = new StringBuilder();
-            urlBuilder.append(String.format("%s?countrycode=%s&maxresults=%d&output=json&includecomments=false&verbose=false",
-                    baseUrl, countryCode, maxResults));
+    /**
+     * Daily sync. Runs a full fetch with reconciliation when one is due, otherwise only
+     * fetches POIs modified since the last successful sync.
+     */
+    @Override
+    protected void emitStations(Consumer<StationSnapshot> sink) {
+        ProviderSyncState state = loadSyncState();
+        boolean fullSyncDue = state.getLastSyncAt() == null
+                || state.getLastFullSyncAt() == null
+                || state.getLastFullSyncAt().isBefore(LocalDateTime.now().minusDays(fullSyncIntervalDays));
+        pendingWatermark.set(sync(fullSyncDue, sink));
+    }
 
-            // Add API key if available
-            if (apiKey != null && !apiKey.isEmpty()) {
-                urlBuilder.append("&key=").append(apiKey);
-            }
+    /**
+     * The stations are written asynchronously, so the watermark of a sync only advances here,
+     * once all of them have been written without failures.
+     */
+    @Override
+    public void onStationsWritten(SyncReport report) {
+        Watermark watermark = pendingWatermark.getAndSet(null);
+        if (watermark == null) {
+            return;
+        }
+        if (report.getFailed() > 0) {
+            log.warn("{} OpenChargeMap stations failed to write, keeping the sync watermark at its previous value",
+                    report.getFailed());
+            return;
+        }
+        advance(watermark);
+    }
 
-            String url = urlBuilder.toString();
+    /**
+     * Fetch POIs and emit them to the sink.
+     *
+     * @return the watermark to apply once the emitted stations have been written, or null if the
+     * fetch did not see every POI it asked for
+     */
+    private Watermark sync(boolean full, Consumer<StationSnapshot> sink) {
+        if (!syncLock.tryLock()) {
+            log.info("OpenChargeMap sync already in progress, skipping");
+            return null;
+        }
 
-            // Log the URL without the API key for security
-            log.debug("Requesting OpenChargeMap data from: {}", url.replaceAll("&key=[^&]*", "&key=REDACTED"));
+        try {
+            ProviderSyncState state = loadSyncState();
+            LocalDateTime startedAt = LocalDateTime.now();
+            LocalDateTime modifiedSince = full ? null : state.getLastSyncAt();
 
-            String response = fetchWithRetry(url);
-            if (response == null) {
-                log.warn("No response from OpenChargeMap API after retries");
-                return Collections.emptyList();
-            }
+            log.info("Fetching stations from OpenChargeMap API ({})",
+                    full ? "full sync" : "modified since " + modifiedSince);
 
-            JsonNode root = objectMapper.readTree(response);
-            List<Station> stations = new ArrayList<>();
+            int limit = full ? fullSyncMaxResults : maxResults;
+            String url = buildPoiUrl(modifiedSince, limit);
 
-            if (root.isArray()) {
-                for (JsonNode stationNode : root) {
-                    try {
-                        Station station = parseStation(stationNode);
-                        if (station != null) {
-                            // Save station first
-                            station = stationRepository.save(station);
+            // Log the URL without the API key for security
+            log.debug("Requesting OpenChargeMap data from: {}", url.replaceAll("&key=[^&]*", "&key=REDACTED"));
 
-                            // Create connectors for this station
-                            createConnectorsFromOCM(station, stationNode);
-                            stations.add(station);
+            Set<String> seenIds = new HashSet<>();
+            AtomicInteger emitted = new AtomicInteger();
+            Consumer<JsonNode> handler = stationNode -> {
+                if (stationNode.hasNonNull("ID")) {
+                    seenIds.add("ocm_" + stationNode.get("ID").asText());
+                }
+                if (processStationNode(stationNode, sink)) {
+                    emitted.incrementAndGet();
+                }
+            };
+
+            FetchOutcome outcome;
+            if (streaming) {
+                // Parse POIs straight off the response body, one at a time
+                outcome = fetchStreamingWithRetry(url, handler);
+            } else {
+                String response = fetchWithRetry(url);
+                if (response == null) {
+                    outcome = FetchOutcome.FAILED;
+                } else {
+                    JsonNode root = objectMapper.readTree(response);
+                    if (root.isArray()) {
+                        for (JsonNode stationNode : root) {
+                            handler.accept(stationNode);
                         }
-                    } catch (Exception e) {
-                        log.error("Error parsing station from OpenChargeMap: {}", e.getMessage());
                     }
+                    outcome = FetchOutcome.COMPLETE;
                 }
             }
 
-            log.info("Fetched {} stations from OpenChargeMap", stations.size());
-            return stations;
+            if (outcome == FetchOutcome.CANCELLED) {
+                throw new CancellationException("OpenChargeMap sync cancelled");
+            }
+            if (outcome == FetchOutcome.FAILED) {
+                log.warn("No response from OpenChargeMap API after retries");
+                return null;
+            }
+
+            boolean truncated = seenIds.size() >= limit;
+            if (truncated && full) {
+                // Not marked as a full sync, so the next run tries again
+                log.error("Full OpenChargeMap sync returned {} POIs, the full-sync-max-results limit - response is " +
+                        "truncated and removed stations cannot be reconciled; raise " +
+                        "onnoto.provider.opencharge.full-sync-max-results", seenIds.size());
+            } else if (truncated) {
+                log.warn("OpenChargeMap returned {} POIs, the max-results limit - response may be truncated",
+                        seenIds.size());
+            }
+
+            if (full && outcome == FetchOutcome.COMPLETE && !truncated) {
+                reconcileRemovedStations(seenIds);
+            }
+
+            state.setLastSyncCount(emitted.get());
+            state.setUpdatedAt(LocalDateTime.now());
+            providerSyncStateRepository.save(state);
+
+            log.info("Emitted {} stations from OpenChargeMap", emitted.get());
 
+            // Only advance the watermark when we know we have seen every modified POI
+            return outcome == FetchOutcome.COMPLETE && !truncated ? new Watermark(startedAt, full) : null;
+
+        } catch (CancellationException e) {
+            throw e;
         } catch (RestClientException e) {
             log.error("Error fetching stations from OpenChargeMap: {}", e.getMessage(), e);
-            return Collections.emptyList();
         } catch (Exception e) {
             log.error("Unexpected error processing OpenChargeMap data: {}", e.getMessage(), e);
-            return Collections.emptyList();
+        } finally {
+            syncLock.unlock();
+        }
+        return null;
+    }
+
+    private void advance(Watermark watermark) {
+        ProviderSyncState state = loadSyncState();
+        LocalDateTime lastSyncAt = watermark.syncedAt().minus(WATERMARK_OVERLAP);
+        // A later sync may already have moved it further
+        if (state.getLastSyncAt() == null || state.getLastSyncAt().isBefore(lastSyncAt)) {
+            state.setLastSyncAt(lastSyncAt);
+        }
+        if (watermark.full() && (state.getLastFullSyncAt() == null
+                || state.getLastFullSyncAt().isBefore(watermark.syncedAt()))) {
+            state.setLastFullSyncAt(watermark.syncedAt());
         }
+        state.setUpdatedAt(LocalDateTime.now());
+        providerSyncStateRepository.save(state);
     }
 
+    private String buildPoiUrl(LocalDateTime modifiedSince, int limit) {
+        // Build URL with API key
+        StringBuilder urlBuilder = new StringBuilder();
+        urlBuilder.append(String.format("%s?countrycode=%s&maxresults=%d&output=json&includecomments=false&verbose=false",
+                baseUrl, countryCode, limit));
+
+        // OpenChargeMap expects the modified-since timestamp in UTC
+        if (modifiedSince != null) {
+            String utc = modifiedSince.atZone(ZoneId.systemDefault())
+                    .withZoneSameInstant(ZoneOffset.UTC)
+                    .toLocalDateTime()
+                    .truncatedTo(ChronoUnit.SECONDS)
+                    .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            urlBuilder.append("&modifiedsince=").append(utc);
+        }
+
+        // Add API key if available
+        if (apiKey != null && !apiKey.isEmpty()) {
+            urlBuilder.append("&key=").append(apiKey);
+        }
+
+        return urlBuilder.toString();
+    }
+
+    /**
+     * POIs that disappeared from a complete full fetch have been removed from OpenChargeMap.
+     * Their rows are kept for history, reports and favorites; the connectors are taken offline.
+     * The stored fingerprints are cleared so that a station coming back is written as updated
+     * and {@link #reviveConnectors} brings its connectors back online.
+     */
+    private void reconcileRemovedStations(Set<String> seenIds) {
+        List<String> knownIds = stationRepository.findIdsByIdPrefix("ocm_");
+        List<String> removedIds = knownIds.stream()
+                .filter(id -> !seenIds.contains(id))
+                .toList();
+
+        if (removedIds.isEmpty()) {
+            return;
+        }
+
+        // Guard against a broken response wiping out the catalog
+        if (removedIds.size() > knownIds.size() / 2) {
+            log.warn("Full OpenChargeMap sync would retire {} of {} stations, skipping reconciliation",
+                    removedIds.size(), knownIds.size());
+            return;
+        }
+
+        for (String stationId : removedIds) {
+            stationRepository.findById(stationId).ifPresent(station -> {
+                for (Connector connector : connectorRepository.findByStation(station)) {
+                    recordStatusUpdate(connector, "OFFLINE", getProviderName());
+                }
+                station.setContentHash(null);
+                station.setConnectorHash(null);
+                updateStationTimestamp(station);
+            });
+        }
+
+        log.info("Retired {} stations no longer listed by OpenChargeMap", removedIds.size());
+    }
+
+    private boolean processStationNode(JsonNode stationNode, Consumer<StationSnapshot> sink) {
+        StationSnapshot snapshot;
+        try {
+            StationRecord record = parseStation(stationNode);
+            if (record == null) {
+                return false;
+            }
+            snapshot = new StationSnapshot(record, parseConnectors(stationNode), this::reviveConnectors);
+        } catch (Exception e) {
+            log.error("Error parsing station from OpenChargeMap: {}", e.getMessage());
+            return false;
+        }
+        sink.accept(snapshot);
+        return true;
+    }
+
+    /**
+     * OpenChargeMap reports no connector status, so an OFFLINE connector was taken offline by
+     * {@link #reconcileRemovedStations}. When its station is listed again it goes back to UNKNOWN.
+     */
+    private void reviveConnectors(Station station, boolean inserted) {
+        if (inserted) {
+            return;
+        }
+        for (Connector connector : connectorRepository.findByStation(station)) {
+            if ("OFFLINE".equals(connector.getStatus())) {
+                recordStatusUpdate(connector, "UNKNOWN", getProviderName());
+            }
+        }
+    }
+
+    /**
+     * OpenChargeMap doesn't provide real-time connector status. The frequent status cycle is
+     * used instead to pull the POIs modified since the last sync, at most once per
+     * incremental interval. The modified stations are written directly since they don't fit the
+     * status stream.
+     */
     @Override
-    public void fetchStatusUpdates() {
+    protected void emitStatusUpdates(Consumer<StatusRecord> sink) {
         try {
-            log.info("OpenChargeMap doesn't provide real-time status updates, skipping status update");
-            // OpenChargeMap is primarily a directory service and doesn't provide real-time status
-            // We could potentially fetch the latest data and check for status changes, but
-            // it's not really designed for real-time updates
+            ProviderSyncState state = loadSyncState();
+            if (state.getLastSyncAt() == null) {
+                log.debug("No OpenChargeMap sync has completed yet, waiting for the full sync");
+                return;
+            }
+            if (state.getLastSyncAt().isAfter(LocalDateTime.now().minusMinutes(incrementalIntervalMinutes))) {
+                log.debug("OpenChargeMap synced at {}, next incremental sync not due yet", state.getLastSyncAt());
+                return;
+            }
+            SyncReport report = new SyncReport(getProviderName());
+            Watermark watermark = sync(false, snapshot -> writeStation(snapshot, report));
+            // Written synchronously, so the outcome is already known
+            if (watermark != null && report.getFailed() == 0) {
+                advance(watermark);
+            }
+            log.info("{}", report);
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Error in OpenChargeMap status update: {}", e.getMessage(), e);
+            log.error("Error in OpenChargeMap incremental sync: {}", e.getMessage(), e);
         }
     }
 
+    private ProviderSyncState loadSyncState() {
+        return providerSyncStateRepository.findById(getProviderName())
+                .orElseGet(() -> {
+                    ProviderSyncState state = new ProviderSyncState();
+                    state.setProvider(getProviderName());
+                    return state;
+                });
+    }
+
     @Override
     public boolean isAvailable() {
         try {
@@ -203,7 +474,73 @@ public class OpenChargeMapProvider extends BaseDataProvider {
         return null;
     }
 
-    private Station parseStation(JsonNode stationNode) {
+    /**
+     * Stream the POI array from the response body and hand each POI to the consumer as soon as it
+     * has been read, so only one POI is held in memory at a time.
+     * A request is only retried if it failed before any POI was consumed; otherwise already
+     * processed POIs would be processed twice.
+     *
+     * @return whether the response was read to the end, partially, or not at all
+     */
+    private FetchOutcome fetchStreamingWithRetry(String url, Consumer<JsonNode> consumer) {
+        int attempts = 0;
+        AtomicInteger consumed = new AtomicInteger();
+
+        while (attempts < MAX_RETRY_ATTEMPTS) {
+            try {
+                restTemplate.execute(url, HttpMethod.GET,
+                        request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                        response -> {
+                            streamPois(response.getBody(), node -> {
+                                consumed.incrementAndGet();
+                                consumer.accept(node);
+                            });
+                            return null;
+                        });
+                log.debug("Streamed {} POIs from OpenChargeMap", consumed.get());
+                return FetchOutcome.COMPLETE;
+            } catch (CancellationException e) {
+                return FetchOutcome.CANCELLED;
+            } catch (Exception e) {
+                if (consumed.get() > 0) {
+                    log.error("OpenChargeMap stream failed after {} POIs, not retrying: {}",
+                            consumed.get(), e.getMessage());
+                    return FetchOutcome.PARTIAL;
+                }
+                log.warn("Error streaming from OpenChargeMap API, attempt {}/{}: {}",
+                        attempts + 1, MAX_RETRY_ATTEMPTS, e.getMessage());
+            }
+
+            attempts++;
+
+            if (attempts < MAX_RETRY_ATTEMPTS) {
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        log.error("Failed to stream data from OpenChargeMap API after {} attempts", MAX_RETRY_ATTEMPTS);
+        return FetchOutcome.FAILED;
+    }
+
+    private void streamPois(InputStream body, Consumer<JsonNode> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of POIs from OpenChargeMap");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                // Materialise only the current POI as a tree
+                JsonNode stationNode = objectMapper.readTree(parser);
+                consumer.accept(stationNode);
+            }
+        }
+    }
+
+    private StationRecord parseStation(JsonNode stationNode) {
         try {
             // Get basic station info
             JsonNode addressInfo = stationNode.get("AddressInfo");
@@ -214,15 +551,8 @@ public class OpenChargeMapProvider extends BaseDataProvider {
             String ocmId = stationNode.get("ID").asText();
             String title = addressInfo.get("Title").asText();
 
-            // Check if we already have this station (by OCM ID)
             String stationId = "ocm_" + ocmId;
 
-            Station existingStation = stationRepository.findById(stationId).orElse(null);
-            if (existingStation != null) {
-                log.debug("Station {} already exists, skipping", stationId);
-                return existingStation;
-            }
-
             // Get coordinates
             BigDecimal latitude = new BigDecimal(addressInfo.get("Latitude").asText());
             BigDecimal longitude = new BigDecimal(addressInfo.get("Longitude").asText());
@@ -233,36 +563,17 @@ public class OpenChargeMapProvider extends BaseDataProvider {
             // Get or create operator
             Operator operator = getOrCreateOperator(stationNode);
 
-            // Create station
-            Station station = new Station();
-            station.setId(stationId);
-            station.setName(title);
-            station.setNetwork(network);
-            station.setOperator(operator);
-            station.setLatitude(latitude);
-            station.setLongitude(longitude);
-
-            // Set address info
-            if (addressInfo.has("AddressLine1") && !addressInfo.get("AddressLine1").isNull()) {
-                station.setAddress(addressInfo.get("AddressLine1").asText());
-            }
-            if (addressInfo.has("Town") && !addressInfo.get("Town").isNull()) {
-                station.setCity(addressInfo.get("Town").asText());
-            }
-            if (addressInfo.has("Postcode") && !addressInfo.get("Postcode").isNull()) {
-                station.setPostalCode(addressInfo.get("Postcode").asText());
-            }
+            // Get address info
+            String address = textOrNull(addressInfo, "AddressLine1");
+            String city = textOrNull(addressInfo, "Town");
+            String postalCode = textOrNull(addressInfo, "Postcode");
+            String country = null;
             if (addressInfo.has("Country") && !addressInfo.get("Country").isNull()) {
-                JsonNode country = addressInfo.get("Country");
-                if (country.has("ISOCode")) {
-                    station.setCountry(country.get("ISOCode").asText());
-                }
+                country = textOrNull(addressInfo.get("Country"), "ISOCode");
             }
 
-            station.setCreatedAt(LocalDateTime.now());
-            station.setUpdatedAt(LocalDateTime.now());
-
-            return station;
+            return new StationRecord(stationId, title, network, operator,
+                    latitude, longitude, address, city, postalCode, country);
 
         } catch (Exception e) {
             log.error("Error parsing station from OpenChargeMap data: {}", e.getMessage());
@@ -286,15 +597,14 @@ public class OpenChargeMapProvider extends BaseDataProvider {
         final String finalNetworkId = networkId;
         final String finalNetworkName = networkName;
 
-        return networkRepository.findById(finalNetworkId)
-                .orElseGet(() -> {
-                    Network network = new Network();
-                    network.setId(finalNetworkId);
-                    network.setName(finalNetworkName);
-                    network.setCreatedAt(LocalDateTime.now());
-                    network.setUpdatedAt(LocalDateTime.now());
-                    return networkRepository.save(network);
-                });
+        return referenceData.getOrCreateNetwork(finalNetworkId, () -> {
+            Network network = new Network();
+            network.setId(finalNetworkId);
+            network.setName(finalNetworkName);
+            network.setCreatedAt(LocalDateTime.now());
+            network.setUpdatedAt(LocalDateTime.now());
+            return network;
+        });
     }
 
     private Operator getOrCreateOperator(JsonNode stationNode) {
@@ -313,66 +623,55 @@ public class OpenChargeMapProvider extends BaseDataProvider {
         final String finalOperatorId = operatorId;
         final String finalOperatorName = operatorName;
 
-        return operatorRepository.findById(finalOperatorId)
-                .orElseGet(() -> {
-                    Operator operator = new Operator();
-                    operator.setId(finalOperatorId);
-                    operator.setName(finalOperatorName);
-                    operator.setCreatedAt(LocalDateTime.now());
-                    operator.setUpdatedAt(LocalDateTime.now());
-                    return operatorRepository.save(operator);
-                });
+        return referenceData.getOrCreateOperator(finalOperatorId, () -> {
+            Operator operator = new Operator();
+            operator.setId(finalOperatorId);
+            operator.setName(finalOperatorName);
+            operator.setCreatedAt(LocalDateTime.now());
+            operator.setUpdatedAt(LocalDateTime.now());
+            return operator;
+        });
     }
 
-    private void createConnectorsFromOCM(Station station, JsonNode stationNode) {
-        if (!stationNode.has("Connections") || stationNode.get("Connections").isNull()) {
-            return;
-        }
-
+    private List<ConnectorRecord> parseConnectors(JsonNode stationNode) {
+        List<ConnectorRecord> connectors = new ArrayList<>();
         JsonNode connections = stationNode.get("Connections");
-        if (!connections.isArray()) {
-            return;
+        if (connections == null || !connections.isArray()) {
+            return connectors;
         }
 
         for (JsonNode connectionNode : connections) {
             try {
-                Connector connector = new Connector();
-                connector.setStation(station);
-
                 // Get connector type
+                String connectorType = null;
                 if (connectionNode.has("ConnectionType") && !connectionNode.get("ConnectionType").isNull()) {
-                    JsonNode connType = connectionNode.get("ConnectionType");
-                    if (connType.has("Title")) {
-                        connector.setConnectorType(connType.get("Title").asText());
-                    }
-                } else {
-                    connector.setConnectorType("Unknown");
+                    connectorType = textOrNull(connectionNode.get("ConnectionType"), "Title");
                 }
 
                 // Get power rating
+                BigDecimal powerKw = null;
                 if (connectionNode.has("PowerKW") && !connectionNode.get("PowerKW").isNull()) {
-                    connector.setPowerKw(new BigDecimal(connectionNode.get("PowerKW").asText()));
+                    powerKw = new BigDecimal(connectionNode.get("PowerKW").asText());
                 }
 
                 // Get current type
+                String currentType = null;
                 if (connectionNode.has("CurrentType") && !connectionNode.get("CurrentType").isNull()) {
-                    JsonNode currentType = connectionNode.get("CurrentType");
-                    if (currentType.has("Title")) {
-                        connector.setCurrentType(currentType.get("Title").asText());
-                    }
+                    currentType = textOrNull(connectionNode.get("CurrentType"), "Title");
                 }
 
                 // OpenChargeMap doesn't provide real-time status, so we set a default
-                connector.setStatus("UNKNOWN");
-                connector.setLastStatusUpdate(LocalDateTime.now());
-                connector.setCreatedAt(LocalDateTime.now());
-                connector.setUpdatedAt(LocalDateTime.now());
-
-                connectorRepository.save(connector);
+                connectors.add(new ConnectorRecord(connectorType, powerKw, currentType, "UNKNOWN"));
 
             } catch (Exception e) {
-                log.error("Error creating connector from OpenChargeMap data: {}", e.getMessage());
+                log.error("Error parsing connector from OpenChargeMap data: {}", e.getMessage());
             }
         }
+        return connectors;
+    }
+
+    private String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.onnoto.onnoto_backend.ingestion.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+
+/**
+ * Cold publisher around a blocking producer.
+ *
+ * Every subscription runs the producer on its own virtual thread, so a provider waiting on a
+ * slow API holds no platform thread. Items go through a bounded {@link SubmissionPublisher}
+ * buffer: when the subscriber falls behind, the producer blocks in submit instead of buffering
+ * the whole response in memory.
+ */
+@Slf4j
+class RecordPublisher<T> implements Flow.Publisher<T> {
+
+    @FunctionalInterface
+    interface Producer<T> {
+        void produce(Consumer<T> sink) throws Exception;
+    }
+
+    private final String name;
+    private final Producer<T> producer;
+    private final Executor executor;
+    private final int bufferSize;
+
+    RecordPublisher(String name, Producer<T> producer, Executor executor, int bufferSize) {
+        this.name = name;
+        this.producer = producer;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        SubmissionPublisher<T> publisher = new SubmissionPublisher<>(executor, bufferSize);
+        publisher.subscribe(subscriber);
+
+        Thread.ofVirtual().name("ingest-" + name).start(() -> {
+            try {
+                producer.produce(item -> {
+                    // Stop fetching as soon as the subscriber has cancelled
+                    if (publisher.getNumberOfSubscribers() == 0) {
+                        throw new CancellationException("Subscriber cancelled");
+                    }
+                    publisher.submit(item);
+                });
+                publisher.close();
+            } catch (CancellationException e) {
+                log.info("Stream {} cancelled by subscriber", name);
+                publisher.close();
+            } catch (Exception e) {
+                log.error("Stream {} failed: {}", name, e.getMessage());
+                publisher.closeExceptionally(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package com.onnoto.onnoto_backend.ingestion.provider;
+
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.service.SyncReport;
+import com.onnoto.onnoto_backend.model.Station;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * Streaming variant of {@link DataProvider}.
+ *
+ * Instead of writing everything itself and returning a materialised list, the provider emits
+ * records to a subscriber that controls the pace with {@link Flow.Subscription#request(long)}.
+ * Each subscription starts a new fetch. The publishers are cold: nothing is fetched until
+ * someone subscribes.
+ */
+public interface StreamingDataProvider extends DataProvider {
+
+    /**
+     * Stream the provider's stations. Nothing is written until the subscriber writes it.
+     *
+     * @param executor where records are delivered to the subscriber
+     */
+    Flow.Publisher<StationSnapshot> publishStations(Executor executor);
+
+    /**
+     * Called once every station of a {@link #publishStations} sync has been written, with the
+     * report of what was written. Providers that keep a sync watermark advance it here rather
+     * than when emitting ends.
+     */
+    default void onStationsWritten(SyncReport report) {
+    }
+
+    /**
+     * Stream connector status observations.
+     *
+     * @param executor where records are delivered to the subscriber
+     */
+    Flow.Publisher<StatusRecord> publishStatusUpdates(Executor executor);
+
+    /**
+     * Stream connector status observations for the given stations only.
+     *
+     * @param executor where records are delivered to the subscriber
+     */
+    Flow.Publisher<StatusRecord> publishStatusUpdates(Collection<Station> stations, Executor executor);
+
+    /**
+     * Whether the provider can fetch the status of individual stations, so they can be polled
+     * on their own schedule instead of all together.
+     */
+    default boolean supportsStationPolling() {
+        return false;
+    }
+
+    /**
+     * The stations whose status this provider reports, for scheduling station polls.
+     */
+    default List<Station> findPollableStations() {
+        return List.of();
+    }
+}
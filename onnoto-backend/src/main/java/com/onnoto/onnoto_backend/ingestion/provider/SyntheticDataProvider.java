@@ -0,0 +1,364 @@
+package com.onnoto.onnoto_backend.ingestion.provider;
+
+import com.onnoto.onnoto_backend.ingestion.record.ConnectorRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StatusUpdateWriter;
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Network;
+import com.onnoto.onnoto_backend.model.Operator;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import com.onnoto.onnoto_backend.service.ReferenceDataRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Generated network for load tests: any number of stations in a bounding box, with connector
+ * statuses that follow a daily occupancy curve. Only registered with
+ * onnoto.ingestion.synthetic.enabled=true.
+ *
+ * The seed fixes the stations - their positions, connectors and popularity - and, together with
+ * the status cycle number, every status event, so two runs with the same seed and the same cycle
+ * times produce the same data. Most stations sit in a few seeded clusters (towns), the rest are
+ * spread over the box; clustered stations are busier.
+ *
+ * On each status cycle a connector gets a new status with probability 1 - e^(-rate * t), where
+ * rate is events-per-connector-hour scaled by the station's popularity and t is the time since
+ * the previous cycle. The new status is occupied with the probability of the occupancy curve at
+ * that time of day (peaks at the morning and evening commute, lower at weekends), offline with
+ * offline-probability and available otherwise. Only connectors with an event are reported; a
+ * station poll reports the current status of every connector of the polled stations.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "onnoto.ingestion.synthetic.enabled", havingValue = "true")
+public class SyntheticDataProvider extends BaseDataProvider {
+
+    static final String NETWORK_ID = "synthetic";
+    private static final String ID_PREFIX = "synthetic_";
+    private static final int MAX_STATIONS = 100_000;
+
+    // Station types: connector set and share of stations
+    private static final List<List<ConnectorRecord>> CONNECTOR_SETS = List.of(
+            List.of(new ConnectorRecord("Type 2", new BigDecimal("22.0"), "AC", "AVAILABLE"),
+                    new ConnectorRecord("Type 2", new BigDecimal("22.0"), "AC", "AVAILABLE")),
+            List.of(new ConnectorRecord("CCS", new BigDecimal("50.0"), "DC", "AVAILABLE"),
+                    new ConnectorRecord("CHAdeMO", new BigDecimal("50.0"), "DC", "AVAILABLE"),
+                    new ConnectorRecord("Type 2", new BigDecimal("22.0"), "AC", "AVAILABLE")),
+            List.of(new ConnectorRecord("CCS", new BigDecimal("150.0"), "DC", "AVAILABLE"),
+                    new ConnectorRecord("CCS", new BigDecimal("150.0"), "DC", "AVAILABLE"),
+                    new ConnectorRecord("CCS", new BigDecimal("150.0"), "DC", "AVAILABLE"),
+                    new ConnectorRecord("CCS", new BigDecimal("150.0"), "DC", "AVAILABLE")),
+            List.of(new ConnectorRecord("Type 2", new BigDecimal("11.0"), "AC", "AVAILABLE")));
+    private static final double[] CONNECTOR_SET_SHARES = {0.45, 0.25, 0.1, 0.2};
+
+    private final ReferenceDataRegistry referenceData;
+
+    @Value("${onnoto.ingestion.synthetic.stations:1000}")
+    private int stationCount;
+
+    @Value("${onnoto.ingestion.synthetic.seed:42}")
+    private long seed;
+
+    @Value("${onnoto.ingestion.synthetic.min-latitude:57.5}")
+    private double minLatitude;
+
+    @Value("${onnoto.ingestion.synthetic.max-latitude:59.7}")
+    private double maxLatitude;
+
+    @Value("${onnoto.ingestion.synthetic.min-longitude:21.8}")
+    private double minLongitude;
+
+    @Value("${onnoto.ingestion.synthetic.max-longitude:28.2}")
+    private double maxLongitude;
+
+    @Value("${onnoto.ingestion.synthetic.clusters:12}")
+    private int clusters;
+
+    // Share of stations in clusters; the rest is spread uniformly
+    @Value("${onnoto.ingestion.synthetic.clustered-share:0.7}")
+    private double clusteredShare;
+
+    @Value("${onnoto.ingestion.synthetic.events-per-connector-hour:2}")
+    private double eventsPerConnectorHour;
+
+    @Value("${onnoto.ingestion.synthetic.offline-probability:0.02}")
+    private double offlineProbability;
+
+    @Value("${onnoto.ingestion.synthetic.zone:Europe/Tallinn}")
+    private String zone;
+
+    private Clock clock = Clock.systemUTC();
+    private long cycle;
+    private Instant lastCycleAt;
+    private volatile Map<String, Double> popularity;
+
+    public SyntheticDataProvider(
+            StationRepository stationRepository,
+            ConnectorRepository connectorRepository,
+            StatusHistoryRepository statusHistoryRepository,
+            ReferenceDataRegistry referenceData,
+            StationUpsertService stationUpsertService,
+            StatusUpdateWriter statusUpdateWriter) {
+        // Everything is generated, no HTTP client needed
+        super(null, stationRepository, connectorRepository, statusHistoryRepository,
+                stationUpsertService, statusUpdateWriter);
+        this.referenceData = referenceData;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public String getProviderName() {
+        return "Synthetic";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * A generated station and how busy it is compared to an average one.
+     */
+    record GeneratedStation(StationSnapshot snapshot, double popularity) {
+    }
+
+    @Override
+    protected void emitStations(Consumer<StationSnapshot> sink) {
+        Network network = ensureNetwork();
+        Operator operator = ensureOperator();
+        List<GeneratedStation> stations = generate(network, operator);
+        popularity = popularityOf(stations);
+        stations.forEach(station -> sink.accept(station.snapshot()));
+        log.info("Emitted {} synthetic stations (seed {})", stations.size(), seed);
+    }
+
+    /**
+     * The stations for the configured seed. Same seed, same stations.
+     */
+    List<GeneratedStation> generate(Network network, Operator operator) {
+        int count = Math.min(stationCount, MAX_STATIONS);
+        Random random = new Random(seed);
+
+        double[][] centres = new double[Math.max(clusters, 1)][];
+        for (int i = 0; i < centres.length; i++) {
+            centres[i] = new double[]{
+                    minLatitude + random.nextDouble() * (maxLatitude - minLatitude),
+                    minLongitude + random.nextDouble() * (maxLongitude - minLongitude)};
+        }
+
+        List<GeneratedStation> stations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = String.format("%s%06d", ID_PREFIX, i);
+            boolean clustered = clusters > 0 && random.nextDouble() < clusteredShare;
+            double latitude;
+            double longitude;
+            if (clustered) {
+                // Town-sized spread: about 3 km north-south, a bit more east-west at these latitudes
+                double[] centre = centres[random.nextInt(centres.length)];
+                latitude = clamp(centre[0] + random.nextGaussian() * 0.03, minLatitude, maxLatitude);
+                longitude = clamp(centre[1] + random.nextGaussian() * 0.05, minLongitude, maxLongitude);
+            } else {
+                latitude = minLatitude + random.nextDouble() * (maxLatitude - minLatitude);
+                longitude = minLongitude + random.nextDouble() * (maxLongitude - minLongitude);
+            }
+
+            List<ConnectorRecord> connectors = CONNECTOR_SETS.get(pick(random.nextDouble()));
+            double busy = clustered ? 1.0 + random.nextDouble() * 0.8 : 0.3 + random.nextDouble() * 0.5;
+
+            StationRecord record = new StationRecord(id, "Synthetic " + (clustered ? "Town" : "Road") + " " + i,
+                    network, operator, BigDecimal.valueOf(latitude), BigDecimal.valueOf(longitude),
+                    "Synthetic tee " + (i + 1), clustered ? "Synthetic Town" : null, null, "EE");
+            stations.add(new GeneratedStation(StationSnapshot.of(record, connectors), busy));
+        }
+        return stations;
+    }
+
+    private static Map<String, Double> popularityOf(List<GeneratedStation> stations) {
+        return stations.stream().collect(Collectors.toUnmodifiableMap(
+                station -> station.snapshot().station().id(), GeneratedStation::popularity));
+    }
+
+    /**
+     * How busy a station is. Regenerated from the seed after a restart, so status cycles don't
+     * need a station sync first.
+     */
+    private double popularity(String stationId) {
+        Map<String, Double> current = popularity;
+        if (current == null) {
+            current = popularityOf(generate(null, null));
+            popularity = current;
+        }
+        return current.getOrDefault(stationId, 1.0);
+    }
+
+    private static int pick(double value) {
+        double cumulative = 0;
+        for (int i = 0; i < CONNECTOR_SET_SHARES.length; i++) {
+            cumulative += CONNECTOR_SET_SHARES[i];
+            if (value < cumulative) {
+                return i;
+            }
+        }
+        return CONNECTOR_SET_SHARES.length - 1;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Share of connectors in use at a time of day: a morning and a larger evening commute peak
+     * on weekdays, one flatter midday peak at weekends.
+     */
+    static double occupancy(ZonedDateTime time) {
+        double hour = time.getHour() + time.getMinute() / 60.0;
+        boolean weekend = time.getDayOfWeek() == DayOfWeek.SATURDAY || time.getDayOfWeek() == DayOfWeek.SUNDAY;
+        double occupancy = weekend
+                ? 0.08 + 0.35 * peak(hour, 14, 3.5)
+                : 0.08 + 0.3 * peak(hour, 8.5, 1.5) + 0.45 * peak(hour, 18, 2.0) + 0.15 * peak(hour, 13, 2.5);
+        return Math.min(occupancy, 0.95);
+    }
+
+    private static double peak(double hour, double centre, double width) {
+        double distance = hour - centre;
+        return Math.exp(-distance * distance / (2 * width * width));
+    }
+
+    @Override
+    protected void emitStatusUpdates(Consumer<StatusRecord> sink) {
+        Network network = referenceData.findNetwork(NETWORK_ID).orElse(null);
+        if (network == null) {
+            log.warn("Network '{}' not found in database.", NETWORK_ID);
+            return;
+        }
+
+        Instant now = clock.instant();
+        long currentCycle;
+        Duration elapsed;
+        synchronized (this) {
+            currentCycle = cycle++;
+            // The first cycle covers one regular status interval
+            elapsed = lastCycleAt != null ? Duration.between(lastCycleAt, now) : Duration.ofMinutes(5);
+            lastCycleAt = now;
+        }
+        double occupancy = occupancy(now.atZone(ZoneId.of(zone)));
+        double hours = Math.max(elapsed.toMillis(), 0) / 3_600_000.0;
+
+        int connectors = 0;
+        int events = 0;
+        int position = 0;
+        String stationId = null;
+        for (Connector connector : connectorRepository.findByNetworkWithStation(network)) {
+            Station station = connector.getStation();
+            // Connectors are ordered by station and id, so the position within the station is stable
+            position = station.getId().equals(stationId) ? position + 1 : 0;
+            stationId = station.getId();
+            connectors++;
+
+            SplittableRandom random = random(currentCycle, stationId, position);
+            double busy = popularity(stationId);
+            if (random.nextDouble() >= 1 - Math.exp(-eventsPerConnectorHour * busy * hours)) {
+                continue;
+            }
+            String status = nextStatus(random, Math.min(occupancy * busy, 0.98));
+            sink.accept(new StatusRecord(station, connector, status, getProviderName()));
+            events++;
+        }
+        log.info("Synthetic status cycle {}: {} events on {} connectors (occupancy {})",
+                currentCycle, events, connectors, String.format("%.2f", occupancy));
+    }
+
+    @Override
+    public boolean supportsStationPolling() {
+        return true;
+    }
+
+    @Override
+    public List<Station> findPollableStations() {
+        return referenceData.findNetwork(NETWORK_ID)
+                .map(stationRepository::findByNetwork)
+                .orElse(List.of());
+    }
+
+    @Override
+    protected void emitStatusUpdates(Collection<Station> stations, Consumer<StatusRecord> sink) {
+        Instant now = clock.instant();
+        double occupancy = occupancy(now.atZone(ZoneId.of(zone)));
+        long minute = now.getEpochSecond() / 60;
+        for (Station station : stations) {
+            List<Connector> connectors = connectorRepository.findByStation(station);
+            for (int position = 0; position < connectors.size(); position++) {
+                SplittableRandom random = random(minute, station.getId(), position);
+                String status = nextStatus(random, Math.min(occupancy * popularity(station.getId()), 0.98));
+                sink.accept(new StatusRecord(station, connectors.get(position), status, getProviderName()));
+            }
+        }
+    }
+
+    private SplittableRandom random(long cycle, String stationId, int position) {
+        // Independent of iteration order: every connector and cycle has its own stream
+        long mixed = seed;
+        mixed = mixed * 31 + cycle;
+        mixed = mixed * 31 + stationId.hashCode();
+        mixed = mixed * 31 + position;
+        return new SplittableRandom(mixed);
+    }
+
+    private String nextStatus(SplittableRandom random, double occupied) {
+        double draw = random.nextDouble();
+        if (draw < offlineProbability) {
+            return "OFFLINE";
+        }
+        return draw < offlineProbability + (1 - offlineProbability) * occupied ? "OCCUPIED" : "AVAILABLE";
+    }
+
+    private Network ensureNetwork() {
+        return referenceData.getOrCreateNetwork(NETWORK_ID, () -> {
+            Network network = new Network();
+            network.setId(NETWORK_ID);
+            network.setName("Synthetic");
+            network.setCreatedAt(LocalDateTime.now());
+            network.setUpdatedAt(LocalDateTime.now());
+            return network;
+        });
+    }
+
+    private Operator ensureOperator() {
+        return referenceData.getOrCreateOperator(NETWORK_ID, () -> {
+            Operator operator = new Operator();
+            operator.setId(NETWORK_ID);
+            operator.setName("Synthetic");
+            operator.setCreatedAt(LocalDateTime.now());
+            operator.setUpdatedAt(LocalDateTime.now());
+            return operator;
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.onnoto.onnoto_backend.ingestion.record;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Normalized connector data as reported by a provider.
+ * The status is only the initial status for a new connector; live status changes go through
+ * the status updates and are not part of the fingerprint.
+ */
+public record ConnectorRecord(String connectorType, BigDecimal powerKw, String currentType, String status) {
+
+    private static final int POWER_SCALE = 2;
+
+    public ConnectorRecord {
+        connectorType = connectorType == null || connectorType.isBlank() ? "Unknown" : connectorType.trim();
+        powerKw = Fingerprint.decimal(powerKw, POWER_SCALE);
+        currentType = Fingerprint.text(currentType);
+        status = status == null ? "UNKNOWN" : status;
+    }
+
+    /**
+     * Identity used to match a reported connector against a stored one.
+     */
+    public String key() {
+        return connectorType + "|" + Fingerprint.plain(powerKw) + "|" + currentType;
+    }
+
+    /**
+     * Fingerprint of a station's connector set, stored in stations.connector_hash.
+     * Independent of the order in which the provider lists the connectors.
+     */
+    public static String fingerprint(List<ConnectorRecord> connectors) {
+        Fingerprint fingerprint = Fingerprint.start();
+        connectors.stream()
+                .map(ConnectorRecord::key)
+                .sorted(Comparator.naturalOrder())
+                .forEach(fingerprint::add);
+        return fingerprint.finish();
+    }
+}
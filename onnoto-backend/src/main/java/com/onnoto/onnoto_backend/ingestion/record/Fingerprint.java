@@ -0,0 +1,71 @@
+package com.onnoto.onnoto_backend.ingestion.record;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Builds SHA-256 fingerprints over normalized field values.
+ */
+final class Fingerprint {
+
+    private static final byte FIELD_SEPARATOR = 0x1f;
+    private static final byte NULL_MARKER = 0x00;
+
+    private final MessageDigest digest;
+
+    private Fingerprint() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static Fingerprint start() {
+        return new Fingerprint();
+    }
+
+    Fingerprint add(String value) {
+        if (value == null) {
+            digest.update(NULL_MARKER);
+        } else {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(FIELD_SEPARATOR);
+        return this;
+    }
+
+    String finish() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Trim and collapse blanks to null so cosmetic payload differences don't count as changes.
+     */
+    static String text(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * Round to the given scale and drop trailing zeros, so "50", "50.0" and "50.00" are the same value.
+     */
+    static BigDecimal decimal(BigDecimal value, int scale) {
+        if (value == null) {
+            return null;
+        }
+        BigDecimal scaled = value.setScale(scale, RoundingMode.HALF_UP).stripTrailingZeros();
+        return scaled.signum() == 0 ? BigDecimal.ZERO : scaled;
+    }
+
+    static String plain(BigDecimal value) {
+        return value == null ? null : value.toPlainString();
+    }
+}
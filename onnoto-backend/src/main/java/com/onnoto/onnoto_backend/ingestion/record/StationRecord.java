@@ -0,0 +1,54 @@
+package com.onnoto.onnoto_backend.ingestion.record;
+
+import com.onnoto.onnoto_backend.model.Network;
+import com.onnoto.onnoto_backend.model.Operator;
+
+import java.math.BigDecimal;
+
+/**
+ * Normalized station data as reported by a provider, before it is written to the stations table.
+ * Coordinates use the column scale (7 decimals) so the fingerprint doesn't change when a
+ * provider reports the same position with a different precision.
+ */
+public record StationRecord(
+        String id,
+        String name,
+        Network network,
+        Operator operator,
+        BigDecimal latitude,
+        BigDecimal longitude,
+        String address,
+        String city,
+        String postalCode,
+        String country) {
+
+    private static final int COORDINATE_SCALE = 7;
+
+    public StationRecord {
+        name = Fingerprint.text(name);
+        latitude = Fingerprint.decimal(latitude, COORDINATE_SCALE);
+        longitude = Fingerprint.decimal(longitude, COORDINATE_SCALE);
+        address = Fingerprint.text(address);
+        city = Fingerprint.text(city);
+        postalCode = Fingerprint.text(postalCode);
+        country = country == null ? "EE" : Fingerprint.text(country);
+    }
+
+    /**
+     * Content fingerprint stored in stations.content_hash.
+     */
+    public String fingerprint() {
+        return Fingerprint.start()
+                .add(id)
+                .add(name)
+                .add(network != null ? network.getId() : null)
+                .add(operator != null ? operator.getId() : null)
+                .add(Fingerprint.plain(latitude))
+                .add(Fingerprint.plain(longitude))
+                .add(address)
+                .add(city)
+                .add(postalCode)
+                .add(country)
+                .finish();
+    }
+}
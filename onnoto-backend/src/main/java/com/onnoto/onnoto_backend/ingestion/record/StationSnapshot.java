@@ -0,0 +1,26 @@
+package com.onnoto.onnoto_backend.ingestion.record;
+
+import com.onnoto.onnoto_backend.model.Station;
+
+import java.util.List;
+
+/**
+ * One station as emitted by a provider: the station row, its connectors and an optional hook
+ * the provider wants to run once the station has actually been written.
+ *
+ * @param connectors null when the provider manages the connectors itself
+ */
+public record StationSnapshot(StationRecord station, List<ConnectorRecord> connectors, AfterWrite afterWrite) {
+
+    /**
+     * Called after an insert or update, never for an unchanged station.
+     */
+    @FunctionalInterface
+    public interface AfterWrite {
+        void accept(Station station, boolean inserted);
+    }
+
+    public static StationSnapshot of(StationRecord station, List<ConnectorRecord> connectors) {
+        return new StationSnapshot(station, connectors, null);
+    }
+}
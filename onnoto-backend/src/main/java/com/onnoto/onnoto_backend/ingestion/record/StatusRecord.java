@@ -0,0 +1,10 @@
+package com.onnoto.onnoto_backend.ingestion.record;
+
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Station;
+
+/**
+ * A connector status observed by a provider.
+ */
+public record StatusRecord(Station station, Connector connector, String status, String source) {
+}
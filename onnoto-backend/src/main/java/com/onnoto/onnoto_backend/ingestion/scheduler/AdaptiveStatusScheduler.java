@@ -0,0 +1,289 @@
+package com.onnoto.onnoto_backend.ingestion.scheduler;
+
+import com.onnoto.onnoto_backend.ingestion.http.ProviderCircuitBreakers;
+import com.onnoto.onnoto_backend.ingestion.provider.DataProvider;
+import com.onnoto.onnoto_backend.ingestion.provider.StreamingDataProvider;
+import com.onnoto.onnoto_backend.ingestion.service.DataIngestionService;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.FavoriteStationRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls station status on a per-station schedule for providers that support station polling.
+ *
+ * Each station's interval starts from its change rate in status_history over the last few
+ * days (see {@link PollingPolicy}) and is adjusted after every poll, so busy chargers are checked
+ * every few minutes and chargers that have not changed in weeks about once an hour. Every tick,
+ * each provider polls its most overdue stations, at most its call budget for the tick.
+ * Providers without station polling keep the fixed status cycle in {@link IngestionScheduler}.
+ * In a cluster, the node holding the polling lease polls for all nodes; with sharded ingestion
+ * each node polls the stations of its own shards.
+ */
+@Slf4j
+@Component
+public class AdaptiveStatusScheduler {
+
+    static final String POLLING_JOB = "ingestion.status-polling";
+
+    /**
+     * Polling schedule of one station.
+     */
+    static final class PollState {
+        final String stationId;
+        final String provider;
+        Duration interval;
+        Instant nextPollAt;
+        boolean favorite;
+
+        PollState(String stationId, String provider, Duration interval, Instant nextPollAt, boolean favorite) {
+            this.stationId = stationId;
+            this.provider = provider;
+            this.interval = interval;
+            this.nextPollAt = nextPollAt;
+            this.favorite = favorite;
+        }
+    }
+
+    private final List<DataProvider> dataProviders;
+    private final DataIngestionService dataIngestionService;
+    private final StationRepository stationRepository;
+    private final StatusHistoryRepository statusHistoryRepository;
+    private final FavoriteStationRepository favoriteStationRepository;
+    private final Environment environment;
+    private final JobLeaseService jobLeaseService;
+    private final ShardMembership shardMembership;
+    private final ProviderCircuitBreakers circuitBreakers;
+
+    @Value("${onnoto.ingestion.polling.adaptive:true}")
+    private boolean enabled;
+
+    @Value("${onnoto.ingestion.polling.tick-ms:30000}")
+    private long tickMs;
+
+    @Value("${onnoto.ingestion.polling.min-interval:2m}")
+    private Duration minInterval;
+
+    @Value("${onnoto.ingestion.polling.max-interval:60m}")
+    private Duration maxInterval;
+
+    // Polls per expected status change
+    @Value("${onnoto.ingestion.polling.polls-per-change:2}")
+    private double pollsPerChange;
+
+    @Value("${onnoto.ingestion.polling.favorite-factor:2}")
+    private double favoriteFactor;
+
+    @Value("${onnoto.ingestion.polling.history-days:7}")
+    private int historyDays;
+
+    // Station status calls per minute when a provider has no budget of its own
+    @Value("${onnoto.ingestion.polling.default-calls-per-minute:60}")
+    private int defaultCallsPerMinute;
+
+    private final Map<String, PollState> states = new ConcurrentHashMap<>();
+    private volatile boolean leading;
+    private volatile int shardVersion = -1;
+
+    public AdaptiveStatusScheduler(List<DataProvider> dataProviders,
+                                   DataIngestionService dataIngestionService,
+                                   StationRepository stationRepository,
+                                   StatusHistoryRepository statusHistoryRepository,
+                                   FavoriteStationRepository favoriteStationRepository,
+                                   Environment environment,
+                                   JobLeaseService jobLeaseService,
+                                   ShardMembership shardMembership,
+                                   ProviderCircuitBreakers circuitBreakers) {
+        this.dataProviders = dataProviders;
+        this.dataIngestionService = dataIngestionService;
+        this.stationRepository = stationRepository;
+        this.statusHistoryRepository = statusHistoryRepository;
+        this.favoriteStationRepository = favoriteStationRepository;
+        this.environment = environment;
+        this.jobLeaseService = jobLeaseService;
+        this.shardMembership = shardMembership;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    PollingPolicy policy() {
+        return new PollingPolicy(minInterval, maxInterval, pollsPerChange, favoriteFactor);
+    }
+
+    /**
+     * Recompute every station's baseline interval from its recent change rate - hourly.
+     */
+    @Scheduled(initialDelayString = "${onnoto.ingestion.polling.refresh-initial-delay-ms:60000}",
+            fixedDelayString = "${onnoto.ingestion.polling.refresh-ms:3600000}")
+    public void refreshSchedules() {
+        if (!enabled || !leading()) {
+            return;
+        }
+        PollingPolicy policy = policy();
+        Instant now = Instant.now();
+        shardVersion = shardMembership.assignmentVersion();
+
+        Map<String, Long> changes = new HashMap<>();
+        statusHistoryRepository.countChangesByStationSince(LocalDateTime.now().minusDays(historyDays))
+                .forEach(count -> changes.put(count.getStationId(), count.getChanges()));
+        Set<String> favorites = new HashSet<>(favoriteStationRepository.findFavoritedStationIds());
+        double hours = historyDays * 24.0;
+
+        Set<String> current = new HashSet<>();
+        for (StreamingDataProvider provider : pollableProviders()) {
+            for (Station station : provider.findPollableStations()) {
+                if (!shardMembership.ownsStation(station.getId())) {
+                    continue;
+                }
+                current.add(station.getId());
+                boolean favorite = favorites.contains(station.getId());
+                Duration interval = policy.baseline(changes.getOrDefault(station.getId(), 0L) / hours, favorite);
+
+                states.compute(station.getId(), (id, state) -> {
+                    if (state == null) {
+                        // Spread first polls over the interval instead of polling everything at once
+                        long offset = Math.floorMod(id.hashCode(), Math.max(1, interval.toMillis()));
+                        return new PollState(id, provider.getProviderName(), interval,
+                                now.plusMillis(offset), favorite);
+                    }
+                    state.interval = interval;
+                    state.favorite = favorite;
+                    if (state.nextPollAt.isAfter(now.plus(interval))) {
+                        state.nextPollAt = now.plus(interval);
+                    }
+                    return state;
+                });
+            }
+        }
+        states.keySet().retainAll(current);
+
+        log.info("Refreshed status polling schedules for {} stations ({} favorites)",
+                states.size(), states.values().stream().filter(s -> s.favorite).count());
+    }
+
+    /**
+     * Poll the stations that are due, within each provider's budget.
+     */
+    @Scheduled(initialDelayString = "${onnoto.ingestion.polling.initial-delay-ms:90000}",
+            fixedDelayString = "${onnoto.ingestion.polling.tick-ms:30000}")
+    public void pollDueStations() {
+        if (!enabled) {
+            return;
+        }
+        boolean wasLeading = leading;
+        if (!leading()) {
+            return;
+        }
+        if (!wasLeading || shardVersion != shardMembership.assignmentVersion()) {
+            // Taken over from another node or shards moved: start from fresh schedules
+            refreshSchedules();
+        }
+        for (StreamingDataProvider provider : pollableProviders()) {
+            if (!circuitBreakers.allows(provider)) {
+                // Due stations stay due and are polled once the provider recovers
+                log.debug("Skipping station polls of {}: circuit breaker open", provider.getProviderName());
+                continue;
+            }
+            try {
+                pollProvider(provider);
+            } catch (Exception e) {
+                log.error("Error polling station statuses from {}: {}", provider.getProviderName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Take or keep the polling lease. A node that loses it drops its schedules. Sharded nodes
+     * all poll, each its own stations.
+     */
+    private boolean leading() {
+        boolean leader = shardMembership.isEnabled() || jobLeaseService.holdLeadership(POLLING_JOB);
+        if (leader != leading) {
+            log.info(leader ? "Took over station status polling" : "Station status polling moved to another node");
+            if (!leader) {
+                states.clear();
+            }
+            leading = leader;
+        }
+        return leader;
+    }
+
+    void pollProvider(StreamingDataProvider provider) throws Exception {
+        Instant now = Instant.now();
+        List<PollState> due = states.values().stream()
+                .filter(state -> state.provider.equals(provider.getProviderName()))
+                .filter(state -> !state.nextPollAt.isAfter(now))
+                .sorted(Comparator.comparing((PollState state) -> state.nextPollAt))
+                .toList();
+        if (due.isEmpty()) {
+            return;
+        }
+
+        int budget = budgetPerTick(provider);
+        List<PollState> selected = due.subList(0, Math.min(budget, due.size()));
+        List<Station> stations = stationRepository.findAllById(selected.stream().map(s -> s.stationId).toList());
+
+        Set<String> changed = dataIngestionService.pollStations(provider, stations)
+                .get(Math.max(tickMs, 10_000), TimeUnit.MILLISECONDS);
+
+        PollingPolicy policy = policy();
+        Instant polledAt = Instant.now();
+        for (PollState state : selected) {
+            state.interval = policy.afterPoll(state.interval, changed.contains(state.stationId), state.favorite);
+            state.nextPollAt = polledAt.plus(state.interval);
+        }
+
+        log.info("Polled {} of {} due {} stations, {} changed{}", selected.size(), due.size(),
+                provider.getProviderName(), changed.size(),
+                due.size() > selected.size() ? " (budget exhausted)" : "");
+    }
+
+    /**
+     * Station polls one provider may make per tick, from
+     * onnoto.ingestion.polling.&lt;provider&gt;.calls-per-minute.
+     */
+    int budgetPerTick(DataProvider provider) {
+        int callsPerMinute = environment.getProperty(
+                "onnoto.ingestion.polling." + provider.getProviderName().toLowerCase(Locale.ROOT) + ".calls-per-minute",
+                Integer.class, defaultCallsPerMinute);
+        return Math.max(1, (int) (callsPerMinute * tickMs / 60_000));
+    }
+
+    private List<StreamingDataProvider> pollableProviders() {
+        return dataProviders.stream()
+                .filter(provider -> provider instanceof StreamingDataProvider streaming
+                        && streaming.supportsStationPolling())
+                .map(provider -> (StreamingDataProvider) provider)
+                .toList();
+    }
+
+    /**
+     * Whether status updates of this provider are handled here instead of the fixed cycle.
+     */
+    public boolean handles(DataProvider provider) {
+        return enabled && provider instanceof StreamingDataProvider streaming && streaming.supportsStationPolling();
+    }
+
+    Map<String, PollState> states() {
+        return states;
+    }
+}
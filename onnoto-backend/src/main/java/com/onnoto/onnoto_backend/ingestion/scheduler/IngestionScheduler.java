@@ -1,12 +1,20 @@
 package com.onnoto.onnoto_backend.ingestion.scheduler;
 
 import com.onnoto.onnoto_backend.ingestion.service.DataIngestionService;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
+/**
+ * Station and status ingestion jobs. Each runs on one node of a cluster, see {@link JobLeaseService}.
+ */
 @Slf4j
 @Component
 @EnableScheduling
@@ -14,32 +22,57 @@ import org.springframework.stereotype.Component;
 public class IngestionScheduler {
 
     private final DataIngestionService dataIngestionService;
+    private final AdaptiveStatusScheduler adaptiveStatusScheduler;
+    private final JobLeaseService jobLeaseService;
+    private final ShardMembership shardMembership;
+
+    @Value("${onnoto.ingestion.initial-load:true}")
+    private boolean initialLoadEnabled;
 
     /**
      * Full station sync - run daily at 2 AM.
      */
     @Scheduled(cron = "0 0 2 * * ?")
     public void fullSync() {
-        log.info("Starting scheduled full station sync");
-        dataIngestionService.fetchAllStations();
+        jobLeaseService.runExclusivelyAsync("ingestion.full-sync", Duration.ofHours(1), () -> {
+            log.info("Starting scheduled full station sync");
+            return dataIngestionService.fetchAllStations();
+        });
     }
 
     /**
-     * Status updates - run every 5 minutes.
+     * Status updates - run every 5 minutes. Providers that support station polling are polled
+     * per station by the {@link AdaptiveStatusScheduler} instead. With sharded ingestion every
+     * node runs them for its own shards.
      */
     @Scheduled(fixedRate = 300000)
     public void statusUpdates() {
-        log.info("Starting scheduled status updates");
-        dataIngestionService.fetchStatusUpdates();
+        if (shardMembership.isEnabled()) {
+            // Every node updates its own shards
+            log.info("Starting scheduled status updates");
+            dataIngestionService.fetchStatusUpdates(provider -> !adaptiveStatusScheduler.handles(provider));
+            return;
+        }
+        // Held for most of the period: nodes started at different times fire at different moments
+        jobLeaseService.runExclusivelyAsync("ingestion.status-updates", Duration.ofMinutes(4), () -> {
+            log.info("Starting scheduled status updates");
+            return dataIngestionService.fetchStatusUpdates(provider -> !adaptiveStatusScheduler.handles(provider));
+        });
     }
 
     /**
-     * Initial data load on startup.
+     * Initial data load on startup. Skipped when another node loaded the data shortly before.
      */
     @Scheduled(initialDelay = 10000, fixedDelay = Long.MAX_VALUE)
     public void initialLoad() {
-        log.info("Starting initial data load");
-        dataIngestionService.fetchAllStations();
-        dataIngestionService.fetchStatusUpdates();
+        if (!initialLoadEnabled) {
+            return;
+        }
+        jobLeaseService.runExclusivelyAsync("ingestion.initial-load", Duration.ofMinutes(10), () -> {
+            log.info("Starting initial data load");
+            // Statuses need the connectors created by the station sync
+            return dataIngestionService.fetchAllStations()
+                    .thenCompose(done -> dataIngestionService.fetchStatusUpdates());
+        });
     }
 }
\ No newline at end of file
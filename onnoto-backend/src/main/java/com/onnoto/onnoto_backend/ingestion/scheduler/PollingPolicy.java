@@ -0,0 +1,38 @@
+package com.onnoto.onnoto_backend.ingestion.scheduler;
+
+import java.time.Duration;
+
+/**
+ * Decides how often a station's status is polled.
+ *
+ * The baseline comes from the station's observed change rate: a station is polled about
+ * {@code pollsPerChange} times per expected change. Between refreshes of the rates, each poll
+ * nudges the interval: a change halves it, no change stretches it by half. Stations users
+ * marked as favorite are polled at a multiple of the normal rate.
+ */
+record PollingPolicy(Duration minInterval, Duration maxInterval, double pollsPerChange, double favoriteFactor) {
+
+    Duration baseline(double changesPerHour, boolean favorite) {
+        Duration interval = changesPerHour <= 0
+                ? maxInterval
+                : Duration.ofMillis((long) (Duration.ofHours(1).toMillis() / (changesPerHour * pollsPerChange)));
+        return clamp(favorite ? scale(interval) : interval, favorite);
+    }
+
+    Duration afterPoll(Duration current, boolean changed, boolean favorite) {
+        Duration next = changed ? current.dividedBy(2) : current.plus(current.dividedBy(2));
+        return clamp(next, favorite);
+    }
+
+    private Duration clamp(Duration interval, boolean favorite) {
+        Duration max = favorite ? scale(maxInterval) : maxInterval;
+        if (interval.compareTo(minInterval) < 0) {
+            return minInterval;
+        }
+        return interval.compareTo(max) > 0 ? max : interval;
+    }
+
+    private Duration scale(Duration interval) {
+        return Duration.ofMillis((long) (interval.toMillis() / favoriteFactor));
+    }
+}
@@ -1,122 +1,225 @@
 package com.onnoto.onnoto_backend.ingestion.service;
 
+import com.onnoto.onnoto_backend.ingestion.http.ProviderCircuitBreakers;
+import com.onnoto.onnoto_backend.ingestion.pipeline.IngestionPipeline;
 import com.onnoto.onnoto_backend.ingestion.provider.DataProvider;
+import com.onnoto.onnoto_backend.ingestion.provider.StreamingDataProvider;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import com.onnoto.onnoto_backend.model.Station;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.function.Predicate;
+
+/**
+ * Runs provider syncs. Stations from streaming providers go through the staged
+ * {@link IngestionPipeline}. Status updates are consumed through backpressured subscribers: the
+ * provider fetches on its own virtual thread and the writes happen on the shared pool, one
+ * batch of records at a time. A slow provider only slows down its own subscriber.
+ *
+ * With sharded ingestion, status updates cover only this node's share: the stations of its
+ * shards for providers that can poll single stations, and the providers assigned to it for the
+ * others (see {@link ShardMembership}).
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DataIngestionService {
 
+    // Records requested from a provider at a time
+    private static final int WRITE_BATCH_SIZE = 32;
+
     private final List<DataProvider> dataProviders;
+    private final IngestionPipeline ingestionPipeline;
+    private final StatusUpdateWriter statusUpdateWriter;
+    private final ShardMembership shardMembership;
+    private final ProviderCircuitBreakers circuitBreakers;
     private final ExecutorService executorService = Executors.newFixedThreadPool(5);
 
     /**
      * Fetch all stations from all providers with improved error handling
+     *
+     * @return completes when every provider has finished
      */
-    public void fetchAllStations() {
+    public CompletableFuture<Void> fetchAllStations() {
         log.info("Starting full station data fetch from all providers");
 
         ConcurrentHashMap<String, String> errorsByProvider = new ConcurrentHashMap<>();
         AtomicInteger successCount = new AtomicInteger(0);
 
-        for (DataProvider provider : dataProviders) {
-            if (provider.isAvailable()) {
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        log.info("Fetching stations from provider: {}", provider.getProviderName());
-                        provider.fetchAllStations();
-                        successCount.incrementAndGet();
-                        log.info("Completed station fetch from provider: {}", provider.getProviderName());
-                    } catch (Exception e) {
-                        log.error("Error fetching stations from provider {}: {}",
-                                provider.getProviderName(), e.getMessage(), e);
-                        errorsByProvider.put(provider.getProviderName(), e.getMessage());
-                    }
-                }, executorService);
-            } else {
-                log.warn("Provider {} is not available, skipping station fetch", provider.getProviderName());
-                errorsByProvider.put(provider.getProviderName(), "Provider not available");
-            }
-        }
-
-        // Log summary after a delay to allow async tasks to complete
-        CompletableFuture.runAsync(() -> {
-            try {
-                // Give time for tasks to complete
-                Thread.sleep(10000);
-
-                // Log summary
-                log.info("Station fetch summary - Success: {}, Failures: {}",
-                        successCount.get(), errorsByProvider.size());
-
-                if (!errorsByProvider.isEmpty()) {
-                    errorsByProvider.forEach((provider, error) ->
-                            log.error("Provider {} failed: {}", provider, error));
-                }
-            } catch (InterruptedException e) {
-                log.error("Interrupted while waiting for completion", e);
-                Thread.currentThread().interrupt();
-            }
-        }, executorService);
+        CompletableFuture<?>[] runs = dataProviders.stream()
+                .filter(provider -> checkAvailable(provider, errorsByProvider))
+                .map(provider -> syncStations(provider)
+                        .thenAccept(report -> {
+                            successCount.incrementAndGet();
+                            log.info("Completed station fetch from provider: {} - {}",
+                                    provider.getProviderName(), report);
+                        })
+                        .exceptionally(e -> {
+                            log.error("Error fetching stations from provider {}: {}",
+                                    provider.getProviderName(), e.getMessage(), e);
+                            errorsByProvider.put(provider.getProviderName(), String.valueOf(e.getMessage()));
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(runs)
+                .whenComplete((ignored, e) -> logSummary("Station fetch", successCount, errorsByProvider));
     }
 
     /**
      * Fetch status updates from all providers with improved error handling
+     *
+     * @return completes when every provider has finished
+     */
+    public CompletableFuture<Void> fetchStatusUpdates() {
+        return fetchStatusUpdates(provider -> true);
+    }
+
+    /**
+     * Fetch status updates from the providers matching a filter
+     *
+     * @return completes when every matching provider has finished
      */
-    public void fetchStatusUpdates() {
+    public CompletableFuture<Void> fetchStatusUpdates(Predicate<DataProvider> filter) {
         log.info("Starting status updates from all providers");
 
         ConcurrentHashMap<String, String> errorsByProvider = new ConcurrentHashMap<>();
         AtomicInteger successCount = new AtomicInteger(0);
 
-        for (DataProvider provider : dataProviders) {
-            if (provider.isAvailable()) {
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        log.info("Fetching status updates from provider: {}", provider.getProviderName());
-                        provider.fetchStatusUpdates();
-                        successCount.incrementAndGet();
-                        log.info("Completed status updates from provider: {}", provider.getProviderName());
-                    } catch (Exception e) {
-                        log.error("Error fetching status updates from provider {}: {}",
-                                provider.getProviderName(), e.getMessage(), e);
-                        errorsByProvider.put(provider.getProviderName(), e.getMessage());
-                    }
-                }, executorService);
-            } else {
-                log.warn("Provider {} is not available, skipping status updates", provider.getProviderName());
-                errorsByProvider.put(provider.getProviderName(), "Provider not available");
-            }
+        CompletableFuture<?>[] runs = dataProviders.stream()
+                .filter(filter)
+                .filter(this::ownsStatusUpdates)
+                .filter(provider -> checkAvailable(provider, errorsByProvider))
+                .map(provider -> syncStatusUpdates(provider)
+                        .thenAccept(count -> {
+                            successCount.incrementAndGet();
+                            log.info("Completed status updates from provider: {} ({} observations)",
+                                    provider.getProviderName(), count);
+                        })
+                        .exceptionally(e -> {
+                            log.error("Error fetching status updates from provider {}: {}",
+                                    provider.getProviderName(), e.getMessage(), e);
+                            errorsByProvider.put(provider.getProviderName(), String.valueOf(e.getMessage()));
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(runs)
+                .whenComplete((ignored, e) -> logSummary("Status updates", successCount, errorsByProvider));
+    }
+
+    private CompletableFuture<SyncReport> syncStations(DataProvider provider) {
+        log.info("Fetching stations from provider: {}", provider.getProviderName());
+
+        if (provider instanceof StreamingDataProvider streaming) {
+            return ingestionPipeline.submit(streaming);
+        }
+
+        // Providers without streaming support write everything themselves
+        SyncReport report = new SyncReport(provider.getProviderName());
+        return CompletableFuture.supplyAsync(() -> {
+            provider.fetchAllStations();
+            return report;
+        }, executorService);
+    }
+
+    private CompletableFuture<Long> syncStatusUpdates(DataProvider provider) {
+        log.info("Fetching status updates from provider: {}", provider.getProviderName());
+
+        if (provider instanceof StreamingDataProvider streaming) {
+            Set<String> stationIds = ConcurrentHashMap.newKeySet();
+            WriteSubscriber<StatusRecord> subscriber = new WriteSubscriber<>(provider.getProviderName(),
+                    record -> {
+                        statusUpdateWriter.write(record);
+                        stationIds.add(record.station().getId());
+                    }, WRITE_BATCH_SIZE);
+            statusUpdatesOf(streaming).subscribe(subscriber);
+
+            // Stamp the checked stations once at the end instead of once per station
+            return subscriber.completion().thenApply(count -> {
+                statusUpdateWriter.touchStations(stationIds);
+                return count;
+            });
         }
 
-        // Log summary after a delay to allow async tasks to complete
-        CompletableFuture.runAsync(() -> {
-            try {
-                // Give time for tasks to complete
-                Thread.sleep(10000);
-
-                // Log summary
-                log.info("Status updates summary - Success: {}, Failures: {}",
-                        successCount.get(), errorsByProvider.size());
-
-                if (!errorsByProvider.isEmpty()) {
-                    errorsByProvider.forEach((provider, error) ->
-                            log.error("Provider {} failed: {}", provider, error));
-                }
-            } catch (InterruptedException e) {
-                log.error("Interrupted while waiting for completion", e);
-                Thread.currentThread().interrupt();
-            }
+        return CompletableFuture.supplyAsync(() -> {
+            provider.fetchStatusUpdates();
+            return 0L;
         }, executorService);
     }
-}
\ No newline at end of file
+
+    private boolean ownsStatusUpdates(DataProvider provider) {
+        return !shardMembership.isEnabled()
+                || provider instanceof StreamingDataProvider streaming && streaming.supportsStationPolling()
+                || shardMembership.ownsProvider(provider.getProviderName());
+    }
+
+    private Flow.Publisher<StatusRecord> statusUpdatesOf(StreamingDataProvider provider) {
+        if (shardMembership.isEnabled() && provider.supportsStationPolling()) {
+            List<Station> stations = provider.findPollableStations().stream()
+                    .filter(station -> shardMembership.ownsStation(station.getId()))
+                    .toList();
+            log.info("Fetching status updates of {} {} stations in this node's shards",
+                    stations.size(), provider.getProviderName());
+            return provider.publishStatusUpdates(stations, executorService);
+        }
+        return provider.publishStatusUpdates(executorService);
+    }
+
+    /**
+     * Poll the status of selected stations of one provider.
+     *
+     * @return completes with the ids of the stations whose status changed
+     */
+    public CompletableFuture<Set<String>> pollStations(StreamingDataProvider provider, Collection<Station> stations) {
+        Set<String> changed = ConcurrentHashMap.newKeySet();
+        WriteSubscriber<StatusRecord> subscriber = new WriteSubscriber<>(provider.getProviderName(),
+                record -> {
+                    if (statusUpdateWriter.write(record)) {
+                        changed.add(record.station().getId());
+                    }
+                }, WRITE_BATCH_SIZE);
+        provider.publishStatusUpdates(stations, executorService).subscribe(subscriber);
+
+        return subscriber.completion().thenApply(count -> {
+            statusUpdateWriter.touchStations(stations.stream().map(Station::getId).toList());
+            return changed;
+        });
+    }
+
+    private boolean checkAvailable(DataProvider provider, ConcurrentHashMap<String, String> errorsByProvider) {
+        if (!circuitBreakers.allows(provider)) {
+            log.warn("Provider {} is failing (circuit breaker open), skipping", provider.getProviderName());
+            errorsByProvider.put(provider.getProviderName(), "Circuit breaker open");
+            return false;
+        }
+        if (provider.isAvailable()) {
+            return true;
+        }
+        log.warn("Provider {} is not available, skipping", provider.getProviderName());
+        errorsByProvider.put(provider.getProviderName(), "Provider not available");
+        return false;
+    }
+
+    private void logSummary(String operation, AtomicInteger successCount,
+                            ConcurrentHashMap<String, String> errorsByProvider) {
+        log.info("{} summary - Success: {}, Failures: {}", operation, successCount.get(), errorsByProvider.size());
+
+        if (!errorsByProvider.isEmpty()) {
+            errorsByProvider.forEach((provider, error) ->
+                    log.error("Provider {} failed: {}", provider, error));
+        }
+    }
+}
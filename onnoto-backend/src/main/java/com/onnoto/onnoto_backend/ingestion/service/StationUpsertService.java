@@ -0,0 +1,204 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import com.onnoto.onnoto_backend.ingestion.record.ConnectorRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes provider station data only when it changed.
+ *
+ * Every station stores a fingerprint of the normalized provider payload and one of its connector
+ * set. A sync compares the fingerprints first, so an unchanged station costs a single primary-key
+ * read instead of an UPDATE of the station and a rewrite of its connectors.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StationUpsertService {
+
+    private final StationRepository stationRepository;
+    private final ConnectorRepository connectorRepository;
+    private final StatusHistoryRepository statusHistoryRepository;
+
+    public record UpsertResult(Station station, SyncReport.Outcome outcome) {
+    }
+
+    /**
+     * Write a station emitted by a provider and run its after-write hook if it changed.
+     * Failures are counted in the report instead of aborting the sync.
+     */
+    public UpsertResult write(StationSnapshot snapshot, SyncReport report) {
+        try {
+            UpsertResult result = upsert(snapshot.station(), snapshot.connectors(), report);
+            afterWrite(snapshot, result);
+            return result;
+        } catch (RuntimeException e) {
+            log.error("Error writing station {}: {}", snapshot.station().id(), e.getMessage());
+            if (report != null) {
+                report.record(SyncReport.Outcome.FAILED);
+            }
+            return new UpsertResult(null, SyncReport.Outcome.FAILED);
+        }
+    }
+
+    /**
+     * Whether the snapshot has an after-write hook to run: it has one and the station was
+     * inserted or updated.
+     */
+    public boolean hasAfterWrite(StationSnapshot snapshot, UpsertResult result) {
+        return snapshot.afterWrite() != null && result.station() != null
+                && result.outcome() != SyncReport.Outcome.UNCHANGED
+                && result.outcome() != SyncReport.Outcome.FAILED;
+    }
+
+    /**
+     * Run the snapshot's after-write hook if the station was inserted or updated. Callers that
+     * write in a transaction run it after commit, since hooks may call out to the provider.
+     */
+    public void afterWrite(StationSnapshot snapshot, UpsertResult result) {
+        if (!hasAfterWrite(snapshot, result)) {
+            return;
+        }
+        snapshot.afterWrite().accept(result.station(), result.outcome() == SyncReport.Outcome.INSERTED);
+    }
+
+    /**
+     * Insert or update a station and its connectors.
+     *
+     * @param connectors the connectors reported by the provider, or null when the provider manages
+     *                   connectors itself and only the station row should be synced
+     */
+    public UpsertResult upsert(StationRecord record, List<ConnectorRecord> connectors, SyncReport report) {
+        return upsert(record, connectors, record.fingerprint(),
+                connectors != null ? ConnectorRecord.fingerprint(connectors) : null, report);
+    }
+
+    /**
+     * Same as {@link #upsert(StationRecord, List, SyncReport)} with fingerprints computed up front.
+     */
+    public UpsertResult upsert(StationRecord record, List<ConnectorRecord> connectors,
+                               String contentHash, String connectorHash, SyncReport report) {
+        Station existing = stationRepository.findById(record.id()).orElse(null);
+
+        if (existing == null) {
+            Station station = new Station();
+            station.setId(record.id());
+            apply(record, station);
+            station.setContentHash(contentHash);
+            station.setConnectorHash(connectorHash);
+            station.setCreatedAt(LocalDateTime.now());
+            station.setUpdatedAt(LocalDateTime.now());
+            Station saved = stationRepository.save(station);
+
+            if (connectors != null) {
+                connectors.forEach(connector -> createConnector(saved, connector));
+            }
+            return result(saved, SyncReport.Outcome.INSERTED, report);
+        }
+
+        boolean stationChanged = !contentHash.equals(existing.getContentHash());
+        boolean connectorsChanged = connectorHash != null && !connectorHash.equals(existing.getConnectorHash());
+
+        if (!stationChanged && !connectorsChanged) {
+            return result(existing, SyncReport.Outcome.UNCHANGED, report);
+        }
+
+        if (stationChanged) {
+            apply(record, existing);
+            existing.setContentHash(contentHash);
+        }
+        if (connectorsChanged) {
+            // Rows synced before fingerprints existed adopt their current connectors as-is
+            if (existing.getConnectorHash() != null || connectorRepository.countByStationId(existing.getId()) == 0) {
+                reconcileConnectors(existing, connectors);
+            }
+            existing.setConnectorHash(connectorHash);
+        }
+        existing.setUpdatedAt(LocalDateTime.now());
+
+        return result(stationRepository.save(existing), SyncReport.Outcome.UPDATED, report);
+    }
+
+    private UpsertResult result(Station station, SyncReport.Outcome outcome, SyncReport report) {
+        if (report != null) {
+            report.record(outcome);
+        }
+        return new UpsertResult(station, outcome);
+    }
+
+    private void apply(StationRecord record, Station station) {
+        station.setName(record.name());
+        station.setNetwork(record.network());
+        station.setOperator(record.operator());
+        station.setLatitude(record.latitude());
+        station.setLongitude(record.longitude());
+        station.setAddress(record.address());
+        station.setCity(record.city());
+        station.setPostalCode(record.postalCode());
+        station.setCountry(record.country());
+    }
+
+    /**
+     * Match reported connectors to stored ones by type, power and current type. New connectors
+     * are created; connectors no longer reported are removed unless they have status history,
+     * which the reliability metrics still depend on.
+     */
+    private void reconcileConnectors(Station station, List<ConnectorRecord> reported) {
+        Map<String, List<Connector>> storedByKey = new HashMap<>();
+        for (Connector connector : connectorRepository.findByStation(station)) {
+            storedByKey.computeIfAbsent(keyOf(connector), k -> new ArrayList<>()).add(connector);
+        }
+
+        for (ConnectorRecord record : reported) {
+            List<Connector> matches = storedByKey.get(record.key());
+            if (matches != null && !matches.isEmpty()) {
+                matches.remove(0);
+            } else {
+                createConnector(station, record);
+            }
+        }
+
+        storedByKey.values().stream()
+                .flatMap(List::stream)
+                .forEach(connector -> {
+                    if (statusHistoryRepository.existsByConnector(connector)) {
+                        log.info("Connector {} at station {} is no longer reported but has history, keeping it",
+                                connector.getId(), station.getId());
+                    } else {
+                        connectorRepository.delete(connector);
+                    }
+                });
+    }
+
+    private String keyOf(Connector connector) {
+        return new ConnectorRecord(connector.getConnectorType(), connector.getPowerKw(),
+                connector.getCurrentType(), connector.getStatus()).key();
+    }
+
+    private void createConnector(Station station, ConnectorRecord record) {
+        Connector connector = new Connector();
+        connector.setStation(station);
+        connector.setConnectorType(record.connectorType());
+        connector.setPowerKw(record.powerKw());
+        connector.setCurrentType(record.currentType());
+        connector.setStatus(record.status());
+        connector.setLastStatusUpdate(LocalDateTime.now());
+        connector.setCreatedAt(LocalDateTime.now());
+        connector.setUpdatedAt(LocalDateTime.now());
+        connectorRepository.save(connector);
+    }
+}
@@ -0,0 +1,57 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.StatusInterval;
+import com.onnoto.onnoto_backend.repository.StatusIntervalRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps status_intervals, the run-length form of status_history: each transition ends the
+ * connector's current interval and opens a new one.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatusIntervalRecorder {
+
+    private final StatusIntervalRepository statusIntervalRepository;
+
+    /**
+     * Record that a connector changed to a status at a point in time. A change replayed from the
+     * past splits the interval it falls into; the new interval then ends where that one ended.
+     */
+    @Transactional
+    public void record(Connector connector, String status, LocalDateTime at) {
+        List<StatusInterval> covering = statusIntervalRepository.findCovering(connector, at);
+        LocalDateTime endedAt;
+        if (!covering.isEmpty()) {
+            StatusInterval current = covering.get(0);
+            if (current.getStartedAt().equals(at)) {
+                // Two changes at the same instant, the later one wins
+                current.setStatus(status);
+                statusIntervalRepository.save(current);
+                return;
+            }
+            endedAt = current.getEndedAt();
+            current.setEndedAt(at);
+            statusIntervalRepository.save(current);
+        } else {
+            // Before the first known interval, or in a gap: runs up to the next interval
+            endedAt = statusIntervalRepository.findFirstByConnectorAndStartedAtAfterOrderByStartedAtAsc(connector, at)
+                    .map(StatusInterval::getStartedAt)
+                    .orElse(null);
+        }
+
+        StatusInterval interval = new StatusInterval();
+        interval.setConnector(connector);
+        interval.setStationId(connector.getStation().getId());
+        interval.setStatus(status);
+        interval.setStartedAt(at);
+        interval.setEndedAt(endedAt);
+        statusIntervalRepository.save(interval);
+    }
+}
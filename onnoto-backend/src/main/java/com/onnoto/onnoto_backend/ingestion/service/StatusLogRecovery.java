@@ -0,0 +1,45 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import com.onnoto.onnoto_backend.events.StatusEventLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Writes status changes that were only kept in the status log, because the database was
+ * unavailable, once it accepts writes again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatusLogRecovery {
+
+    private final StatusEventLog statusEventLog;
+    private final StatusUpdateWriter statusUpdateWriter;
+
+    @Scheduled(fixedDelayString = "${onnoto.events.log.recovery-interval-ms:30000}")
+    public void recover() {
+        long from = statusEventLog.pendingOffset();
+        if (from < 0) {
+            return;
+        }
+
+        long[] next = {from};
+        try {
+            statusEventLog.replay(from, record -> {
+                statusUpdateWriter.apply(record);
+                next[0] = record.offset() + 1;
+            });
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Database still unavailable, {} status changes from offset {} remain in the status log: {}",
+                    statusEventLog.nextOffset() - next[0], next[0], e.getMessage());
+            statusEventLog.resolvePending(from, next[0], false);
+            return;
+        }
+        statusEventLog.resolvePending(from, next[0], true);
+        log.info("Wrote {} status changes from the status log to the database", next[0] - from);
+    }
+}
@@ -0,0 +1,217 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import com.onnoto.onnoto_backend.events.StatusEventBus;
+import com.onnoto.onnoto_backend.events.StatusEventLog;
+import com.onnoto.onnoto_backend.events.StatusLogRecord;
+import com.onnoto.onnoto_backend.ingestion.dedupe.StationDeduplicator;
+import com.onnoto.onnoto_backend.ingestion.record.ConnectorRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.model.StatusHistory;
+import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes connector status observations.
+ */
+@Slf4j
+@Service
+public class StatusUpdateWriter {
+
+    // Keep the IN list of the bulk timestamp update at a reasonable size
+    private static final int TOUCH_BATCH_SIZE = 500;
+
+    private final ConnectorRepository connectorRepository;
+    private final StatusHistoryRepository statusHistoryRepository;
+    private final StationRepository stationRepository;
+    private final StationDeduplicator stationDeduplicator;
+    private final StatusEventBus statusEventBus;
+    private final StatusEventLog statusEventLog;
+    private final StatusIntervalRecorder statusIntervalRecorder;
+    private final Counter changes;
+    private final Timer writes;
+
+    public StatusUpdateWriter(ConnectorRepository connectorRepository,
+                              StatusHistoryRepository statusHistoryRepository,
+                              StationRepository stationRepository,
+                              StationDeduplicator stationDeduplicator,
+                              StatusEventBus statusEventBus,
+                              StatusEventLog statusEventLog,
+                              StatusIntervalRecorder statusIntervalRecorder,
+                              MeterRegistry meterRegistry) {
+        this.connectorRepository = connectorRepository;
+        this.statusHistoryRepository = statusHistoryRepository;
+        this.stationRepository = stationRepository;
+        this.stationDeduplicator = stationDeduplicator;
+        this.statusEventBus = statusEventBus;
+        this.statusEventLog = statusEventLog;
+        this.statusIntervalRecorder = statusIntervalRecorder;
+        this.changes = Counter.builder("onnoto.ingestion.status.changes").register(meterRegistry);
+        // Time spent writing one change: connector update, history row and interval
+        this.writes = Timer.builder("onnoto.ingestion.status.write").register(meterRegistry);
+    }
+
+    /**
+     * Record a provider's status observation. Observations for a station that duplicates another
+     * provider's station go to the matching connector of the canonical station.
+     */
+    public boolean write(StatusRecord record) {
+        return write(canonicalConnector(record.connector()), record.status(), record.source());
+    }
+
+    /**
+     * Record a status update for a connector. Only changes are written.
+     *
+     * @return true if the status changed
+     */
+    public boolean write(Connector connector, String status, String source) {
+        String oldStatus = connector.getStatus();
+
+        // Only record if status changed
+        if (status.equals(oldStatus)) {
+            return false;
+        }
+
+        long started = System.nanoTime();
+        long now = System.currentTimeMillis();
+        LocalDateTime recordedAt = toLocalDateTime(now);
+        String stationId = connector.getStation().getId();
+
+        // The status log gets the change first, so it survives a failed database write
+        long offset = statusEventLog.append(stationId, connector.getId(), oldStatus, status, source, now);
+
+        // Update connector status
+        connector.setStatus(status);
+        connector.setLastStatusUpdate(recordedAt);
+        try {
+            connectorRepository.save(connector);
+
+            // The interval goes first: a change whose history row exists is never replayed
+            statusIntervalRecorder.record(connector, status, recordedAt);
+
+            // Record in history
+            statusHistoryRepository.save(newHistory(connector, status, source, recordedAt));
+        } catch (DataAccessException | TransactionException e) {
+            if (offset < 0) {
+                throw e;
+            }
+            statusEventLog.markPending(offset);
+            log.warn("Database write failed, status change of connector {} kept in the status log at offset {}: {}",
+                    connector.getId(), offset, e.getMessage());
+        }
+        writes.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        changes.increment();
+
+        statusEventBus.publish(stationId, connector.getId(), oldStatus, status, source, now);
+
+        log.info("Status update for connector {} at station {}: {} -> {} (source: {})",
+                connector.getId(), stationId, oldStatus, status, source);
+        return true;
+    }
+
+    /**
+     * Write a change from the status log that may not have reached the database. Changes already
+     * in status_history are skipped, and the connector's status is only replaced by a newer one.
+     */
+    @Transactional
+    public void apply(StatusLogRecord record) {
+        if (record.connectorId() == null) {
+            return;
+        }
+        Connector connector = connectorRepository.findById(record.connectorId()).orElse(null);
+        if (connector == null) {
+            return;
+        }
+        LocalDateTime recordedAt = toLocalDateTime(record.timestamp());
+        if (statusHistoryRepository.existsByConnectorAndRecordedAt(connector, recordedAt)) {
+            return;
+        }
+        if (connector.getLastStatusUpdate() == null || !connector.getLastStatusUpdate().isAfter(recordedAt)) {
+            connector.setStatus(record.status());
+            connector.setLastStatusUpdate(recordedAt);
+            connectorRepository.save(connector);
+        }
+        statusIntervalRecorder.record(connector, record.status(), recordedAt);
+        statusHistoryRepository.save(newHistory(connector, record.status(), record.source(), recordedAt));
+        log.debug("Wrote status change {} of connector {} from the status log", record.offset(), connector.getId());
+    }
+
+    private static StatusHistory newHistory(Connector connector, String status, String source,
+                                            LocalDateTime recordedAt) {
+        StatusHistory history = new StatusHistory();
+        history.setConnector(connector);
+        history.setStation(connector.getStation());
+        history.setStatus(status);
+        history.setSource(source);
+        history.setRecordedAt(recordedAt);
+        return history;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * The canonical station's connector with the same type, power and current. Several connectors
+     * of the same kind are paired up in id order. Falls back to the connector itself.
+     */
+    private Connector canonicalConnector(Connector connector) {
+        Station station = connector.getStation();
+        String canonicalId = station != null ? stationDeduplicator.canonicalIdFor(station.getId()) : null;
+        if (canonicalId == null) {
+            return connector;
+        }
+
+        String key = keyOf(connector);
+        List<Connector> sameKind = connectorRepository.findByStation(station).stream()
+                .filter(c -> keyOf(c).equals(key))
+                .sorted(Comparator.comparing(Connector::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+        List<Connector> canonicalSameKind = connectorRepository.findByStation(stationRepository.getReferenceById(canonicalId))
+                .stream()
+                .filter(c -> keyOf(c).equals(key))
+                .sorted(Comparator.comparing(Connector::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+
+        int position = Math.max(0, sameKind.indexOf(connector));
+        if (position >= canonicalSameKind.size()) {
+            return connector;
+        }
+        return canonicalSameKind.get(position);
+    }
+
+    private static String keyOf(Connector connector) {
+        return new ConnectorRecord(connector.getConnectorType(), connector.getPowerKw(),
+                connector.getCurrentType(), connector.getStatus()).key();
+    }
+
+    /**
+     * Mark stations as checked with one bulk update instead of a save per station.
+     */
+    public void touchStations(Collection<String> stationIds) {
+        List<String> ids = new ArrayList<>(stationIds);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ids.size(); i += TOUCH_BATCH_SIZE) {
+            stationRepository.updateLastStatusUpdate(ids.subList(i, Math.min(i + TOUCH_BATCH_SIZE, ids.size())), now);
+        }
+    }
+}
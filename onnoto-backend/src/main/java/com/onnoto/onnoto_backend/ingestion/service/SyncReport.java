@@ -0,0 +1,66 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts what a station sync actually wrote.
+ */
+public class SyncReport {
+
+    public enum Outcome { INSERTED, UPDATED, UNCHANGED, FAILED }
+
+    @Getter
+    private final String provider;
+
+    @Getter
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public SyncReport(String provider) {
+        this.provider = provider;
+    }
+
+    public void record(Outcome outcome) {
+        switch (outcome) {
+            case INSERTED -> inserted.incrementAndGet();
+            case UPDATED -> updated.incrementAndGet();
+            case UNCHANGED -> unchanged.incrementAndGet();
+            case FAILED -> failed.incrementAndGet();
+        }
+    }
+
+    public int getInserted() {
+        return inserted.get();
+    }
+
+    public int getUpdated() {
+        return updated.get();
+    }
+
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getTotal() {
+        return getInserted() + getUpdated() + getUnchanged() + getFailed();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s sync: %d inserted, %d updated, %d unchanged, %d failed in %ds",
+                provider, getInserted(), getUpdated(), getUnchanged(), getFailed(),
+                Duration.between(startedAt, LocalDateTime.now()).toSeconds());
+    }
+}
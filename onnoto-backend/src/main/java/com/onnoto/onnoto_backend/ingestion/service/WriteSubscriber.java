@@ -0,0 +1,69 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber that writes records as they arrive, requesting them a batch at a time so a
+ * provider can never get further ahead than one batch plus its publisher buffer.
+ */
+@Slf4j
+class WriteSubscriber<T> implements Flow.Subscriber<T> {
+
+    private final String name;
+    private final Consumer<T> writer;
+    private final int batchSize;
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    private int outstanding;
+    private long written;
+
+    WriteSubscriber(String name, Consumer<T> writer, int batchSize) {
+        this.name = name;
+        this.writer = writer;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Completes with the number of records handled once the provider has finished.
+     */
+    CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        outstanding = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(T item) {
+        try {
+            writer.accept(item);
+            written++;
+        } catch (RuntimeException e) {
+            log.error("Error writing record from {}: {}", name, e.getMessage());
+        }
+
+        if (--outstanding == 0) {
+            outstanding = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        completion.complete(written);
+    }
+}
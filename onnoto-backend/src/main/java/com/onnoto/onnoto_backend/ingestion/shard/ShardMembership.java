@@ -0,0 +1,174 @@
+package com.onnoto.onnoto_backend.ingestion.shard;
+
+import com.onnoto.onnoto_backend.repository.IngestionNodeRepository;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Splits status ingestion between the nodes of a cluster.
+ *
+ * Stations fall into a fixed number of shards by a hash of their id. Nodes register in
+ * ingestion_nodes and heartbeat there; every node reads the live members and assigns each shard
+ * to the member with the highest hash of (member, shard) - rendezvous hashing. All nodes reach
+ * the same assignment without coordinating, and when a node joins or leaves only the shards it
+ * gains or held move. Providers that can only report all their stations at once are assigned
+ * to one node the same way.
+ *
+ * Until the first heartbeat a node owns nothing. With sharding disabled it owns everything.
+ */
+@Slf4j
+@Component
+public class ShardMembership {
+
+    /**
+     * Live members and the shards of this node, replaced as a whole on change.
+     */
+    private record Assignment(List<String> nodes, BitSet owned, int version) {
+    }
+
+    private final IngestionNodeRepository ingestionNodeRepository;
+    private final JobLeaseService jobLeaseService;
+
+    @Value("${onnoto.ingestion.shards.enabled:false}")
+    private boolean enabled;
+
+    @Value("${onnoto.ingestion.shards.count:64}")
+    private int shardCount;
+
+    // A node that has not sent a heartbeat for this long has left
+    @Value("${onnoto.ingestion.shards.node-timeout:60s}")
+    private Duration nodeTimeout;
+
+    private volatile Assignment assignment = new Assignment(List.of(), new BitSet(), 0);
+
+    public ShardMembership(IngestionNodeRepository ingestionNodeRepository, JobLeaseService jobLeaseService) {
+        this.ingestionNodeRepository = ingestionNodeRepository;
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${onnoto.ingestion.shards.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ingestionNodeRepository.heartbeat(nodeId());
+            ingestionNodeRepository.deleteStale(nodeTimeout.toSeconds() * 10.0);
+            update(ingestionNodeRepository.findLiveNodeIds(nodeTimeout.toSeconds()));
+        } catch (DataAccessException e) {
+            // Keep the current assignment; other nodes take over our shards if this persists
+            log.warn("Shard membership heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ingestionNodeRepository.deleteById(nodeId());
+            log.info("Left the ingestion cluster; shards move to the remaining nodes");
+        } catch (DataAccessException e) {
+            log.warn("Could not leave the ingestion cluster, shards move after the node timeout: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute the shards of this node for the given live members.
+     */
+    void update(List<String> liveNodes) {
+        Assignment current = assignment;
+        List<String> nodes = liveNodes.stream().sorted().toList();
+        if (nodes.equals(current.nodes())) {
+            return;
+        }
+        String self = nodeId();
+        BitSet owned = new BitSet(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (self.equals(ownerOf("shard:" + shard, nodes))) {
+                owned.set(shard);
+            }
+        }
+        assignment = new Assignment(nodes, owned, current.version() + 1);
+        log.info("Ingestion shards rebalanced across {} nodes: this node owns {} of {} shards",
+                nodes.size(), owned.cardinality(), shardCount);
+    }
+
+    /**
+     * Whether this node ingests the status of a station.
+     */
+    public boolean ownsStation(String stationId) {
+        return !enabled || assignment.owned().get(shardOf(stationId, shardCount));
+    }
+
+    /**
+     * Whether this node fetches the statuses of a provider that cannot report single stations.
+     */
+    public boolean ownsProvider(String providerName) {
+        return !enabled || nodeId().equals(ownerOf("provider:" + providerName, assignment.nodes()));
+    }
+
+    /**
+     * Changes whenever the shards of this node change.
+     */
+    public int assignmentVersion() {
+        return assignment.version();
+    }
+
+    static int shardOf(String stationId, int shardCount) {
+        CRC32 crc = new CRC32();
+        crc.update(stationId.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    }
+
+    static String ownerOf(String key, List<String> nodes) {
+        String owner = null;
+        long best = Long.MIN_VALUE;
+        for (String node : nodes) {
+            long weight = weight(node, key);
+            if (owner == null || weight > best) {
+                owner = node;
+                best = weight;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 64-bit FNV-1a of node and key, finished with a murmur-style mix so that similar node
+     * names get unrelated weights.
+     */
+    private static long weight(String node, String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (node + '\n' + key).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private String nodeId() {
+        return jobLeaseService.getNodeId();
+    }
+}
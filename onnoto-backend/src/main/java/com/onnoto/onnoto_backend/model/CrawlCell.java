@@ -0,0 +1,44 @@
+package com.onnoto.onnoto_backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "crawl_cells")
+public class CrawlCell {
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String provider;
+
+    @Column(name = "cell_key", nullable = false)
+    private String cellKey;
+
+    @Column(nullable = false)
+    private Integer depth;
+
+    @Column(nullable = false)
+    private Boolean saturated = false;
+
+    @Column(name = "result_count")
+    private Integer resultCount;
+
+    @Column(name = "result_hash")
+    private String resultHash;
+
+    @Column(name = "unchanged_runs")
+    private Integer unchangedRuns = 0;
+
+    @Column(name = "last_crawled_at")
+    private LocalDateTime lastCrawledAt;
+
+    @Column(name = "next_crawl_at")
+    private LocalDateTime nextCrawlAt;
+}
@@ -0,0 +1,29 @@
+package com.onnoto.onnoto_backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "provider_sync_state")
+public class ProviderSyncState {
+    @Id
+    private String provider;
+
+    @Column(name = "last_sync_at")
+    private LocalDateTime lastSyncAt;
+
+    @Column(name = "last_full_sync_at")
+    private LocalDateTime lastFullSyncAt;
+
+    @Column(name = "last_sync_count")
+    private Integer lastSyncCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -2,6 +2,8 @@ package com.onnoto.onnoto_backend.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -17,12 +19,18 @@ public class Station {
     @Column(nullable = false)
     private String name;
 
-    @ManyToOne
+    // Resolved through ReferenceDataRegistry; left out of equals and toString so that an
+    // uninitialized proxy is never loaded by accident
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "operator_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Operator operator;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "network_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Network network;
 
     @Column(nullable = false)
@@ -47,6 +55,12 @@ public class Station {
     @Column(name = "reliability_score")
     private BigDecimal reliabilityScore;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "connector_hash", length = 64)
+    private String connectorHash;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,33 @@
+package com.onnoto.onnoto_backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "station_aliases")
+public class StationAlias {
+    @Id
+    @Column(name = "alias_id")
+    private String aliasId;
+
+    @Column(name = "canonical_id", nullable = false)
+    private String canonicalId;
+
+    @Column(nullable = false)
+    private String provider;
+
+    @Column(name = "distance_meters")
+    private Double distanceMeters;
+
+    @Column(name = "similarity")
+    private Double similarity;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,35 @@
+package com.onnoto.onnoto_backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A span of time a connector spent in one status. The connector's current status is the open
+ * interval, the one without an end.
+ */
+@Data
+@Entity
+@Table(name = "status_intervals")
+public class StatusInterval {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "connector_id", nullable = false)
+    private Connector connector;
+
+    @Column(name = "station_id", nullable = false)
+    private String stationId;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at")
+    private LocalDateTime endedAt;
+}
@@ -0,0 +1,33 @@
+package com.onnoto.onnoto_backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Status changes and seconds spent in one status by all connectors of a station within one day.
+ */
+@Data
+@Entity
+@Table(name = "status_rollup_daily")
+public class StatusRollupDaily {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "station_id", nullable = false)
+    private String stationId;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(nullable = false)
+    private int changes;
+
+    @Column(nullable = false)
+    private double seconds;
+}
@@ -0,0 +1,36 @@
+package com.onnoto.onnoto_backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status changes and seconds spent in one status by a connector within one hour.
+ */
+@Data
+@Entity
+@Table(name = "status_rollup_hourly")
+public class StatusRollupHourly {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "connector_id", nullable = false)
+    private Long connectorId;
+
+    @Column(name = "station_id", nullable = false)
+    private String stationId;
+
+    @Column(nullable = false)
+    private LocalDateTime bucket;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(nullable = false)
+    private int changes;
+
+    @Column(nullable = false)
+    private double seconds;
+}
@@ -1,6 +1,7 @@
 package com.onnoto.onnoto_backend.repository;
 
 import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Network;
 import com.onnoto.onnoto_backend.model.Station;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -19,6 +20,10 @@ public interface ConnectorRepository extends JpaRepository<Connector, Long> {
 
     List<Connector> findByStationAndStatus(Station station, String status);
 
+    // All connectors of a network with their stations, in one query instead of one per station
+    @Query("SELECT c FROM Connector c JOIN FETCH c.station s WHERE s.network = :network ORDER BY s.id, c.id")
+    List<Connector> findByNetworkWithStation(@Param("network") Network network);
+
     // Add efficient count methods
     @Query("SELECT COUNT(c) FROM Connector c WHERE c.station.id = :stationId")
     int countByStationId(@Param("stationId") String stationId);
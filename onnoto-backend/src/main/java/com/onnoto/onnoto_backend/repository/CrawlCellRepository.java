@@ -0,0 +1,12 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.model.CrawlCell;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CrawlCellRepository extends JpaRepository<CrawlCell, String> {
+    List<CrawlCell> findByProvider(String provider);
+}
@@ -4,6 +4,7 @@ import com.onnoto.onnoto_backend.model.AnonymousUser;
 import com.onnoto.onnoto_backend.model.FavoriteStation;
 import com.onnoto.onnoto_backend.model.Station;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +17,7 @@ public interface FavoriteStationRepository extends JpaRepository<FavoriteStation
     Optional<FavoriteStation> findByUserAndStation(AnonymousUser user, Station station);
 
     void deleteByUserAndStation(AnonymousUser user, Station station);
+
+    @Query("SELECT DISTINCT f.station.id FROM FavoriteStation f")
+    List<String> findFavoritedStationIds();
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.model.IngestionNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Members of the ingestion cluster. Heartbeats use the database clock, like job leases.
+ */
+@Repository
+public interface IngestionNodeRepository extends JpaRepository<IngestionNode, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO ingestion_nodes (node_id, joined_at, heartbeat_at) VALUES (:node, now(), now()) " +
+            "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now()",
+            nativeQuery = true)
+    int heartbeat(@Param("node") String nodeId);
+
+    @Query(value = "SELECT node_id FROM ingestion_nodes " +
+            "WHERE heartbeat_at > now() - make_interval(secs => :timeout) ORDER BY node_id",
+            nativeQuery = true)
+    List<String> findLiveNodeIds(@Param("timeout") double timeoutSeconds);
+
+    /**
+     * Remove nodes that stopped without leaving.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM ingestion_nodes WHERE heartbeat_at < now() - make_interval(secs => :age)",
+            nativeQuery = true)
+    int deleteStale(@Param("age") double ageSeconds);
+}
@@ -0,0 +1,62 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Job leases. Times are taken from the database clock, so nodes with skewed clocks agree on
+ * whether a lease has expired.
+ */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Take the lease of a job if it is free, expired or already held by the holder.
+     *
+     * @return 1 if the holder now holds the lease, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO job_leases (job_name, holder, acquired_at, heartbeat_at, expires_at) " +
+            "VALUES (:job, :holder, now(), now(), now() + make_interval(secs => :seconds)) " +
+            "ON CONFLICT (job_name) DO UPDATE SET " +
+            "holder = EXCLUDED.holder, " +
+            "acquired_at = CASE WHEN job_leases.holder = EXCLUDED.holder AND job_leases.expires_at > now() " +
+            "THEN job_leases.acquired_at ELSE EXCLUDED.acquired_at END, " +
+            "heartbeat_at = EXCLUDED.heartbeat_at, " +
+            "expires_at = EXCLUDED.expires_at " +
+            "WHERE job_leases.expires_at <= now() OR job_leases.holder = EXCLUDED.holder",
+            nativeQuery = true)
+    int tryAcquire(@Param("job") String job, @Param("holder") String holder, @Param("seconds") double seconds);
+
+    /**
+     * Extend a lease still held by the holder.
+     *
+     * @return 1 if extended, 0 if the lease has passed to another holder
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE job_leases SET heartbeat_at = now(), expires_at = now() + make_interval(secs => :seconds) " +
+            "WHERE job_name = :job AND holder = :holder",
+            nativeQuery = true)
+    int renew(@Param("job") String job, @Param("holder") String holder, @Param("seconds") double seconds);
+
+    /**
+     * Record the end of a run. The lease stays taken until minimum-hold seconds after it was
+     * acquired, so nodes whose schedule fires moments later skip the period.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE job_leases SET " +
+            "expires_at = GREATEST(now(), acquired_at + make_interval(secs => :minimumHold)), " +
+            "last_completed_at = now(), last_result = :result " +
+            "WHERE job_name = :job AND holder = :holder",
+            nativeQuery = true)
+    int release(@Param("job") String job, @Param("holder") String holder,
+                @Param("minimumHold") double minimumHold, @Param("result") String result);
+}
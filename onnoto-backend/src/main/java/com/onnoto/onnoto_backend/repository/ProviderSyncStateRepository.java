@@ -0,0 +1,9 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.model.ProviderSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProviderSyncStateRepository extends JpaRepository<ProviderSyncState, String> {
+}
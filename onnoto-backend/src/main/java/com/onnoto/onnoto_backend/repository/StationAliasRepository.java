@@ -0,0 +1,12 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.model.StationAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StationAliasRepository extends JpaRepository<StationAlias, String> {
+    List<StationAlias> findByCanonicalId(String canonicalId);
+}
@@ -4,10 +4,14 @@ import com.onnoto.onnoto_backend.model.Network;
 import com.onnoto.onnoto_backend.model.Operator;
 import com.onnoto.onnoto_backend.model.Station;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,6 +22,12 @@ public interface StationRepository extends JpaRepository<Station, String> {
 
     List<Station> findByOperator(Operator operator);
 
+    /**
+     * All stations except those that duplicate another provider's station
+     */
+    @Query("SELECT s FROM Station s WHERE NOT EXISTS (SELECT 1 FROM StationAlias a WHERE a.aliasId = s.id)")
+    List<Station> findAllCanonical();
+
     /**
      * Find stations within a specified radius of a point
      * Using geography type for accurate distance calculations
@@ -28,7 +38,8 @@ public interface StationRepository extends JpaRepository<Station, String> {
             "WHERE ST_DWithin(" +
             "   ST_SetSRID(ST_MakePoint(s.longitude, s.latitude), 4326), " +
             "   ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326), " +
-            "   :radius, false)",
+            "   :radius, false) " +
+            "AND NOT EXISTS (SELECT 1 FROM station_aliases a WHERE a.alias_id = s.id)",
             nativeQuery = true)
     List<Station> findNearbyStations(
             @Param("longitude") double longitude,
@@ -42,4 +53,12 @@ public interface StationRepository extends JpaRepository<Station, String> {
             "FROM Station s WHERE s.reliabilityScore IS NOT NULL " +
             "GROUP BY s.network.id, s.network.name ORDER BY AVG(s.reliabilityScore) DESC")
     List<Object[]> getAverageReliabilityByNetwork();
+
+    @Query("SELECT s.id FROM Station s WHERE s.id LIKE CONCAT(:prefix, '%')")
+    List<String> findIdsByIdPrefix(@Param("prefix") String prefix);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Station s SET s.lastStatusUpdate = :updatedAt WHERE s.id IN :ids")
+    int updateLastStatusUpdate(@Param("ids") Collection<String> ids, @Param("updatedAt") LocalDateTime updatedAt);
 }
\ No newline at end of file
@@ -17,6 +17,10 @@ public interface StatusHistoryRepository extends JpaRepository<StatusHistory, Lo
 
     List<StatusHistory> findByConnector(Connector connector);
 
+    boolean existsByConnector(Connector connector);
+
+    boolean existsByConnectorAndRecordedAt(Connector connector, LocalDateTime recordedAt);
+
     List<StatusHistory> findByStationAndRecordedAtBetween(
             Station station,
             LocalDateTime startDate,
@@ -46,6 +50,19 @@ public interface StatusHistoryRepository extends JpaRepository<StatusHistory, Lo
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
+    interface StationChangeCountDto {
+        String getStationId();
+        long getChanges();
+    }
+
+    /**
+     * Status changes per station since a point in time. Only changes are recorded, so this is
+     * the number of history rows.
+     */
+    @Query("SELECT sh.station.id as stationId, COUNT(sh) as changes FROM StatusHistory sh " +
+            "WHERE sh.recordedAt >= :since GROUP BY sh.station.id")
+    List<StationChangeCountDto> countChangesByStationSince(@Param("since") LocalDateTime since);
+
     @Query(value = "SELECT COUNT(*) FROM (" +
             "SELECT status, LAG(status) OVER (ORDER BY recorded_at) as prev_status " +
             "FROM status_history " +
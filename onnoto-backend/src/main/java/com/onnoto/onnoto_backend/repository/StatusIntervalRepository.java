@@ -0,0 +1,26 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.StatusInterval;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StatusIntervalRepository extends JpaRepository<StatusInterval, Long> {
+
+    /**
+     * The interval of a connector that contains a point in time, open intervals included.
+     */
+    @Query("SELECT si FROM StatusInterval si WHERE si.connector = :connector AND si.startedAt <= :at " +
+            "AND (si.endedAt IS NULL OR si.endedAt > :at) ORDER BY si.startedAt DESC")
+    List<StatusInterval> findCovering(@Param("connector") Connector connector, @Param("at") LocalDateTime at);
+
+    Optional<StatusInterval> findFirstByConnectorAndStartedAtAfterOrderByStartedAtAsc(
+            Connector connector, LocalDateTime after);
+}
@@ -0,0 +1,34 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.model.StatusRollupDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StatusRollupDailyRepository extends JpaRepository<StatusRollupDaily, Long> {
+
+    List<StatusRollupDaily> findByStationIdAndDayBetween(String stationId, LocalDate startDay, LocalDate endDay);
+
+    interface StatusTotalsDto {
+        String getStatus();
+        double getSeconds();
+        long getChanges();
+    }
+
+    /**
+     * Seconds in each status and status changes of a station's connectors over whole days.
+     */
+    @Query("SELECT d.status AS status, SUM(d.seconds) AS seconds, SUM(d.changes) AS changes " +
+            "FROM StatusRollupDaily d " +
+            "WHERE d.stationId = :stationId AND d.day BETWEEN :startDay AND :endDay " +
+            "GROUP BY d.status")
+    List<StatusTotalsDto> sumByStation(
+            @Param("stationId") String stationId,
+            @Param("startDay") LocalDate startDay,
+            @Param("endDay") LocalDate endDay);
+}
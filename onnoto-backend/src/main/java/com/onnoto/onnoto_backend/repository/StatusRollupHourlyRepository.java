@@ -0,0 +1,33 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.model.StatusRollupHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StatusRollupHourlyRepository extends JpaRepository<StatusRollupHourly, Long> {
+
+    interface DayOfWeekCountDto {
+        int getDayOfWeek();
+        String getStatus();
+        long getChanges();
+    }
+
+    /**
+     * Status changes of a connector per ISO day of week (1 = Monday) and status.
+     */
+    @Query(value = "SELECT CAST(EXTRACT(ISODOW FROM bucket) AS INTEGER) AS \"dayOfWeek\", status, " +
+            "SUM(changes) AS changes " +
+            "FROM status_rollup_hourly " +
+            "WHERE connector_id = :connectorId AND bucket >= :from AND bucket < :to " +
+            "GROUP BY 1, 2", nativeQuery = true)
+    List<DayOfWeekCountDto> countChangesByDayOfWeek(
+            @Param("connectorId") Long connectorId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+}
@@ -27,6 +27,7 @@ public class AnomalyService {
 
     private final AnomalyRepository anomalyRepository;
     private final StationRepository stationRepository;
+    private final ReferenceDataRegistry referenceData;
 
     @Cacheable(value = "anomalies")
     @Transactional(readOnly = true)
@@ -121,7 +122,7 @@ public class AnomalyService {
             Map<String, Object> item = new HashMap<>();
             item.put("stationId", station.getId());
             item.put("stationName", station.getName());
-            item.put("networkName", station.getNetwork() != null ? station.getNetwork().getName() : null);
+            item.put("networkName", referenceData.networkName(station));
             item.put("anomalyCount", count);
 
             response.add(item);
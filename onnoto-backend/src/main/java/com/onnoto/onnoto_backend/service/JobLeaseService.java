@@ -0,0 +1,173 @@
+package com.onnoto.onnoto_backend.service;
+
+import com.onnoto.onnoto_backend.model.JobLease;
+import com.onnoto.onnoto_backend.repository.JobLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs scheduled jobs on one node of a cluster, using lease rows in job_leases.
+ *
+ * A node runs a job only if it can take the job's lease. While the job runs, the lease is
+ * renewed every heartbeat-interval; a node that dies stops renewing, and its lease expires after
+ * lease-time so another node can take over. When a run ends, the lease is kept until
+ * minimum-hold after it was taken: every node's schedule fires for the same period, and the
+ * nodes that fire a moment later must find the lease still taken.
+ */
+@Slf4j
+@Service
+public class JobLeaseService {
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${onnoto.scheduling.leases.enabled:true}")
+    private boolean enabled;
+
+    @Value("${onnoto.scheduling.lease-time:5m}")
+    private Duration leaseTime;
+
+    @Value("${onnoto.scheduling.heartbeat-interval:1m}")
+    private Duration heartbeatInterval;
+
+    @Value("${onnoto.scheduling.node-id:}")
+    private String nodeId;
+
+    public JobLeaseService(JobLeaseRepository jobLeaseRepository) {
+        this.jobLeaseRepository = jobLeaseRepository;
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * This node's name in job_leases: onnoto.scheduling.node-id, or pid@host.
+     */
+    public String getNodeId() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        return nodeId;
+    }
+
+    /**
+     * Run a job unless another node holds its lease.
+     *
+     * @return true if the job ran here
+     */
+    public boolean runExclusively(String job, Duration minimumHold, Runnable task) {
+        return runExclusivelyAsync(job, minimumHold, () -> {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Run a job that completes asynchronously unless another node holds its lease. The lease is
+     * held until the returned future completes.
+     *
+     * @return true if the job started here
+     */
+    public boolean runExclusivelyAsync(String job, Duration minimumHold, Supplier<CompletableFuture<?>> task) {
+        if (!enabled) {
+            task.get();
+            return true;
+        }
+        if (!acquire(job)) {
+            log.info("Skipping job {}: lease held by another node", job);
+            return false;
+        }
+
+        String holder = getNodeId();
+        long heartbeatMs = heartbeatInterval.toMillis();
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> renew(job, holder),
+                heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<?> run;
+        try {
+            run = task.get();
+        } catch (RuntimeException e) {
+            heartbeat.cancel(false);
+            release(job, holder, minimumHold, "FAILED: " + e.getMessage());
+            throw e;
+        }
+        run.whenComplete((result, error) -> {
+            heartbeat.cancel(false);
+            release(job, holder, minimumHold, error == null ? "COMPLETED" : "FAILED: " + error.getMessage());
+        });
+        return true;
+    }
+
+    /**
+     * Take or keep the lease of a job that one node runs continuously. Call at least once per
+     * lease-time; if this node stops calling, another node takes over once the lease expires.
+     *
+     * @return true if this node holds the lease
+     */
+    public boolean holdLeadership(String job) {
+        return !enabled || acquire(job);
+    }
+
+    /**
+     * All leases, for operators to see which node runs what.
+     */
+    public List<JobLease> leases() {
+        return jobLeaseRepository.findAll();
+    }
+
+    private boolean acquire(String job) {
+        try {
+            return jobLeaseRepository.tryAcquire(job, getNodeId(), seconds(leaseTime)) > 0;
+        } catch (DataAccessException e) {
+            log.warn("Could not take the lease of job {}: {}", job, e.getMessage());
+            return false;
+        }
+    }
+
+    private void renew(String job, String holder) {
+        try {
+            if (jobLeaseRepository.renew(job, holder, seconds(leaseTime)) == 0) {
+                log.warn("Lease of job {} was taken over by another node while running here", job);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not renew the lease of job {}: {}", job, e.getMessage());
+        }
+    }
+
+    private void release(String job, String holder, Duration minimumHold, String result) {
+        try {
+            jobLeaseRepository.release(job, holder, seconds(minimumHold),
+                    result.length() > 255 ? result.substring(0, 255) : result);
+        } catch (DataAccessException e) {
+            // The lease expires on its own
+            log.warn("Could not release the lease of job {}: {}", job, e.getMessage());
+        }
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,149 @@
+package com.onnoto.onnoto_backend.service;
+
+import com.onnoto.onnoto_backend.model.Network;
+import com.onnoto.onnoto_backend.model.Operator;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.NetworkRepository;
+import com.onnoto.onnoto_backend.repository.OperatorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory copy of the networks and operators tables.
+ *
+ * Both tables are loaded on first use and reloaded every refresh-interval-ms; lookups that miss
+ * read through to the database, and rows created through the registry are added at once.
+ * Station's network and operator are lazy associations, so providers and response converters
+ * resolve them here instead of joining or selecting them per station. Both entities are also in
+ * Hibernate's second-level cache, so lookups by id and lazy associations that miss the registry
+ * are served without a query as well.
+ */
+@Slf4j
+@Component
+public class ReferenceDataRegistry {
+
+    private final NetworkRepository networkRepository;
+    private final OperatorRepository operatorRepository;
+
+    private final Map<String, Network> networks = new ConcurrentHashMap<>();
+    private final Map<String, Operator> operators = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public ReferenceDataRegistry(NetworkRepository networkRepository, OperatorRepository operatorRepository) {
+        this.networkRepository = networkRepository;
+        this.operatorRepository = operatorRepository;
+    }
+
+    /**
+     * Reload both tables, picking up rows changed outside this node.
+     */
+    @Scheduled(fixedDelayString = "${onnoto.reference-data.refresh-interval-ms:600000}",
+            initialDelayString = "${onnoto.reference-data.refresh-interval-ms:600000}")
+    public synchronized void refresh() {
+        try {
+            Map<String, Network> loadedNetworks = new ConcurrentHashMap<>();
+            networkRepository.findAll().forEach(network -> loadedNetworks.put(network.getId(), network));
+            Map<String, Operator> loadedOperators = new ConcurrentHashMap<>();
+            operatorRepository.findAll().forEach(operator -> loadedOperators.put(operator.getId(), operator));
+
+            networks.keySet().retainAll(loadedNetworks.keySet());
+            networks.putAll(loadedNetworks);
+            operators.keySet().retainAll(loadedOperators.keySet());
+            operators.putAll(loadedOperators);
+            loaded = true;
+            log.debug("Loaded {} networks and {} operators", networks.size(), operators.size());
+        } catch (Exception e) {
+            log.error("Error loading networks and operators: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    refresh();
+                }
+            }
+        }
+    }
+
+    public Optional<Network> findNetwork(String id) {
+        ensureLoaded();
+        Network network = networks.get(id);
+        if (network == null) {
+            network = networkRepository.findById(id).orElse(null);
+            if (network != null) {
+                networks.put(id, network);
+            }
+        }
+        return Optional.ofNullable(network);
+    }
+
+    /**
+     * The network with this id, saving the one from factory if there is none yet.
+     */
+    public Network getOrCreateNetwork(String id, Supplier<Network> factory) {
+        return findNetwork(id).orElseGet(() -> {
+            Network network = networkRepository.save(factory.get());
+            networks.put(network.getId(), network);
+            return network;
+        });
+    }
+
+    public Optional<Operator> findOperator(String id) {
+        ensureLoaded();
+        Operator operator = operators.get(id);
+        if (operator == null) {
+            operator = operatorRepository.findById(id).orElse(null);
+            if (operator != null) {
+                operators.put(id, operator);
+            }
+        }
+        return Optional.ofNullable(operator);
+    }
+
+    /**
+     * The operator with this id, saving the one from factory if there is none yet.
+     */
+    public Operator getOrCreateOperator(String id, Supplier<Operator> factory) {
+        return findOperator(id).orElseGet(() -> {
+            Operator operator = operatorRepository.save(factory.get());
+            operators.put(operator.getId(), operator);
+            return operator;
+        });
+    }
+
+    /**
+     * The loaded network behind a station's network reference, without initializing the
+     * reference if it is still a lazy proxy.
+     */
+    public Network network(Network reference) {
+        if (reference == null || Hibernate.isInitialized(reference)) {
+            return reference;
+        }
+        return findNetwork(reference.getId()).orElse(null);
+    }
+
+    /**
+     * The loaded operator behind a station's operator reference, without initializing the
+     * reference if it is still a lazy proxy.
+     */
+    public Operator operator(Operator reference) {
+        if (reference == null || Hibernate.isInitialized(reference)) {
+            return reference;
+        }
+        return findOperator(reference.getId()).orElse(null);
+    }
+
+    public String networkName(Station station) {
+        Network network = network(station.getNetwork());
+        return network != null ? network.getName() : null;
+    }
+}
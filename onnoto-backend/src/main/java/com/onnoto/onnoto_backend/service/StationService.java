@@ -6,6 +6,8 @@ import com.onnoto.onnoto_backend.dto.response.ConnectorResponse;
 import com.onnoto.onnoto_backend.dto.response.StationDetailResponse;
 import com.onnoto.onnoto_backend.dto.response.StationResponse;
 import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Network;
+import com.onnoto.onnoto_backend.model.Operator;
 import com.onnoto.onnoto_backend.model.Station;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
@@ -27,6 +29,7 @@ public class StationService {
     private final StationRepository stationRepository;
     private final ConnectorRepository connectorRepository;
     private final ReliabilityService reliabilityService;
+    private final ReferenceDataRegistry referenceData;
 
     /**
      * Get all stations with basic information
@@ -35,7 +38,7 @@ public class StationService {
     @Transactional(readOnly = true)
     public List<StationResponse> getAllStations() {
         log.debug("Fetching all stations from database");
-        return stationRepository.findAll().stream()
+        return stationRepository.findAllCanonical().stream()
                 .map(this::convertToStationResponse)
                 .collect(Collectors.toList());
     }
@@ -60,7 +63,7 @@ public class StationService {
         log.debug("Filtering stations with criteria: {}", request);
         // This would be implemented with a custom query
         // For now, we'll use a basic implementation
-        List<Station> stations = stationRepository.findAll();
+        List<Station> stations = stationRepository.findAllCanonical();
 
         // Apply filters
         if (request.getCity() != null) {
@@ -117,12 +120,14 @@ public class StationService {
         response.setId(station.getId());
         response.setName(station.getName());
 
-        if (station.getNetwork() != null) {
-            response.setNetworkName(station.getNetwork().getName());
+        Network network = referenceData.network(station.getNetwork());
+        if (network != null) {
+            response.setNetworkName(network.getName());
         }
 
-        if (station.getOperator() != null) {
-            response.setOperatorName(station.getOperator().getName());
+        Operator operator = referenceData.operator(station.getOperator());
+        if (operator != null) {
+            response.setOperatorName(operator.getName());
         }
 
         response.setLatitude(station.getLatitude());
@@ -152,14 +157,16 @@ public class StationService {
         response.setId(station.getId());
         response.setName(station.getName());
 
-        if (station.getNetwork() != null) {
-            response.setNetworkName(station.getNetwork().getName());
-            response.setNetworkId(station.getNetwork().getId());
+        Network network = referenceData.network(station.getNetwork());
+        if (network != null) {
+            response.setNetworkName(network.getName());
+            response.setNetworkId(network.getId());
         }
 
-        if (station.getOperator() != null) {
-            response.setOperatorName(station.getOperator().getName());
-            response.setOperatorId(station.getOperator().getId());
+        Operator operator = referenceData.operator(station.getOperator());
+        if (operator != null) {
+            response.setOperatorName(operator.getName());
+            response.setOperatorId(operator.getId());
         }
 
         response.setLatitude(station.getLatitude());
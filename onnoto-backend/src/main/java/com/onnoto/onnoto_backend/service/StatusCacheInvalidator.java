@@ -0,0 +1,90 @@
+package com.onnoto.onnoto_backend.service;
+
+import com.onnoto.onnoto_backend.events.StatusChangeEvent;
+import com.onnoto.onnoto_backend.events.StatusEventSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Evicts cached responses that show a connector's status as soon as the status changes.
+ *
+ * Station details and connector lists are evicted per station, once per batch of events. The
+ * station list caches hold availability counts for many stations at once, so they are cleared as
+ * a whole, at most once per list-eviction-interval.
+ */
+@Slf4j
+@Component
+public class StatusCacheInvalidator implements StatusEventSubscriber {
+
+    private final CacheManager cacheManager;
+
+    @Value("${onnoto.events.cache.list-eviction-interval-ms:30000}")
+    private long listEvictionIntervalMs;
+
+    // Only the bus thread of this subscriber touches these
+    private final Set<String> stationIds = new HashSet<>();
+    private final Set<Long> connectorIds = new HashSet<>();
+    private long listsEvictedAt;
+    private boolean listsStale;
+
+    public StatusCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getSubscriberName() {
+        return "cache";
+    }
+
+    @Override
+    public void onEvent(StatusChangeEvent event, boolean endOfBatch) {
+        stationIds.add(event.getStationId());
+        if (event.getConnectorId() != null) {
+            connectorIds.add(event.getConnectorId());
+        }
+        listsStale = true;
+        if (endOfBatch) {
+            flush(System.currentTimeMillis());
+        }
+    }
+
+    void flush(long now) {
+        Cache details = cacheManager.getCache("stationDetails");
+        Cache connectors = cacheManager.getCache("connectors");
+        for (String stationId : stationIds) {
+            evict(details, stationId);
+            evict(connectors, stationId);
+        }
+        for (Long connectorId : connectorIds) {
+            evict(connectors, "id-" + connectorId);
+        }
+        log.debug("Evicted cached status of {} stations", stationIds.size());
+        stationIds.clear();
+        connectorIds.clear();
+
+        if (listsStale && now - listsEvictedAt >= listEvictionIntervalMs) {
+            clear(cacheManager.getCache("stations"));
+            clear(cacheManager.getCache("nearbyStations"));
+            listsEvictedAt = now;
+            listsStale = false;
+        }
+    }
+
+    private static void evict(Cache cache, Object key) {
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    private static void clear(Cache cache) {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
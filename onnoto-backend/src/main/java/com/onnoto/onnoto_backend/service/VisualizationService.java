@@ -1,8 +1,10 @@
 package com.onnoto.onnoto_backend.service;
 
+import com.onnoto.onnoto_backend.db.archive.ArchivedStatus;
+import com.onnoto.onnoto_backend.db.archive.StatusHistoryReader;
 import com.onnoto.onnoto_backend.model.Anomaly;
 import com.onnoto.onnoto_backend.model.Station;
-import com.onnoto.onnoto_backend.model.StatusHistory;
+import com.onnoto.onnoto_backend.model.StatusRollupDaily;
 import com.onnoto.onnoto_backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
@@ -24,9 +26,11 @@ public class VisualizationService {
 
     private final StationRepository stationRepository;
     private final NetworkRepository networkRepository;
-    private final StatusHistoryRepository statusHistoryRepository;
+    private final StatusRollupDailyRepository statusRollupDailyRepository;
     private final ReliabilityMetricRepository reliabilityMetricRepository;
     private final AnomalyRepository anomalyRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final StatusHistoryReader statusHistoryReader;
 
     /**
      * Get reliability score distribution for visualization
@@ -124,30 +128,44 @@ public class VisualizationService {
         log.debug("Generating status history for station: {} from {} to {}",
                 stationId, startDate, endDate);
 
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-
         Optional<Station> stationOpt = stationRepository.findById(stationId);
         if (stationOpt.isEmpty()) {
             return Map.of("error", "Station not found");
         }
 
         Station station = stationOpt.get();
-        List<StatusHistory> history = statusHistoryRepository.findByStationAndRecordedAtBetween(
-                station, startDateTime, endDateTime);
+        // Status changes per day and status, from the daily rollups
+        List<StatusRollupDaily> rollups = statusRollupDailyRepository.findByStationIdAndDayBetween(
+                stationId, startDate, endDate);
 
         // Group by date and status
         Map<LocalDate, Map<String, Integer>> dailyStatusCounts = new HashMap<>();
         DateTimeFormatter dateFormatter = DateTimeFormatter.ISO_DATE;
 
-        for (StatusHistory record : history) {
-            LocalDate recordDate = record.getRecordedAt().toLocalDate();
-            String status = record.getStatus();
+        // Archived months have left status_history, so their changes are counted from the archive
+        NavigableSet<YearMonth> archivedMonths = statusHistoryReader.archivedMonths()
+                .subSet(YearMonth.from(startDate), true, YearMonth.from(endDate), true);
 
-            dailyStatusCounts.putIfAbsent(recordDate, new HashMap<>());
-            Map<String, Integer> dayCounts = dailyStatusCounts.get(recordDate);
+        for (StatusRollupDaily rollup : rollups) {
+            if (archivedMonths.contains(YearMonth.from(rollup.getDay()))) {
+                continue;
+            }
+            dailyStatusCounts.computeIfAbsent(rollup.getDay(), day -> new HashMap<>())
+                    .put(rollup.getStatus(), rollup.getChanges());
+        }
 
-            dayCounts.put(status, dayCounts.getOrDefault(status, 0) + 1);
+        if (!archivedMonths.isEmpty()) {
+            LocalDate firstDay = archivedMonths.first().atDay(1);
+            LocalDate lastDay = archivedMonths.last().atEndOfMonth();
+            LocalDateTime from = (startDate.isAfter(firstDay) ? startDate : firstDay).atStartOfDay();
+            LocalDateTime to = (endDate.isBefore(lastDay) ? endDate : lastDay).plusDays(1).atStartOfDay();
+            for (ArchivedStatus row : statusHistoryReader.findByStationAndRecordedAtBetween(stationId, from, to)) {
+                LocalDate day = row.recordedAt().toLocalDate();
+                // Same rows as the rollups count: those of a connector, in an archived month
+                if (row.connectorId() != null && archivedMonths.contains(YearMonth.from(day))) {
+                    dailyStatusCounts.computeIfAbsent(day, d -> new HashMap<>()).merge(row.status(), 1, Integer::sum);
+                }
+            }
         }
 
         // Format for chart display
@@ -186,7 +204,7 @@ public class VisualizationService {
         result.put("station", Map.of(
                 "id", station.getId(),
                 "name", station.getName(),
-                "network", station.getNetwork() != null ? station.getNetwork().getName() : null
+                "network", referenceData.networkName(station)
         ));
         result.put("dates", dates);
         result.put("series", series);
@@ -401,7 +419,7 @@ public class VisualizationService {
         result.put("station", Map.of(
                 "id", station.getId(),
                 "name", station.getName(),
-                "network", station.getNetwork() != null ? station.getNetwork().getName() : null
+                "network", referenceData.networkName(station)
         ));
 
         // Format hourly data
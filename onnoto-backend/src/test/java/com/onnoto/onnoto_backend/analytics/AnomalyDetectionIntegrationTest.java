@@ -45,6 +45,9 @@ public class AnomalyDetectionIntegrationTest {
         // General test properties
         registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
         registry.add("spring.flyway.enabled", () -> "false");
+
+        // History is saved through the repository, bypassing the status events the in-memory store follows
+        registry.add("onnoto.analytics.recent-history.enabled", () -> "false");
     }
 
     @Autowired
@@ -1,22 +1,28 @@
 package com.onnoto.onnoto_backend.analytics;
 
 import com.onnoto.onnoto_backend.analytics.service.ReliabilityCalculator;
+import com.onnoto.onnoto_backend.model.ReliabilityMetric;
 import com.onnoto.onnoto_backend.model.Station;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
 import com.onnoto.onnoto_backend.repository.ReliabilityMetricRepository;
 import com.onnoto.onnoto_backend.repository.ReportRepository;
-import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusRollupDailyRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -33,15 +39,15 @@ public class ReliabilityCalculatorTest {
     @Mock
     private ConnectorRepository connectorRepository;
 
-    @Mock
-    private StatusHistoryRepository statusHistoryRepository;
-
     @Mock
     private ReportRepository reportRepository;
 
     @Mock
     private ReliabilityMetricRepository reliabilityMetricRepository;
 
+    @Mock
+    private StatusRollupDailyRepository statusRollupDailyRepository;
+
     private ReliabilityCalculator calculator;
 
     @BeforeEach
@@ -49,9 +55,9 @@ public class ReliabilityCalculatorTest {
         calculator = new ReliabilityCalculator(
                 stationRepository,
                 connectorRepository,
-                statusHistoryRepository,
                 reportRepository,
-                reliabilityMetricRepository);
+                reliabilityMetricRepository,
+                statusRollupDailyRepository);
     }
 
     @Test
@@ -63,26 +69,17 @@ public class ReliabilityCalculatorTest {
         Station station2 = new Station();
         station2.setId("station2");
 
-        when(stationRepository.findAll()).thenReturn(Arrays.asList(station1, station2));
-
-        // Mock status counts for station1
-        StatusHistoryRepository.StatusCountDto availableDto1 = createStatusCountDto("AVAILABLE", 80);
-        StatusHistoryRepository.StatusCountDto offlineDto1 = createStatusCountDto("OFFLINE", 20);
-        when(statusHistoryRepository.countStatusesByStation(
-                eq("station1"), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(Arrays.asList(availableDto1, offlineDto1));
+        when(stationRepository.findAllCanonical()).thenReturn(Arrays.asList(station1, station2));
 
-        // Mock status counts for station2
-        StatusHistoryRepository.StatusCountDto availableDto2 = createStatusCountDto("AVAILABLE", 90);
-        StatusHistoryRepository.StatusCountDto offlineDto2 = createStatusCountDto("OFFLINE", 10);
-        when(statusHistoryRepository.countStatusesByStation(
-                eq("station2"), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(Arrays.asList(availableDto2, offlineDto2));
+        // Mock status totals for station1
+        when(statusRollupDailyRepository.sumByStation(
+                eq("station1"), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Arrays.asList(totals("AVAILABLE", 80 * 3600, 3), totals("OFFLINE", 20 * 3600, 2)));
 
-        // Mock transition counts
-        when(statusHistoryRepository.countStatusTransitions(
-                anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(5L);
+        // Mock status totals for station2
+        when(statusRollupDailyRepository.sumByStation(
+                eq("station2"), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Arrays.asList(totals("AVAILABLE", 90 * 3600, 3), totals("OFFLINE", 10 * 3600, 2)));
 
         // Mock report counts
         when(reportRepository.countByStationIdAndDateRange(
@@ -104,17 +101,45 @@ public class ReliabilityCalculatorTest {
         verify(reliabilityMetricRepository, times(2)).save(any());
     }
 
-    private StatusHistoryRepository.StatusCountDto createStatusCountDto(String status, int count) {
-        return new StatusHistoryRepository.StatusCountDto() {
+    @Test
+    void shouldWeightUptimeByTimeInStatus() {
+        Station station = new Station();
+        station.setId("station1");
+
+        // Many short OFFLINE blips, but most of the time available or charging
+        when(statusRollupDailyRepository.sumByStation(
+                eq("station1"), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of(
+                        totals("AVAILABLE", 20 * 3600, 10),
+                        totals("OCCUPIED", 7 * 3600, 10),
+                        totals("OFFLINE", 3 * 3600, 30),
+                        totals("UNKNOWN", 50 * 3600, 1)));
+        when(reliabilityMetricRepository.findByStation(station)).thenReturn(Optional.empty());
+
+        calculator.calculateStationReliability(station);
+
+        ArgumentCaptor<ReliabilityMetric> metric = ArgumentCaptor.forClass(ReliabilityMetric.class);
+        verify(reliabilityMetricRepository).save(metric.capture());
+        assertEquals(new BigDecimal("90.00"), metric.getValue().getUptimePercentage());
+        assertEquals(51, metric.getValue().getSampleSize());
+    }
+
+    private StatusRollupDailyRepository.StatusTotalsDto totals(String status, double seconds, long changes) {
+        return new StatusRollupDailyRepository.StatusTotalsDto() {
             @Override
             public String getStatus() {
                 return status;
             }
 
             @Override
-            public int getCount() {
-                return count;
+            public double getSeconds() {
+                return seconds;
+            }
+
+            @Override
+            public long getChanges() {
+                return changes;
             }
         };
     }
-}
\ No newline at end of file
+}
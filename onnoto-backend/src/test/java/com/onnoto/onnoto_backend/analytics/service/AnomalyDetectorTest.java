@@ -69,7 +69,7 @@ public class AnomalyDetectorTest {
     void detectAnomaliesShouldRunAllDetectorsForAllStations() {
         // Given
         List<Station> stations = Arrays.asList(testStation1, testStation2);
-        when(stationRepository.findAll()).thenReturn(stations);
+        when(stationRepository.findAllCanonical()).thenReturn(stations);
 
         // Configure the detectors to return different numbers of anomalies
         when(statusFlappingDetector.detect(testStation1)).thenReturn(1);
@@ -86,7 +86,7 @@ public class AnomalyDetectorTest {
         anomalyDetector.detectAnomalies();
 
         // Then
-        verify(stationRepository).findAll();
+        verify(stationRepository).findAllCanonical();
 
         // Verify each detector was called for each station
         verify(statusFlappingDetector).detect(testStation1);
@@ -0,0 +1,130 @@
+package com.onnoto.onnoto_backend.analytics.service;
+
+import com.onnoto.onnoto_backend.events.StatusChangeEvent;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import com.onnoto.onnoto_backend.model.Anomaly;
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.AnomalyRepository;
+import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RecentStatusStoreTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 12, 0);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ShardMembership shardMembership = mock(ShardMembership.class);
+    private final RecentStatusStore store = new RecentStatusStore(jdbcTemplate, shardMembership);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "retentionDays", 14);
+        ReflectionTestUtils.setField(store, "maxChangesPerConnector", 16);
+        store.setClock(Clock.fixed(NOW.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    private void record(long connectorId, LocalDateTime at, String status) {
+        StatusChangeEvent event = new StatusChangeEvent();
+        ReflectionTestUtils.invokeMethod(event, "set", 0L, "s1", connectorId, null, status, "test",
+                at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        store.onEvent(event, true);
+    }
+
+    @Test
+    void shouldKeepChangesInTimeOrderWithoutDuplicates() {
+        record(1, NOW.minusHours(3), "AVAILABLE");
+        record(1, NOW.minusHours(1), "OFFLINE");
+        // Loaded during warm-up after it was published, and a replayed older change
+        record(1, NOW.minusHours(1), "OFFLINE");
+        record(1, NOW.minusHours(2), "OCCUPIED");
+
+        StatusSeries series = store.series(1L, NOW.minusDays(1), NOW);
+
+        assertEquals(3, series.size());
+        assertEquals("AVAILABLE", series.status(0));
+        assertEquals("OCCUPIED", series.status(1));
+        assertEquals(NOW.minusHours(1), series.recordedAt(2));
+        assertEquals(2, series.statusChanges());
+        assertEquals(2, series.lastIndexOf("OFFLINE"));
+        assertEquals(0, store.series(2L, NOW.minusDays(1), NOW).size());
+    }
+
+    @Test
+    void shouldDropChangesPastRetentionAndCapacity() {
+        record(1, NOW.minusDays(20), "OFFLINE");
+        for (int i = 0; i < 40; i++) {
+            record(1, NOW.minusMinutes(40 - i), i % 2 == 0 ? "AVAILABLE" : "OCCUPIED");
+        }
+
+        StatusSeries series = store.series(1L, NOW.minusDays(30), NOW);
+
+        assertEquals(16, series.size());
+        assertEquals(NOW.minusMinutes(16), series.recordedAt(0));
+        assertEquals(NOW.minusMinutes(1), series.recordedAt(15));
+        assertFalse(store.covers(2L, NOW.minusDays(1)));
+        store.markWarm();
+        assertTrue(store.covers(2L, NOW.minusDays(1)));
+        assertFalse(store.covers(2L, NOW.minusDays(15)));
+        // Connector 1 dropped changes up to 17 minutes ago to its cap
+        assertFalse(store.covers(1L, NOW.minusDays(1)));
+        assertFalse(store.covers(1L, NOW.minusMinutes(17)));
+        assertTrue(store.covers(1L, NOW.minusMinutes(16)));
+    }
+
+    @Test
+    void shouldNotCoverAnythingWithShardedIngestion() {
+        when(shardMembership.isEnabled()).thenReturn(true);
+        record(1, NOW.minusHours(1), "OFFLINE");
+
+        store.warmUp();
+        store.markWarm();
+
+        assertFalse(store.isWarm());
+        assertFalse(store.covers(1L, NOW.minusHours(2)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void shouldLetFlappingDetectorWorkWithoutHistoryQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        store.setClock(Clock.systemDefaultZone());
+        store.markWarm();
+        for (int i = 0; i < 6; i++) {
+            record(7, now.minus(Duration.ofHours(6 - i)), i % 2 == 0 ? "AVAILABLE" : "OFFLINE");
+        }
+        Station station = new Station();
+        station.setId("s1");
+        Connector connector = new Connector();
+        connector.setId(7L);
+        ConnectorRepository connectorRepository = mock(ConnectorRepository.class);
+        when(connectorRepository.findByStation(station)).thenReturn(List.of(connector));
+        StatusHistoryRepository statusHistoryRepository = mock(StatusHistoryRepository.class);
+        AnomalyRepository anomalyRepository = mock(AnomalyRepository.class);
+        StationActivityTracker tracker = mock(StationActivityTracker.class);
+        StatusFlappingDetector detector = new StatusFlappingDetector(connectorRepository, statusHistoryRepository,
+                anomalyRepository, tracker, store);
+
+        assertEquals(1, detector.detect(station));
+
+        ArgumentCaptor<Anomaly> anomaly = ArgumentCaptor.forClass(Anomaly.class);
+        verify(anomalyRepository).save(anomaly.capture());
+        assertEquals(Anomaly.AnomalyType.STATUS_FLAPPING, anomaly.getValue().getAnomalyType());
+        verifyNoInteractions(statusHistoryRepository);
+    }
+}
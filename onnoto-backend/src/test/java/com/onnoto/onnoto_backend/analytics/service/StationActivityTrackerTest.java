@@ -0,0 +1,64 @@
+package com.onnoto.onnoto_backend.analytics.service;
+
+import com.onnoto.onnoto_backend.events.StatusChangeEvent;
+import com.onnoto.onnoto_backend.events.StatusEventLog;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.AnomalyRepository;
+import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StationActivityTrackerTest {
+
+    private static final Instant START = Instant.parse("2025-03-04T00:00:00Z");
+
+    private static StatusChangeEvent event(String stationId, long connectorId, Instant at) {
+        StatusChangeEvent event = new StatusChangeEvent();
+        ReflectionTestUtils.invokeMethod(event, "set", 0L, stationId, connectorId, "AVAILABLE", "OCCUPIED",
+                "test", at.toEpochMilli());
+        return event;
+    }
+
+    @Test
+    void shouldCountChangesInLastDayOnly() {
+        StationActivityTracker tracker = new StationActivityTracker(mock(StatusEventLog.class), mock(ShardMembership.class));
+        tracker.setClock(Clock.fixed(START, ZoneOffset.UTC));
+        tracker.onEvent(event("s1", 1, START.minus(Duration.ofHours(30))), true);
+        for (int i = 0; i < 3; i++) {
+            tracker.onEvent(event("s1", 1, START.minus(Duration.ofHours(i))), true);
+        }
+        tracker.onEvent(event("s1", 2, START), true);
+
+        assertEquals(3, tracker.connectorChanges("s1", 1L));
+        assertEquals(3, tracker.maxConnectorChanges("s1"));
+        assertEquals(0, tracker.maxConnectorChanges("s2"));
+        assertFalse(tracker.isWarm());
+    }
+
+    @Test
+    void shouldLetFlappingDetectorSkipQuietStationsOnceWarm() {
+        StationActivityTracker tracker = new StationActivityTracker(mock(StatusEventLog.class), mock(ShardMembership.class));
+        tracker.setClock(Clock.fixed(START, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(tracker, "clock", Clock.fixed(START.plus(Duration.ofHours(25)), ZoneOffset.UTC));
+        ConnectorRepository connectorRepository = mock(ConnectorRepository.class);
+        StatusFlappingDetector detector = new StatusFlappingDetector(connectorRepository,
+                mock(StatusHistoryRepository.class), mock(AnomalyRepository.class), tracker,
+                mock(RecentStatusStore.class));
+        Station station = new Station();
+        station.setId("s1");
+
+        assertTrue(tracker.isWarm());
+        assertEquals(0, detector.detect(station));
+        verifyNoInteractions(connectorRepository);
+    }
+}
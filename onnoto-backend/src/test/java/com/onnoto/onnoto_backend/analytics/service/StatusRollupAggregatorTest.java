@@ -0,0 +1,75 @@
+package com.onnoto.onnoto_backend.analytics.service;
+
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class StatusRollupAggregatorTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 14, 25, 10);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StatusRollupAggregator aggregator = new StatusRollupAggregator(
+            jdbcTemplate, mock(PlatformTransactionManager.class), mock(JobLeaseService.class));
+
+    private void watermark(long lastHistoryId, long seenHistoryId, LocalDateTime secondsFrom) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("last_history_id", lastHistoryId);
+        row.put("seen_history_id", seenHistoryId);
+        row.put("seconds_from", secondsFrom != null ? Timestamp.valueOf(secondsFrom) : null);
+        when(jdbcTemplate.queryForMap(contains("FROM rollup_watermarks"), eq(StatusRollupAggregator.WATERMARK)))
+                .thenReturn(row);
+    }
+
+    @Test
+    void shouldRescanFromTheIdSeenOneRunEarlier() {
+        watermark(500L, 520L, NOW.withHour(13).withMinute(0).withSecond(0));
+        when(jdbcTemplate.queryForObject(eq("SELECT MAX(id) FROM status_history"), eq(Long.class))).thenReturn(540L);
+        when(jdbcTemplate.queryForObject(contains("MIN(recorded_at)"), eq(Timestamp.class), eq(500L)))
+                .thenReturn(Timestamp.valueOf(NOW.withMinute(3)));
+
+        aggregator.aggregate(NOW);
+
+        verify(jdbcTemplate).update(contains("DO UPDATE SET changes = EXCLUDED.changes"), eq(500L));
+        verify(jdbcTemplate).update(startsWith("UPDATE rollup_watermarks"), eq(520L), eq(540L),
+                eq(Timestamp.valueOf(LocalDateTime.of(2026, 10, 19, 14, 0))), any(), eq("status"));
+    }
+
+    @Test
+    void shouldRecomputeSecondsFromTheHourOfAReplayedChange() {
+        watermark(500L, 540L, NOW.withHour(14).withMinute(0).withSecond(0));
+        when(jdbcTemplate.queryForObject(eq("SELECT MAX(id) FROM status_history"), eq(Long.class))).thenReturn(545L);
+        // A replayed change from the day before
+        when(jdbcTemplate.queryForObject(contains("MIN(recorded_at)"), eq(Timestamp.class), eq(500L)))
+                .thenReturn(Timestamp.valueOf(LocalDateTime.of(2026, 10, 18, 9, 41)));
+
+        aggregator.aggregate(NOW);
+
+        verify(jdbcTemplate).update(startsWith("UPDATE status_rollup_hourly SET changes = 0"), eq(500L));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM status_rollup_daily"), eq(Date.valueOf(LocalDate.of(2026, 10, 18))));
+        verify(jdbcTemplate).update(startsWith("UPDATE rollup_watermarks"), eq(540L), eq(545L), any(), any(), eq("status"));
+    }
+
+    @Test
+    void shouldOnlyRefreshOpenHoursWithoutNewHistory() {
+        watermark(540L, 540L, LocalDateTime.of(2026, 10, 19, 14, 0));
+        when(jdbcTemplate.queryForObject(eq("SELECT MAX(id) FROM status_history"), eq(Long.class))).thenReturn(540L);
+
+        aggregator.aggregate(NOW);
+
+        verify(jdbcTemplate, never()).update(contains("EXCLUDED.changes"), anyLong());
+        verify(jdbcTemplate).update(startsWith("DELETE FROM status_rollup_daily"), eq(Date.valueOf(LocalDate.of(2026, 10, 19))));
+        verify(jdbcTemplate).update(startsWith("UPDATE rollup_watermarks"), eq(540L), eq(540L), any(), any(), eq("status"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.onnoto.onnoto_backend.config;
+
+import com.onnoto.onnoto_backend.ingestion.http.CachingInterceptor;
+import com.onnoto.onnoto_backend.ingestion.http.CircuitBreakerInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RestTemplateConfigTest {
+
+    private MeterRegistry meterRegistry;
+    private RestTemplateConfig config;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("onnoto.http.google.max-total", "7")
+                .withProperty("onnoto.http.google.read-timeout", "3s")
+                .withProperty("onnoto.http.breaker.enabled", "false");
+        environment.setConversionService(new ApplicationConversionService());
+
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+
+        config = new RestTemplateConfig(environment, beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        config.destroy();
+    }
+
+    @Test
+    void shouldBuildPooledRestTemplatesPerProvider() {
+        RestTemplate google = config.googleRestTemplate();
+        RestTemplate openChargeMap = config.openChargeMapRestTemplate();
+
+        assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, google.getRequestFactory());
+        assertNotSame(google.getRequestFactory(), openChargeMap.getRequestFactory());
+    }
+
+    @Test
+    void shouldApplyPropertyOverridesAndExposePoolMetrics() {
+        config.googleRestTemplate();
+        config.elmoRestTemplate();
+
+        assertEquals(7.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "google").gauge().value());
+        assertEquals(5.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "elmo").gauge().value());
+    }
+
+    @Test
+    void shouldGuardEveryPoolWithItsOwnCircuitBreaker() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        RestTemplateConfig guarded = new RestTemplateConfig(environment, beanFactory.getBeanProvider(MeterRegistry.class));
+
+        try {
+            RestTemplate elmo = guarded.elmoRestTemplate();
+            guarded.eleportRestTemplate();
+
+            assertInstanceOf(CircuitBreakerInterceptor.class, elmo.getInterceptors().get(elmo.getInterceptors().size() - 1));
+            assertNotSame(guarded.providerCircuitBreakers().get("elmo"), guarded.providerCircuitBreakers().get("eleport"));
+            assertEquals(0.0, meterRegistry.get("onnoto.http.breaker.state").tag("pool", "elmo").gauge().value());
+            assertTrue(config.elmoRestTemplate().getInterceptors().isEmpty());
+        } finally {
+            guarded.destroy();
+        }
+    }
+
+    @Test
+    void shouldAddResponseCacheWhenEnabled(@TempDir Path directory) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("onnoto.http.cache.enabled", "true")
+                .withProperty("onnoto.http.cache.dir", directory.toString());
+        environment.setConversionService(new ApplicationConversionService());
+        RestTemplateConfig cached = new RestTemplateConfig(environment,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+
+        try {
+            RestTemplate google = cached.googleRestTemplate();
+            assertTrue(google.getInterceptors().stream().anyMatch(CachingInterceptor.class::isInstance));
+            assertTrue(config.googleRestTemplate().getInterceptors().isEmpty());
+        } finally {
+            cached.destroy();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.onnoto.onnoto_backend.db.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusHistoryArchiveTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    private StatusHistoryArchive archiveOfMarch() throws IOException {
+        // Blocks of 100 rows, so a range query has to skip and decode several of them
+        StatusHistoryArchive archive = new StatusHistoryArchive(dir.toString(), 100);
+        try (StatusHistoryArchive.MonthWriter writer = archive.write(YearMonth.of(2025, 3))) {
+            for (int i = 0; i < 1000; i++) {
+                writer.append(5000 + i, START.plusMinutes(30L * i).plusNanos(123_000_000),
+                        "station_" + (i % 3), i % 10 == 0 ? null : (long) (i % 3),
+                        i % 2 == 0 ? "AVAILABLE" : "OCCUPIED", i % 7 == 0 ? null : "elmo");
+            }
+            writer.commit();
+        }
+        return archive;
+    }
+
+    @Test
+    void shouldAnswerStationRangeQueriesFromArchivedMonth() throws IOException {
+        StatusHistoryArchive archive = archiveOfMarch();
+
+        List<ArchivedStatus> rows = archive.findByStationAndRecordedAtBetween(
+                "station_1", START.plusDays(5), START.plusDays(6));
+
+        // 48 rows a day, every third of the station
+        assertEquals(16, rows.size());
+        ArchivedStatus first = rows.get(0);
+        assertEquals(5000 + 241, first.id());
+        assertEquals(START.plusMinutes(30L * 241).plusNanos(123_000_000), first.recordedAt());
+        assertEquals("station_1", first.stationId());
+        assertEquals(1L, first.connectorId());
+        assertEquals("OCCUPIED", first.status());
+        assertEquals("elmo", first.source());
+        for (int i = 1; i < rows.size(); i++) {
+            assertTrue(rows.get(i).recordedAt().isAfter(rows.get(i - 1).recordedAt()));
+        }
+        assertEquals(0, archive.findByStationAndRecordedAtBetween("station_9", START, START.plusDays(31)).size());
+    }
+
+    @Test
+    void shouldKeepNullsAndListArchivedMonths() throws IOException {
+        StatusHistoryArchive archive = archiveOfMarch();
+
+        List<ArchivedStatus> rows = archive.findByStationAndRecordedAtBetween(
+                "station_0", START, START.plusMinutes(1));
+
+        assertEquals(1, rows.size());
+        assertNull(rows.get(0).connectorId());
+        assertNull(rows.get(0).source());
+        assertEquals(List.of(YearMonth.of(2025, 3)), List.copyOf(archive.months()));
+        // Much smaller than the rows as text
+        assertTrue(Files.size(dir.resolve(StatusHistoryArchive.fileName(YearMonth.of(2025, 3)))) < 8_000);
+    }
+
+    @Test
+    void shouldDiscardMonthThatWasNotCommitted() throws IOException {
+        StatusHistoryArchive archive = new StatusHistoryArchive(dir.toString(), 100);
+        try (StatusHistoryArchive.MonthWriter writer = archive.write(YearMonth.of(2025, 4))) {
+            writer.append(1, START.plusMonths(1), "station_0", 1L, "OFFLINE", "elmo");
+        }
+
+        assertTrue(archive.months().isEmpty());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
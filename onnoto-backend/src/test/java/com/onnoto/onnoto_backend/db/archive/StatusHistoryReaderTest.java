@@ -0,0 +1,67 @@
+package com.onnoto.onnoto_backend.db.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class StatusHistoryReaderTest {
+
+    private static final LocalDateTime MARCH = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime APRIL = LocalDateTime.of(2025, 4, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReadArchivedMonthsFromArchiveAndTheRestFromDatabase() throws IOException {
+        StatusHistoryArchive archive = new StatusHistoryArchive(dir.toString(), 100);
+        try (StatusHistoryArchive.MonthWriter writer = archive.write(YearMonth.of(2025, 3))) {
+            writer.append(1, MARCH.plusDays(10), "station_1", 1L, "OFFLINE", "elmo");
+            writer.append(2, MARCH.plusDays(20), "station_1", 1L, "AVAILABLE", "elmo");
+            writer.commit();
+        }
+        ArchivedStatus hot = new ArchivedStatus(3, APRIL.plusDays(2), "station_1", 1L, "OCCUPIED", "elmo");
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("station_1"), any(), any()))
+                .thenReturn(List.of(hot));
+        StatusHistoryReader reader = new StatusHistoryReader(jdbcTemplate, archive);
+
+        List<ArchivedStatus> rows = reader.findByStationAndRecordedAtBetween(
+                "station_1", MARCH.plusDays(15), APRIL.plusDays(10));
+
+        assertEquals(List.of(2L, 3L), rows.stream().map(ArchivedStatus::id).toList());
+        // Only the month still in status_history is queried there
+        verify(jdbcTemplate).query(anyString(), any(RowMapper.class), eq("station_1"),
+                eq(Timestamp.valueOf(APRIL)), eq(Timestamp.valueOf(APRIL.plusDays(10))));
+        assertEquals(List.of(YearMonth.of(2025, 3)), List.copyOf(reader.archivedMonths()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReadOnlyDatabaseWithoutArchivedMonths() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("station_1"), any(), any()))
+                .thenReturn(List.of());
+        StatusHistoryReader reader = new StatusHistoryReader(jdbcTemplate,
+                new StatusHistoryArchive(dir.resolve("missing").toString(), 100));
+
+        reader.findByStationAndRecordedAtBetween("station_1", MARCH, APRIL.plusMonths(2));
+
+        // Consecutive months from the database are one query
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), eq("station_1"),
+                eq(Timestamp.valueOf(MARCH)), eq(Timestamp.valueOf(APRIL.plusMonths(2))));
+    }
+}
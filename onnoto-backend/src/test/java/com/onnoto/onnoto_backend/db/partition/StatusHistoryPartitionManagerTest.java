@@ -0,0 +1,144 @@
+package com.onnoto.onnoto_backend.db.partition;
+
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class StatusHistoryPartitionManagerTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StatusHistoryPartitionManager manager = new StatusHistoryPartitionManager(
+            jdbcTemplate, mock(PlatformTransactionManager.class), mock(JobLeaseService.class));
+
+    private void configure(int retentionMonths, StatusHistoryPartitionManager.RetentionAction action) {
+        ReflectionTestUtils.setField(manager, "premakeMonths", 2);
+        ReflectionTestUtils.setField(manager, "retentionMonths", retentionMonths);
+        ReflectionTestUtils.setField(manager, "retentionAction", action);
+    }
+
+    private void existing(String... names) {
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(String.class), any())).thenReturn("p");
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), any()))
+                .thenReturn(List.of(names));
+    }
+
+    private List<String> executed() {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).execute(sql.capture());
+        return sql.getAllValues();
+    }
+
+    @Test
+    void shouldPreCreateMissingFuturePartitions() {
+        configure(0, StatusHistoryPartitionManager.RetentionAction.DETACH);
+        existing("status_history_default", "status_history_2026_10");
+
+        manager.maintain(YearMonth.of(2026, 10));
+
+        List<String> sql = executed();
+        assertTrue(sql.contains("CREATE TABLE status_history_2026_11 (LIKE status_history INCLUDING DEFAULTS)"));
+        assertTrue(sql.contains("ALTER TABLE status_history ATTACH PARTITION status_history_2026_12 " +
+                "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')"));
+        assertFalse(sql.stream().anyMatch(s -> s.startsWith("CREATE TABLE status_history_2026_10 ")));
+        assertFalse(sql.stream().anyMatch(s -> s.contains("DETACH") || s.startsWith("DROP")));
+        // Rows of a new month that landed in the default partition move along
+        verify(jdbcTemplate).update(contains("DELETE FROM status_history_default WHERE recorded_at >= '2026-11-01' " +
+                "AND recorded_at < '2026-12-01'"));
+    }
+
+    @Test
+    void shouldDetachOrDropMonthsPastRetention() {
+        configure(12, StatusHistoryPartitionManager.RetentionAction.DETACH);
+        existing("status_history_2025_09", "status_history_2025_10", "status_history_2026_10",
+                "status_history_2026_11", "status_history_2026_12");
+
+        manager.maintain(YearMonth.of(2026, 10));
+
+        List<String> sql = executed();
+        assertTrue(sql.contains("ALTER TABLE status_history DETACH PARTITION status_history_2025_09"));
+        assertFalse(sql.stream().anyMatch(s -> s.contains("status_history_2025_10") && s.contains("DETACH")));
+
+        reset(jdbcTemplate);
+        configure(12, StatusHistoryPartitionManager.RetentionAction.DROP);
+        existing("status_history_2025_09", "status_history_2026_10", "status_history_2026_11", "status_history_2026_12");
+        manager.maintain(YearMonth.of(2026, 10));
+        assertTrue(executed().contains("DROP TABLE status_history_2025_09"));
+    }
+
+    @Test
+    void shouldLeavePartitionedTableAlone() {
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(String.class), any())).thenReturn("p");
+
+        manager.convertLegacyTable();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        assertEquals("status_history_2027_01", StatusHistoryPartitionManager.partitionName(YearMonth.of(2027, 1)));
+    }
+
+    private void legacy(long lastHistoryId, long seenHistoryId, long head) {
+        ReflectionTestUtils.setField(manager, "conversionBatchRows", 10);
+        ReflectionTestUtils.setField(manager, "conversionBatchesPerRun", 2);
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(String.class), eq("status_history"))).thenReturn("r");
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(String.class), eq("status_history_new"))).thenReturn("p");
+        when(jdbcTemplate.queryForMap(contains("FROM rollup_watermarks"), eq(StatusHistoryPartitionManager.CONVERSION_WATERMARK)))
+                .thenReturn(Map.of("last_history_id", lastHistoryId, "seen_history_id", seenHistoryId));
+        when(jdbcTemplate.queryForObject(contains("MAX(id)"), eq(Long.class))).thenReturn(head);
+    }
+
+    @Test
+    void shouldCopyLegacyTableInBatchesWithoutSwappingUntilCaughtUp() {
+        legacy(0, 500, 900);
+        when(jdbcTemplate.queryForMap(contains("WITH batch"), any(), any()))
+                .thenReturn(Map.of("batch_rows", 10L, "last_id", 100L), Map.of("batch_rows", 10L, "last_id", 200L));
+
+        manager.convertLegacyTable();
+
+        verify(jdbcTemplate).queryForMap(contains("WITH batch"), eq(0L), eq(10));
+        verify(jdbcTemplate).queryForMap(contains("WITH batch"), eq(100L), eq(10));
+        // The next run starts where this one stopped, as that is below the head the last run started with
+        verify(jdbcTemplate).update(contains("UPDATE rollup_watermarks"), eq(200L), eq(900L),
+                eq(StatusHistoryPartitionManager.CONVERSION_WATERMARK));
+        verify(jdbcTemplate, never()).execute(contains("LOCK TABLE"));
+    }
+
+    @Test
+    void shouldSwapInPartitionedTableOnceCaughtUp() {
+        legacy(880, 900, 950);
+        when(jdbcTemplate.queryForMap(contains("WITH batch"), any(), any()))
+                .thenReturn(Map.of("batch_rows", 3L, "last_id", 950L));
+        when(jdbcTemplate.queryForList(contains("pg_indexes"), eq(String.class), any(), any()))
+                .thenReturn(List.of("idx_status_history_station_time_new"));
+
+        manager.convertLegacyTable();
+
+        List<String> sql = executed();
+        assertEquals("LOCK TABLE status_history IN ACCESS EXCLUSIVE MODE", sql.get(0));
+        // Rows committed late below the copied ids are picked up under the lock
+        verify(jdbcTemplate).update(contains("WHERE id > ? ON CONFLICT DO NOTHING"), eq(880L));
+        assertTrue(sql.indexOf("DROP TABLE status_history") < sql.indexOf("ALTER TABLE status_history_new RENAME TO status_history"));
+        assertTrue(sql.contains("ALTER INDEX idx_status_history_station_time_new RENAME TO idx_status_history_station_time"));
+        assertTrue(sql.contains("ALTER SEQUENCE status_history_id_seq OWNED BY status_history.id"));
+        verify(jdbcTemplate).update(contains("DELETE FROM rollup_watermarks"),
+                eq(StatusHistoryPartitionManager.CONVERSION_WATERMARK));
+    }
+
+    @Test
+    void shouldNotCreatePartitionsBeforeConversion() {
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(String.class), any())).thenReturn("r");
+
+        manager.maintain(YearMonth.of(2026, 10));
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
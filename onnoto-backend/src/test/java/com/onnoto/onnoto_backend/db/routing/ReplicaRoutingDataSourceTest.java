@@ -0,0 +1,72 @@
+package com.onnoto.onnoto_backend.db.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static ReplicaRoutingDataSource routing(int replicas) {
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        for (int i = 0; i < replicas; i++) {
+            pools.put("replica-" + i, mock(DataSource.class));
+        }
+        return new ReplicaRoutingDataSource(mock(DataSource.class), pools, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void shouldSendOnlyReadOnlyTransactionsToReplicasInTurn() {
+        ReplicaRoutingDataSource routing = routing(2);
+        routing.updateLag("replica-0", 0.5);
+        routing.updateLag("replica-1", 0.0);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("replica-0", routing.determineCurrentLookupKey());
+        assertEquals("replica-1", routing.determineCurrentLookupKey());
+        assertEquals("replica-0", routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void shouldSkipLaggingAndUnreachableReplicas() {
+        ReplicaRoutingDataSource routing = routing(2);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Not checked yet
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        routing.updateLag("replica-0", 45.0);
+        routing.updateLag("replica-1", 2.0);
+        assertEquals("replica-1", routing.determineCurrentLookupKey());
+        assertEquals("replica-1", routing.determineCurrentLookupKey());
+
+        routing.updateLag("replica-1", null);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+        assertEquals(45.0, routing.replicaLag().get("replica-0"));
+
+        routing.updateLag("replica-0", 3.0);
+        assertEquals("replica-0", routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void shouldUsePrimaryWithoutReplicas() {
+        ReplicaRoutingDataSource routing = routing(0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+}
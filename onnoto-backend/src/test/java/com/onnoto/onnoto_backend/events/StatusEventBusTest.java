@@ -0,0 +1,178 @@
+package com.onnoto.onnoto_backend.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusEventBusTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StatusEventBus bus;
+
+    private static class Recording implements StatusEventSubscriber {
+        private final String name;
+        private final List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done;
+        private final CountDownLatch release;
+
+        Recording(String name, int expected, CountDownLatch release) {
+            this.name = name;
+            this.done = new CountDownLatch(expected);
+            this.release = release;
+        }
+
+        @Override
+        public String getSubscriberName() {
+            return name;
+        }
+
+        @Override
+        public void onEvent(StatusChangeEvent event, boolean endOfBatch) throws Exception {
+            release.await();
+            seen.add(event.getStationId() + ":" + event.getStatus());
+            done.countDown();
+        }
+    }
+
+    private StatusEventBus start(int ringSize, StatusEventSubscriber... subscribers) {
+        bus = new StatusEventBus(List.of(subscribers), meterRegistry);
+        ReflectionTestUtils.setField(bus, "ringSize", ringSize);
+        bus.start();
+        return bus;
+    }
+
+    @AfterEach
+    void stop() {
+        if (bus != null) {
+            bus.stop();
+        }
+    }
+
+    @Test
+    void shouldDeliverEveryEventToEverySubscriberInOrder() throws Exception {
+        CountDownLatch open = new CountDownLatch(0);
+        Recording a = new Recording("a", 1000, open);
+        Recording b = new Recording("b", 1000, open);
+        start(64, a, b);
+
+        for (int i = 0; i < 1000; i++) {
+            bus.publish("s" + i, (long) i, "AVAILABLE", "OCCUPIED", "test", i);
+        }
+
+        assertTrue(a.done.await(5, TimeUnit.SECONDS));
+        assertTrue(b.done.await(5, TimeUnit.SECONDS));
+        assertEquals("s0:OCCUPIED", a.seen.get(0));
+        assertEquals("s999:OCCUPIED", a.seen.get(999));
+        assertEquals(a.seen, b.seen);
+        assertEquals(1000, meterRegistry.get("onnoto.events.consumed").tag("subscriber", "b").counter().count());
+    }
+
+    @Test
+    void shouldNotLoseEventsFromConcurrentPublishersWhenRingWraps() throws Exception {
+        CountDownLatch open = new CountDownLatch(0);
+        Recording subscriber = new Recording("all", 4 * 500, open);
+        start(16, subscriber);
+
+        ExecutorService publishers = Executors.newFixedThreadPool(4);
+        for (int p = 0; p < 4; p++) {
+            String prefix = "p" + p;
+            publishers.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    bus.publish(prefix + "-" + i, null, null, "AVAILABLE", "test", 0);
+                }
+            });
+        }
+        publishers.shutdown();
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(2000, subscriber.seen.stream().distinct().count());
+        // Each publisher's events stay in its own order
+        List<String> fromFirst = subscriber.seen.stream().filter(seen -> seen.startsWith("p0-")).toList();
+        for (int i = 0; i < fromFirst.size(); i++) {
+            assertEquals("p0-" + i + ":AVAILABLE", fromFirst.get(i));
+        }
+    }
+
+    @Test
+    void shouldReportLagOfSlowSubscriberOnly() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        Recording slow = new Recording("slow", 10, blocked);
+        Recording fast = new Recording("fast", 10, new CountDownLatch(0));
+        start(64, slow, fast);
+
+        for (int i = 0; i < 10; i++) {
+            bus.publish("s" + i, null, null, "OFFLINE", "test", 0);
+        }
+        assertTrue(fast.done.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bus.lag("fast") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(10, bus.lag("slow"));
+        assertEquals(0, bus.lag("fast"));
+        assertEquals(10.0, meterRegistry.get("onnoto.events.lag").tag("subscriber", "slow").gauge().value());
+
+        blocked.countDown();
+        assertTrue(slow.done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldStopWaitingOnSubscriberWhoseThreadDied() throws Exception {
+        StatusEventSubscriber dying = new StatusEventSubscriber() {
+            @Override
+            public String getSubscriberName() {
+                return "dying";
+            }
+
+            @Override
+            public void onEvent(StatusChangeEvent event, boolean endOfBatch) {
+                throw new AssertionError("subscriber bug");
+            }
+        };
+        Recording healthy = new Recording("healthy", 100, new CountDownLatch(0));
+        start(4, dying, healthy);
+
+        for (int i = 0; i < 100; i++) {
+            bus.publish("s" + i, null, null, "AVAILABLE", "test", 0);
+        }
+
+        assertTrue(healthy.done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, bus.lag("dying"));
+        assertEquals(0.0, meterRegistry.get("onnoto.events.dropped").counter().count());
+    }
+
+    @Test
+    void shouldDropEventsWhenRingStaysFullPastTimeout() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        Recording stuck = new Recording("stuck", 4, blocked);
+        bus = new StatusEventBus(List.of(stuck), meterRegistry);
+        ReflectionTestUtils.setField(bus, "ringSize", 4);
+        ReflectionTestUtils.setField(bus, "publishTimeoutMs", 50L);
+        bus.start();
+
+        for (int i = 0; i < 4; i++) {
+            bus.publish("s" + i, null, null, "AVAILABLE", "test", 0);
+        }
+
+        // The subscriber is stuck on the first event; the ring holds three, the fourth is dropped
+        assertEquals(1.0, meterRegistry.get("onnoto.events.dropped").counter().count());
+        blocked.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stuck.seen.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(List.of("s0:AVAILABLE", "s1:AVAILABLE", "s2:AVAILABLE"), stuck.seen);
+    }
+}
@@ -0,0 +1,131 @@
+package com.onnoto.onnoto_backend.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusEventLogTest {
+
+    private static final long T0 = 1_741_046_400_000L;
+
+    @TempDir
+    Path dir;
+
+    private StatusEventLog log;
+
+    private StatusEventLog open() throws IOException {
+        log = new StatusEventLog(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(log, "enabled", true);
+        ReflectionTestUtils.setField(log, "dir", dir.toString());
+        ReflectionTestUtils.setField(log, "rollInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(log, "segmentMaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(log, "retention", Duration.ofDays(14));
+        log.open();
+        return log;
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private List<StatusLogRecord> replay(long from) {
+        List<StatusLogRecord> records = new ArrayList<>();
+        log.replay(from, records::add);
+        return records;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(".log")).count();
+        }
+    }
+
+    @Test
+    void shouldReplayFromOffsetAcrossRolledSegmentsAndReopen() throws IOException {
+        open();
+        for (int i = 0; i < 10; i++) {
+            // Two records per 30 minutes: a new segment every hour
+            assertEquals(i, log.append("s" + i, (long) i, "AVAILABLE", "OCCUPIED", "test",
+                    T0 + i * Duration.ofMinutes(15).toMillis()));
+        }
+        log.append("s10", null, null, "OFFLINE", "test", T0 + Duration.ofMinutes(150).toMillis());
+
+        assertEquals(3, segmentCount());
+        List<StatusLogRecord> records = replay(3);
+        assertEquals(8, records.size());
+        assertEquals(new StatusLogRecord(3, T0 + Duration.ofMinutes(45).toMillis(), "s3", 3L,
+                "AVAILABLE", "OCCUPIED", "test"), records.get(0));
+        assertNull(records.get(7).connectorId());
+        assertNull(records.get(7).previousStatus());
+        assertEquals(T0, log.firstTimestamp());
+
+        log.close();
+        open();
+        assertEquals(11, log.nextOffset());
+        assertEquals(11, log.append("s11", 11L, "OCCUPIED", "AVAILABLE", "test", T0 + Duration.ofMinutes(151).toMillis()));
+        assertEquals(12, replay(0).size());
+        assertEquals(2, replay(10).size());
+    }
+
+    @Test
+    void shouldDropTornTailAndContinueAfterLastIntactRecord() throws IOException {
+        open();
+        log.append("s1", 1L, "AVAILABLE", "OCCUPIED", "test", T0);
+        log.append("s2", 2L, "AVAILABLE", "OCCUPIED", "test", T0);
+        log.close();
+
+        // A write interrupted halfway: a length that runs past the end of the file
+        Path segment = dir.resolve(LogSegment.fileName(0));
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        // And a flipped byte in the second record's payload
+        byte[] bytes = Files.readAllBytes(segment);
+        int second = (bytes.length - 7) / 2;
+        bytes[second + 30] ^= 1;
+        Files.write(segment, bytes);
+
+        open();
+        assertEquals(1, log.nextOffset());
+        assertEquals(1, log.append("s3", 3L, "OCCUPIED", "AVAILABLE", "test", T0 + 1));
+        List<StatusLogRecord> records = replay(0);
+        assertEquals(List.of("s1", "s3"), records.stream().map(StatusLogRecord::stationId).toList());
+    }
+
+    @Test
+    void shouldKeepPendingOffsetUntilChangesAreWrittenAgain() throws IOException {
+        open();
+        for (int i = 0; i < 5; i++) {
+            log.append("s" + i, (long) i, "AVAILABLE", "OCCUPIED", "test", T0 + i);
+        }
+        log.markPending(3);
+        log.markPending(1);
+        log.markPending(4);
+        assertEquals(1, log.pendingOffset());
+
+        // Survives a restart
+        log.close();
+        open();
+        assertEquals(1, log.pendingOffset());
+
+        log.resolvePending(1, 3, false);
+        assertEquals(3, log.pendingOffset());
+        log.resolvePending(3, 5, true);
+        assertEquals(-1, log.pendingOffset());
+        assertFalse(Files.exists(dir.resolve("pending.offset")));
+    }
+}
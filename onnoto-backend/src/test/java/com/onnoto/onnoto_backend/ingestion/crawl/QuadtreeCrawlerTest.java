@@ -0,0 +1,162 @@
+package com.onnoto.onnoto_backend.ingestion.crawl;
+
+import com.onnoto.onnoto_backend.model.CrawlCell;
+import com.onnoto.onnoto_backend.repository.CrawlCellRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class QuadtreeCrawlerTest {
+
+    private static final String PROVIDER = "GooglePlaces";
+
+    // Roughly 11 x 6 km around Tallinn centre - small enough for a single search
+    private static final GeoCell ROOT = new GeoCell(59.40, 24.70, 59.50, 24.80, 0);
+
+    private static final QuadtreeCrawler.CrawlSettings SETTINGS = new QuadtreeCrawler.CrawlSettings(
+            3, 50_000, Duration.ofHours(24), Duration.ofDays(14));
+
+    @Mock
+    private CrawlCellRepository crawlCellRepository;
+
+    private QuadtreeCrawler crawler;
+
+    @BeforeEach
+    void setUp() {
+        crawler = new QuadtreeCrawler(crawlCellRepository);
+    }
+
+    @Test
+    void shouldSubdivideSaturatedCells() {
+        when(crawlCellRepository.findByProvider(PROVIDER)).thenReturn(Collections.emptyList());
+        List<GeoCell> searchedCells = new ArrayList<>();
+
+        QuadtreeCrawler.CrawlSummary summary = crawler.crawl(PROVIDER, ROOT, SETTINGS, (cell, followPages) -> {
+            searchedCells.add(cell);
+            if (cell.depth() == 0) {
+                return new QuadtreeCrawler.CellResult(Collections.emptyList(), true);
+            }
+            return new QuadtreeCrawler.CellResult(List.of("place-" + cell.key()), false);
+        });
+
+        assertEquals(5, summary.searched());
+        assertEquals(1, summary.subdivided());
+        assertEquals(4, summary.results());
+        assertEquals(4, searchedCells.stream().filter(c -> c.depth() == 1).count());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CrawlCell>> saved = ArgumentCaptor.forClass(List.class);
+        verify(crawlCellRepository).saveAll(saved.capture());
+        assertEquals(5, saved.getValue().size());
+        assertTrue(saved.getValue().stream().anyMatch(CrawlCell::getSaturated));
+    }
+
+    @Test
+    void shouldFollowPagesOnlyAtMaxDepth() {
+        when(crawlCellRepository.findByProvider(PROVIDER)).thenReturn(Collections.emptyList());
+        QuadtreeCrawler.CrawlSettings shallow = new QuadtreeCrawler.CrawlSettings(
+                0, 50_000, Duration.ofHours(24), Duration.ofDays(14));
+
+        QuadtreeCrawler.CrawlSummary summary = crawler.crawl(PROVIDER, ROOT, shallow, (cell, followPages) -> {
+            assertTrue(followPages);
+            return new QuadtreeCrawler.CellResult(List.of("a", "b"), true);
+        });
+
+        assertEquals(1, summary.searched());
+        assertEquals(0, summary.subdivided());
+        assertEquals(2, summary.results());
+    }
+
+    @Test
+    void shouldSplitCellsLargerThanSearchRadiusWithoutSearching() {
+        when(crawlCellRepository.findByProvider(PROVIDER)).thenReturn(Collections.emptyList());
+        QuadtreeCrawler.CrawlSettings smallRadius = new QuadtreeCrawler.CrawlSettings(
+                3, 5_000, Duration.ofHours(24), Duration.ofDays(14));
+
+        QuadtreeCrawler.CrawlSummary summary = crawler.crawl(PROVIDER, ROOT, smallRadius, (cell, followPages) -> {
+            assertTrue(cell.depth() > 0 && cell.radiusMeters() <= 5_000);
+            return new QuadtreeCrawler.CellResult(Collections.emptyList(), false);
+        });
+
+        assertEquals(1, summary.subdivided());
+        assertEquals(4, summary.searched());
+    }
+
+    @Test
+    void shouldSkipCellsRememberedAsFresh() {
+        CrawlCell fresh = new CrawlCell();
+        fresh.setId(PROVIDER + ":" + ROOT.key());
+        fresh.setProvider(PROVIDER);
+        fresh.setCellKey(ROOT.key());
+        fresh.setDepth(0);
+        fresh.setSaturated(false);
+        fresh.setNextCrawlAt(LocalDateTime.now().plusHours(1));
+        when(crawlCellRepository.findByProvider(PROVIDER)).thenReturn(List.of(fresh));
+
+        QuadtreeCrawler.CrawlSummary summary = crawler.crawl(PROVIDER, ROOT, SETTINGS, (cell, followPages) -> {
+            fail("Fresh cell should not be searched");
+            return null;
+        });
+
+        assertEquals(0, summary.searched());
+        assertEquals(1, summary.skipped());
+        verify(crawlCellRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldBackOffUnchangedCells() {
+        CrawlCell stale = new CrawlCell();
+        stale.setId(PROVIDER + ":" + ROOT.key());
+        stale.setProvider(PROVIDER);
+        stale.setCellKey(ROOT.key());
+        stale.setDepth(0);
+        stale.setSaturated(false);
+        stale.setUnchangedRuns(1);
+        stale.setResultHash(QuadtreeCrawler.hashResults(List.of("b", "a")));
+        stale.setNextCrawlAt(LocalDateTime.now().minusMinutes(1));
+        when(crawlCellRepository.findByProvider(PROVIDER)).thenReturn(List.of(stale));
+
+        crawler.crawl(PROVIDER, ROOT, SETTINGS,
+                (cell, followPages) -> new QuadtreeCrawler.CellResult(List.of("a", "b"), false));
+
+        assertEquals(2, stale.getUnchangedRuns());
+        assertTrue(stale.getNextCrawlAt().isAfter(LocalDateTime.now().plusHours(95)));
+        assertEquals(Duration.ofDays(14), QuadtreeCrawler.backoff(SETTINGS, 30));
+    }
+
+    @Test
+    void shouldCoverEveryCornerOfCellWithSearchRadius() {
+        // A wide northern cell, its mirror in the south, and the crawl root
+        List<GeoCell> cells = List.of(new GeoCell(57.5, 21.5, 59.7, 28.2, 0),
+                new GeoCell(-59.7, 21.5, -57.5, 28.2, 0), ROOT);
+        for (GeoCell cell : cells) {
+            double radius = cell.radiusMeters();
+            for (double lat : new double[]{cell.minLat(), cell.maxLat()}) {
+                for (double lng : new double[]{cell.minLng(), cell.maxLng()}) {
+                    assertTrue(GeoCell.distanceMeters(cell.centerLat(), cell.centerLng(), lat, lng) <= radius,
+                            () -> "Corner " + lat + "," + lng + " outside the search radius of " + cell.key());
+                }
+            }
+        }
+        // North of the equator the southern corners are the far ones
+        GeoCell north = cells.get(0);
+        assertTrue(north.radiusMeters() > GeoCell.distanceMeters(
+                north.centerLat(), north.centerLng(), north.maxLat(), north.maxLng()));
+    }
+}
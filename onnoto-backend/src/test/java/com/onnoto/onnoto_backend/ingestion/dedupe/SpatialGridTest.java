@@ -0,0 +1,57 @@
+package com.onnoto.onnoto_backend.ingestion.dedupe;
+
+import com.onnoto.onnoto_backend.ingestion.crawl.GeoCell;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialGridTest {
+
+    @Test
+    void shouldFindEveryPointWithinTheCellSize() {
+        SpatialGrid<Integer> grid = new SpatialGrid<>(100);
+        Random random = new Random(42);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            double[] point = {59.40 + random.nextDouble() * 0.05, 24.70 + random.nextDouble() * 0.1};
+            points.add(point);
+            grid.add(point[0], point[1], i);
+        }
+
+        for (int q = 0; q < 200; q++) {
+            double lat = 59.40 + random.nextDouble() * 0.05;
+            double lng = 24.70 + random.nextDouble() * 0.1;
+
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < points.size(); i++) {
+                if (GeoCell.distanceMeters(lat, lng, points.get(i)[0], points.get(i)[1]) <= 100) {
+                    expected.add(i);
+                }
+            }
+            Set<Integer> found = grid.near(lat, lng).stream()
+                    .map(SpatialGrid.Entry::value)
+                    .collect(Collectors.toSet());
+
+            assertTrue(found.containsAll(expected));
+            // Only the neighbouring cells are scanned
+            assertTrue(found.size() < points.size() / 10);
+        }
+    }
+
+    @Test
+    void shouldRemoveEntries() {
+        SpatialGrid<String> grid = new SpatialGrid<>(75);
+        grid.add(59.437, 24.753, "a");
+
+        assertTrue(grid.remove(59.437, 24.753, "a"));
+        assertEquals(0, grid.size());
+        assertTrue(grid.near(59.437, 24.753).isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package com.onnoto.onnoto_backend.ingestion.dedupe;
+
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.model.StationAlias;
+import com.onnoto.onnoto_backend.repository.StationAliasRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class StationDeduplicatorTest {
+
+    // Roughly one meter of latitude in degrees
+    private static final double METER = 1 / 111_320.0;
+
+    private final StationRepository stationRepository = mock(StationRepository.class);
+    private final StationAliasRepository stationAliasRepository = mock(StationAliasRepository.class);
+    private final StationDeduplicator deduplicator = new StationDeduplicator(stationRepository, stationAliasRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(deduplicator, "radiusMeters", 75.0);
+        ReflectionTestUtils.setField(deduplicator, "sameSiteMeters", 15.0);
+        ReflectionTestUtils.setField(deduplicator, "nameSimilarity", 0.5);
+        ReflectionTestUtils.setField(deduplicator, "addressSimilarity", 0.7);
+        when(stationRepository.findAll()).thenReturn(List.of());
+        when(stationAliasRepository.findAll()).thenReturn(List.of());
+    }
+
+    private static StationRecord record(String id, String name, String address, double metersNorth) {
+        return new StationRecord(id, name, null, null,
+                BigDecimal.valueOf(59.4370 + metersNorth * METER), BigDecimal.valueOf(24.7536),
+                address, "Tallinn", null, "EE");
+    }
+
+    @Test
+    void shouldAliasAggregatorStationNearSimilarlyNamedStation() {
+        assertNull(deduplicator.resolve(record("elmo_001", "Viru Keskus", "Viru väljak 4", 0)));
+
+        String canonical = deduplicator.resolve(record("ocm_123", "ELMO Viru keskus laadija", null, 40));
+
+        assertEquals("elmo_001", canonical);
+        assertEquals("elmo_001", deduplicator.canonicalIdFor("ocm_123"));
+        verify(stationAliasRepository).save(argThat(alias ->
+                alias.getAliasId().equals("ocm_123") && alias.getCanonicalId().equals("elmo_001")));
+    }
+
+    @Test
+    void shouldNotMergeTwoOperatorNetworks() {
+        deduplicator.resolve(record("elmo_001", "Viru Keskus", null, 0));
+
+        assertNull(deduplicator.resolve(record("eleport_001", "Viru Keskus", null, 5)));
+        verify(stationAliasRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldMatchDifferentNamesOnlyWhenOnTheSameSite() {
+        deduplicator.resolve(record("elmo_001", "Viru Keskus", null, 0));
+
+        assertNull(deduplicator.resolve(record("google_far", "Hotel Parking", null, 50)));
+        assertEquals("elmo_001", deduplicator.resolve(record("google_near", "Underground car park", null, 10)));
+    }
+
+    @Test
+    void shouldPromotePreferredProviderToCanonical() {
+        deduplicator.resolve(record("ocm_123", "Viru Keskus", null, 0));
+        StationAlias googleAlias = new StationAlias();
+        googleAlias.setAliasId("google_abc");
+        googleAlias.setCanonicalId("ocm_123");
+        when(stationAliasRepository.findByCanonicalId("ocm_123")).thenReturn(List.of(googleAlias));
+
+        assertNull(deduplicator.resolve(record("elmo_001", "Viru keskus", null, 20)));
+
+        assertEquals("elmo_001", deduplicator.canonicalIdFor("ocm_123"));
+        assertEquals("elmo_001", deduplicator.canonicalIdFor("google_abc"));
+        assertEquals("elmo_001", googleAlias.getCanonicalId());
+        assertNull(deduplicator.canonicalIdFor("elmo_001"));
+    }
+
+    @Test
+    void shouldAliasStoredDuplicatesOnRebuild() {
+        Station google = station("google_abc", "Viru Keskus", 5);
+        Station elmo = station("elmo_001", "Viru Keskus", 0);
+        Station other = station("elmo_002", "Ülemiste Keskus", 5000);
+        when(stationRepository.findAll()).thenReturn(List.of(google, elmo, other));
+
+        assertEquals(1, deduplicator.rebuild());
+        assertEquals("elmo_001", deduplicator.canonicalIdFor("google_abc"));
+        assertNull(deduplicator.canonicalIdFor("elmo_002"));
+    }
+
+    @Test
+    void shouldScoreNamesIgnoringNoiseAndDiacritics() {
+        assertEquals(1.0, Similarity.of("ELMO Ülemiste Keskus", "ulemiste keskus EV charging station"));
+        assertTrue(Similarity.of("Circle K Peterburi", "Circle K Peterburi tee") > 0.7);
+        assertTrue(Similarity.of("Viru Keskus", "Rocca al Mare") < 0.2);
+        assertEquals(0.0, Similarity.of(null, "Viru Keskus"));
+    }
+
+    private static Station station(String id, String name, double metersNorth) {
+        Station station = new Station();
+        station.setId(id);
+        station.setName(name);
+        station.setLatitude(BigDecimal.valueOf(59.4370 + metersNorth * METER));
+        station.setLongitude(BigDecimal.valueOf(24.7536));
+        return station;
+    }
+}
@@ -0,0 +1,143 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import com.onnoto.onnoto_backend.ingestion.provider.GooglePlacesProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.twice;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class CachingInterceptorTest {
+
+    private static final String DETAILS = "https://maps.example.com/place/details/json?place_id=abc&key=";
+
+    @TempDir
+    Path directory;
+
+    private RestTemplate restTemplate(String rules, boolean offline) {
+        HttpResponseCache cache = new HttpResponseCache(directory, HttpResponseCache.parseRules(rules));
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(new CachingInterceptor(cache, offline, "test", null));
+        return restTemplate;
+    }
+
+    @Test
+    void shouldServeFreshResponsesFromCacheIgnoringApiKey() throws IOException {
+        RestTemplate restTemplate = restTemplate("place/details=7d", false);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(once(), requestTo(DETAILS + "secret1"))
+                .andRespond(withSuccess("{\"result\":{}}", MediaType.APPLICATION_JSON));
+
+        assertEquals("{\"result\":{}}", restTemplate.getForObject(DETAILS + "secret1", String.class));
+        assertEquals("{\"result\":{}}", restTemplate.getForObject(DETAILS + "secret2", String.class));
+
+        server.verify();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                assertFalse(Files.readString(file).contains("secret1"), "API key written to " + file);
+            }
+        }
+    }
+
+    @Test
+    void shouldRevalidateStaleResponsesWithETag() throws InterruptedException {
+        RestTemplate restTemplate = restTemplate("place/details=1ms", false);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"v1\"");
+        server.expect(once(), requestTo(DETAILS + "k"))
+                .andRespond(withSuccess("cached", MediaType.TEXT_PLAIN).headers(headers));
+        server.expect(once(), requestTo(DETAILS + "k"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        restTemplate.getForObject(DETAILS + "k", String.class);
+        Thread.sleep(5);
+
+        assertEquals("cached", restTemplate.getForObject(DETAILS + "k", String.class));
+        server.verify();
+    }
+
+    @Test
+    void shouldNotCacheEndpointsWithoutTtl() {
+        RestTemplate restTemplate = restTemplate("place/details=7d", false);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        String url = "https://api.example.com/v3/poi?countrycode=EE";
+        server.expect(twice(), requestTo(url)).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        restTemplate.getForObject(url, String.class);
+        restTemplate.getForObject(url, String.class);
+
+        server.verify();
+    }
+
+    @Test
+    void shouldReplayFromCacheWhenOffline() {
+        RestTemplate online = restTemplate("place/details=1ms", false);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(online).build();
+        server.expect(once(), requestTo(DETAILS + "k")).andRespond(withSuccess("recorded", MediaType.TEXT_PLAIN));
+        online.getForObject(DETAILS + "k", String.class);
+
+        RestTemplate offline = restTemplate("place/details=1ms", true);
+        MockRestServiceServer.bindTo(offline).build();
+
+        assertEquals("recorded", offline.getForObject(DETAILS + "k", String.class));
+        assertThrows(ResourceAccessException.class,
+                () -> offline.getForObject("https://maps.example.com/place/details/json?place_id=other", String.class));
+    }
+
+    @Test
+    void shouldNotStoreBodiesTheProviderRejects() {
+        HttpResponseCache cache = new HttpResponseCache(directory, HttpResponseCache.parseRules("place/details=7d"));
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(new CachingInterceptor(cache, false,
+                GooglePlacesProvider::isCacheableResponse, "google", null));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(once(), requestTo(DETAILS + "k"))
+                .andRespond(withSuccess("{\"error_message\":\"quota\",\"status\":\"OVER_QUERY_LIMIT\"}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo(DETAILS + "k"))
+                .andRespond(withSuccess("{\"result\":{\"status\":\"x\"},\"status\":\"OK\"}",
+                        MediaType.APPLICATION_JSON));
+
+        assertTrue(restTemplate.getForObject(DETAILS + "k", String.class).contains("OVER_QUERY_LIMIT"));
+        assertTrue(restTemplate.getForObject(DETAILS + "k", String.class).contains("\"OK\""));
+        assertTrue(restTemplate.getForObject(DETAILS + "k", String.class).contains("\"OK\""));
+
+        server.verify();
+    }
+
+    @Test
+    void shouldBypassCacheForNoCacheRequests() {
+        RestTemplate restTemplate = restTemplate("place/details=7d", false);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(twice(), requestTo(DETAILS + "k")).andRespond(withSuccess("live", MediaType.TEXT_PLAIN));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.noCache());
+
+        restTemplate.getForObject(DETAILS + "k", String.class);
+        assertEquals("live", restTemplate.exchange(DETAILS + "k", HttpMethod.GET, new HttpEntity<>(headers),
+                String.class).getBody());
+
+        server.verify();
+    }
+}
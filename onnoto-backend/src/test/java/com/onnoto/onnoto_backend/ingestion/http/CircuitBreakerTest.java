@@ -0,0 +1,130 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CircuitBreakerTest {
+
+    /**
+     * A clock the test moves forward.
+     */
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-03-04T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final MutableClock clock = new MutableClock();
+    private final CircuitBreaker breaker = new CircuitBreaker("elmo",
+            new CircuitBreaker.Settings(10, 5, 0.5, Duration.ofSeconds(5), Duration.ofMinutes(1)), clock);
+
+    private static final Duration FAST = Duration.ofMillis(100);
+
+    private void calls(int count, boolean error, Duration duration) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.record(error, duration);
+        }
+    }
+
+    @Test
+    void shouldOpenOnErrorRateAndCloseAfterSuccessfulProbe() {
+        calls(4, true, FAST);
+        // Not enough calls yet to judge
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        calls(1, false, FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.allowsCalls());
+
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(breaker.allowsCalls());
+        assertTrue(breaker.tryAcquire());
+        // Only one probe at a time
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.record(false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.failureRate());
+        assertEquals(1, breaker.timesOpened());
+    }
+
+    @Test
+    void shouldCountSlowCallsAsFailuresAndReopenWhenProbeFails() {
+        calls(5, false, Duration.ofSeconds(6));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(breaker.tryAcquire());
+        breaker.record(true, FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2, breaker.timesOpened());
+    }
+
+    @Test
+    void shouldForgetFailuresThatLeaveTheWindow() {
+        calls(6, false, FAST);
+        calls(4, true, FAST);
+        // 4 of 10 failed
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        calls(10, false, FAST);
+        assertEquals(0.0, breaker.failureRate());
+        calls(4, true, FAST);
+        assertEquals(0.4, breaker.failureRate(), 1e-9);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void shouldRejectRequestsWithoutCallingProviderWhileOpen() throws IOException {
+        CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(breaker, null);
+        ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+        when(execution.execute(any(), any()))
+                .thenReturn(new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE));
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("https://api.example/status"));
+
+        for (int i = 0; i < 5; i++) {
+            try (ClientHttpResponse response = interceptor.intercept(request, new byte[0], execution)) {
+                assertEquals(503, response.getStatusCode().value());
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertThrows(IOException.class, () -> interceptor.intercept(request, new byte[0], execution));
+        verify(execution, times(5)).execute(any(), any());
+    }
+}
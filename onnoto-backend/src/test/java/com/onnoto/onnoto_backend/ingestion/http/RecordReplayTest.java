@@ -0,0 +1,102 @@
+package com.onnoto.onnoto_backend.ingestion.http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class RecordReplayTest {
+
+    private static final String POI = "https://api.example.com/v3/poi?countrycode=EE&key=";
+
+    @TempDir
+    Path directory;
+
+    private void record(String... bodies) {
+        RestTemplate recorder = new RestTemplate();
+        recorder.getInterceptors().add(new RecordingInterceptor(HttpRecording.create(directory)));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(recorder).build();
+        for (String body : bodies) {
+            server.expect(once(), requestTo(POI + "secret"))
+                    .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+        }
+        for (String body : bodies) {
+            // Streamed read, as the OpenChargeMap provider does
+            String read = recorder.execute(POI + "secret", HttpMethod.GET, null,
+                    response -> new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(body, read);
+        }
+        server.verify();
+    }
+
+    private RestTemplate replayer(double speedup) {
+        // No server bound: any request that reaches the network fails
+        RestTemplate replayer = new RestTemplate((uri, method) -> {
+            throw new IOException("network access during replay");
+        });
+        replayer.getInterceptors().add(new ReplayInterceptor(HttpRecording.open(directory), speedup));
+        return replayer;
+    }
+
+    @Test
+    void shouldReplayRecordedResponsesInOrderWithoutNetwork() throws IOException {
+        record("[{\"ID\":1}]", "[{\"ID\":1},{\"ID\":2}]");
+
+        RestTemplate replayer = replayer(0);
+
+        // A rotated API key still finds the recording
+        assertEquals("[{\"ID\":1}]", replayer.getForObject(POI + "other", String.class));
+        assertEquals("[{\"ID\":1},{\"ID\":2}]", replayer.getForObject(POI + "other", String.class));
+        // The last response keeps being served once the recording runs out
+        assertEquals("[{\"ID\":1},{\"ID\":2}]", replayer.getForObject(POI + "other", String.class));
+        assertThrows(ResourceAccessException.class,
+                () -> replayer.getForObject("https://api.example.com/v3/referencedata", String.class));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                assertFalse(Files.readString(file, StandardCharsets.ISO_8859_1).contains("secret"),
+                        "API key written to " + file);
+            }
+        }
+    }
+
+    @Test
+    void shouldCompressRecordedBodies() throws IOException {
+        String body = "[" + "{\"Title\":\"Viru Keskus\"},".repeat(500) + "{}]";
+        record(body);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            Path recorded = files.filter(file -> file.toString().endsWith(".body.gz")).findFirst().orElseThrow();
+            assertTrue(Files.size(recorded) < body.length() / 10);
+        }
+        HttpRecording recording = HttpRecording.open(directory);
+        try (InputStream in = recording.body(recording.next("GET", URI.create(POI + "secret")))) {
+            assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void shouldScaleRecordedLatencyBySpeedup() {
+        ReplayInterceptor interceptor = new ReplayInterceptor(HttpRecording.create(directory), 10);
+
+        assertEquals(Duration.ofMillis(50), interceptor.scaled(500));
+        assertEquals(Duration.ZERO, new ReplayInterceptor(HttpRecording.create(directory), 0).scaled(500));
+    }
+}
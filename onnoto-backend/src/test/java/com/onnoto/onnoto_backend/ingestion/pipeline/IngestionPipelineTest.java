@@ -0,0 +1,244 @@
+package com.onnoto.onnoto_backend.ingestion.pipeline;
+
+import com.onnoto.onnoto_backend.ingestion.dedupe.StationDeduplicator;
+import com.onnoto.onnoto_backend.ingestion.provider.BaseDataProvider;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService.UpsertResult;
+import com.onnoto.onnoto_backend.ingestion.service.SyncReport;
+import com.onnoto.onnoto_backend.model.Station;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class IngestionPipelineTest {
+
+    private final StationUpsertService stationUpsertService = mock(StationUpsertService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StationDeduplicator stationDeduplicator = mock(StationDeduplicator.class);
+    private final IngestionPipeline pipeline = new IngestionPipeline(stationUpsertService, stationDeduplicator,
+            transactionManager, meterRegistry);
+
+    private static class ListProvider extends BaseDataProvider {
+        private final String name;
+        private final List<String> ids;
+        private volatile SyncReport written;
+
+        ListProvider(String name, List<String> ids) {
+            super(null, null, null, null, null, null);
+            this.name = name;
+            this.ids = ids;
+        }
+
+        @Override
+        public String getProviderName() {
+            return name;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        protected void emitStations(Consumer<StationSnapshot> sink) {
+            ids.forEach(id -> sink.accept(StationSnapshot.of(new StationRecord(id, "Station " + id, null, null,
+                    BigDecimal.ONE, BigDecimal.ONE, null, null, null, "EE"), List.of())));
+        }
+
+        @Override
+        protected void emitStatusUpdates(Consumer<StatusRecord> sink) {
+        }
+
+        @Override
+        public void onStationsWritten(SyncReport report) {
+            written = report;
+        }
+    }
+
+    private void start(int writeWorkers, int writeBatchSize) {
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 16);
+        ReflectionTestUtils.setField(pipeline, "parseWorkers", 2);
+        ReflectionTestUtils.setField(pipeline, "dedupeWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "writeWorkers", writeWorkers);
+        ReflectionTestUtils.setField(pipeline, "writeBatchSize", writeBatchSize);
+        ReflectionTestUtils.setField(pipeline, "writeLingerMs", 20L);
+        ReflectionTestUtils.setField(pipeline, "afterWriteWorkers", 1);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void stop() {
+        pipeline.stop();
+    }
+
+    private static List<String> ids(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + "_" + i).toList();
+    }
+
+    private static UpsertResult inserted() {
+        return new UpsertResult(new Station(), SyncReport.Outcome.INSERTED);
+    }
+
+    @Test
+    void shouldWriteStationsFromAllProvidersInSharedBatches() throws Exception {
+        when(stationUpsertService.upsert(any(), any(), any(), any(), any())).thenReturn(inserted());
+        start(1, 25);
+
+        SyncReport a = pipeline.submit(new ListProvider("A", ids("A", 100))).get(10, TimeUnit.SECONDS);
+        SyncReport b = pipeline.submit(new ListProvider("B", ids("B", 100))).get(10, TimeUnit.SECONDS);
+
+        assertEquals(100, a.getInserted());
+        assertEquals(100, b.getInserted());
+        verify(stationUpsertService, times(200)).upsert(any(), any(), any(), any(), any());
+        // Far fewer transactions than stations
+        verify(transactionManager, atMost(100)).getTransaction(any());
+        // The write stage counts a batch after completing its stations
+        Counter written = meterRegistry.get("onnoto.ingestion.stage.items").tag("stage", "write").counter();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (written.count() < 200 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(200, written.count());
+        assertNotNull(meterRegistry.get("onnoto.ingestion.stage.wait").tag("stage", "parse").timer());
+        assertNotNull(meterRegistry.get("onnoto.ingestion.fetch.duration").tag("provider", "A").timer());
+    }
+
+    @Test
+    void shouldFingerprintBeforeWriting() throws Exception {
+        when(stationUpsertService.upsert(any(), any(), any(), any(), any())).thenReturn(inserted());
+        start(1, 10);
+
+        pipeline.submit(new ListProvider("A", List.of("A_1"))).get(10, TimeUnit.SECONDS);
+
+        StationRecord expected = new StationRecord("A_1", "Station A_1", null, null,
+                BigDecimal.ONE, BigDecimal.ONE, null, null, null, "EE");
+        verify(stationUpsertService).upsert(eq(expected), eq(List.of()), eq(expected.fingerprint()),
+                any(), isNull());
+    }
+
+    @Test
+    void shouldDropStationAlreadyQueuedForWriting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(stationUpsertService.upsert(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return inserted();
+        });
+        start(1, 1);
+
+        var run = pipeline.submit(new ListProvider("A", List.of("X", "X")));
+        // The second X reaches dedupe while the first one is still being written
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("onnoto.ingestion.pipeline.duplicates").counter().count() < 1
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        SyncReport report = run.get(10, TimeUnit.SECONDS);
+
+        verify(stationUpsertService, times(1)).upsert(any(), any(), any(), any(), any());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getUnchanged());
+    }
+
+    @Test
+    void shouldRetryFailedBatchRowByRow() throws Exception {
+        when(stationUpsertService.upsert(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            StationRecord record = invocation.getArgument(0);
+            if (record.id().equals("A_3")) {
+                throw new IllegalStateException("constraint violation");
+            }
+            SyncReport report = invocation.getArgument(4);
+            if (report != null) {
+                report.record(SyncReport.Outcome.INSERTED);
+            }
+            return inserted();
+        });
+        start(1, 10);
+
+        ListProvider provider = new ListProvider("A", ids("A", 10));
+        SyncReport report = pipeline.submit(provider).get(10, TimeUnit.SECONDS);
+
+        assertEquals(9, report.getInserted());
+        assertEquals(1, report.getFailed());
+        verify(transactionManager, atLeastOnce()).rollback(any());
+        // The provider learns about the failure before the run completes
+        assertSame(report, provider.written);
+    }
+
+    @Test
+    void shouldRunAfterWriteHooksOffTheWriteStage() throws Exception {
+        when(stationUpsertService.upsert(any(), any(), any(), any(), any())).thenReturn(inserted());
+        when(stationUpsertService.hasAfterWrite(any(), any())).thenReturn(true);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> hookThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            hookThreads.add(Thread.currentThread().getName());
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(stationUpsertService).afterWrite(any(), any());
+        start(1, 10);
+
+        var run = pipeline.submit(new ListProvider("A", ids("A", 5)));
+        // A hook stuck on its provider does not hold up the writes
+        verify(stationUpsertService, timeout(5000).times(5)).upsert(any(), any(), any(), any(), any());
+        assertFalse(run.isDone());
+        release.countDown();
+        SyncReport report = run.get(10, TimeUnit.SECONDS);
+
+        assertEquals(5, report.getInserted());
+        verify(stationUpsertService, times(5)).afterWrite(any(), any());
+        assertEquals(Set.of("ingest-after-write-0"), hookThreads);
+    }
+
+    @Test
+    void shouldFailOnlyItemsNotYetPassedOnWhenStageHandlerThrows() throws Exception {
+        when(stationUpsertService.upsert(any(), any(), any(), any(), any())).thenReturn(inserted());
+        // The first station goes on to the after-write stage, then the write handler throws on the second
+        AtomicInteger lookups = new AtomicInteger();
+        when(stationUpsertService.hasAfterWrite(any(), any())).thenAnswer(invocation -> {
+            if (lookups.incrementAndGet() > 1) {
+                throw new IllegalStateException("broken hook lookup");
+            }
+            return true;
+        });
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(stationUpsertService).afterWrite(any(), any());
+        start(1, 2);
+
+        var run = pipeline.submit(new ListProvider("A", ids("A", 2)));
+        verify(stationUpsertService, timeout(5000)).afterWrite(any(), any());
+        Thread.sleep(100);
+        // The first station is still in its hook, so the run must not count it finished
+        assertFalse(run.isDone());
+        release.countDown();
+        SyncReport report = run.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getFailed());
+        assertEquals(1, meterRegistry.get("onnoto.ingestion.stage.errors").tag("stage", "write").counter().count());
+    }
+}
@@ -1,5 +1,7 @@
 package com.onnoto.onnoto_backend.ingestion.provider;
 
+import com.onnoto.onnoto_backend.ingestion.service.StationUpsertService;
+import com.onnoto.onnoto_backend.ingestion.service.StatusUpdateWriter;
 import com.onnoto.onnoto_backend.model.Connector;
 import com.onnoto.onnoto_backend.model.Network;
 import com.onnoto.onnoto_backend.model.Operator;
@@ -9,6 +11,7 @@ import com.onnoto.onnoto_backend.repository.NetworkRepository;
 import com.onnoto.onnoto_backend.repository.OperatorRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
 import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import com.onnoto.onnoto_backend.service.ReferenceDataRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -73,6 +76,12 @@ public class ElmoNetworkProviderIntegrationTest {
     @Autowired
     private StatusHistoryRepository statusHistoryRepository;
 
+    @Autowired
+    private StationUpsertService stationUpsertService;
+
+    @Autowired
+    private StatusUpdateWriter statusUpdateWriter;
+
     @Autowired
     private RestTemplate restTemplate;
 
@@ -96,8 +105,9 @@ public class ElmoNetworkProviderIntegrationTest {
                 stationRepository,
                 connectorRepository,
                 statusHistoryRepository,
-                networkRepository,
-                operatorRepository
+                new ReferenceDataRegistry(networkRepository, operatorRepository),
+                stationUpsertService,
+                statusUpdateWriter
         );
 
         // Use lenient() to avoid UnnecessaryStubbingException if some tests don't use the mock
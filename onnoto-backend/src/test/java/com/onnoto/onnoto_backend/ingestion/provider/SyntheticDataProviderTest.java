@@ -0,0 +1,111 @@
+package com.onnoto.onnoto_backend.ingestion.provider;
+
+import com.onnoto.onnoto_backend.ingestion.provider.SyntheticDataProvider.GeneratedStation;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Network;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.NetworkRepository;
+import com.onnoto.onnoto_backend.repository.OperatorRepository;
+import com.onnoto.onnoto_backend.service.ReferenceDataRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class SyntheticDataProviderTest {
+
+    private static final ZoneId TALLINN = ZoneId.of("Europe/Tallinn");
+
+    private final NetworkRepository networkRepository = mock(NetworkRepository.class);
+    private final ConnectorRepository connectorRepository = mock(ConnectorRepository.class);
+
+    private SyntheticDataProvider provider(long seed, int stations) {
+        SyntheticDataProvider provider = new SyntheticDataProvider(null, connectorRepository, null,
+                new ReferenceDataRegistry(networkRepository, mock(OperatorRepository.class)), null, null);
+        ReflectionTestUtils.setField(provider, "stationCount", stations);
+        ReflectionTestUtils.setField(provider, "seed", seed);
+        ReflectionTestUtils.setField(provider, "minLatitude", 57.5);
+        ReflectionTestUtils.setField(provider, "maxLatitude", 59.7);
+        ReflectionTestUtils.setField(provider, "minLongitude", 21.8);
+        ReflectionTestUtils.setField(provider, "maxLongitude", 28.2);
+        ReflectionTestUtils.setField(provider, "clusters", 12);
+        ReflectionTestUtils.setField(provider, "clusteredShare", 0.7);
+        ReflectionTestUtils.setField(provider, "eventsPerConnectorHour", 2.0);
+        ReflectionTestUtils.setField(provider, "offlineProbability", 0.02);
+        ReflectionTestUtils.setField(provider, "zone", "Europe/Tallinn");
+        return provider;
+    }
+
+    @Test
+    void shouldGenerateSameStationsForSameSeed() {
+        List<GeneratedStation> first = provider(7, 500).generate(null, null);
+        List<GeneratedStation> second = provider(7, 500).generate(null, null);
+        List<GeneratedStation> other = provider(8, 500).generate(null, null);
+
+        assertEquals(500, first.size());
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertTrue(first.stream().map(s -> s.snapshot().station()).allMatch(station ->
+                station.latitude().doubleValue() >= 57.5 && station.latitude().doubleValue() <= 59.7
+                        && station.longitude().doubleValue() >= 21.8 && station.longitude().doubleValue() <= 28.2));
+        assertEquals(100_000, provider(7, 250_000).generate(null, null).size());
+    }
+
+    @Test
+    void shouldBeBusierAtEveningCommuteThanAtNight() {
+        ZonedDateTime tuesday = ZonedDateTime.of(2025, 3, 4, 0, 0, 0, 0, TALLINN);
+
+        double night = SyntheticDataProvider.occupancy(tuesday.withHour(3));
+        double evening = SyntheticDataProvider.occupancy(tuesday.withHour(18));
+        double saturdayEvening = SyntheticDataProvider.occupancy(tuesday.plusDays(4).withHour(18));
+
+        assertTrue(night < 0.15);
+        assertTrue(evening > 0.45);
+        assertTrue(saturdayEvening < evening);
+    }
+
+    @Test
+    void shouldEmitSameEventsForSameSeedAtConfiguredRate() {
+        Network network = new Network();
+        network.setId(SyntheticDataProvider.NETWORK_ID);
+        when(networkRepository.findById(SyntheticDataProvider.NETWORK_ID)).thenReturn(Optional.of(network));
+        List<Connector> connectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Station station = new Station();
+            station.setId(String.format("synthetic_%06d", i / 2));
+            Connector connector = new Connector();
+            connector.setId((long) i);
+            connector.setStation(station);
+            connectors.add(connector);
+        }
+        when(connectorRepository.findByNetworkWithStation(any())).thenReturn(connectors);
+
+        Clock clock = Clock.fixed(Instant.parse("2025-03-04T16:00:00Z"), TALLINN);
+        List<String> first = cycle(provider(7, 1000), clock);
+        List<String> second = cycle(provider(7, 1000), clock);
+
+        assertEquals(first, second);
+        // 2 events an hour over the 5 minutes of the first cycle: about 1 - e^(-1/6) = 15% of connectors
+        assertTrue(first.size() > 150 && first.size() < 600, "events: " + first.size());
+    }
+
+    private static List<String> cycle(SyntheticDataProvider provider, Clock clock) {
+        provider.setClock(clock);
+        List<String> events = new ArrayList<>();
+        provider.emitStatusUpdates((StatusRecord record) ->
+                events.add(record.connector().getId() + "=" + record.status()));
+        return events;
+    }
+}
@@ -0,0 +1,144 @@
+package com.onnoto.onnoto_backend.ingestion.scheduler;
+
+import com.onnoto.onnoto_backend.ingestion.http.ProviderCircuitBreakers;
+import com.onnoto.onnoto_backend.ingestion.provider.StreamingDataProvider;
+import com.onnoto.onnoto_backend.ingestion.service.DataIngestionService;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.FavoriteStationRepository;
+import com.onnoto.onnoto_backend.repository.IngestionNodeRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository.StationChangeCountDto;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AdaptiveStatusSchedulerTest {
+
+    private final StreamingDataProvider provider = mock(StreamingDataProvider.class);
+    private final StreamingDataProvider bulkProvider = mock(StreamingDataProvider.class);
+    private final DataIngestionService dataIngestionService = mock(DataIngestionService.class);
+    private final StationRepository stationRepository = mock(StationRepository.class);
+    private final StatusHistoryRepository statusHistoryRepository = mock(StatusHistoryRepository.class);
+    private final FavoriteStationRepository favoriteStationRepository = mock(FavoriteStationRepository.class);
+    private final MockEnvironment environment = new MockEnvironment();
+    private final JobLeaseService jobLeaseService = mock(JobLeaseService.class);
+    private final AdaptiveStatusScheduler scheduler = new AdaptiveStatusScheduler(List.of(provider, bulkProvider),
+            dataIngestionService, stationRepository, statusHistoryRepository, favoriteStationRepository, environment,
+            jobLeaseService, new ShardMembership(mock(IngestionNodeRepository.class), jobLeaseService),
+            new ProviderCircuitBreakers(new MockEnvironment(), null, Clock.systemUTC()));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "tickMs", 30000L);
+        ReflectionTestUtils.setField(scheduler, "minInterval", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(scheduler, "maxInterval", Duration.ofMinutes(60));
+        ReflectionTestUtils.setField(scheduler, "pollsPerChange", 2.0);
+        ReflectionTestUtils.setField(scheduler, "favoriteFactor", 2.0);
+        ReflectionTestUtils.setField(scheduler, "historyDays", 7);
+        ReflectionTestUtils.setField(scheduler, "defaultCallsPerMinute", 60);
+
+        when(provider.getProviderName()).thenReturn("ELMO");
+        when(provider.supportsStationPolling()).thenReturn(true);
+        when(bulkProvider.getProviderName()).thenReturn("OpenChargeMap");
+        when(jobLeaseService.holdLeadership(AdaptiveStatusScheduler.POLLING_JOB)).thenReturn(true);
+        when(favoriteStationRepository.findFavoritedStationIds()).thenReturn(List.of());
+        when(statusHistoryRepository.countChangesByStationSince(any())).thenReturn(List.of());
+    }
+
+    private static Station station(String id) {
+        Station station = new Station();
+        station.setId(id);
+        return station;
+    }
+
+    private static StationChangeCountDto changes(String stationId, long changes) {
+        return new StationChangeCountDto() {
+            @Override
+            public String getStationId() {
+                return stationId;
+            }
+
+            @Override
+            public long getChanges() {
+                return changes;
+            }
+        };
+    }
+
+    @Test
+    void shouldPollVolatileAndFavoriteStationsMoreOften() {
+        when(provider.findPollableStations()).thenReturn(List.of(
+                station("elmo_busy"), station("elmo_quiet"), station("elmo_fav")));
+        // 168 changes a week is one an hour
+        when(statusHistoryRepository.countChangesByStationSince(any())).thenReturn(List.of(
+                changes("elmo_busy", 168 * 6)));
+        when(favoriteStationRepository.findFavoritedStationIds()).thenReturn(List.of("elmo_fav"));
+
+        scheduler.refreshSchedules();
+
+        var states = scheduler.states();
+        assertEquals(3, states.size());
+        assertEquals(Duration.ofMinutes(5), states.get("elmo_busy").interval);
+        assertEquals(Duration.ofMinutes(60), states.get("elmo_quiet").interval);
+        assertEquals(Duration.ofMinutes(30), states.get("elmo_fav").interval);
+        verify(bulkProvider, never()).findPollableStations();
+        assertTrue(scheduler.handles(provider));
+        assertFalse(scheduler.handles(bulkProvider));
+    }
+
+    @Test
+    void shouldPollMostOverdueStationsWithinBudget() throws Exception {
+        environment.setProperty("onnoto.ingestion.polling.elmo.calls-per-minute", "4");
+        when(provider.findPollableStations()).thenReturn(List.of(
+                station("elmo_1"), station("elmo_2"), station("elmo_3")));
+        scheduler.refreshSchedules();
+        Instant now = Instant.now();
+        scheduler.states().get("elmo_1").nextPollAt = now.minusSeconds(60);
+        scheduler.states().get("elmo_2").nextPollAt = now.minusSeconds(600);
+        scheduler.states().get("elmo_3").nextPollAt = now.minusSeconds(300);
+        scheduler.states().values().forEach(state -> state.interval = Duration.ofMinutes(20));
+        when(stationRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return ids.stream().map(AdaptiveStatusSchedulerTest::station).toList();
+        });
+        when(dataIngestionService.pollStations(eq(provider), any()))
+                .thenReturn(CompletableFuture.completedFuture(Set.of("elmo_2")));
+
+        scheduler.pollProvider(provider);
+
+        // 4 calls a minute is 2 per 30 s tick
+        verify(stationRepository).findAllById(List.of("elmo_2", "elmo_3"));
+        assertEquals(Duration.ofMinutes(10), scheduler.states().get("elmo_2").interval);
+        assertEquals(Duration.ofMinutes(30), scheduler.states().get("elmo_3").interval);
+        assertEquals(Duration.ofMinutes(20), scheduler.states().get("elmo_1").interval);
+        assertTrue(scheduler.states().get("elmo_1").nextPollAt.isBefore(now));
+    }
+
+    @Test
+    void shouldLeaveStatusUpdatesToFixedCycleWhenDisabled() {
+        ReflectionTestUtils.setField(scheduler, "enabled", false);
+
+        scheduler.refreshSchedules();
+        scheduler.pollDueStations();
+
+        assertFalse(scheduler.handles(provider));
+        verifyNoInteractions(statusHistoryRepository, dataIngestionService);
+    }
+}
@@ -0,0 +1,153 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import com.onnoto.onnoto_backend.ingestion.dedupe.StationDeduplicator;
+import com.onnoto.onnoto_backend.ingestion.http.ProviderCircuitBreakers;
+import com.onnoto.onnoto_backend.ingestion.pipeline.IngestionPipeline;
+import com.onnoto.onnoto_backend.ingestion.provider.BaseDataProvider;
+import com.onnoto.onnoto_backend.ingestion.provider.DataProvider;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationSnapshot;
+import com.onnoto.onnoto_backend.ingestion.record.StatusRecord;
+import com.onnoto.onnoto_backend.ingestion.shard.ShardMembership;
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.IngestionNodeRepository;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DataIngestionServiceTest {
+
+    private final StationUpsertService stationUpsertService = mock(StationUpsertService.class);
+    private final StatusUpdateWriter statusUpdateWriter = mock(StatusUpdateWriter.class);
+    private final IngestionPipeline pipeline = pipeline(stationUpsertService);
+    private final ShardMembership shardMembership = new ShardMembership(mock(IngestionNodeRepository.class),
+            mock(JobLeaseService.class));
+    private final ProviderCircuitBreakers circuitBreakers = new ProviderCircuitBreakers(new MockEnvironment(), null,
+            Clock.systemUTC());
+
+    static IngestionPipeline pipeline(StationUpsertService stationUpsertService) {
+        IngestionPipeline pipeline = new IngestionPipeline(stationUpsertService, mock(StationDeduplicator.class),
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 16);
+        ReflectionTestUtils.setField(pipeline, "parseWorkers", 2);
+        ReflectionTestUtils.setField(pipeline, "dedupeWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "writeWorkers", 2);
+        ReflectionTestUtils.setField(pipeline, "writeBatchSize", 10);
+        ReflectionTestUtils.setField(pipeline, "writeLingerMs", 5L);
+        pipeline.start();
+        return pipeline;
+    }
+
+    @AfterEach
+    void stopPipeline() {
+        pipeline.stop();
+    }
+
+    /**
+     * Provider that emits generated records, optionally failing part-way.
+     */
+    private static class TestProvider extends BaseDataProvider {
+        private final String name;
+        private final int count;
+        private final boolean fail;
+
+        TestProvider(String name, int count, boolean fail,
+                     StationUpsertService stationUpsertService, StatusUpdateWriter statusUpdateWriter) {
+            super(null, null, null, null, stationUpsertService, statusUpdateWriter);
+            this.name = name;
+            this.count = count;
+            this.fail = fail;
+        }
+
+        @Override
+        public String getProviderName() {
+            return name;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        protected void emitStations(Consumer<StationSnapshot> sink) {
+            for (int i = 0; i < count; i++) {
+                if (fail && i == count / 2) {
+                    throw new IllegalStateException("API went away");
+                }
+                sink.accept(StationSnapshot.of(new StationRecord(name + "_" + i, "Station " + i, null, null,
+                        BigDecimal.ONE, BigDecimal.ONE, null, null, null, "EE"), List.of()));
+            }
+        }
+
+        @Override
+        protected void emitStatusUpdates(Consumer<StatusRecord> sink) {
+            for (int i = 0; i < count; i++) {
+                Station station = new Station();
+                station.setId(name + "_" + (i % 3));
+                sink.accept(new StatusRecord(station, new Connector(), "AVAILABLE", name));
+            }
+        }
+    }
+
+    @Test
+    void shouldWriteEveryStreamedStation() throws Exception {
+        when(stationUpsertService.upsert(any(), any(), any(), any(), any()))
+                .thenReturn(new StationUpsertService.UpsertResult(new Station(), SyncReport.Outcome.INSERTED));
+        TestProvider provider = new TestProvider("A", 1000, false, stationUpsertService, statusUpdateWriter);
+
+        DataIngestionService service = new DataIngestionService(
+                List.<DataProvider>of(provider), pipeline, statusUpdateWriter, shardMembership,
+                circuitBreakers);
+        service.fetchAllStations().get(10, TimeUnit.SECONDS);
+
+        verify(stationUpsertService, times(1000)).upsert(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldIsolateFailingProvider() throws Exception {
+        when(stationUpsertService.upsert(any(), any(), any(), any(), any()))
+                .thenReturn(new StationUpsertService.UpsertResult(new Station(), SyncReport.Outcome.UNCHANGED));
+        TestProvider healthy = new TestProvider("A", 100, false, stationUpsertService, statusUpdateWriter);
+        TestProvider failing = new TestProvider("B", 100, true, stationUpsertService, statusUpdateWriter);
+
+        DataIngestionService service = new DataIngestionService(
+                List.<DataProvider>of(healthy, failing), pipeline, statusUpdateWriter, shardMembership,
+                circuitBreakers);
+        service.fetchAllStations().get(10, TimeUnit.SECONDS);
+
+        // The healthy provider is unaffected by the other one breaking part-way
+        verify(stationUpsertService, times(100))
+                .upsert(argThat(s -> s.id().startsWith("A_")), any(), any(), any(), any());
+        verify(stationUpsertService, atMost(50))
+                .upsert(argThat(s -> s.id().startsWith("B_")), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldWriteStatusesAndStampStationsOnce() throws Exception {
+        TestProvider provider = new TestProvider("A", 30, false, stationUpsertService, statusUpdateWriter);
+
+        DataIngestionService service = new DataIngestionService(
+                List.<DataProvider>of(provider), pipeline, statusUpdateWriter, shardMembership,
+                circuitBreakers);
+        service.fetchStatusUpdates().get(10, TimeUnit.SECONDS);
+
+        verify(statusUpdateWriter, times(30)).write(any(StatusRecord.class));
+        verify(statusUpdateWriter).touchStations(argThat(ids -> ids.size() == 3));
+    }
+}
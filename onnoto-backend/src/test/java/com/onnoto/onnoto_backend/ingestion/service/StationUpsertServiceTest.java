@@ -0,0 +1,174 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import com.onnoto.onnoto_backend.ingestion.record.ConnectorRecord;
+import com.onnoto.onnoto_backend.ingestion.record.StationRecord;
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Network;
+import com.onnoto.onnoto_backend.model.Operator;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StationUpsertServiceTest {
+
+    @Mock
+    private StationRepository stationRepository;
+
+    @Mock
+    private ConnectorRepository connectorRepository;
+
+    @Mock
+    private StatusHistoryRepository statusHistoryRepository;
+
+    @InjectMocks
+    private StationUpsertService stationUpsertService;
+
+    private Network network;
+    private Operator operator;
+    private SyncReport report;
+
+    @BeforeEach
+    void setUp() {
+        network = new Network();
+        network.setId("elmo");
+        operator = new Operator();
+        operator.setId("enefit");
+        report = new SyncReport("TEST");
+    }
+
+    private StationRecord record(String name) {
+        return new StationRecord("elmo_001", name, network, operator,
+                new BigDecimal("59.4372"), new BigDecimal("24.7539"), "Viru väljak 4", "Tallinn", "10111", "EE");
+    }
+
+    private List<ConnectorRecord> connectors() {
+        return List.of(
+                new ConnectorRecord("CCS", new BigDecimal("50.0"), "DC", "AVAILABLE"),
+                new ConnectorRecord("Type 2", new BigDecimal("22.0"), "AC", "AVAILABLE"));
+    }
+
+    private Station stored(StationRecord record, List<ConnectorRecord> connectors) {
+        Station station = new Station();
+        station.setId(record.id());
+        station.setName(record.name());
+        station.setContentHash(record.fingerprint());
+        station.setConnectorHash(ConnectorRecord.fingerprint(connectors));
+        return station;
+    }
+
+    @Test
+    void shouldInsertNewStationWithConnectors() {
+        when(stationRepository.findById("elmo_001")).thenReturn(Optional.empty());
+        when(stationRepository.save(any(Station.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        StationUpsertService.UpsertResult result = stationUpsertService.upsert(record("Viru Keskus"), connectors(), report);
+
+        assertEquals(SyncReport.Outcome.INSERTED, result.outcome());
+        assertNotNull(result.station().getContentHash());
+        assertNotNull(result.station().getCreatedAt());
+        verify(connectorRepository, times(2)).save(any(Connector.class));
+        assertEquals(1, report.getInserted());
+    }
+
+    @Test
+    void shouldSkipWritesWhenFingerprintsMatch() {
+        StationRecord record = record("Viru Keskus");
+        when(stationRepository.findById("elmo_001")).thenReturn(Optional.of(stored(record, connectors())));
+
+        // Same payload with a different precision and connector order
+        StationRecord samePayload = new StationRecord("elmo_001", " Viru Keskus ", network, operator,
+                new BigDecimal("59.437200"), new BigDecimal("24.75390"), "Viru väljak 4", "Tallinn", "10111", "EE");
+        List<ConnectorRecord> reordered = List.of(
+                new ConnectorRecord("Type 2", new BigDecimal("22"), "AC", "OCCUPIED"),
+                new ConnectorRecord("CCS", new BigDecimal("50.00"), "DC", "AVAILABLE"));
+
+        StationUpsertService.UpsertResult result = stationUpsertService.upsert(samePayload, reordered, report);
+
+        assertEquals(SyncReport.Outcome.UNCHANGED, result.outcome());
+        verify(stationRepository, never()).save(any());
+        verifyNoInteractions(connectorRepository);
+        assertEquals(1, report.getUnchanged());
+    }
+
+    @Test
+    void shouldUpdateOnlyStationRowWhenConnectorsAreUnchanged() {
+        when(stationRepository.findById("elmo_001"))
+                .thenReturn(Optional.of(stored(record("Viru Keskus"), connectors())));
+        when(stationRepository.save(any(Station.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        StationUpsertService.UpsertResult result = stationUpsertService.upsert(record("Viru Keskus Parkla"), connectors(), report);
+
+        assertEquals(SyncReport.Outcome.UPDATED, result.outcome());
+        assertEquals("Viru Keskus Parkla", result.station().getName());
+        assertEquals(record("Viru Keskus Parkla").fingerprint(), result.station().getContentHash());
+        verifyNoInteractions(connectorRepository);
+        assertEquals(1, report.getUpdated());
+    }
+
+    @Test
+    void shouldReconcileChangedConnectorsAndKeepOnesWithHistory() {
+        StationRecord record = record("Viru Keskus");
+        Station station = stored(record, connectors());
+        when(stationRepository.findById("elmo_001")).thenReturn(Optional.of(station));
+        when(stationRepository.save(any(Station.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Connector ccs = connector(station, "CCS", "50.0", "DC");
+        Connector type2 = connector(station, "Type 2", "22.0", "AC");
+        when(connectorRepository.findByStation(station)).thenReturn(List.of(ccs, type2));
+        when(statusHistoryRepository.existsByConnector(type2)).thenReturn(false);
+
+        // Type 2 replaced by CHAdeMO
+        List<ConnectorRecord> changed = List.of(
+                new ConnectorRecord("CCS", new BigDecimal("50.0"), "DC", "AVAILABLE"),
+                new ConnectorRecord("CHAdeMO", new BigDecimal("50.0"), "DC", "AVAILABLE"));
+
+        StationUpsertService.UpsertResult result = stationUpsertService.upsert(record, changed, report);
+
+        assertEquals(SyncReport.Outcome.UPDATED, result.outcome());
+        verify(connectorRepository).save(argThat(c -> "CHAdeMO".equals(c.getConnectorType())));
+        verify(connectorRepository).delete(type2);
+        verify(connectorRepository, never()).delete(ccs);
+        assertEquals(ConnectorRecord.fingerprint(changed), result.station().getConnectorHash());
+    }
+
+    @Test
+    void shouldAdoptExistingConnectorsForStationsWithoutFingerprint() {
+        Station legacy = new Station();
+        legacy.setId("elmo_001");
+        when(stationRepository.findById("elmo_001")).thenReturn(Optional.of(legacy));
+        when(stationRepository.save(any(Station.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(connectorRepository.countByStationId("elmo_001")).thenReturn(3);
+
+        StationUpsertService.UpsertResult result = stationUpsertService.upsert(record("Viru Keskus"), connectors(), report);
+
+        assertEquals(SyncReport.Outcome.UPDATED, result.outcome());
+        assertEquals(ConnectorRecord.fingerprint(connectors()), result.station().getConnectorHash());
+        verify(connectorRepository, never()).save(any());
+        verify(connectorRepository, never()).delete(any());
+    }
+
+    private Connector connector(Station station, String type, String power, String currentType) {
+        Connector connector = new Connector();
+        connector.setStation(station);
+        connector.setConnectorType(type);
+        connector.setPowerKw(new BigDecimal(power));
+        connector.setCurrentType(currentType);
+        return connector;
+    }
+}
@@ -0,0 +1,93 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.model.StatusInterval;
+import com.onnoto.onnoto_backend.repository.StatusIntervalRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class StatusIntervalRecorderTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 3, 4, 10, 0);
+
+    private final StatusIntervalRepository repository = mock(StatusIntervalRepository.class);
+    private final StatusIntervalRecorder recorder = new StatusIntervalRecorder(repository);
+
+    private static Connector connector() {
+        Station station = new Station();
+        station.setId("elmo_1");
+        Connector connector = new Connector();
+        connector.setId(7L);
+        connector.setStation(station);
+        return connector;
+    }
+
+    private static StatusInterval interval(String status, LocalDateTime start, LocalDateTime end) {
+        StatusInterval interval = new StatusInterval();
+        interval.setStatus(status);
+        interval.setStartedAt(start);
+        interval.setEndedAt(end);
+        return interval;
+    }
+
+    private List<StatusInterval> saved() {
+        ArgumentCaptor<StatusInterval> captor = ArgumentCaptor.forClass(StatusInterval.class);
+        verify(repository, atLeastOnce()).save(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void shouldCloseOpenIntervalAndOpenNewOne() {
+        Connector connector = connector();
+        StatusInterval open = interval("AVAILABLE", T0, null);
+        when(repository.findCovering(connector, T0.plusHours(2))).thenReturn(List.of(open));
+
+        recorder.record(connector, "OCCUPIED", T0.plusHours(2));
+
+        List<StatusInterval> saved = saved();
+        assertEquals(T0.plusHours(2), open.getEndedAt());
+        StatusInterval next = saved.get(1);
+        assertEquals("OCCUPIED", next.getStatus());
+        assertEquals("elmo_1", next.getStationId());
+        assertEquals(T0.plusHours(2), next.getStartedAt());
+        assertNull(next.getEndedAt());
+    }
+
+    @Test
+    void shouldSplitIntervalForReplayedPastChange() {
+        Connector connector = connector();
+        StatusInterval closed = interval("AVAILABLE", T0, T0.plusHours(4));
+        when(repository.findCovering(connector, T0.plusHours(1))).thenReturn(List.of(closed));
+
+        recorder.record(connector, "OFFLINE", T0.plusHours(1));
+
+        assertEquals(T0.plusHours(1), closed.getEndedAt());
+        StatusInterval inserted = saved().get(1);
+        assertEquals("OFFLINE", inserted.getStatus());
+        assertEquals(T0.plusHours(4), inserted.getEndedAt());
+    }
+
+    @Test
+    void shouldEndChangeBeforeFirstIntervalWhereTheNextOneStarts() {
+        Connector connector = connector();
+        when(repository.findCovering(connector, T0)).thenReturn(List.of());
+        when(repository.findFirstByConnectorAndStartedAtAfterOrderByStartedAtAsc(connector, T0))
+                .thenReturn(Optional.of(interval("AVAILABLE", T0.plusMinutes(30), null)));
+
+        recorder.record(connector, "OFFLINE", T0);
+
+        StatusInterval inserted = saved().get(0);
+        assertEquals(T0, inserted.getStartedAt());
+        assertEquals(T0.plusMinutes(30), inserted.getEndedAt());
+        verify(repository, times(1)).save(any());
+    }
+}
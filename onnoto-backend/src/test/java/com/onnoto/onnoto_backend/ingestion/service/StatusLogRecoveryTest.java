@@ -0,0 +1,124 @@
+package com.onnoto.onnoto_backend.ingestion.service;
+
+import com.onnoto.onnoto_backend.events.StatusEventBus;
+import com.onnoto.onnoto_backend.events.StatusEventLog;
+import com.onnoto.onnoto_backend.ingestion.dedupe.StationDeduplicator;
+import com.onnoto.onnoto_backend.model.Connector;
+import com.onnoto.onnoto_backend.model.Station;
+import com.onnoto.onnoto_backend.model.StatusHistory;
+import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.StationRepository;
+import com.onnoto.onnoto_backend.repository.StatusHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class StatusLogRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    private final ConnectorRepository connectorRepository = mock(ConnectorRepository.class);
+    private final StatusHistoryRepository statusHistoryRepository = mock(StatusHistoryRepository.class);
+    private final List<StatusHistory> history = new ArrayList<>();
+    private StatusEventLog statusEventLog;
+    private StatusUpdateWriter writer;
+    private StatusLogRecovery recovery;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        statusEventLog = new StatusEventLog(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statusEventLog, "enabled", true);
+        ReflectionTestUtils.setField(statusEventLog, "dir", dir.toString());
+        ReflectionTestUtils.setField(statusEventLog, "rollInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(statusEventLog, "segmentMaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(statusEventLog, "retention", Duration.ofDays(14));
+        statusEventLog.open();
+
+        writer = new StatusUpdateWriter(connectorRepository, statusHistoryRepository, mock(StationRepository.class),
+                mock(StationDeduplicator.class), mock(StatusEventBus.class), statusEventLog,
+                mock(StatusIntervalRecorder.class), new SimpleMeterRegistry());
+        recovery = new StatusLogRecovery(statusEventLog, writer);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        statusEventLog.close();
+    }
+
+    private static Connector connector(long id) {
+        Station station = new Station();
+        station.setId("s" + id);
+        Connector connector = new Connector();
+        connector.setId(id);
+        connector.setStation(station);
+        connector.setStatus("AVAILABLE");
+        return connector;
+    }
+
+    @Test
+    void shouldKeepChangesInLogWhileDatabaseIsDownAndWriteThemOnceItIsBack() {
+        Connector first = connector(1);
+        Connector second = connector(2);
+        when(connectorRepository.save(any())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        assertTrue(writer.write(first, "OCCUPIED", "test"));
+        assertTrue(writer.write(second, "OFFLINE", "test"));
+        assertEquals(0, statusEventLog.pendingOffset());
+
+        // Still down: nothing written, still pending
+        when(connectorRepository.findById(1L)).thenReturn(Optional.of(connector(1)));
+        when(connectorRepository.findById(2L)).thenReturn(Optional.of(connector(2)));
+        recovery.recover();
+        assertEquals(0, statusEventLog.pendingOffset());
+
+        // Back up
+        reset(connectorRepository);
+        when(connectorRepository.findById(1L)).thenReturn(Optional.of(connector(1)));
+        when(connectorRepository.findById(2L)).thenReturn(Optional.of(connector(2)));
+        when(statusHistoryRepository.save(any())).thenAnswer(invocation -> {
+            history.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        recovery.recover();
+
+        assertEquals(-1, statusEventLog.pendingOffset());
+        assertEquals(List.of("OCCUPIED", "OFFLINE"), history.stream().map(StatusHistory::getStatus).toList());
+        verify(connectorRepository, times(2)).save(any());
+    }
+
+    @Test
+    void shouldSkipChangesAlreadyInHistoryAndKeepNewerConnectorStatus() {
+        long offset = statusEventLog.append("s1", 1L, "AVAILABLE", "OCCUPIED", "test", System.currentTimeMillis());
+        statusEventLog.markPending(offset);
+        statusEventLog.append("s1", 1L, "OCCUPIED", "AVAILABLE", "test", System.currentTimeMillis());
+
+        Connector stored = connector(1);
+        stored.setLastStatusUpdate(LocalDateTime.now().plusMinutes(5));
+        when(connectorRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(statusHistoryRepository.existsByConnectorAndRecordedAt(any(), any())).thenReturn(false, true);
+
+        recovery.recover();
+
+        assertEquals(-1, statusEventLog.pendingOffset());
+        verify(statusHistoryRepository, times(1)).save(any());
+        verify(connectorRepository, never()).save(any());
+        assertEquals("AVAILABLE", stored.getStatus());
+    }
+}
@@ -0,0 +1,106 @@
+package com.onnoto.onnoto_backend.ingestion.shard;
+
+import com.onnoto.onnoto_backend.repository.IngestionNodeRepository;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.*;
+
+public class ShardMembershipTest {
+
+    private static final int SHARDS = 64;
+
+    private static ShardMembership member(String nodeId, IngestionNodeRepository repository) {
+        JobLeaseService jobLeaseService = mock(JobLeaseService.class);
+        when(jobLeaseService.getNodeId()).thenReturn(nodeId);
+        ShardMembership membership = new ShardMembership(repository, jobLeaseService);
+        ReflectionTestUtils.setField(membership, "enabled", true);
+        ReflectionTestUtils.setField(membership, "shardCount", SHARDS);
+        ReflectionTestUtils.setField(membership, "nodeTimeout", Duration.ofSeconds(60));
+        return membership;
+    }
+
+    private static Map<Integer, String> owners(List<String> nodes) {
+        Map<Integer, String> owners = new HashMap<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            owners.put(shard, ShardMembership.ownerOf("shard:" + shard, nodes));
+        }
+        return owners;
+    }
+
+    @Test
+    void shouldGiveEveryStationToExactlyOneNode() {
+        List<String> nodes = List.of("node-a", "node-b", "node-c");
+        List<ShardMembership> members = new ArrayList<>();
+        for (String node : nodes) {
+            ShardMembership member = member(node, mock(IngestionNodeRepository.class));
+            member.update(nodes);
+            members.add(member);
+        }
+
+        int[] perNode = new int[nodes.size()];
+        for (int i = 0; i < 3000; i++) {
+            String stationId = "elmo_" + i;
+            List<Integer> owning = IntStream.range(0, members.size())
+                    .filter(m -> members.get(m).ownsStation(stationId))
+                    .boxed().toList();
+            assertEquals(1, owning.size(), stationId);
+            perNode[owning.get(0)]++;
+        }
+        for (int count : perNode) {
+            assertTrue(count > 500, "unbalanced: " + count);
+        }
+        assertEquals(1, members.stream().filter(m -> m.ownsProvider("OpenChargeMap")).count());
+    }
+
+    @Test
+    void shouldOnlyMoveShardsOfJoiningOrLeavingNode() {
+        Map<Integer, String> before = owners(List.of("node-a", "node-b", "node-c"));
+        Map<Integer, String> joined = owners(List.of("node-a", "node-b", "node-c", "node-d"));
+        Map<Integer, String> left = owners(List.of("node-a", "node-c"));
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            // A joining node only takes shards, it never shuffles others
+            if (!joined.get(shard).equals("node-d")) {
+                assertEquals(before.get(shard), joined.get(shard));
+            }
+            // Only the leaving node's shards move
+            if (!before.get(shard).equals("node-b")) {
+                assertEquals(before.get(shard), left.get(shard));
+            }
+        }
+        assertTrue(joined.containsValue("node-d"));
+    }
+
+    @Test
+    void shouldOwnNothingBeforeFirstHeartbeatAndRebalanceFromMembershipTable() {
+        IngestionNodeRepository repository = mock(IngestionNodeRepository.class);
+        ShardMembership member = member("node-a", repository);
+        assertFalse(member.ownsStation("elmo_1"));
+
+        when(repository.findLiveNodeIds(anyDouble())).thenReturn(List.of("node-a"));
+        member.heartbeat();
+        verify(repository).heartbeat("node-a");
+        assertTrue(IntStream.range(0, 100).allMatch(i -> member.ownsStation("elmo_" + i)));
+        int version = member.assignmentVersion();
+
+        // Unchanged membership keeps the assignment
+        member.heartbeat();
+        assertEquals(version, member.assignmentVersion());
+
+        when(repository.findLiveNodeIds(anyDouble())).thenReturn(List.of("node-a", "node-b"));
+        member.heartbeat();
+        assertEquals(version + 1, member.assignmentVersion());
+        assertFalse(IntStream.range(0, 100).allMatch(i -> member.ownsStation("elmo_" + i)));
+    }
+}
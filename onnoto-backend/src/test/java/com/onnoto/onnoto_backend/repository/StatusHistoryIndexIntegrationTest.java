@@ -0,0 +1,101 @@
+package com.onnoto.onnoto_backend.repository;
+
+import com.onnoto.onnoto_backend.db.migration.DatabaseMigration;
+import com.onnoto.onnoto_backend.db.partition.StatusHistoryPartitionManager;
+import com.onnoto.onnoto_backend.service.JobLeaseService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks with EXPLAIN that the status history queries of the analytics read through the
+ * composite indexes instead of scanning the partitions.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class StatusHistoryIndexIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.3")
+                    .asCompatibleSubstituteFor("postgres"))
+            .withDatabaseName("onnoto-test")
+            .withUsername("test")
+            .withPassword("test");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrateAndFill() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        StatusHistoryPartitionManager partitionManager = new StatusHistoryPartitionManager(
+                jdbcTemplate, new DataSourceTransactionManager(dataSource), mock(JobLeaseService.class));
+        new DatabaseMigration().initDatabase(dataSource, partitionManager).run();
+
+        // 100 stations with 2 connectors, 100 status changes per connector over the last day and a half
+        jdbcTemplate.execute("INSERT INTO networks (id, name) VALUES ('net', 'Network')");
+        jdbcTemplate.execute("INSERT INTO stations (id, name, network_id, latitude, longitude) " +
+                "SELECT 'st_' || s, 'Station ' || s, 'net', 59.4, 24.7 FROM generate_series(1, 100) s");
+        jdbcTemplate.execute("INSERT INTO connectors (station_id, connector_type, status) " +
+                "SELECT 'st_' || s, 'CCS', 'AVAILABLE' FROM generate_series(1, 100) s, generate_series(1, 2) c");
+        jdbcTemplate.execute("INSERT INTO status_history (station_id, connector_id, status, source, recorded_at) " +
+                "SELECT c.station_id, c.id, CASE WHEN n % 2 = 0 THEN 'AVAILABLE' ELSE 'OCCUPIED' END, 'test', " +
+                "now() - n * interval '20 minutes' FROM connectors c, generate_series(1, 100) n");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private static String explain(String sql) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", plan);
+    }
+
+    private static void assertIndexScan(String sql) {
+        String plan = explain(sql);
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertTrue(plan.contains("Index Scan") || plan.contains("Index Only Scan"), plan);
+    }
+
+    @Test
+    void shouldFindConnectorHistoryInTimeRangeByIndex() {
+        // findByConnectorAndRecordedAtBetween
+        assertIndexScan("SELECT * FROM status_history WHERE connector_id = 7 " +
+                "AND recorded_at BETWEEN now() - interval '1 day' AND now()");
+        // findLatestByConnector
+        assertIndexScan("SELECT * FROM status_history WHERE connector_id = 7 ORDER BY recorded_at DESC");
+    }
+
+    @Test
+    void shouldCountStationStatusesByIndex() {
+        // countStatusesByStation
+        assertIndexScan("SELECT status, COUNT(*) FROM status_history WHERE station_id = 'st_42' " +
+                "AND recorded_at BETWEEN now() - interval '1 day' AND now() GROUP BY status");
+        // countStatusTransitions
+        String plan = explain("SELECT COUNT(*) FROM (" +
+                "SELECT status, LAG(status) OVER (ORDER BY recorded_at) as prev_status FROM status_history " +
+                "WHERE station_id = 'st_42' AND recorded_at BETWEEN now() - interval '1 day' AND now()" +
+                ") as subquery WHERE status != prev_status");
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertTrue(plan.contains("idx_status_history_station_time") || plan.contains("station_id_recorded_at"), plan);
+    }
+
+    @Test
+    void shouldReplaceSingleColumnIndexesWithCompositeAndBrinIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname::text FROM pg_indexes WHERE tablename = 'status_history'", String.class);
+        assertTrue(indexes.containsAll(List.of("idx_status_history_connector_time",
+                "idx_status_history_station_time", "idx_status_history_time_brin")), indexes.toString());
+        assertFalse(indexes.contains("idx_status_history_connector"), indexes.toString());
+    }
+}
@@ -0,0 +1,80 @@
+package com.onnoto.onnoto_backend.service;
+
+import com.onnoto.onnoto_backend.repository.JobLeaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class JobLeaseServiceTest {
+
+    private final JobLeaseRepository jobLeaseRepository = mock(JobLeaseRepository.class);
+    private final JobLeaseService jobLeaseService = new JobLeaseService(jobLeaseRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jobLeaseService, "enabled", true);
+        ReflectionTestUtils.setField(jobLeaseService, "leaseTime", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(jobLeaseService, "heartbeatInterval", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(jobLeaseService, "nodeId", "node-a");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobLeaseService.stop();
+    }
+
+    @Test
+    void shouldRunOnlyWhenLeaseIsTakenAndHoldItForMinimumPeriod() {
+        AtomicInteger runs = new AtomicInteger();
+        when(jobLeaseRepository.tryAcquire("job", "node-a", 300.0)).thenReturn(1, 0);
+
+        assertTrue(jobLeaseService.runExclusively("job", Duration.ofMinutes(30), runs::incrementAndGet));
+        assertFalse(jobLeaseService.runExclusively("job", Duration.ofMinutes(30), runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+        verify(jobLeaseRepository).release("job", "node-a", 1800.0, "COMPLETED");
+    }
+
+    @Test
+    void shouldRenewLeaseWhileAsyncJobRunsAndRecordFailure() throws Exception {
+        when(jobLeaseRepository.tryAcquire(any(), any(), anyDouble())).thenReturn(1);
+        CompletableFuture<Void> run = new CompletableFuture<>();
+
+        assertTrue(jobLeaseService.runExclusivelyAsync("sync", Duration.ofHours(1), () -> run));
+        verify(jobLeaseRepository, timeout(2000).atLeast(2)).renew("sync", "node-a", 300.0);
+        verify(jobLeaseRepository, never()).release(any(), any(), anyDouble(), any());
+
+        run.completeExceptionally(new IllegalStateException("provider down"));
+        verify(jobLeaseRepository).release("sync", "node-a", 3600.0, "FAILED: provider down");
+
+        // No more heartbeats once released
+        clearInvocations(jobLeaseRepository);
+        Thread.sleep(100);
+        verify(jobLeaseRepository, never()).renew(any(), any(), anyDouble());
+    }
+
+    @Test
+    void shouldSkipJobsWhenLeaseTableIsUnreachableAndRunDirectlyWhenDisabled() {
+        AtomicInteger runs = new AtomicInteger();
+        when(jobLeaseRepository.tryAcquire(any(), any(), anyDouble()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        assertFalse(jobLeaseService.runExclusively("job", Duration.ofMinutes(1), runs::incrementAndGet));
+        assertFalse(jobLeaseService.holdLeadership("polling"));
+
+        ReflectionTestUtils.setField(jobLeaseService, "enabled", false);
+        assertTrue(jobLeaseService.runExclusively("job", Duration.ofMinutes(1), runs::incrementAndGet));
+        assertTrue(jobLeaseService.holdLeadership("polling"));
+        assertEquals(1, runs.get());
+    }
+}
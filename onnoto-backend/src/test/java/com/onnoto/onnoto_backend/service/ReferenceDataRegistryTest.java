@@ -0,0 +1,72 @@
+package com.onnoto.onnoto_backend.service;
+
+import com.onnoto.onnoto_backend.model.Network;
+import com.onnoto.onnoto_backend.model.Operator;
+import com.onnoto.onnoto_backend.repository.NetworkRepository;
+import com.onnoto.onnoto_backend.repository.OperatorRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReferenceDataRegistryTest {
+
+    private final NetworkRepository networkRepository = mock(NetworkRepository.class);
+    private final OperatorRepository operatorRepository = mock(OperatorRepository.class);
+    private final ReferenceDataRegistry registry = new ReferenceDataRegistry(networkRepository, operatorRepository);
+
+    private static Network network(String id, String name) {
+        Network network = new Network();
+        network.setId(id);
+        network.setName(name);
+        return network;
+    }
+
+    @Test
+    void shouldLoadOnceAndServeLookupsFromMemory() {
+        when(networkRepository.findAll()).thenReturn(List.of(network("elmo", "ELMO")));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("ELMO", registry.findNetwork("elmo").orElseThrow().getName());
+        }
+
+        verify(networkRepository, times(1)).findAll();
+        verify(operatorRepository, times(1)).findAll();
+        verify(networkRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldReadThroughAndCreateMissingRowsOnce() {
+        when(operatorRepository.findById("google_abc")).thenReturn(Optional.empty());
+        when(operatorRepository.save(any(Operator.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        for (int i = 0; i < 10; i++) {
+            registry.getOrCreateOperator("google_abc", () -> {
+                Operator operator = new Operator();
+                operator.setId("google_abc");
+                operator.setName("ABC");
+                return operator;
+            });
+        }
+
+        verify(operatorRepository, times(1)).findById("google_abc");
+        verify(operatorRepository, times(1)).save(any(Operator.class));
+        assertEquals("ABC", registry.findOperator("google_abc").orElseThrow().getName());
+    }
+
+    @Test
+    void shouldPickUpChangedRowsOnRefresh() {
+        when(networkRepository.findAll()).thenReturn(List.of(network("elmo", "ELMO"), network("old", "Old")));
+        assertTrue(registry.findNetwork("old").isPresent());
+
+        when(networkRepository.findAll()).thenReturn(List.of(network("elmo", "Enefit Volt")));
+        registry.refresh();
+
+        assertEquals("Enefit Volt", registry.findNetwork("elmo").orElseThrow().getName());
+        assertTrue(registry.findNetwork("old").isEmpty());
+    }
+}
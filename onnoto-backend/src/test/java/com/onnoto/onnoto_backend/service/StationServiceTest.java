@@ -9,12 +9,15 @@ import com.onnoto.onnoto_backend.model.Network;
 import com.onnoto.onnoto_backend.model.Operator;
 import com.onnoto.onnoto_backend.model.Station;
 import com.onnoto.onnoto_backend.repository.ConnectorRepository;
+import com.onnoto.onnoto_backend.repository.NetworkRepository;
+import com.onnoto.onnoto_backend.repository.OperatorRepository;
 import com.onnoto.onnoto_backend.repository.StationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -40,6 +43,10 @@ public class StationServiceTest {
     @Mock
     private ReliabilityService reliabilityService;
 
+    @Spy
+    private ReferenceDataRegistry referenceData =
+            new ReferenceDataRegistry(mock(NetworkRepository.class), mock(OperatorRepository.class));
+
     @InjectMocks
     private StationService stationService;
 
@@ -83,7 +90,7 @@ public class StationServiceTest {
     @Test
     void getAllStationsShouldReturnMappedDTOs() {
         // Given
-        when(stationRepository.findAll()).thenReturn(Collections.singletonList(testStation));
+        when(stationRepository.findAllCanonical()).thenReturn(Collections.singletonList(testStation));
         when(connectorRepository.findByStation(any(Station.class))).thenReturn(Collections.singletonList(testConnector));
 
         // When
@@ -104,7 +111,7 @@ public class StationServiceTest {
         assertEquals(1, response.getTotalConnectors());
         assertEquals(1, response.getAvailableConnectors());
 
-        verify(stationRepository).findAll();
+        verify(stationRepository).findAllCanonical();
         verify(connectorRepository).findByStation(testStation);
     }
 
@@ -157,7 +164,7 @@ public class StationServiceTest {
         StationFilterRequest request = new StationFilterRequest();
         request.setCity("Tallinn");
 
-        when(stationRepository.findAll()).thenReturn(Arrays.asList(testStation));
+        when(stationRepository.findAllCanonical()).thenReturn(Arrays.asList(testStation));
         when(connectorRepository.findByStation(any(Station.class))).thenReturn(Collections.singletonList(testConnector));
 
         // When
@@ -168,7 +175,7 @@ public class StationServiceTest {
         assertEquals(1, result.size());
         assertEquals("elmo_001", result.get(0).getId());
 
-        verify(stationRepository).findAll();
+        verify(stationRepository).findAllCanonical();
     }
 
     @Test